@@ -21,7 +21,9 @@
  */
 package org.wildfly.clustering.dispatcher;
 
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Future;
 
 import org.wildfly.clustering.group.Node;
@@ -84,6 +86,41 @@ public interface CommandDispatcher<C> extends AutoCloseable {
      */
     <R> Map<Node, Future<R>> submitOnCluster(Command<R, ? super C> command, Node... excludedNodes) throws CommandDispatcherException;
 
+    /**
+     * Executes the specified command on the specified node, without blocking the caller.
+     * The default implementation adapts the {@link Future} returned by {@link #submitOnNode(Command, Node)}, which only
+     * avoids blocking the caller if that future is also a {@link CompletionStage}.
+     *
+     * @param <R>     the return value type
+     * @param command the command to execute
+     * @param node    the node to execute the command on
+     * @return a stage completed with the result of the command execution, or exceptionally if the command failed
+     * @throws CommandDispatcherException if the command could not be sent
+     */
+    default <R> CompletionStage<R> executeOnNodeAsync(Command<R, ? super C> command, Node node) throws CommandDispatcherException {
+        return FutureCompletionStage.of(this.submitOnNode(command, node));
+    }
+
+    /**
+     * Executes the specified command on all nodes in the group, excluding the specified nodes, without blocking the caller.
+     * The default implementation adapts the {@link Future}s returned by {@link #submitOnCluster(Command, Node...)}, which
+     * only avoids blocking the caller if those futures are also {@link CompletionStage}s.
+     *
+     * @param <R>           the return value type
+     * @param command       the command to execute
+     * @param excludedNodes the set of nodes to exclude
+     * @return a map of stages completed with the command execution result per node
+     * @throws CommandDispatcherException if the command could not be broadcast
+     */
+    default <R> Map<Node, CompletionStage<R>> executeOnClusterAsync(Command<R, ? super C> command, Node... excludedNodes) throws CommandDispatcherException {
+        Map<Node, Future<R>> futures = this.submitOnCluster(command, excludedNodes);
+        Map<Node, CompletionStage<R>> results = new HashMap<>();
+        for (Map.Entry<Node, Future<R>> entry : futures.entrySet()) {
+            results.put(entry.getKey(), FutureCompletionStage.of(entry.getValue()));
+        }
+        return results;
+    }
+
     /**
      * Closes any resources used by this dispatcher.
      * Once closed, a dispatcher can no longer execute commands.
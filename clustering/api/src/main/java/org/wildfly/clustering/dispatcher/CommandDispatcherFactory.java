@@ -46,4 +46,21 @@ public interface CommandDispatcherFactory {
      * @return a new command dispatcher
      */
     <C> CommandDispatcher<C> createCommandDispatcher(Object id, C context);
+
+    /**
+     * Creates a new command dispatcher using the specified identifier and context, optionally allowing commands
+     * executed via {@link CommandDispatcher#executeOnNodeAsync(Command, org.wildfly.clustering.group.Node)} or
+     * {@link CommandDispatcher#executeOnClusterAsync(Command, org.wildfly.clustering.group.Node...)} to be bundled with
+     * other messages, and pipelined in order, by the underlying transport.
+     * Bundling trades the latency of an individual command for throughput, and suits high rates of small commands.
+     * Commands executed synchronously are never bundled.
+     *
+     * @param id       a unique identifier for this dispatcher
+     * @param context  the context used for executing commands
+     * @param bundling indicates whether asynchronous commands may be bundled
+     * @return a new command dispatcher
+     */
+    default <C> CommandDispatcher<C> createCommandDispatcher(Object id, C context, boolean bundling) {
+        return this.createCommandDispatcher(id, context);
+    }
 }
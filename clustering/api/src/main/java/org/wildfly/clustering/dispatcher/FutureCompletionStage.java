@@ -0,0 +1,63 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.dispatcher;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Adapts a {@link Future} to a {@link CompletionStage}.
+ */
+final class FutureCompletionStage {
+
+    /**
+     * Returns the specified future as a {@link CompletionStage}.
+     * A future that is itself a completion stage notifies its dependents upon completion.
+     * Any other future offers no such notification, and is instead waited for by the calling thread.
+     * @param future a future
+     * @return a completion stage
+     */
+    @SuppressWarnings("unchecked")
+    static <R> CompletionStage<R> of(Future<R> future) {
+        if (future instanceof CompletionStage) {
+            return (CompletionStage<R>) future;
+        }
+        CompletableFuture<R> stage = new CompletableFuture<>();
+        try {
+            stage.complete(future.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            stage.cancel(false);
+        } catch (ExecutionException e) {
+            stage.completeExceptionally(e.getCause());
+        }
+        return stage;
+    }
+
+    private FutureCompletionStage() {
+        // Hide
+    }
+}
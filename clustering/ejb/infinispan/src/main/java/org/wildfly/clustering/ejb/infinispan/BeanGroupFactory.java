@@ -47,5 +47,20 @@ public interface BeanGroupFactory<I, T> extends Creator<I, BeanGroupEntry<I, T>,
 
     int getPassiveCount();
 
+    /**
+     * Returns the number of lookups of a group owned by another member that were served locally.
+     */
+    long getNearCacheHitCount();
+
+    /**
+     * Returns the number of lookups of a group owned by another member that were not served locally.
+     */
+    long getNearCacheMissCount();
+
+    /**
+     * Returns the number of locally held groups that were invalidated.
+     */
+    long getNearCacheInvalidationCount();
+
     void close();
 }
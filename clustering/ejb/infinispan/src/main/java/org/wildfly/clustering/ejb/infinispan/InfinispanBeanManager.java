@@ -279,6 +279,21 @@ public class InfinispanBeanManager<I, T> implements BeanManager<I, T, Transactio
         return this.groupFactory.getPassiveCount();
     }
 
+    @Override
+    public long getNearCacheHitCount() {
+        return this.groupFactory.getNearCacheHitCount();
+    }
+
+    @Override
+    public long getNearCacheMissCount() {
+        return this.groupFactory.getNearCacheMissCount();
+    }
+
+    @Override
+    public long getNearCacheInvalidationCount() {
+        return this.groupFactory.getNearCacheInvalidationCount();
+    }
+
     @DataRehashed
     public void dataRehashed(DataRehashedEvent<BeanKey<I>, BeanEntry<I>> event) {
         Locality newLocality = new ConsistentHashLocality(event.getCache(), event.getConsistentHashAtEnd());
@@ -0,0 +1,154 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.ejb.infinispan.group;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.infinispan.notifications.Listener;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryModified;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryRemoved;
+import org.infinispan.notifications.cachelistener.event.CacheEntryEvent;
+import org.wildfly.clustering.ejb.infinispan.BeanGroupEntry;
+import org.wildfly.clustering.ejb.infinispan.BeanGroupKey;
+
+/**
+ * A bounded local cache of the bean group entries whose primary owner is another member.
+ * Without it, every lookup of such a group fetches the group from its owner and unmarshals its beans again.
+ * Entries are invalidated when their group is modified or removed by another member, which requires this object to be
+ * registered as a clustered listener.
+ * An invalidation may arrive while a group is read from the cache, before it is put into this near-cache, so each put
+ * carries the {@link #getStamp() stamp} obtained before the read, and is skipped if an invalidation was received since.
+ *
+ * @param <I> the bean identifier type
+ * @param <T> the bean type
+ */
+@Listener(clustered = true)
+public class BeanGroupNearCache<I, T> {
+
+    private final Map<BeanGroupKey<I>, BeanGroupEntry<I, T>> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    // Incremented by every invalidation, whether or not the group was cached, guarded by the entries
+    private long stamp = 0L;
+
+    public BeanGroupNearCache(int maxSize) {
+        // Access ordered, so that the least recently used group is evicted first
+        this.entries = new LinkedHashMap<BeanGroupKey<I>, BeanGroupEntry<I, T>>(16, 0.75f, true) {
+            private static final long serialVersionUID = -2316464384410563155L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<BeanGroupKey<I>, BeanGroupEntry<I, T>> eldest) {
+                return this.size() > maxSize;
+            }
+        };
+    }
+
+    public BeanGroupEntry<I, T> get(BeanGroupKey<I> key) {
+        BeanGroupEntry<I, T> entry;
+        synchronized (this.entries) {
+            entry = this.entries.get(key);
+        }
+        if (entry != null) {
+            this.hits.increment();
+        } else {
+            this.misses.increment();
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the stamp to pass to {@link #put(BeanGroupKey, BeanGroupEntry, long)}, obtained before reading the entry from the cache.
+     * @return the current invalidation stamp
+     */
+    public long getStamp() {
+        synchronized (this.entries) {
+            return this.stamp;
+        }
+    }
+
+    /**
+     * Caches the specified entry, unless an invalidation was received since the specified stamp was obtained,
+     * in which case the entry may already be stale.
+     * @param key a group key
+     * @param entry the group entry read from the cache
+     * @param stamp the stamp obtained before reading the entry
+     * @return true, if the entry was cached
+     */
+    public boolean put(BeanGroupKey<I> key, BeanGroupEntry<I, T> entry, long stamp) {
+        synchronized (this.entries) {
+            if (stamp != this.stamp) {
+                return false;
+            }
+            this.entries.put(key, entry);
+            return true;
+        }
+    }
+
+    public void invalidate(BeanGroupKey<I> key) {
+        BeanGroupEntry<I, T> entry;
+        synchronized (this.entries) {
+            this.stamp += 1;
+            entry = this.entries.remove(key);
+        }
+        if (entry != null) {
+            this.invalidations.increment();
+        }
+    }
+
+    public void clear() {
+        synchronized (this.entries) {
+            this.stamp += 1;
+            this.invalidations.add(this.entries.size());
+            this.entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    public long getInvalidationCount() {
+        return this.invalidations.sum();
+    }
+
+    @CacheEntryModified
+    @CacheEntryRemoved
+    public void invalidated(CacheEntryEvent<BeanGroupKey<I>, Boolean> event) {
+        // Modifications made by this member were made to the entry held by this near-cache
+        if (!event.isPre() && !event.isOriginLocal()) {
+            this.invalidate(event.getKey());
+        }
+    }
+}
@@ -22,6 +22,7 @@
 package org.wildfly.clustering.ejb.infinispan.group;
 
 import java.util.AbstractMap;
+import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -32,8 +33,10 @@ import org.infinispan.context.Flag;
 import org.infinispan.notifications.Listener;
 import org.infinispan.notifications.cachelistener.annotation.CacheEntryActivated;
 import org.infinispan.notifications.cachelistener.annotation.CacheEntryPassivated;
+import org.infinispan.notifications.cachelistener.annotation.TopologyChanged;
 import org.infinispan.notifications.cachelistener.event.CacheEntryActivatedEvent;
 import org.infinispan.notifications.cachelistener.event.CacheEntryPassivatedEvent;
+import org.infinispan.notifications.cachelistener.event.TopologyChangedEvent;
 import org.wildfly.clustering.ee.Mutator;
 import org.wildfly.clustering.ee.infinispan.CacheEntryMutator;
 import org.wildfly.clustering.ee.infinispan.CacheProperties;
@@ -48,11 +51,14 @@ import org.wildfly.clustering.ejb.infinispan.BeanKey;
 import org.wildfly.clustering.ejb.infinispan.PassivationConfiguration;
 import org.wildfly.clustering.ejb.infinispan.bean.InfinispanBeanKey;
 import org.wildfly.clustering.ejb.infinispan.logging.InfinispanEjbLogger;
+import org.wildfly.clustering.infinispan.spi.distribution.CacheLocality;
 import org.wildfly.clustering.marshalling.jboss.MarshallingContext;
 import org.wildfly.clustering.marshalling.spi.MarshalledValueFactory;
 
 /**
  * Encapsulates the cache mapping strategy of a bean group.
+ * In a distributed cache, groups whose primary owner is another member are additionally held in a {@link BeanGroupNearCache},
+ * bounded by the passivation max size, so that repeated invocations of a bean on a non-owner do not fetch and unmarshal its group each time.
  *
  * @author Paul Ferraro
  *
@@ -70,6 +76,8 @@ public class InfinispanBeanGroupFactory<I, T> implements BeanGroupFactory<I, T>
     private final MarshallingContext context;
     private final AtomicInteger passiveCount = new AtomicInteger();
     private final PassivationListener<T> passivationListener;
+    private final boolean lockOnRead;
+    private final BeanGroupNearCache<I, T> nearCache;
 
     public InfinispanBeanGroupFactory(Cache<BeanGroupKey<I>, BeanGroupEntry<I, T>> cache, Cache<BeanKey<I>, BeanEntry<I>> beanCache, Predicate<Map.Entry<? super BeanKey<I>, ? super BeanEntry<I>>> beanFilter, MarshalledValueFactory<MarshallingContext> factory, MarshallingContext context, CacheProperties properties, PassivationConfiguration<T> passivation) {
         this.cache = cache;
@@ -79,12 +87,23 @@ public class InfinispanBeanGroupFactory<I, T> implements BeanGroupFactory<I, T>
         this.factory = factory;
         this.context = context;
         this.passivationListener = !properties.isPersistent() ? passivation.getPassivationListener() : null;
+        this.lockOnRead = properties.isLockOnRead();
+        int nearCacheSize = passivation.getConfiguration().getMaxSize();
+        this.nearCache = cache.getCacheConfiguration().clustering().cacheMode().isDistributed() && (nearCacheSize > 0) ? new BeanGroupNearCache<>(nearCacheSize) : null;
         this.cache.addListener(this, new BeanGroupFilter());
+        if (this.nearCache != null) {
+            // Listen for modifications by other members before any entry is near-cached
+            BeanGroupInvalidationFilter filter = new BeanGroupInvalidationFilter();
+            this.cache.addListener(this.nearCache, filter, filter);
+        }
     }
 
     @Override
     public void close() {
         this.cache.removeListener(this);
+        if (this.nearCache != null) {
+            this.cache.removeListener(this.nearCache);
+        }
     }
 
     @Override
@@ -106,20 +125,61 @@ public class InfinispanBeanGroupFactory<I, T> implements BeanGroupFactory<I, T>
 
     @Override
     public BeanGroupEntry<I, T> findValue(I id) {
-        return this.findCache.get(this.createKey(id));
+        return this.findValue(this.findCache, this.createKey(id));
     }
 
     @Override
     public BeanGroupEntry<I, T> tryValue(I id) {
-        return this.findCache.getAdvancedCache().withFlags(Flag.ZERO_LOCK_ACQUISITION_TIMEOUT, Flag.FAIL_SILENTLY).get(this.createKey(id));
+        return this.findValue(this.findCache.getAdvancedCache().withFlags(Flag.ZERO_LOCK_ACQUISITION_TIMEOUT, Flag.FAIL_SILENTLY), this.createKey(id));
+    }
+
+    private BeanGroupEntry<I, T> findValue(Cache<BeanGroupKey<I>, BeanGroupEntry<I, T>> cache, BeanGroupKey<I> key) {
+        if ((this.nearCache == null) || new CacheLocality(this.cache).isLocal(key)) {
+            return cache.get(key);
+        }
+        // Acquire the lock that reading the entry from the cache would have acquired, before consulting the near-cache,
+        // so that any entry modified by another member since it was cached is already invalidated
+        if (this.lockOnRead && !cache.getAdvancedCache().lock(Collections.singleton(key))) {
+            return null;
+        }
+        long stamp = this.nearCache.getStamp();
+        BeanGroupEntry<I, T> entry = this.nearCache.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        entry = cache.get(key);
+        if (entry != null) {
+            // Skipped if the group was invalidated while it was read
+            this.nearCache.put(key, entry, stamp);
+        }
+        return entry;
     }
 
     @Override
     public boolean remove(I id) {
-        this.cache.getAdvancedCache().withFlags(Flag.IGNORE_RETURN_VALUES).remove(this.createKey(id));
+        BeanGroupKey<I> key = this.createKey(id);
+        if (this.nearCache != null) {
+            this.nearCache.invalidate(key);
+        }
+        this.cache.getAdvancedCache().withFlags(Flag.IGNORE_RETURN_VALUES).remove(key);
         return true;
     }
 
+    @Override
+    public long getNearCacheHitCount() {
+        return (this.nearCache != null) ? this.nearCache.getHitCount() : 0;
+    }
+
+    @Override
+    public long getNearCacheMissCount() {
+        return (this.nearCache != null) ? this.nearCache.getMissCount() : 0;
+    }
+
+    @Override
+    public long getNearCacheInvalidationCount() {
+        return (this.nearCache != null) ? this.nearCache.getInvalidationCount() : 0;
+    }
+
     @Override
     public BeanGroup<I, T> createGroup(I id, BeanGroupEntry<I, T> entry) {
         return this.createGroup(id, entry, new CacheEntryMutator<>(this.cache, this.createKey(id), entry));
@@ -129,9 +189,20 @@ public class InfinispanBeanGroupFactory<I, T> implements BeanGroupFactory<I, T>
         return new InfinispanBeanGroup<>(id, entry, this.context, mutator, this);
     }
 
+    @TopologyChanged
+    public void topologyChanged(TopologyChangedEvent<BeanGroupKey<I>, BeanGroupEntry<I, T>> event) {
+        // Primary ownership of near-cached groups may have changed
+        if (!event.isPre() && (this.nearCache != null)) {
+            this.nearCache.clear();
+        }
+    }
+
     @CacheEntryPassivated
     public void passivated(CacheEntryPassivatedEvent<BeanGroupKey<I>, BeanGroupEntry<I, T>> event) {
         if (event.isPre()) {
+            if (this.nearCache != null) {
+                this.nearCache.invalidate(event.getKey());
+            }
             BeanGroupEntry<I, T> entry = event.getValue();
             try (BeanGroup<I, T> group = new InfinispanBeanGroup<>(event.getKey().getId(), entry, this.context, Mutator.PASSIVE, this)) {
                 for (I beanId : group.getBeans()) {
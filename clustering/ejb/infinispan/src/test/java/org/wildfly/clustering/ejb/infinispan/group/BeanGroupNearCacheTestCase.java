@@ -0,0 +1,132 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.ejb.infinispan.group;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.infinispan.notifications.cachelistener.event.CacheEntryEvent;
+import org.junit.Test;
+import org.wildfly.clustering.ejb.infinispan.BeanGroupEntry;
+import org.wildfly.clustering.ejb.infinispan.BeanGroupKey;
+
+/**
+ * Unit test for {@link BeanGroupNearCache}.
+ */
+public class BeanGroupNearCacheTestCase {
+
+    @Test
+    public void lookup() {
+        BeanGroupNearCache<String, Object> cache = new BeanGroupNearCache<>(2);
+        BeanGroupKey<String> key1 = new InfinispanBeanGroupKey<>("1");
+        BeanGroupKey<String> key2 = new InfinispanBeanGroupKey<>("2");
+        BeanGroupKey<String> key3 = new InfinispanBeanGroupKey<>("3");
+        BeanGroupEntry<String, Object> entry1 = new InfinispanBeanGroupEntry<>(null);
+        BeanGroupEntry<String, Object> entry2 = new InfinispanBeanGroupEntry<>(null);
+        BeanGroupEntry<String, Object> entry3 = new InfinispanBeanGroupEntry<>(null);
+
+        assertNull(cache.get(key1));
+        cache.put(key1, entry1, cache.getStamp());
+        cache.put(key2, entry2, cache.getStamp());
+        assertSame(entry1, cache.get(key1));
+
+        // Least recently used entry is evicted
+        cache.put(key3, entry3, cache.getStamp());
+        assertEquals(2, cache.size());
+        assertNull(cache.get(key2));
+        assertSame(entry1, cache.get(key1));
+        assertSame(entry3, cache.get(key3));
+
+        assertEquals(3, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        // Eviction is not an invalidation
+        assertEquals(0, cache.getInvalidationCount());
+    }
+
+    @Test
+    public void invalidate() {
+        BeanGroupNearCache<String, Object> cache = new BeanGroupNearCache<>(10);
+        BeanGroupKey<String> key1 = new InfinispanBeanGroupKey<>("1");
+        BeanGroupKey<String> key2 = new InfinispanBeanGroupKey<>("2");
+        BeanGroupKey<String> key3 = new InfinispanBeanGroupKey<>("3");
+        cache.put(key1, new InfinispanBeanGroupEntry<>(null), cache.getStamp());
+        cache.put(key2, new InfinispanBeanGroupEntry<>(null), cache.getStamp());
+        cache.put(key3, new InfinispanBeanGroupEntry<>(null), cache.getStamp());
+
+        cache.invalidate(key1);
+        cache.invalidate(key1);
+        assertNull(cache.get(key1));
+        assertEquals(1, cache.getInvalidationCount());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(3, cache.getInvalidationCount());
+    }
+
+    @Test
+    public void invalidated() {
+        BeanGroupNearCache<String, Object> cache = new BeanGroupNearCache<>(10);
+        BeanGroupKey<String> key = new InfinispanBeanGroupKey<>("1");
+        cache.put(key, new InfinispanBeanGroupEntry<>(null), cache.getStamp());
+
+        @SuppressWarnings("unchecked")
+        CacheEntryEvent<BeanGroupKey<String>, Boolean> event = mock(CacheEntryEvent.class);
+        when(event.getKey()).thenReturn(key);
+
+        // Modifications by this member are made to the near-cached entry
+        when(event.isOriginLocal()).thenReturn(true);
+        cache.invalidated(event);
+        assertEquals(1, cache.size());
+
+        when(event.isOriginLocal()).thenReturn(false);
+        cache.invalidated(event);
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getInvalidationCount());
+    }
+
+    @Test
+    public void stamp() {
+        BeanGroupNearCache<String, Object> cache = new BeanGroupNearCache<>(10);
+        BeanGroupKey<String> key1 = new InfinispanBeanGroupKey<>("1");
+        BeanGroupKey<String> key2 = new InfinispanBeanGroupKey<>("2");
+
+        // The group is invalidated by another member while this member reads it from the cache
+        long stamp = cache.getStamp();
+        cache.invalidate(key1);
+        assertFalse(cache.put(key1, new InfinispanBeanGroupEntry<>(null), stamp));
+        assertNull(cache.get(key1));
+
+        stamp = cache.getStamp();
+        assertTrue(cache.put(key1, new InfinispanBeanGroupEntry<>(null), stamp));
+        assertTrue(cache.put(key2, new InfinispanBeanGroupEntry<>(null), stamp));
+
+        stamp = cache.getStamp();
+        cache.clear();
+        assertFalse(cache.put(key1, new InfinispanBeanGroupEntry<>(null), stamp));
+        assertEquals(0, cache.size());
+    }
+}
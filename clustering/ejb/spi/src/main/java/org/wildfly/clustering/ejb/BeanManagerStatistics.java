@@ -25,4 +25,28 @@ public interface BeanManagerStatistics {
     int getActiveCount();
 
     int getPassiveCount();
+
+    /**
+     * Returns the number of lookups of a remotely owned bean served by a local near-cache.
+     * @return a number of lookups
+     */
+    default long getNearCacheHitCount() {
+        return 0;
+    }
+
+    /**
+     * Returns the number of lookups of a remotely owned bean that could not be served by a local near-cache.
+     * @return a number of lookups
+     */
+    default long getNearCacheMissCount() {
+        return 0;
+    }
+
+    /**
+     * Returns the number of entries of a local near-cache invalidated by a modification, removal, or change of ownership.
+     * @return a number of invalidations
+     */
+    default long getNearCacheInvalidationCount() {
+        return 0;
+    }
 }
@@ -0,0 +1,84 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.marshalling.jboss;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A growable byte buffer, reused by successive marshalling operations of the same thread.
+ * This avoids allocating, growing, and finally copying a fresh buffer each time a value is serialized.
+ * @see SimpleMarshalledValue
+ */
+class MarshallingBuffer extends ByteArrayOutputStream {
+
+    private static final int DEFAULT_CAPACITY = 512;
+    // Buffers that grew beyond this capacity are not retained by their thread
+    private static final int MAX_RETAINED_CAPACITY = 1 << 20;
+
+    private static final ThreadLocal<MarshallingBuffer> BUFFER = ThreadLocal.withInitial(MarshallingBuffer::new);
+
+    /**
+     * Acquires the buffer of the current thread, or a new buffer if it is already in use, e.g. when marshalling a value nested within another value.
+     * The returned buffer must be released via {@link #release()}.
+     * @param sizeHint the expected number of bytes to be written
+     * @return an empty buffer
+     */
+    static MarshallingBuffer acquire(int sizeHint) {
+        MarshallingBuffer buffer = BUFFER.get();
+        if (buffer.acquired) {
+            buffer = new MarshallingBuffer();
+        }
+        buffer.acquired = true;
+        if (sizeHint > buffer.buf.length) {
+            buffer.buf = new byte[sizeHint];
+        }
+        return buffer;
+    }
+
+    private boolean acquired = false;
+
+    private MarshallingBuffer() {
+        super(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Writes the content of this buffer to the specified output, without copying it.
+     * @param output a data output
+     * @throws IOException if an I/O error occurs
+     */
+    void writeTo(DataOutput output) throws IOException {
+        output.write(this.buf, 0, this.count);
+    }
+
+    /**
+     * Releases this buffer, so that it can be reused by the current thread.
+     */
+    void release() {
+        this.reset();
+        if (this.buf.length > MAX_RETAINED_CAPACITY) {
+            this.buf = new byte[DEFAULT_CAPACITY];
+        }
+        this.acquired = false;
+    }
+}
@@ -23,7 +23,7 @@
 package org.wildfly.clustering.marshalling.jboss;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
@@ -35,6 +35,7 @@ import org.jboss.marshalling.SimpleDataInput;
 import org.jboss.marshalling.SimpleDataOutput;
 import org.jboss.marshalling.Unmarshaller;
 import org.wildfly.clustering.marshalling.spi.IndexSerializer;
+import org.wildfly.clustering.marshalling.spi.IntSerializer;
 import org.wildfly.clustering.marshalling.spi.MarshalledValue;
 import org.wildfly.security.manager.WildFlySecurityManager;
 
@@ -49,6 +50,8 @@ public class SimpleMarshalledValue<T> implements MarshalledValue<T, MarshallingC
     private transient volatile MarshallingContext context;
     private transient volatile T object;
     private transient volatile byte[] bytes;
+    // The size of the last known serialized form, used to presize the marshalling buffer
+    private transient volatile int sizeHint = 0;
 
     public SimpleMarshalledValue(T object, MarshallingContext context) {
         this.context = context;
@@ -57,6 +60,7 @@ public class SimpleMarshalledValue<T> implements MarshalledValue<T, MarshallingC
 
     SimpleMarshalledValue(byte[] bytes) {
         this.bytes = bytes;
+        this.sizeHint = (bytes != null) ? bytes.length : 0;
     }
 
     // Used for testing purposes only
@@ -67,21 +71,69 @@ public class SimpleMarshalledValue<T> implements MarshalledValue<T, MarshallingC
     byte[] getBytes() throws IOException {
         byte[] bytes = this.bytes;
         if (bytes != null) return bytes;
-        if (this.object == null) return null;
-        int version = this.context.getCurrentVersion();
-        ByteArrayOutputStream output = new ByteArrayOutputStream();
-        ClassLoader loader = setThreadContextClassLoader(this.context.getClassLoader());
-        try (SimpleDataOutput data = new SimpleDataOutput(Marshalling.createByteOutput(output))) {
+        MarshallingBuffer buffer = this.marshal();
+        if (buffer == null) return null;
+        try {
+            return buffer.toByteArray();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Writes the serialized form of this value, prefixed by its size, to the specified output.
+     * Unlike {@link #getBytes()}, this does not copy the serialized form into an intermediate byte array.
+     * @param output a data output
+     * @param sizeSerializer the serializer of the size prefix
+     * @throws IOException if the value could not be serialized or written
+     */
+    void writeTo(DataOutput output, IntSerializer sizeSerializer) throws IOException {
+        byte[] bytes = this.bytes;
+        if (bytes != null) {
+            sizeSerializer.writeInt(output, bytes.length);
+            output.write(bytes);
+            return;
+        }
+        MarshallingBuffer buffer = this.marshal();
+        if (buffer == null) {
+            sizeSerializer.writeInt(output, 0);
+            return;
+        }
+        try {
+            sizeSerializer.writeInt(output, buffer.size());
+            buffer.writeTo(output);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Serializes the object of this value into a buffer of the current thread.
+     * @return a buffer containing the serialized object, which the caller must release, or null if there is no object
+     * @throws IOException if the object could not be serialized
+     */
+    private MarshallingBuffer marshal() throws IOException {
+        T object = this.object;
+        if (object == null) return null;
+        MarshallingContext context = this.context;
+        int version = context.getCurrentVersion();
+        MarshallingBuffer buffer = MarshallingBuffer.acquire(this.sizeHint);
+        ClassLoader loader = setThreadContextClassLoader(context.getClassLoader());
+        try (SimpleDataOutput data = new SimpleDataOutput(Marshalling.createByteOutput(buffer))) {
             IndexSerializer.VARIABLE.writeInt(data, version);
-            try (Marshaller marshaller = this.context.createMarshaller(version)) {
+            try (Marshaller marshaller = context.createMarshaller(version)) {
                 marshaller.start(data);
-                marshaller.writeObject(this.object);
+                marshaller.writeObject(object);
                 marshaller.finish();
-                return output.toByteArray();
             }
+        } catch (IOException | RuntimeException | Error e) {
+            buffer.release();
+            throw e;
         } finally {
             setThreadContextClassLoader(loader);
         }
+        this.sizeHint = buffer.size();
+        return buffer;
     }
 
     /**
@@ -90,26 +142,31 @@ public class SimpleMarshalledValue<T> implements MarshalledValue<T, MarshallingC
      */
     @SuppressWarnings("unchecked")
     @Override
-    public synchronized T get(MarshallingContext context) throws IOException, ClassNotFoundException {
-        if (this.object == null) {
-            this.context = context;
-            if (this.bytes != null) {
-                ByteArrayInputStream input = new ByteArrayInputStream(this.bytes);
-                ClassLoader loader = setThreadContextClassLoader(this.context.getClassLoader());
-                try (SimpleDataInput data = new SimpleDataInput(Marshalling.createByteInput(input))) {
-                    int version = IndexSerializer.VARIABLE.readInt(data);
-                    try (Unmarshaller unmarshaller = context.createUnmarshaller(version)) {
-                        unmarshaller.start(data);
-                        this.object = (T) unmarshaller.readObject();
-                        unmarshaller.finish();
-                        this.bytes = null; // Free up memory
+    public T get(MarshallingContext context) throws IOException, ClassNotFoundException {
+        // Readers of an already deserialized value need not synchronize
+        T object = this.object;
+        if (object != null) return object;
+        synchronized (this) {
+            if (this.object == null) {
+                this.context = context;
+                if (this.bytes != null) {
+                    ByteArrayInputStream input = new ByteArrayInputStream(this.bytes);
+                    ClassLoader loader = setThreadContextClassLoader(this.context.getClassLoader());
+                    try (SimpleDataInput data = new SimpleDataInput(Marshalling.createByteInput(input))) {
+                        int version = IndexSerializer.VARIABLE.readInt(data);
+                        try (Unmarshaller unmarshaller = context.createUnmarshaller(version)) {
+                            unmarshaller.start(data);
+                            this.object = (T) unmarshaller.readObject();
+                            unmarshaller.finish();
+                            this.bytes = null; // Free up memory
+                        }
+                    } finally {
+                        setThreadContextClassLoader(loader);
                     }
-                } finally {
-                    setThreadContextClassLoader(loader);
                 }
             }
+            return this.object;
         }
-        return this.object;
     }
 
     /**
@@ -149,13 +206,7 @@ public class SimpleMarshalledValue<T> implements MarshalledValue<T, MarshallingC
 
     private void writeObject(ObjectOutputStream out) throws IOException {
         out.defaultWriteObject();
-        byte[] bytes = this.getBytes();
-        if (bytes != null) {
-            out.writeInt(bytes.length);
-            out.write(bytes);
-        } else {
-            out.writeInt(0);
-        }
+        this.writeTo(out, IndexSerializer.INTEGER);
     }
 
     private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
@@ -167,6 +218,7 @@ public class SimpleMarshalledValue<T> implements MarshalledValue<T, MarshallingC
             in.readFully(bytes);
         }
         this.bytes = bytes;
+        this.sizeHint = size;
     }
 
     private static ClassLoader setThreadContextClassLoader(ClassLoader loader) {
@@ -139,6 +139,26 @@ public class SimpleMarshalledValueFactoryTestCase {
         assertEquals(0, mv.hashCode());
     }
 
+    /**
+     * Test method for {@link SimpleMarshalledValueExternalizer}.
+     */
+    @Test
+    public void externalize() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        SimpleMarshalledValueExternalizer<UUID> externalizer = new SimpleMarshalledValueExternalizer<>();
+
+        SimpleMarshalledValue<UUID> copy = externalize(externalizer, this.factory.createMarshalledValue(uuid));
+        assertNull(copy.peek());
+        assertEquals(uuid, copy.get(this.context));
+
+        // Externalize a value that was never deserialized
+        SimpleMarshalledValue<UUID> replica = externalize(externalizer, replicate(this.factory.createMarshalledValue(uuid)));
+        assertEquals(uuid, replica.get(this.context));
+
+        SimpleMarshalledValue<UUID> nulled = externalize(externalizer, this.factory.createMarshalledValue(null));
+        assertNull(nulled.get(this.context));
+    }
+
     <T> void validateHashCode(T original, SimpleMarshalledValue<T> copy) {
         assertEquals(0, copy.hashCode());
     }
@@ -148,6 +168,16 @@ public class SimpleMarshalledValueFactoryTestCase {
         return (SimpleMarshalledValue<V>) unmarshall(marshall(mv));
     }
 
+    private static <V> SimpleMarshalledValue<V> externalize(SimpleMarshalledValueExternalizer<V> externalizer, SimpleMarshalledValue<V> mv) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+            externalizer.writeObject(oos, mv);
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+            return externalizer.readObject(ois);
+        }
+    }
+
     private static byte[] marshall(Object mv) throws IOException {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
@@ -22,11 +22,17 @@
 package org.wildfly.clustering.server.dispatcher;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -47,11 +53,14 @@ import org.wildfly.clustering.server.group.Group;
 
 /**
  * MessageDispatcher-based command dispatcher.
+ * Commands executed synchronously are always sent as unbundled, out-of-band messages.
+ * If bundling is enabled, commands executed asynchronously are sent as regular messages, which the transport may bundle
+ * together and which are delivered in order.
  * @author Paul Ferraro
  *
  * @param <C> command execution context
  */
-public class ChannelCommandDispatcher<C> implements CommandDispatcher<C> {
+public class ChannelCommandDispatcher<C> implements CommandDispatcher<C>, CommandDispatcherMetrics {
 
     private static final RspFilter FILTER = new RspFilter() {
         @Override
@@ -71,14 +80,27 @@ public class ChannelCommandDispatcher<C> implements CommandDispatcher<C> {
     private final long timeout;
     private final CommandDispatcher<C> localDispatcher;
     private final Runnable closeTask;
+    private final boolean bundling;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder batched = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder totalLatency = new LongAdder();
+    private final AtomicLong maxLatency = new AtomicLong();
 
     public ChannelCommandDispatcher(MessageDispatcher dispatcher, CommandMarshaller<C> marshaller, Group<Address> group, long timeout, CommandDispatcher<C> localDispatcher, Runnable closeTask) {
+        this(dispatcher, marshaller, group, timeout, localDispatcher, closeTask, false);
+    }
+
+    public ChannelCommandDispatcher(MessageDispatcher dispatcher, CommandMarshaller<C> marshaller, Group<Address> group, long timeout, CommandDispatcher<C> localDispatcher, Runnable closeTask, boolean bundling) {
         this.dispatcher = dispatcher;
         this.marshaller = marshaller;
         this.group = group;
         this.timeout = timeout;
         this.localDispatcher = localDispatcher;
         this.closeTask = closeTask;
+        this.bundling = bundling;
     }
 
     @Override
@@ -122,7 +144,7 @@ public class ChannelCommandDispatcher<C> implements CommandDispatcher<C> {
         for (Node node : this.group.getMembership().getMembers()) {
             if (!excluded.contains(node)) {
                 try {
-                    results.put(node, this.dispatcher.sendMessageWithFuture(this.group.getAddress(node), buffer, options));
+                    results.put(node, this.monitor(this.dispatcher.sendMessageWithFuture(this.group.getAddress(node), buffer, options)));
                 } catch (Exception e) {
                     throw new CommandDispatcherException(e);
                 }
@@ -141,7 +163,7 @@ public class ChannelCommandDispatcher<C> implements CommandDispatcher<C> {
         RequestOptions options = this.createRequestOptions();
         try {
             // Use sendMessageWithFuture(...) instead of sendMessage(...) since we want to differentiate between sender exceptions and receiver exceptions
-            Future<R> future = this.dispatcher.sendMessageWithFuture(this.group.getAddress(node), buffer, options);
+            Future<R> future = this.monitor(this.dispatcher.sendMessageWithFuture(this.group.getAddress(node), buffer, options));
             return new SimpleCommandResponse<>(future.get());
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
@@ -162,20 +184,106 @@ public class ChannelCommandDispatcher<C> implements CommandDispatcher<C> {
         Buffer buffer = this.createBuffer(command);
         RequestOptions options = this.createRequestOptions();
         try {
-            return this.dispatcher.sendMessageWithFuture(this.group.getAddress(node), buffer, options);
+            return this.monitor(this.dispatcher.sendMessageWithFuture(this.group.getAddress(node), buffer, options));
         } catch (Exception e) {
             throw new CommandDispatcherException(e);
         }
     }
 
+    @Override
+    public <R> CompletionStage<R> executeOnNodeAsync(Command<R, ? super C> command, Node node) throws CommandDispatcherException {
+        // Bypass MessageDispatcher if target node is local
+        if (this.isLocal(node)) {
+            return this.localDispatcher.executeOnNodeAsync(command, node);
+        }
+        Buffer buffer = this.createBuffer(command);
+        RequestOptions options = this.createAsyncRequestOptions();
+        try {
+            return this.complete(this.monitor(this.dispatcher.sendMessageWithFuture(this.group.getAddress(node), buffer, options)));
+        } catch (Exception e) {
+            throw new CommandDispatcherException(e);
+        }
+    }
+
+    @Override
+    public <R> Map<Node, CompletionStage<R>> executeOnClusterAsync(Command<R, ? super C> command, Node... excludedNodes) throws CommandDispatcherException {
+        Set<Node> excluded = Stream.of(excludedNodes).collect(Collectors.toSet());
+        Map<Node, CompletionStage<R>> results = new HashMap<>();
+        Buffer buffer = this.createBuffer(command);
+        RequestOptions options = this.createAsyncRequestOptions();
+        for (Node node : this.group.getMembership().getMembers()) {
+            if (!excluded.contains(node)) {
+                try {
+                    results.put(node, this.complete(this.monitor(this.dispatcher.sendMessageWithFuture(this.group.getAddress(node), buffer, options))));
+                } catch (Exception e) {
+                    throw new CommandDispatcherException(e);
+                }
+            }
+        }
+        return results;
+    }
+
     public <R> Future<R> submit(Node node, Buffer buffer, RequestOptions options) throws CommandDispatcherException {
         try {
-            return this.dispatcher.sendMessageWithFuture(this.group.getAddress(node), buffer, options);
+            return this.monitor(this.dispatcher.sendMessageWithFuture(this.group.getAddress(node), buffer, options));
         } catch (Exception e) {
             throw new CommandDispatcherException(e);
         }
     }
 
+    @Override
+    public int getInFlightCommands() {
+        return this.inFlight.get();
+    }
+
+    @Override
+    public long getCompletedCommands() {
+        return this.completed.sum();
+    }
+
+    @Override
+    public Duration getMeanLatency() {
+        long count = this.completed.sum();
+        return Duration.ofNanos((count > 0) ? this.totalLatency.sum() / count : 0);
+    }
+
+    @Override
+    public Duration getMaxLatency() {
+        return Duration.ofNanos(this.maxLatency.get());
+    }
+
+    @Override
+    public double getMeanBatchSize() {
+        long count = this.sent.sum();
+        return (count > 0) ? (double) this.batched.sum() / count : 0;
+    }
+
+    /**
+     * Records the metrics of the specified request, returning it unchanged.
+     */
+    private <T> CompletableFuture<T> monitor(CompletableFuture<T> future) {
+        long start = System.nanoTime();
+        this.batched.add(this.inFlight.incrementAndGet());
+        this.sent.increment();
+        future.whenComplete((result, exception) -> {
+            long latency = System.nanoTime() - start;
+            this.inFlight.decrementAndGet();
+            this.completed.increment();
+            this.totalLatency.add(latency);
+            this.maxLatency.accumulateAndGet(latency, Math::max);
+        });
+        return future;
+    }
+
+    /**
+     * Returns a stage completed from the response callback of the specified request, with the context class loader of the caller.
+     */
+    private <R> CompletionStage<R> complete(CompletableFuture<R> future) {
+        CommandResponseCompleter<R> completer = new CommandResponseCompleter<>();
+        future.whenComplete(completer);
+        return completer.getStage();
+    }
+
     private <R> Buffer createBuffer(Command<R, ? super C> command) {
         try {
             return new Buffer(this.marshaller.marshal(command));
@@ -200,6 +308,10 @@ public class ChannelCommandDispatcher<C> implements CommandDispatcher<C> {
         return new RequestOptions(ResponseMode.GET_ALL, this.timeout, false, FILTER, Message.Flag.DONT_BUNDLE, Message.Flag.OOB);
     }
 
+    private RequestOptions createAsyncRequestOptions() {
+        return this.bundling ? new RequestOptions(ResponseMode.GET_ALL, this.timeout, false, FILTER) : this.createRequestOptions();
+    }
+
     static <R> CommandResponse<R> createCommandResponse(Rsp<R> response) {
         Throwable exception = response.getException();
         return (exception != null) ? new SimpleCommandResponse<>(exception) : new SimpleCommandResponse<>(response.getValue());
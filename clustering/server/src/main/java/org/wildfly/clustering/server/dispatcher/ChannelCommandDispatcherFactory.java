@@ -173,6 +173,11 @@ public class ChannelCommandDispatcherFactory implements AutoCloseableCommandDisp
 
     @Override
     public <C> CommandDispatcher<C> createCommandDispatcher(Object id, C context) {
+        return this.createCommandDispatcher(id, context, false);
+    }
+
+    @Override
+    public <C> CommandDispatcher<C> createCommandDispatcher(Object id, C context, boolean bundling) {
         if (this.contexts.putIfAbsent(id, Optional.ofNullable(context)) != null) {
             throw ClusteringServerLogger.ROOT_LOGGER.commandDispatcherAlreadyExists(id);
         }
@@ -181,7 +186,7 @@ public class ChannelCommandDispatcherFactory implements AutoCloseableCommandDisp
         return new ChannelCommandDispatcher<>(this.dispatcher, marshaller, this, this.timeout, localDispatcher, () -> {
             localDispatcher.close();
             this.contexts.remove(id);
-        });
+        }, bundling);
     }
 
     @Override
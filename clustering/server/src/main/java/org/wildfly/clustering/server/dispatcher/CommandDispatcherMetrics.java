@@ -0,0 +1,62 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.server.dispatcher;
+
+import java.time.Duration;
+
+/**
+ * Exposes metrics of the remote commands sent by a command dispatcher.
+ */
+public interface CommandDispatcherMetrics {
+
+    /**
+     * Returns the number of remote commands sent to individual nodes that are awaiting a response.
+     * @return a number of commands
+     */
+    int getInFlightCommands();
+
+    /**
+     * Returns the number of remote commands that received a response, or failed.
+     * @return a number of commands
+     */
+    long getCompletedCommands();
+
+    /**
+     * Returns the mean duration between sending a remote command and receiving its response.
+     * @return a duration
+     */
+    Duration getMeanLatency();
+
+    /**
+     * Returns the longest duration between sending a remote command and receiving its response.
+     * @return a duration
+     */
+    Duration getMaxLatency();
+
+    /**
+     * Returns the mean number of remote commands in flight when a command was sent, including itself.
+     * This is the number of commands available to be bundled together by the transport.
+     * @return a mean batch size
+     */
+    double getMeanBatchSize();
+}
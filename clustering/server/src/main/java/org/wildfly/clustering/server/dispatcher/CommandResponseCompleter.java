@@ -0,0 +1,62 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.server.dispatcher;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.BiConsumer;
+
+import org.wildfly.security.manager.WildFlySecurityManager;
+
+/**
+ * Completes a stage with the response to a command, using the thread context class loader of the thread that
+ * created this completer, so that dependent actions run by the completing thread see the context of the caller.
+ * @param <R> the command return type
+ */
+class CommandResponseCompleter<R> implements BiConsumer<R, Throwable> {
+
+    private final CompletableFuture<R> stage = new CompletableFuture<>();
+    private final ClassLoader loader = WildFlySecurityManager.getCurrentContextClassLoaderPrivileged();
+
+    /**
+     * Returns the stage completed by this completer.
+     * @return a completion stage
+     */
+    CompletionStage<R> getStage() {
+        return this.stage;
+    }
+
+    @Override
+    public void accept(R result, Throwable exception) {
+        ClassLoader loader = WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(this.loader);
+        try {
+            if (exception != null) {
+                this.stage.completeExceptionally(exception);
+            } else {
+                this.stage.complete(result);
+            }
+        } finally {
+            WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(loader);
+        }
+    }
+}
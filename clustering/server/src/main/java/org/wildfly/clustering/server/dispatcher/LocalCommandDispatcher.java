@@ -26,6 +26,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -107,6 +108,32 @@ public class LocalCommandDispatcher<C> implements CommandDispatcher<C> {
         return results;
     }
 
+    @Override
+    public <R> CompletionStage<R> executeOnNodeAsync(Command<R, ? super C> command, Node node) {
+        CommandResponseCompleter<R> completer = new CommandResponseCompleter<>();
+        Runnable task = () -> {
+            R result;
+            try {
+                result = command.execute(this.context);
+            } catch (Throwable e) {
+                completer.accept(null, e);
+                return;
+            }
+            completer.accept(result, null);
+        };
+        this.executor.execute(task);
+        return completer.getStage();
+    }
+
+    @Override
+    public <R> Map<Node, CompletionStage<R>> executeOnClusterAsync(Command<R, ? super C> command, Node... excludedNodes) {
+        Map<Node, CompletionStage<R>> results = new HashMap<>();
+        if ((excludedNodes == null) || (excludedNodes.length == 0) || !Arrays.asList(excludedNodes).contains(this.node)) {
+            results.put(this.node, this.executeOnNodeAsync(command, this.node));
+        }
+        return results;
+    }
+
     @Override
     public void close() {
         PrivilegedAction<Void> action = () -> {
@@ -22,7 +22,9 @@
 
 package org.wildfly.clustering.server.dispatcher;
 
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Future;
 
 import org.wildfly.clustering.dispatcher.Command;
@@ -35,7 +37,7 @@ import org.wildfly.clustering.group.Node;
  * Decorates a command dispatcher with custom {@link #close()} logic.
  * @author Paul Ferraro
  */
-public class ManagedCommandDispatcher<C> implements CommandDispatcher<C> {
+public class ManagedCommandDispatcher<C> implements CommandDispatcher<C>, CommandDispatcherMetrics {
     private final CommandDispatcher<C> dispatcher;
     private final Runnable closeTask;
 
@@ -69,8 +71,43 @@ public class ManagedCommandDispatcher<C> implements CommandDispatcher<C> {
         return this.dispatcher.submitOnCluster(command, excludedNodes);
     }
 
+    @Override
+    public <R> CompletionStage<R> executeOnNodeAsync(Command<R, ? super C> command, Node node) throws CommandDispatcherException {
+        return this.dispatcher.executeOnNodeAsync(command, node);
+    }
+
+    @Override
+    public <R> Map<Node, CompletionStage<R>> executeOnClusterAsync(Command<R, ? super C> command, Node... excludedNodes) throws CommandDispatcherException {
+        return this.dispatcher.executeOnClusterAsync(command, excludedNodes);
+    }
+
     @Override
     public void close() {
         this.closeTask.run();
     }
+
+    @Override
+    public int getInFlightCommands() {
+        return (this.dispatcher instanceof CommandDispatcherMetrics) ? ((CommandDispatcherMetrics) this.dispatcher).getInFlightCommands() : 0;
+    }
+
+    @Override
+    public long getCompletedCommands() {
+        return (this.dispatcher instanceof CommandDispatcherMetrics) ? ((CommandDispatcherMetrics) this.dispatcher).getCompletedCommands() : 0;
+    }
+
+    @Override
+    public Duration getMeanLatency() {
+        return (this.dispatcher instanceof CommandDispatcherMetrics) ? ((CommandDispatcherMetrics) this.dispatcher).getMeanLatency() : Duration.ZERO;
+    }
+
+    @Override
+    public Duration getMaxLatency() {
+        return (this.dispatcher instanceof CommandDispatcherMetrics) ? ((CommandDispatcherMetrics) this.dispatcher).getMaxLatency() : Duration.ZERO;
+    }
+
+    @Override
+    public double getMeanBatchSize() {
+        return (this.dispatcher instanceof CommandDispatcherMetrics) ? ((CommandDispatcherMetrics) this.dispatcher).getMeanBatchSize() : 0;
+    }
 }
\ No newline at end of file
@@ -66,13 +66,22 @@ public class ManagedCommandDispatcherFactory implements AutoCloseableCommandDisp
         return this.factory.getGroup();
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public <C> CommandDispatcher<C> createCommandDispatcher(Object id, C context) {
+        return this.createCommandDispatcher(id, context, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The bundling option is only honoured by the invocation that creates the managed dispatcher for a given identifier.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public <C> CommandDispatcher<C> createCommandDispatcher(Object id, C context, boolean bundling) {
         synchronized (this.dispatchers) {
             Map.Entry<CommandDispatcher<?>, Integer> existingEntry = this.dispatchers.get(id);
             if (existingEntry == null) {
-                CommandDispatcher<C> dispatcher = this.factory.createCommandDispatcher(id, context);
+                CommandDispatcher<C> dispatcher = this.factory.createCommandDispatcher(id, context, bundling);
                 CommandDispatcher<C> result = new ManagedCommandDispatcher<>(dispatcher, () -> {
                     synchronized (this.dispatchers) {
                         Map.Entry<CommandDispatcher<?>, Integer> entry = this.dispatchers.get(id);
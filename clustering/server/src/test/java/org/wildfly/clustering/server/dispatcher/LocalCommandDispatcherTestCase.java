@@ -0,0 +1,97 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.server.dispatcher;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+import org.wildfly.clustering.dispatcher.Command;
+import org.wildfly.clustering.dispatcher.CommandDispatcher;
+import org.wildfly.clustering.group.Node;
+
+/**
+ * Unit test for {@link LocalCommandDispatcher}.
+ */
+public class LocalCommandDispatcherTestCase {
+
+    @Test
+    public void executeOnNodeAsync() throws Exception {
+        Node node = mock(Node.class);
+        CountDownLatch latch = new CountDownLatch(1);
+        ClassLoader callerLoader = new URLClassLoader(new URL[0], null);
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        // Start the executor thread, so that it does not inherit the context class loader of the caller
+        executor.submit(() -> null).get();
+
+        try (CommandDispatcher<String> dispatcher = new LocalCommandDispatcher<>(node, "context", executor)) {
+            Command<String, String> command = context -> {
+                latch.await();
+                return context;
+            };
+            CompletableFuture<ClassLoader> result;
+            Thread.currentThread().setContextClassLoader(callerLoader);
+            try {
+                result = dispatcher.executeOnNodeAsync(command, node).thenApply(context -> {
+                    assertEquals("context", context);
+                    return Thread.currentThread().getContextClassLoader();
+                }).toCompletableFuture();
+            } finally {
+                Thread.currentThread().setContextClassLoader(loader);
+            }
+            assertFalse(result.isDone());
+
+            latch.countDown();
+
+            // The dependent action runs on the executor thread, with the context class loader of the caller
+            assertSame(callerLoader, result.get());
+        }
+    }
+
+    @Test
+    public void executeOnNodeAsyncFailure() throws Exception {
+        Node node = mock(Node.class);
+        Exception exception = new Exception();
+
+        try (CommandDispatcher<String> dispatcher = new LocalCommandDispatcher<>(node, "context", Executors.newSingleThreadExecutor())) {
+            Command<String, String> command = context -> {
+                throw exception;
+            };
+            try {
+                dispatcher.executeOnNodeAsync(command, node).toCompletableFuture().get();
+                fail("Command should have failed");
+            } catch (ExecutionException e) {
+                assertSame(exception, e.getCause());
+            }
+        }
+    }
+}
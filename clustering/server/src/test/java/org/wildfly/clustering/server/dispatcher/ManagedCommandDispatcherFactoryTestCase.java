@@ -41,7 +41,7 @@ public class ManagedCommandDispatcherFactoryTestCase {
             String context = "context";
             CommandDispatcher<String> dispatcher = mock(CommandDispatcher.class);
 
-            when(factory.createCommandDispatcher("foo", context)).thenReturn(dispatcher);
+            when(factory.createCommandDispatcher("foo", context, false)).thenReturn(dispatcher);
             when(dispatcher.getContext()).thenReturn(context);
 
             try (CommandDispatcher<String> dispatcher1 = subject.createCommandDispatcher("foo", context)) {
@@ -58,7 +58,7 @@ public class ManagedCommandDispatcherFactoryTestCase {
                         subject.createCommandDispatcher("foo", otherContext);
                         fail();
                     } catch (IllegalArgumentException e) {
-                        verify(factory, never()).createCommandDispatcher("foo", otherContext);
+                        verify(factory, never()).createCommandDispatcher("foo", otherContext, false);
                     }
                 }
 
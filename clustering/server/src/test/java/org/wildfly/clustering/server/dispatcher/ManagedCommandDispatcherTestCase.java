@@ -27,6 +27,7 @@ import static org.mockito.Mockito.*;
 
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Future;
 
 import org.junit.Test;
@@ -78,6 +79,17 @@ public class ManagedCommandDispatcherTestCase {
             when(dispatcher.submitOnNode(command, node)).thenReturn(future);
 
             assertSame(future, subject.submitOnNode(command, node));
+
+            CompletionStage<Void> stage = mock(CompletionStage.class);
+            Map<Node, CompletionStage<Void>> stages = Collections.singletonMap(node, stage);
+
+            when(dispatcher.executeOnClusterAsync(command, nodes)).thenReturn(stages);
+
+            assertSame(stages, subject.executeOnClusterAsync(command, nodes));
+
+            when(dispatcher.executeOnNodeAsync(command, node)).thenReturn(stage);
+
+            assertSame(stage, subject.executeOnNodeAsync(command, node));
         }
 
         verify(dispatcher, never()).close();
@@ -192,7 +192,7 @@ public class InfinispanSessionManagerFactory<C extends Marshallability, L> imple
                 return new FineSessionAttributesFactory<>(configuration.getCache(), configuration.getCache(), new MarshalledValueMarshaller<>(factory, context), this.properties);
             }
             case COARSE: {
-                return new CoarseSessionAttributesFactory<>(configuration.getCache(), new MarshalledValueMarshaller<>(factory, context), this.properties);
+                return new CoarseSessionAttributesFactory<>(configuration.getCache(), new MarshalledValueMarshaller<>(factory, context), this.properties, config.isAttributeFingerprinting());
             }
             default: {
                 // Impossible
@@ -21,71 +21,67 @@
  */
 package org.wildfly.clustering.web.infinispan.session;
 
-import java.security.AccessController;
-import java.security.PrivilegedAction;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.TimeUnit;
-
-import org.jboss.threads.JBossThreadFactory;
+import java.util.function.Consumer;
+
 import org.wildfly.clustering.ee.Batch;
 import org.wildfly.clustering.ee.Batcher;
 import org.wildfly.clustering.ee.Remover;
 import org.wildfly.clustering.ee.infinispan.TransactionBatch;
 import org.wildfly.clustering.infinispan.spi.distribution.Locality;
+import org.wildfly.clustering.web.infinispan.session.SessionExpirationWheel.Expiration;
 import org.wildfly.clustering.web.infinispan.logging.InfinispanWebLogger;
 import org.wildfly.clustering.web.session.ImmutableSessionMetaData;
 
 /**
  * Session expiration scheduler that eagerly expires sessions as soon as they are eligible.
  * If/When Infinispan implements expiration notifications (ISPN-694), this will be obsolete.
+ * Expirations are triggered by a {@link SessionExpirationWheel}, shared by default by all session managers,
+ * and sessions expiring on the same tick are removed within a single batch.
  * @author Paul Ferraro
  */
-public class SessionExpirationScheduler implements Scheduler {
+public class SessionExpirationScheduler implements Scheduler, Consumer<List<Expiration>> {
+
+    private static final int MAX_BATCH_SIZE = 100;
 
-    final Map<String, Future<?>> expirationFutures = new ConcurrentHashMap<>();
+    final Map<String, Expiration> expirations = new ConcurrentHashMap<>();
     final Batcher<TransactionBatch> batcher;
     final Remover<String> remover;
-    private final ScheduledExecutorService executor;
+    private final SessionExpirationWheel wheel;
+    private final boolean shared;
+    // Serializes expiration against close()
+    private final Object lock = new Object();
+    private boolean closed = false;
 
-    public SessionExpirationScheduler(Batcher<TransactionBatch> batcher, Remover<String> remover) {
-        this(batcher, remover, createScheduledExecutor(createThreadFactory()));
-    }
+    private volatile long expirationCount = 0L;
+    private volatile long totalExpirationLag = 0L;
+    private volatile long maxExpirationLag = 0L;
 
-    private static ThreadFactory createThreadFactory() {
-        return AccessController.doPrivileged(new PrivilegedAction<ThreadFactory>() {
-            @Override
-            public ThreadFactory run() {
-                return new JBossThreadFactory(new ThreadGroup(SessionExpirationScheduler.class.getSimpleName()), Boolean.FALSE, null, "%G - %t", null, null);
-            }
-        });
+    public SessionExpirationScheduler(Batcher<TransactionBatch> batcher, Remover<String> remover) {
+        this(batcher, remover, SessionExpirationWheel.acquire(), true);
     }
 
-    private static ScheduledExecutorService createScheduledExecutor(ThreadFactory factory) {
-        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, factory);
-        executor.setRemoveOnCancelPolicy(true);
-        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
-        return executor;
+    public SessionExpirationScheduler(Batcher<TransactionBatch> batcher, Remover<String> remover, SessionExpirationWheel wheel) {
+        this(batcher, remover, wheel, false);
     }
 
-    public SessionExpirationScheduler(Batcher<TransactionBatch> batcher, Remover<String> remover, ScheduledExecutorService executor) {
+    private SessionExpirationScheduler(Batcher<TransactionBatch> batcher, Remover<String> remover, SessionExpirationWheel wheel, boolean shared) {
         this.batcher = batcher;
         this.remover = remover;
-        this.executor = executor;
+        this.wheel = wheel;
+        this.shared = shared;
     }
 
     @Override
     public void cancel(String sessionId) {
-        Future<?> future = this.expirationFutures.remove(sessionId);
-        if (future != null) {
-            future.cancel(false);
+        Expiration expiration = this.expirations.remove(sessionId);
+        if (expiration != null) {
+            expiration.cancel();
         }
     }
 
@@ -94,19 +90,18 @@ public class SessionExpirationScheduler implements Scheduler {
         Duration maxInactiveInterval = metaData.getMaxInactiveInterval();
         if (!maxInactiveInterval.isZero()) {
             Instant lastAccessed = metaData.getLastAccessedTime();
-            Duration delay = Duration.between(Instant.now(), lastAccessed.plus(maxInactiveInterval));
-            Runnable task = new ExpirationTask(sessionId);
-            long seconds = !delay.isNegative() ? delay.getSeconds() + 1 : 0;
-            InfinispanWebLogger.ROOT_LOGGER.tracef("Session %s will expire in %d sec", sessionId, seconds);
-            synchronized (task) {
-                this.expirationFutures.put(sessionId, this.executor.schedule(task, seconds, TimeUnit.SECONDS));
+            Instant deadline = lastAccessed.plus(maxInactiveInterval);
+            InfinispanWebLogger.ROOT_LOGGER.tracef("Session %s will expire at %s", sessionId, deadline);
+            Expiration previous = this.expirations.put(sessionId, this.wheel.schedule(sessionId, deadline.toEpochMilli(), this));
+            if (previous != null) {
+                previous.cancel();
             }
         }
     }
 
     @Override
     public void cancel(Locality locality) {
-        for (String sessionId : this.expirationFutures.keySet()) {
+        for (String sessionId : this.expirations.keySet()) {
             if (Thread.currentThread().isInterrupted()) break;
             if (!locality.isLocal(sessionId)) {
                 this.cancel(sessionId);
@@ -116,46 +111,113 @@ public class SessionExpirationScheduler implements Scheduler {
 
     @Override
     public void close() {
-        this.executor.shutdown();
-        for (Future<?> future : this.expirationFutures.values()) {
-            future.cancel(true);
+        synchronized (this.lock) {
+            // Waits for any in-progress expiration to complete
+            if (this.closed) return;
+            this.closed = true;
         }
-        for (Future<?> future : this.expirationFutures.values()) {
-            if (!future.isDone()) {
-                try {
-                    future.get();
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                } catch (ExecutionException e) {
-                    // Ignore
-                }
-            }
+        for (Expiration expiration : this.expirations.values()) {
+            expiration.cancel();
+        }
+        this.expirations.clear();
+        if (this.shared) {
+            SessionExpirationWheel.release();
         }
-        this.expirationFutures.clear();
     }
 
-    private class ExpirationTask implements Runnable {
-        private final String id;
+    /**
+     * Removes the sessions whose expiration is due, in as few batches as possible.
+     * @param expirations the expirations that are due
+     */
+    @Override
+    public void accept(List<Expiration> expirations) {
+        synchronized (this.lock) {
+            if (this.closed) return;
+            for (int i = 0; i < expirations.size(); i += MAX_BATCH_SIZE) {
+                this.expire(expirations.subList(i, Math.min(i + MAX_BATCH_SIZE, expirations.size())));
+            }
+        }
+    }
 
-        ExpirationTask(String id) {
-            this.id = id;
+    private void expire(List<Expiration> expirations) {
+        List<Expiration> due = new ArrayList<>(expirations.size());
+        for (Expiration expiration : expirations) {
+            // Skip sessions that were cancelled or rescheduled since this expiration became due
+            if (this.expirations.remove(expiration.getId(), expiration)) {
+                due.add(expiration);
+            }
         }
+        if (due.isEmpty()) return;
 
-        @Override
-        public void run() {
-            InfinispanWebLogger.ROOT_LOGGER.tracef("Expiring session %s", this.id);
-            try (Batch batch = SessionExpirationScheduler.this.batcher.createBatch()) {
+        int failed = -1;
+        try (Batch batch = this.batcher.createBatch()) {
+            for (int i = 0; i < due.size(); ++i) {
+                String id = due.get(i).getId();
+                InfinispanWebLogger.ROOT_LOGGER.tracef("Expiring session %s", id);
                 try {
-                    SessionExpirationScheduler.this.remover.remove(this.id);
+                    this.remover.remove(id);
                 } catch (Throwable e) {
-                    InfinispanWebLogger.ROOT_LOGGER.failedToExpireSession(e, this.id);
+                    InfinispanWebLogger.ROOT_LOGGER.failedToExpireSession(e, id);
                     batch.discard();
+                    failed = i;
+                    break;
                 }
-            } finally {
-                synchronized (this) {
-                    SessionExpirationScheduler.this.expirationFutures.remove(this.id);
-                }
             }
         }
+        long now = System.currentTimeMillis();
+        int count = 0;
+        long totalLag = 0L;
+        long maxLag = 0L;
+        for (int i = 0; i < due.size(); ++i) {
+            Expiration expiration = due.get(i);
+            // If the batch was discarded, retry the other sessions individually
+            if ((failed < 0) || ((i != failed) && this.expire(expiration.getId()))) {
+                long lag = Math.max(now - expiration.getDeadline(), 0L);
+                count += 1;
+                totalLag += lag;
+                maxLag = Math.max(maxLag, lag);
+            }
+        }
+        if (count > 0) {
+            InfinispanWebLogger.ROOT_LOGGER.tracef("Expired %d sessions, at most %d ms late", count, maxLag);
+            this.expirationCount += count;
+            this.totalExpirationLag += totalLag;
+            this.maxExpirationLag = Math.max(this.maxExpirationLag, maxLag);
+        }
+    }
+
+    private boolean expire(String id) {
+        try (Batch batch = this.batcher.createBatch()) {
+            try {
+                this.remover.remove(id);
+                return true;
+            } catch (Throwable e) {
+                InfinispanWebLogger.ROOT_LOGGER.failedToExpireSession(e, id);
+                batch.discard();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return the number of sessions expired by this scheduler
+     */
+    public long getExpirationCount() {
+        return this.expirationCount;
+    }
+
+    /**
+     * @return the mean delay between the moment a session became eligible for expiration and its removal
+     */
+    public Duration getMeanExpirationLag() {
+        long count = this.expirationCount;
+        return (count > 0) ? Duration.ofMillis(this.totalExpirationLag / count) : Duration.ZERO;
+    }
+
+    /**
+     * @return the longest delay between the moment a session became eligible for expiration and its removal
+     */
+    public Duration getMaxExpirationLag() {
+        return Duration.ofMillis(this.maxExpirationLag);
     }
 }
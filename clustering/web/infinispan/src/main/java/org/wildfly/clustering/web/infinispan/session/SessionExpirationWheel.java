@@ -0,0 +1,287 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import java.security.PrivilegedAction;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import org.jboss.threads.JBossThreadFactory;
+import org.wildfly.security.manager.WildFlySecurityManager;
+
+/**
+ * A coarse-grained timing wheel that triggers session expirations, shared by all session managers.
+ * <p/>
+ * Time is divided into ticks, and each expiration is placed into the bucket of the first tick following its deadline.
+ * A single thread visits one bucket per tick, and hands all due expirations of a given owner to that owner as one list,
+ * using a small shared pool of threads.
+ * Scheduling only enqueues the expiration, while cancellation removes it from its bucket directly, so that
+ * the sessions of a busy node, which are rescheduled on every request, do not leave cancelled expirations behind.
+ */
+public class SessionExpirationWheel implements AutoCloseable {
+
+    private static final Duration DEFAULT_TICK = Duration.ofMillis(250L);
+    private static final int DEFAULT_BUCKETS = 1024;
+
+    private static SessionExpirationWheel sharedWheel = null;
+    private static int references = 0;
+
+    /**
+     * Returns the wheel shared by all session managers, starting it if necessary.
+     * Each call must be paired with a call to {@link #release()}.
+     * @return the shared wheel
+     */
+    static synchronized SessionExpirationWheel acquire() {
+        if (references++ == 0) {
+            sharedWheel = new SessionExpirationWheel(DEFAULT_TICK, DEFAULT_BUCKETS, createThreadFactory());
+        }
+        return sharedWheel;
+    }
+
+    /**
+     * Releases the shared wheel, stopping it once it is no longer referenced.
+     */
+    static synchronized void release() {
+        if (--references == 0) {
+            sharedWheel.close();
+            sharedWheel = null;
+        }
+    }
+
+    private static ThreadFactory createThreadFactory() {
+        PrivilegedAction<ThreadFactory> action = () -> new JBossThreadFactory(new ThreadGroup(SessionExpirationWheel.class.getSimpleName()), Boolean.FALSE, null, "%G - %t", null, null);
+        return WildFlySecurityManager.doUnchecked(action);
+    }
+
+    private static Executor createExecutor(ThreadFactory factory) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), factory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private final long tickMillis;
+    private final Set<Expiration>[] buckets;
+    private final Queue<Expiration> pending = new ConcurrentLinkedQueue<>();
+    private final LongSupplier clock;
+    private final Executor executor;
+    private final Thread thread;
+    private volatile boolean closed = false;
+    // Only accessed by the thread advancing the wheel
+    private long lastTick;
+
+    public SessionExpirationWheel(Duration tick, int buckets, ThreadFactory factory) {
+        this(tick, buckets, System::currentTimeMillis, createExecutor(factory), factory);
+    }
+
+    /**
+     * Creates a wheel reading the time from the specified clock.
+     * @param clock the current time, in milliseconds since the epoch
+     * @param executor runs the owners of due expirations
+     * @param factory creates the thread advancing the wheel, or null if the wheel is advanced via {@link #advance()}
+     */
+    @SuppressWarnings("unchecked")
+    SessionExpirationWheel(Duration tick, int buckets, LongSupplier clock, Executor executor, ThreadFactory factory) {
+        this.tickMillis = tick.toMillis();
+        this.buckets = new Set[buckets];
+        for (int i = 0; i < buckets; ++i) {
+            this.buckets[i] = ConcurrentHashMap.newKeySet();
+        }
+        this.clock = clock;
+        this.executor = executor;
+        this.lastTick = clock.getAsLong() / this.tickMillis;
+        this.thread = (factory != null) ? factory.newThread(this::run) : null;
+        if (this.thread != null) {
+            this.thread.start();
+        }
+    }
+
+    /**
+     * Schedules the expiration of the specified session.
+     * @param id a session identifier
+     * @param deadline the time, in milliseconds since the epoch, after which the session is expired
+     * @param owner consumes the expirations that are due, in batches
+     * @return the scheduled expiration
+     */
+    public Expiration schedule(String id, long deadline, Consumer<List<Expiration>> owner) {
+        // Expire on the first tick strictly after the deadline
+        Expiration expiration = new Expiration(id, deadline, (deadline / this.tickMillis) + 1, owner);
+        this.pending.add(expiration);
+        return expiration;
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+        if (this.thread != null) {
+            this.thread.interrupt();
+            try {
+                this.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (this.executor instanceof ExecutorService) {
+            PrivilegedAction<List<Runnable>> action = () -> ((ExecutorService) this.executor).shutdownNow();
+            WildFlySecurityManager.doUnchecked(action);
+        }
+        for (Set<Expiration> bucket : this.buckets) {
+            bucket.clear();
+        }
+        this.pending.clear();
+    }
+
+    private void run() {
+        while (!this.closed) {
+            long now = this.advance();
+            try {
+                Thread.sleep((((now / this.tickMillis) + 1) * this.tickMillis) - now);
+            } catch (InterruptedException e) {
+                // Interrupted by close()
+            }
+        }
+    }
+
+    /**
+     * Visits the buckets of the ticks elapsed since the previous visit, and dispatches the expirations that are due.
+     * @return the current time, in milliseconds since the epoch
+     */
+    long advance() {
+        long now = this.clock.getAsLong();
+        long currentTick = now / this.tickMillis;
+        if (currentTick > this.lastTick) {
+            this.transferPending(currentTick);
+            // If we fell behind by more than a revolution, visiting each bucket once is enough
+            long firstTick = Math.max(this.lastTick + 1, currentTick - this.buckets.length + 1);
+            Map<Consumer<List<Expiration>>, List<Expiration>> due = new IdentityHashMap<>();
+            for (long tick = firstTick; tick <= currentTick; ++tick) {
+                this.collect(this.buckets[this.index(tick)], currentTick, due);
+            }
+            this.lastTick = currentTick;
+            this.dispatch(due);
+        }
+        return now;
+    }
+
+    private int index(long tick) {
+        return (int) (tick % this.buckets.length);
+    }
+
+    private void transferPending(long currentTick) {
+        for (Expiration expiration = this.pending.poll(); expiration != null; expiration = this.pending.poll()) {
+            if (!expiration.isCancelled()) {
+                // Deadlines that have already passed are visited by the current tick
+                Set<Expiration> bucket = this.buckets[this.index(Math.max(expiration.tick, currentTick))];
+                bucket.add(expiration);
+                expiration.bucket = bucket;
+                // Re-check in case we raced with cancel()
+                if (expiration.isCancelled()) {
+                    bucket.remove(expiration);
+                }
+            }
+        }
+    }
+
+    private void collect(Set<Expiration> bucket, long currentTick, Map<Consumer<List<Expiration>>, List<Expiration>> due) {
+        Iterator<Expiration> expirations = bucket.iterator();
+        while (expirations.hasNext()) {
+            Expiration expiration = expirations.next();
+            if (expiration.tick <= currentTick) {
+                expirations.remove();
+                if (!expiration.isCancelled()) {
+                    due.computeIfAbsent(expiration.owner, key -> new ArrayList<>()).add(expiration);
+                }
+            }
+        }
+    }
+
+    private void dispatch(Map<Consumer<List<Expiration>>, List<Expiration>> due) {
+        for (Map.Entry<Consumer<List<Expiration>>, List<Expiration>> entry : due.entrySet()) {
+            Consumer<List<Expiration>> owner = entry.getKey();
+            List<Expiration> expirations = entry.getValue();
+            try {
+                this.executor.execute(() -> owner.accept(expirations));
+            } catch (RejectedExecutionException e) {
+                // Wheel was closed
+            }
+        }
+    }
+
+    /**
+     * The scheduled expiration of a single session.
+     */
+    public static class Expiration {
+        final String id;
+        final long deadline;
+        final long tick;
+        final Consumer<List<Expiration>> owner;
+        volatile Set<Expiration> bucket = null;
+        private volatile boolean cancelled = false;
+
+        Expiration(String id, long deadline, long tick, Consumer<List<Expiration>> owner) {
+            this.id = id;
+            this.deadline = deadline;
+            this.tick = tick;
+            this.owner = owner;
+        }
+
+        public String getId() {
+            return this.id;
+        }
+
+        /**
+         * @return the time, in milliseconds since the epoch, after which the session is expired
+         */
+        public long getDeadline() {
+            return this.deadline;
+        }
+
+        public boolean isCancelled() {
+            return this.cancelled;
+        }
+
+        public void cancel() {
+            this.cancelled = true;
+            Set<Expiration> bucket = this.bucket;
+            if (bucket != null) {
+                bucket.remove(this);
+            }
+        }
+    }
+}
@@ -21,6 +21,7 @@
  */
 package org.wildfly.clustering.web.infinispan.session.coarse;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -42,20 +43,33 @@ public class CoarseSessionAttributes extends CoarseImmutableSessionAttributes im
     private final Mutator mutator;
     private final Marshallability marshallability;
     private final CacheProperties properties;
+    private final SessionAttributesFingerprinter<?> fingerprinter;
+    // Fingerprint of the attributes prior to the first read of a mutable attribute
+    private byte[] fingerprint = null;
+    private volatile boolean mutated = false;
 
     public CoarseSessionAttributes(Map<String, Object> attributes, Mutator mutator, Marshallability marshallability, CacheProperties properties) {
+        this(attributes, mutator, marshallability, properties, null);
+    }
+
+    /**
+     * Creates session attributes that, if a fingerprinter is specified, are only replicated on close, following a read of a mutable attribute, if their serialized form changed.
+     */
+    public CoarseSessionAttributes(Map<String, Object> attributes, Mutator mutator, Marshallability marshallability, CacheProperties properties, SessionAttributesFingerprinter<?> fingerprinter) {
         super(attributes);
         this.attributes = attributes;
         this.mutations = !properties.isTransactional() ? ConcurrentHashMap.newKeySet() : null;
         this.mutator = mutator;
         this.marshallability = marshallability;
         this.properties = properties;
+        this.fingerprinter = fingerprinter;
     }
 
     @Override
     public Object removeAttribute(String name) {
         Object value = this.attributes.remove(name);
         this.mutator.mutate();
+        this.mutated = true;
         if (this.mutations != null) {
             this.mutations.remove(name);
         }
@@ -72,6 +86,7 @@ public class CoarseSessionAttributes extends CoarseImmutableSessionAttributes im
         }
         Object old = this.attributes.put(name, value);
         this.mutator.mutate();
+        this.mutated = true;
         if (this.mutations != null) {
             this.mutations.remove(name);
         }
@@ -82,7 +97,9 @@ public class CoarseSessionAttributes extends CoarseImmutableSessionAttributes im
     public Object getAttribute(String name) {
         Object value = this.attributes.get(name);
         if (!SessionAttributeImmutability.INSTANCE.test(value)) {
-            if (this.mutations != null) {
+            if ((this.fingerprinter != null) && this.fingerprint()) {
+                // Whether to replicate is decided on close()
+            } else if (this.mutations != null) {
                 this.mutations.add(name);
             } else {
                 this.mutator.mutate();
@@ -91,10 +108,39 @@ public class CoarseSessionAttributes extends CoarseImmutableSessionAttributes im
         return value;
     }
 
+    /**
+     * Captures the fingerprint of the attributes, before the caller gets a chance to mutate them.
+     * @return true, if a fingerprint is available, false otherwise
+     */
+    private synchronized boolean fingerprint() {
+        if (this.fingerprint == null) {
+            this.fingerprint = this.fingerprinter.apply(this.attributes);
+        }
+        return this.fingerprint != null;
+    }
+
     @Override
     public void close() {
+        boolean replicated = this.mutated;
+        byte[] fingerprint;
+        synchronized (this) {
+            fingerprint = this.fingerprint;
+        }
+        // A transactional mutation already replicates the final state of the attributes on commit
+        if ((fingerprint != null) && !(replicated && this.properties.isTransactional())) {
+            if (!Arrays.equals(fingerprint, this.fingerprinter.apply(this.attributes))) {
+                this.mutator.mutate();
+                replicated = true;
+            } else if (!replicated) {
+                this.fingerprinter.replicationSkipped();
+            }
+        }
         if ((this.mutations != null) && !this.mutations.isEmpty()) {
             this.mutator.mutate();
+            replicated = true;
+        }
+        if (replicated && (this.fingerprinter != null)) {
+            this.fingerprinter.replicationPerformed();
         }
     }
 }
@@ -54,11 +54,20 @@ public class CoarseSessionAttributesFactory<V> implements SessionAttributesFacto
     private final Cache<SessionAttributesKey, V> cache;
     private final Marshaller<Map<String, Object>, V> marshaller;
     private final CacheProperties properties;
+    private final SessionAttributesFingerprinter<V> fingerprinter;
 
     public CoarseSessionAttributesFactory(Cache<SessionAttributesKey, V> cache, Marshaller<Map<String, Object>, V> marshaller, CacheProperties properties) {
+        this(cache, marshaller, properties, false);
+    }
+
+    /**
+     * @param fingerprinting indicates whether to skip the replication of attributes whose serialized form did not change
+     */
+    public CoarseSessionAttributesFactory(Cache<SessionAttributesKey, V> cache, Marshaller<Map<String, Object>, V> marshaller, CacheProperties properties, boolean fingerprinting) {
         this.cache = cache;
         this.marshaller = marshaller;
         this.properties = properties;
+        this.fingerprinter = fingerprinting ? new SessionAttributesFingerprinter<>(marshaller) : null;
     }
 
     @Override
@@ -93,8 +102,24 @@ public class CoarseSessionAttributesFactory<V> implements SessionAttributesFacto
     @Override
     public SessionAttributes createSessionAttributes(String id, Map.Entry<Map<String, Object>, V> entry) {
         SessionAttributesKey key = new SessionAttributesKey(id);
-        Mutator mutator = this.properties.isTransactional() && this.cache.getAdvancedCache().getCacheEntry(key).isCreated() ? Mutator.PASSIVE : new CacheEntryMutator<>(this.cache, key, entry.getValue());
-        return new CoarseSessionAttributes(entry.getKey(), mutator, this.marshaller, this.properties);
+        boolean created = this.properties.isTransactional() && this.cache.getAdvancedCache().getCacheEntry(key).isCreated();
+        Mutator mutator = created ? Mutator.PASSIVE : new CacheEntryMutator<>(this.cache, key, entry.getValue());
+        // There is no replication to skip for a newly created entry
+        return new CoarseSessionAttributes(entry.getKey(), mutator, this.marshaller, this.properties, !created ? this.fingerprinter : null);
+    }
+
+    /**
+     * @return the number of requests whose session attributes were replicated, or 0 if fingerprinting is disabled
+     */
+    public long getPerformedReplicationCount() {
+        return (this.fingerprinter != null) ? this.fingerprinter.getPerformedReplicationCount() : 0L;
+    }
+
+    /**
+     * @return the number of requests whose session attributes were not replicated since they did not change, or 0 if fingerprinting is disabled
+     */
+    public long getSkippedReplicationCount() {
+        return (this.fingerprinter != null) ? this.fingerprinter.getSkippedReplicationCount() : 0L;
     }
 
     @Override
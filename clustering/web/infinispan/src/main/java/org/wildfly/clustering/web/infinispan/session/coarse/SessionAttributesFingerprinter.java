@@ -0,0 +1,107 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session.coarse;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.wildfly.clustering.marshalling.spi.Marshaller;
+
+/**
+ * Computes a digest of the serialized form of the attributes of a coarse granularity session.
+ * Comparing the digests computed before and after a request allows skipping the replication of attributes that were read, but not modified.
+ * Also counts the replications performed and skipped by the sessions of a deployment.
+ */
+public class SessionAttributesFingerprinter<V> implements Function<Map<String, Object>, byte[]> {
+
+    private static final String ALGORITHM = "SHA-256";
+
+    private static final OutputStream NULL_OUTPUT = new OutputStream() {
+        @Override
+        public void write(int b) {
+            // Discard
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            // Discard
+        }
+    };
+
+    private final Marshaller<Map<String, Object>, V> marshaller;
+    private final LongAdder performed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    public SessionAttributesFingerprinter(Marshaller<Map<String, Object>, V> marshaller) {
+        this.marshaller = marshaller;
+    }
+
+    /**
+     * Computes the fingerprint of the specified session attributes.
+     * @param attributes a map of session attributes
+     * @return a digest of the serialized attributes, or null, if they could not be serialized
+     */
+    @Override
+    public byte[] apply(Map<String, Object> attributes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(ALGORITHM);
+            try (ObjectOutputStream output = new ObjectOutputStream(new DigestOutputStream(NULL_OUTPUT, digest))) {
+                output.writeObject(this.marshaller.write(attributes));
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException | RuntimeException e) {
+            // Caller must assume the attributes were modified
+            return null;
+        }
+    }
+
+    void replicationPerformed() {
+        this.performed.increment();
+    }
+
+    void replicationSkipped() {
+        this.skipped.increment();
+    }
+
+    /**
+     * @return the number of requests whose session attributes were replicated
+     */
+    public long getPerformedReplicationCount() {
+        return this.performed.sum();
+    }
+
+    /**
+     * @return the number of requests whose session attributes were read, but whose replication was skipped since their serialized form did not change
+     */
+    public long getSkippedReplicationCount() {
+        return this.skipped.sum();
+    }
+}
@@ -21,7 +21,11 @@
  */
 package org.wildfly.clustering.web.infinispan.session;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -29,6 +33,7 @@ import static org.mockito.Mockito.when;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.Test;
 import org.wildfly.clustering.ee.Batcher;
@@ -81,4 +86,60 @@ public class SessionExpirationSchedulerTestCase {
         verify(batch).close();
     }
 
+    @Test
+    public void batch() {
+        Batcher<TransactionBatch> batcher = mock(Batcher.class);
+        TransactionBatch batch = mock(TransactionBatch.class);
+        Remover<String> remover = mock(Remover.class);
+        ImmutableSessionMetaData metaData = mock(ImmutableSessionMetaData.class);
+        String[] sessionIds = new String[] { "session1", "session2", "session3" };
+        AtomicLong clock = new AtomicLong(1000L);
+
+        when(batcher.createBatch()).thenReturn(batch);
+        when(metaData.getMaxInactiveInterval()).thenReturn(Duration.ofMillis(1L));
+        when(metaData.getLastAccessedTime()).thenReturn(Instant.ofEpochMilli(clock.get()));
+
+        try (SessionExpirationWheel wheel = new SessionExpirationWheel(Duration.ofMillis(250L), 16, clock::get, Runnable::run, null)) {
+            try (SessionExpirationScheduler scheduler = new SessionExpirationScheduler(batcher, remover, wheel)) {
+                for (String sessionId : sessionIds) {
+                    scheduler.schedule(sessionId, metaData);
+                }
+
+                // The sessions expire after 1001 ms, i.e. on the tick starting at 1250 ms
+                clock.set(1249L);
+                wheel.advance();
+                verify(remover, never()).remove(anyString());
+
+                clock.set(1250L);
+                wheel.advance();
+                assertEquals(sessionIds.length, scheduler.getExpirationCount());
+            }
+        }
+
+        for (String sessionId : sessionIds) {
+            verify(remover).remove(sessionId);
+        }
+        // Sessions expiring on the same tick are removed within a single batch
+        verify(batcher, times(1)).createBatch();
+        verify(batch).close();
+    }
+
+    @Test
+    public void closeTwice() {
+        Batcher<TransactionBatch> batcher = mock(Batcher.class);
+        Remover<String> remover = mock(Remover.class);
+
+        try (SessionExpirationScheduler other = new SessionExpirationScheduler(batcher, remover)) {
+            SessionExpirationScheduler scheduler = new SessionExpirationScheduler(batcher, remover);
+            SessionExpirationWheel wheel = SessionExpirationWheel.acquire();
+            SessionExpirationWheel.release();
+
+            scheduler.close();
+            scheduler.close();
+
+            // The shared wheel is still referenced by the other scheduler
+            assertSame(wheel, SessionExpirationWheel.acquire());
+            SessionExpirationWheel.release();
+        }
+    }
 }
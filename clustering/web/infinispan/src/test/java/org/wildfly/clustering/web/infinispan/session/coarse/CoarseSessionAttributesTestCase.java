@@ -0,0 +1,119 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session.coarse;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Test;
+import org.wildfly.clustering.ee.Mutator;
+import org.wildfly.clustering.ee.infinispan.CacheProperties;
+import org.wildfly.clustering.marshalling.spi.Marshaller;
+import org.wildfly.clustering.web.infinispan.session.SessionAttributes;
+
+/**
+ * Unit test for {@link CoarseSessionAttributes} with attribute fingerprinting enabled.
+ */
+public class CoarseSessionAttributesTestCase {
+    private final Marshaller<Map<String, Object>, HashMap<String, Object>> marshaller = new Marshaller<Map<String, Object>, HashMap<String, Object>>() {
+        @Override
+        public boolean isMarshallable(Object object) {
+            return true;
+        }
+
+        @Override
+        public Map<String, Object> read(HashMap<String, Object> value) {
+            return value;
+        }
+
+        @Override
+        public HashMap<String, Object> write(Map<String, Object> value) {
+            return new HashMap<>(value);
+        }
+    };
+    private final SessionAttributesFingerprinter<HashMap<String, Object>> fingerprinter = new SessionAttributesFingerprinter<>(this.marshaller);
+
+    @Test
+    public void unmodified() {
+        this.unmodified(true);
+        this.unmodified(false);
+    }
+
+    private void unmodified(boolean transactional) {
+        Mutator mutator = mock(Mutator.class);
+        Map<String, Object> attributes = new ConcurrentHashMap<>();
+        attributes.put("list", new ArrayList<>());
+
+        try (SessionAttributes sessionAttributes = new CoarseSessionAttributes(attributes, mutator, this.marshaller, properties(transactional), this.fingerprinter)) {
+            sessionAttributes.getAttribute("list");
+        }
+
+        verify(mutator, never()).mutate();
+    }
+
+    @Test
+    public void modified() {
+        this.modified(true);
+        this.modified(false);
+
+        assertEquals(2L, this.fingerprinter.getPerformedReplicationCount());
+        assertEquals(0L, this.fingerprinter.getSkippedReplicationCount());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void modified(boolean transactional) {
+        Mutator mutator = mock(Mutator.class);
+        Map<String, Object> attributes = new ConcurrentHashMap<>();
+        attributes.put("list", new ArrayList<>());
+
+        try (SessionAttributes sessionAttributes = new CoarseSessionAttributes(attributes, mutator, this.marshaller, properties(transactional), this.fingerprinter)) {
+            List<Object> list = (List<Object>) sessionAttributes.getAttribute("list");
+            list.add("value");
+        }
+
+        verify(mutator).mutate();
+    }
+
+    @Test
+    public void counters() {
+        this.unmodified();
+
+        assertEquals(0L, this.fingerprinter.getPerformedReplicationCount());
+        assertEquals(2L, this.fingerprinter.getSkippedReplicationCount());
+    }
+
+    private static CacheProperties properties(boolean transactional) {
+        CacheProperties properties = mock(CacheProperties.class);
+        when(properties.isTransactional()).thenReturn(transactional);
+        when(properties.isMarshalling()).thenReturn(true);
+        return properties;
+    }
+}
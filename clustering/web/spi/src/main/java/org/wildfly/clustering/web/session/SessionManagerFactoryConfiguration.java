@@ -36,6 +36,13 @@ public interface SessionManagerFactoryConfiguration<C extends Marshallability, L
 
     SessionAttributePersistenceStrategy getAttributePersistenceStrategy();
 
+    /**
+     * Indicates whether session attributes persisted using the {@link SessionAttributePersistenceStrategy#COARSE} strategy
+     * should only be replicated if their serialized form changed, following the read of a mutable attribute.
+     * @return true, if attribute fingerprinting is enabled, false otherwise
+     */
+    boolean isAttributeFingerprinting();
+
     String getServerName();
 
     String getDeploymentName();
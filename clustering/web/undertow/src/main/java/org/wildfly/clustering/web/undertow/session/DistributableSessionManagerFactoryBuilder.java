@@ -116,6 +116,11 @@ public class DistributableSessionManagerFactoryBuilder implements CapabilityServ
                 return strategies.get(config.getGranularity());
             }
 
+            @Override
+            public boolean isAttributeFingerprinting() {
+                return config.isAttributeFingerprinting();
+            }
+
             @Override
             public String getServerName() {
                 return config.getServerName();
@@ -26,6 +26,11 @@ public class ComponentClientInstance implements Serializable {
 
     private final Map<Object, Object> contextInformation = new HashMap<Object, Object>();
     private volatile boolean constructionComplete = false;
+    /**
+     * The context information as alternating keys and values, captured once construction is complete so that every
+     * invocation does not need to iterate the map.
+     */
+    private transient volatile Object[] contextEntries;
 
     public Object getViewInstanceData(final Object key) {
         return contextInformation.get(key);
@@ -39,13 +44,31 @@ public class ComponentClientInstance implements Serializable {
     }
 
     void prepareInterceptorContext(InterceptorContext interceptorContext){
-        for(Map.Entry<Object, Object> entry : contextInformation.entrySet()) {
-            interceptorContext.putPrivateData(entry.getKey(), entry.getValue());
+        Object[] entries = contextEntries;
+        if (entries == null) {
+            entries = captureContextEntries();
+            if (constructionComplete) {
+                contextEntries = entries;
+            }
+        }
+        for (int i = 0; i < entries.length; i += 2) {
+            interceptorContext.putPrivateData(entries[i], entries[i + 1]);
         }
     }
 
     void constructionComplete() {
+        contextEntries = captureContextEntries();
         constructionComplete = true;
     }
 
+    private Object[] captureContextEntries() {
+        final Object[] entries = new Object[contextInformation.size() * 2];
+        int i = 0;
+        for(Map.Entry<Object, Object> entry : contextInformation.entrySet()) {
+            entries[i++] = entry.getKey();
+            entries[i++] = entry.getValue();
+        }
+        return entries;
+    }
+
 }
@@ -1,6 +1,7 @@
 package org.jboss.as.ee.component;
 
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 
@@ -13,13 +14,23 @@ import org.jboss.invocation.InterceptorContext;
 public class ConstructorComponentFactory implements ComponentFactory {
 
     private final Constructor<?> constructor;
+    // null if the constructor could not be bound, in which case it is invoked reflectively
+    private final MethodHandle handle;
 
     public ConstructorComponentFactory(final Constructor<?> constructor) {
         this.constructor = constructor;
+        this.handle = MethodHandleAccessors.constructor(constructor);
     }
 
     @Override
     public ManagedReference create(final InterceptorContext context) {
+        if (handle != null) {
+            try {
+                return new ConstructorManagedReference(handle.invokeExact());
+            } catch (Throwable e) {
+                throw new RuntimeException(new InvocationTargetException(e));
+            }
+        }
         try {
             Object instance = constructor.newInstance();
             return new ConstructorManagedReference(instance);
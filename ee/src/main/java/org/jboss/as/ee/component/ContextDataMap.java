@@ -0,0 +1,113 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.component;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The public context data of an invocation, which only allocates its backing map once an entry is added or one of its
+ * views is requested. Most local invocations never use their context data.
+ */
+final class ContextDataMap extends AbstractMap<String, Object> implements Serializable {
+
+    private static final long serialVersionUID = 3294806418370516178L;
+
+    private Map<String, Object> map;
+
+    private Map<String, Object> map() {
+        Map<String, Object> map = this.map;
+        if (map == null) {
+            map = new HashMap<>();
+            this.map = map;
+        }
+        return map;
+    }
+
+    @Override
+    public int size() {
+        return (this.map != null) ? this.map.size() : 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return (this.map == null) || this.map.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return (this.map != null) && this.map.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return (this.map != null) && this.map.containsValue(value);
+    }
+
+    @Override
+    public Object get(Object key) {
+        return (this.map != null) ? this.map.get(key) : null;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        return this.map().put(key, value);
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ?> map) {
+        if (!map.isEmpty()) {
+            this.map().putAll(map);
+        }
+    }
+
+    @Override
+    public Object remove(Object key) {
+        return (this.map != null) ? this.map.remove(key) : null;
+    }
+
+    @Override
+    public void clear() {
+        if (this.map != null) {
+            this.map.clear();
+        }
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return this.map().keySet();
+    }
+
+    @Override
+    public Collection<Object> values() {
+        return this.map().values();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return this.map().entrySet();
+    }
+}
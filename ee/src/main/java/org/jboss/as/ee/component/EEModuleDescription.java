@@ -68,7 +68,7 @@ public final class EEModuleDescription implements ResourceInjectionTarget {
 
     private final boolean appClient;
 
-    private ServiceName defaultClassIntrospectorServiceName = ReflectiveClassIntrospector.SERVICE_NAME;
+    private ServiceName defaultClassIntrospectorServiceName = MethodHandleClassIntrospector.SERVICE_NAME;
 
     private final ConcurrentContext concurrentContext;
 
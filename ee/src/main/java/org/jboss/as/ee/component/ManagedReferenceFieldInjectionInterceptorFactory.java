@@ -22,6 +22,7 @@
 
 package org.jboss.as.ee.component;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 
@@ -69,6 +70,8 @@ final class ManagedReferenceFieldInjectionInterceptorFactory implements Intercep
         private final Object targetKey;
         private final ManagedReferenceFactory factory;
         private final Field field;
+        // null if the field could not be bound, in which case it is set reflectively
+        private final MethodHandle setter;
         private final boolean optional;
         private final Object valueContextKey;
 
@@ -76,6 +79,7 @@ final class ManagedReferenceFieldInjectionInterceptorFactory implements Intercep
             this.targetKey = targetKey;
             this.factory = factory;
             this.field = field;
+            this.setter = MethodHandleAccessors.setter(field);
             this.optional = optional;
             this.valueContextKey = valueContextKey;
         }
@@ -105,7 +109,7 @@ final class ManagedReferenceFieldInjectionInterceptorFactory implements Intercep
                 componentInstance.setInstanceData(valueContextKey, reference);
                 Object injected = reference.getInstance();
                 try {
-                    field.set(target, injected);
+                    inject(target, injected);
                 } catch (IllegalArgumentException e) {
                     throw EeLogger.ROOT_LOGGER.cannotSetField(field.getName(), injected.getClass(), injected.getClass().getClassLoader(), field.getType(), field.getType().getClassLoader());
                 }
@@ -119,6 +123,21 @@ final class ManagedReferenceFieldInjectionInterceptorFactory implements Intercep
                 }
             }
         }
+
+        private void inject(final Object target, final Object value) throws IllegalAccessException {
+            if (setter == null || (value != null && !field.getType().isInstance(value))) {
+                // Let reflection report the type mismatch
+                field.set(target, value);
+                return;
+            }
+            try {
+                setter.invokeExact(target, value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
     }
 
 }
@@ -22,6 +22,8 @@
 
 package org.jboss.as.ee.component;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 
@@ -71,12 +73,17 @@ final class ManagedReferenceMethodInjectionInterceptorFactory implements Interce
         private final Object valueKey;
         private final ManagedReferenceFactory factory;
         private final Method method;
+        // null if the method could not be bound, in which case it is invoked reflectively
+        private final MethodHandle injector;
+        private final Class<?> parameterType;
         private final boolean optional;
 
         ManagedReferenceMethodInjectionInterceptor(final Object targetKey, final Object valueKey, final ManagedReferenceFactory factory, final Method method, final boolean optional) {
             this.targetKey = targetKey;
             this.factory = factory;
             this.method = method;
+            this.injector = MethodHandleAccessors.injector(method);
+            this.parameterType = (injector != null) ? method.getParameterTypes()[0] : null;
             this.optional = optional;
             this.valueKey = valueKey;
         }
@@ -105,7 +112,7 @@ final class ManagedReferenceMethodInjectionInterceptorFactory implements Interce
                 final InvocationType invocationType = context.getPrivateData(InvocationType.class);
                 try {
                     context.putPrivateData(InvocationType.class, InvocationType.DEPENDENCY_INJECTION);
-                    method.invoke(target, reference.getInstance());
+                    inject(target, reference.getInstance());
                 } finally {
                     context.putPrivateData(InvocationType.class, invocationType);
                 }
@@ -119,5 +126,18 @@ final class ManagedReferenceMethodInjectionInterceptorFactory implements Interce
                 }
             }
         }
+
+        private void inject(final Object target, final Object value) throws Exception {
+            if (injector == null || (value != null && !parameterType.isInstance(value))) {
+                // Let reflection report the argument mismatch
+                method.invoke(target, value);
+                return;
+            }
+            try {
+                injector.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
     }
 }
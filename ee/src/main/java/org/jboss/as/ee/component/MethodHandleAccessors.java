@@ -0,0 +1,96 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.component;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Binds the constructors, fields and methods used for component instantiation and resource injection to
+ * {@link MethodHandle}s once, at deployment time, so that they need not be re-checked by reflection on every
+ * instance creation.
+ * <p/>
+ * Each method returns {@code null} if a handle cannot be obtained, e.g. because the member is not accessible from
+ * this module, or because its type requires the widening and unboxing conversions performed by reflection, in
+ * which case callers fall back to the reflective member.
+ */
+final class MethodHandleAccessors {
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+    private static final MethodType INJECTOR_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private MethodHandleAccessors() {
+    }
+
+    /**
+     * Returns a handle of type {@code ()Object} invoking the given no-arg constructor, or {@code null}.
+     */
+    static MethodHandle constructor(final Constructor<?> constructor) {
+        if (constructor.getParameterCount() != 0 || Modifier.isAbstract(constructor.getDeclaringClass().getModifiers())) {
+            return null;
+        }
+        try {
+            return MethodHandles.lookup().unreflectConstructor(constructor).asType(CONSTRUCTOR_TYPE);
+        } catch (IllegalAccessException | SecurityException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns a handle of type {@code (Object, Object)void} setting the given reference typed field, or {@code null}.
+     * The target argument is ignored for static fields.
+     */
+    static MethodHandle setter(final Field field) {
+        if (field.getType().isPrimitive() || Modifier.isFinal(field.getModifiers())) {
+            return null;
+        }
+        try {
+            return injector(MethodHandles.lookup().unreflectSetter(field), Modifier.isStatic(field.getModifiers()));
+        } catch (IllegalAccessException | SecurityException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns a handle of type {@code (Object, Object)void} invoking the given single reference typed parameter
+     * method, or {@code null}. The target argument is ignored for static methods.
+     */
+    static MethodHandle injector(final Method method) {
+        if (method.getParameterCount() != 1 || method.getParameterTypes()[0].isPrimitive() || method.isVarArgs()) {
+            return null;
+        }
+        try {
+            return injector(MethodHandles.lookup().unreflect(method), Modifier.isStatic(method.getModifiers()));
+        } catch (IllegalAccessException | SecurityException e) {
+            return null;
+        }
+    }
+
+    private static MethodHandle injector(final MethodHandle handle, final boolean isStatic) {
+        return (isStatic ? MethodHandles.dropArguments(handle, 0, Object.class) : handle).asType(INJECTOR_TYPE);
+    }
+}
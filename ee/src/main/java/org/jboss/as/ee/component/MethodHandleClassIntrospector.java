@@ -0,0 +1,90 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.component;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+
+import org.jboss.as.naming.ConstructorManagedReferenceFactory;
+import org.jboss.as.naming.ImmediateManagedReference;
+import org.jboss.as.naming.ManagedReference;
+import org.jboss.as.naming.ManagedReferenceFactory;
+import org.jboss.msc.service.ServiceName;
+import org.wildfly.security.manager.WildFlySecurityManager;
+
+/**
+ * A {@link ReflectiveClassIntrospector} which binds the no-arg constructor of each class to a {@link MethodHandle}
+ * once, when the factory is created, falling back to reflective instantiation if the constructor cannot be bound.
+ */
+public class MethodHandleClassIntrospector extends ReflectiveClassIntrospector {
+
+    public static final ServiceName SERVICE_NAME = ServiceName.JBOSS.append("ee", "methodHandleClassIntrospector");
+
+    @Override
+    public ManagedReferenceFactory createFactory(final Class<?> clazz) {
+        if (WildFlySecurityManager.isChecking()) {
+            // Execute in a privileged block for executions, such as JSP's, that do not copy the security
+            // context/protection domains onto class loaders. The permission check is done on the constructor.
+            return AccessController.doPrivileged(new PrivilegedAction<ManagedReferenceFactory>() {
+                @Override
+                public ManagedReferenceFactory run() {
+                    return createFactory(getDeclaredConstructor(clazz));
+                }
+            });
+        }
+        return createFactory(getDeclaredConstructor(clazz));
+    }
+
+    private static Constructor<?> getDeclaredConstructor(final Class<?> clazz) {
+        try {
+            return clazz.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static ManagedReferenceFactory createFactory(final Constructor<?> constructor) {
+        final MethodHandle handle = MethodHandleAccessors.constructor(constructor);
+        return (handle != null) ? new MethodHandleManagedReferenceFactory(handle) : new ConstructorManagedReferenceFactory(constructor);
+    }
+
+    private static final class MethodHandleManagedReferenceFactory implements ManagedReferenceFactory {
+
+        private final MethodHandle handle;
+
+        MethodHandleManagedReferenceFactory(final MethodHandle handle) {
+            this.handle = handle;
+        }
+
+        @Override
+        public ManagedReference getReference() {
+            try {
+                return new ImmediateManagedReference(handle.invokeExact());
+            } catch (Throwable e) {
+                throw new RuntimeException(new InvocationTargetException(e));
+            }
+        }
+    }
+}
@@ -26,7 +26,6 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
-import java.util.HashMap;
 import java.util.Map;
 
 import org.jboss.invocation.Interceptor;
@@ -41,8 +40,11 @@ import org.wildfly.security.manager.WildFlySecurityManager;
  */
 public final class ProxyInvocationHandler implements InvocationHandler {
 
+    private static final PrivilegedAction<SecurityDomain> GET_SECURITY_DOMAIN = SecurityDomain::getCurrent;
+
     private final Map<Method, Interceptor> interceptors;
     private final ComponentView componentView;
+    private final Component component;
     private final ComponentClientInstance instance;
 
     /**
@@ -56,6 +58,7 @@ public final class ProxyInvocationHandler implements InvocationHandler {
         this.interceptors = interceptors;
         this.instance = instance;
         this.componentView = componentView;
+        this.component = componentView.getComponent();
     }
 
     /** {@inheritDoc} */
@@ -67,16 +70,16 @@ public final class ProxyInvocationHandler implements InvocationHandler {
         final InterceptorContext context = new InterceptorContext();
         // special location for original proxy
         context.putPrivateData(Object.class, proxy);
-        context.putPrivateData(Component.class, componentView.getComponent());
+        context.putPrivateData(Component.class, component);
         context.putPrivateData(ComponentView.class, componentView);
         context.putPrivateData(SecurityDomain.class, WildFlySecurityManager.isChecking() ?
-                AccessController.doPrivileged((PrivilegedAction<SecurityDomain>) SecurityDomain::getCurrent) :
+                AccessController.doPrivileged(GET_SECURITY_DOMAIN) :
                 SecurityDomain.getCurrent());
         instance.prepareInterceptorContext(context);
         context.setParameters(args);
         context.setMethod(method);
-        // setup the public context data
-        context.setContextData(new HashMap<String, Object>());
+        // setup the public context data, which is only allocated if an interceptor uses it
+        context.setContextData(new ContextDataMap());
         context.setBlockingCaller(true);
         return interceptor.processInvocation(context);
     }
@@ -1147,4 +1147,8 @@ public interface EeLogger extends BasicLogger {
             "version of the API differs from what is supported in EE 7, the EE 7 variant of the API will be used. " +
             "Support for this setting will be removed once all EE 8 APIs are provided and certified.")
     void notUsingEE8PreviewMode();
+
+    @LogMessage(level = WARN)
+    @Message(id = 120, value = "Failed to access the annotation index cache for %s")
+    void failedToAccessAnnotationIndexCache(@Cause Throwable cause, Object location);
 }
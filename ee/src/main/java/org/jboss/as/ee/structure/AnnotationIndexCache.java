@@ -0,0 +1,319 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.structure;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivilegedAction;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jboss.as.ee.logging.EeLogger;
+import org.jboss.as.server.deployment.AttachmentKey;
+import org.jboss.as.server.deployment.Attachments;
+import org.jboss.as.server.deployment.module.ResourceRoot;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
+import org.jboss.jandex.IndexWriter;
+import org.jboss.vfs.VirtualFile;
+import org.jboss.vfs.util.SuffixMatchFilter;
+import org.wildfly.security.manager.WildFlySecurityManager;
+
+/**
+ * An on-disk cache of the annotation indexes of deployment resource roots, so that unchanged archives do not have to be
+ * re-indexed on every deployment.
+ * <p/>
+ * An entry is keyed by a digest of the names and contents of the class files of a resource root, and holds the index
+ * written by {@link IndexWriter}, preceded by the time it originally took to build it and by the version of Jandex that
+ * built it. Entries built by another version of Jandex are ignored and replaced. Entries are memory-mapped when read, and entries that have not been used for {@value #MAX_IDLE_DAYS} days are removed when the cache is created.
+ * The cache itself is used by {@link AnnotationIndexCacheLookupProcessor} and {@link AnnotationIndexCacheStoreProcessor},
+ * which run around the processor that indexes the resource roots, so the annotation index consumers are unaffected.
+ */
+public class AnnotationIndexCache {
+
+    /**
+     * Set this system property to false to disable the cache
+     */
+    public static final String ENABLED = "wildfly.ee.annotation-index-cache";
+
+    /**
+     * The name of the cache directory, relative to the server data directory
+     */
+    public static final String DIRECTORY = "annotation-index";
+
+    static final AttachmentKey<PendingEntries> PENDING_ENTRIES = AttachmentKey.create(PendingEntries.class);
+
+    private static final byte VERSION = 2;
+    private static final String SUFFIX = ".idx";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String JANDEX_INDEX = "META-INF/jandex.idx";
+    private static final long MAX_IDLE_DAYS = 30;
+    private static final SuffixMatchFilter CLASS_FILTER = new SuffixMatchFilter(".class");
+    private static final String JANDEX_VERSION = jandexVersion();
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder timeSaved = new LongAdder();
+
+    private final Path directory;
+
+    public AnnotationIndexCache(final Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        final long expiry = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(MAX_IDLE_DAYS);
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                if (entry.getFileName().toString().endsWith(TEMP_SUFFIX) || Files.getLastModifiedTime(entry).toMillis() < expiry) {
+                    Files.deleteIfExists(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of resource roots whose annotation index was read from the cache
+     */
+    public static long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of resource roots that had to be indexed, and were then added to the cache
+     */
+    public static long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the time in milliseconds saved by reading annotation indexes from the cache instead of building them
+     */
+    public static long getTimeSaved() {
+        return TimeUnit.NANOSECONDS.toMillis(timeSaved.sum());
+    }
+
+    /**
+     * Returns whether the annotation index of the resource root is built from its class files, and can be cached.
+     * Resource roots that are not indexed, that are already indexed, that provide their own jandex index or that
+     * exclude some of their paths from indexing are left alone.
+     */
+    static boolean isCacheable(final ResourceRoot resourceRoot) {
+        if (Boolean.FALSE.equals(resourceRoot.getAttachment(Attachments.INDEX_RESOURCE_ROOT))) {
+            return false;
+        }
+        if (resourceRoot.getAttachment(Attachments.ANNOTATION_INDEX) != null) {
+            return false;
+        }
+        if (!resourceRoot.getAttachmentList(Attachments.INDEX_IGNORE_PATHS).isEmpty()) {
+            return false;
+        }
+        return !resourceRoot.getRoot().getChild(JANDEX_INDEX).exists();
+    }
+
+    /**
+     * Computes the cache key of a resource root from the names and contents of its class files.
+     *
+     * @return the key, or {@code null} if the resource root does not contain any class files
+     */
+    static String key(final VirtualFile root) throws IOException {
+        final List<VirtualFile> classes = root.getChildrenRecursively(CLASS_FILTER);
+        if (classes.isEmpty()) {
+            return null;
+        }
+        classes.sort(Comparator.comparing(file -> file.getPathNameRelativeTo(root)));
+        final MessageDigest digest = createDigest();
+        final byte[] buffer = new byte[8192];
+        digest.update(VERSION);
+        for (VirtualFile file : classes) {
+            if (!file.isFile()) {
+                continue;
+            }
+            digest.update(file.getPathNameRelativeTo(root).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            try (InputStream in = file.openStream()) {
+                for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+        }
+        final StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) {
+            key.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Returns the version of Jandex, or the location of its classes if its jar does not declare a version.
+     */
+    static String jandexVersion() {
+        final String version = Index.class.getPackage().getImplementationVersion();
+        if (version != null) {
+            return version;
+        }
+        final CodeSource source = WildFlySecurityManager.doUnchecked((PrivilegedAction<CodeSource>) () -> Index.class.getProtectionDomain().getCodeSource());
+        return (source != null) ? String.valueOf(source.getLocation()) : "";
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Reads the annotation index with the given key.
+     *
+     * @param key the cache key
+     * @param lookupTime the time in nanoseconds spent computing the key, which is deducted from the time saved
+     * @return the index, or {@code null} if the cache does not contain a usable entry
+     */
+    Index read(final String key, final long lookupTime) {
+        final Path file = directory.resolve(key + SUFFIX);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        final long start = System.nanoTime();
+        try {
+            final Index index;
+            final long indexingTime;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                final DataInputStream in = new DataInputStream(new ByteBufferInputStream(buffer));
+                indexingTime = in.readLong();
+                if (!JANDEX_VERSION.equals(in.readUTF())) {
+                    // Built by another version of Jandex, so it is rebuilt and replaced
+                    return null;
+                }
+                index = new IndexReader(in).read();
+            }
+            // Entries in use are kept from expiring
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            hits.increment();
+            timeSaved.add(Math.max(0L, indexingTime - lookupTime - (System.nanoTime() - start)));
+            return index;
+        } catch (IOException | RuntimeException e) {
+            EeLogger.ROOT_LOGGER.failedToAccessAnnotationIndexCache(e, file);
+            delete(file);
+            return null;
+        }
+    }
+
+    /**
+     * Adds an annotation index to the cache.
+     *
+     * @param key the cache key
+     * @param index the index
+     * @param indexingTime the time in nanoseconds it took to build the index
+     */
+    void write(final String key, final Index index, final long indexingTime) {
+        misses.increment();
+        final Path file = directory.resolve(key + SUFFIX);
+        Path temp = null;
+        try {
+            // Write to a temporary file first, so that a concurrent or interrupted write is never read
+            temp = Files.createTempFile(directory, key, TEMP_SUFFIX);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeLong(indexingTime);
+                out.writeUTF(JANDEX_VERSION);
+                new IndexWriter(out).write(index);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            EeLogger.ROOT_LOGGER.failedToAccessAnnotationIndexCache(e, file);
+            if (temp != null) {
+                delete(temp);
+            }
+        }
+    }
+
+    private static void delete(final Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * The resource roots of a deployment unit that were not found in the cache, to be added once they are indexed.
+     */
+    static class PendingEntries {
+        final List<ResourceRoot> resourceRoots;
+        final List<String> keys;
+        final long start = System.nanoTime();
+
+        PendingEntries(final List<ResourceRoot> resourceRoots, final List<String> keys) {
+            this.resourceRoots = resourceRoots;
+            this.keys = keys;
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int offset, final int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            final int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.structure;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.as.ee.logging.EeLogger;
+import org.jboss.as.server.deployment.Attachments;
+import org.jboss.as.server.deployment.DeploymentPhaseContext;
+import org.jboss.as.server.deployment.DeploymentUnit;
+import org.jboss.as.server.deployment.DeploymentUnitProcessingException;
+import org.jboss.as.server.deployment.DeploymentUnitProcessor;
+import org.jboss.as.server.deployment.DeploymentUtils;
+import org.jboss.as.server.deployment.module.ResourceRoot;
+import org.jboss.jandex.Index;
+
+/**
+ * Attaches the cached annotation index to each resource root whose class files are unchanged since it was last
+ * indexed, so that it is not indexed again. Runs just before the resource roots are indexed.
+ */
+public class AnnotationIndexCacheLookupProcessor implements DeploymentUnitProcessor {
+
+    private final AnnotationIndexCache cache;
+
+    public AnnotationIndexCacheLookupProcessor(final AnnotationIndexCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void deploy(DeploymentPhaseContext phaseContext) throws DeploymentUnitProcessingException {
+        final DeploymentUnit deploymentUnit = phaseContext.getDeploymentUnit();
+        final List<ResourceRoot> resourceRoots = new ArrayList<>();
+        final List<String> keys = new ArrayList<>();
+        for (ResourceRoot resourceRoot : DeploymentUtils.allResourceRoots(deploymentUnit)) {
+            if (!AnnotationIndexCache.isCacheable(resourceRoot)) {
+                continue;
+            }
+            final long start = System.nanoTime();
+            final String key;
+            try {
+                key = AnnotationIndexCache.key(resourceRoot.getRoot());
+            } catch (IOException e) {
+                // Leave the root to the indexer
+                EeLogger.ROOT_LOGGER.failedToAccessAnnotationIndexCache(e, resourceRoot.getRoot().getPathName());
+                continue;
+            }
+            if (key == null) {
+                continue;
+            }
+            final Index index = cache.read(key, System.nanoTime() - start);
+            if (index != null) {
+                resourceRoot.putAttachment(Attachments.ANNOTATION_INDEX, index);
+            } else {
+                resourceRoots.add(resourceRoot);
+                keys.add(key);
+            }
+        }
+        if (!resourceRoots.isEmpty()) {
+            deploymentUnit.putAttachment(AnnotationIndexCache.PENDING_ENTRIES, new AnnotationIndexCache.PendingEntries(resourceRoots, keys));
+        }
+    }
+
+    @Override
+    public void undeploy(DeploymentUnit context) {
+        context.removeAttachment(AnnotationIndexCache.PENDING_ENTRIES);
+    }
+}
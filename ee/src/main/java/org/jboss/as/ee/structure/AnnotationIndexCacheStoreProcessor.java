@@ -0,0 +1,70 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.structure;
+
+import org.jboss.as.server.deployment.Attachments;
+import org.jboss.as.server.deployment.DeploymentPhaseContext;
+import org.jboss.as.server.deployment.DeploymentUnit;
+import org.jboss.as.server.deployment.DeploymentUnitProcessingException;
+import org.jboss.as.server.deployment.DeploymentUnitProcessor;
+import org.jboss.jandex.Index;
+
+/**
+ * Adds the annotation indexes of the resource roots that were not found in the cache by
+ * {@link AnnotationIndexCacheLookupProcessor}, once they are indexed. Runs just after the resource roots are indexed.
+ */
+public class AnnotationIndexCacheStoreProcessor implements DeploymentUnitProcessor {
+
+    private final AnnotationIndexCache cache;
+
+    public AnnotationIndexCacheStoreProcessor(final AnnotationIndexCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void deploy(DeploymentPhaseContext phaseContext) throws DeploymentUnitProcessingException {
+        final DeploymentUnit deploymentUnit = phaseContext.getDeploymentUnit();
+        final AnnotationIndexCache.PendingEntries pending = deploymentUnit.removeAttachment(AnnotationIndexCache.PENDING_ENTRIES);
+        if (pending == null) {
+            return;
+        }
+        // The resource roots are indexed together, so their indexing time is shared out by number of classes
+        final long indexingTime = System.nanoTime() - pending.start;
+        final Index[] indexes = new Index[pending.resourceRoots.size()];
+        long classes = 0;
+        for (int i = 0; i < indexes.length; ++i) {
+            indexes[i] = pending.resourceRoots.get(i).getAttachment(Attachments.ANNOTATION_INDEX);
+            if (indexes[i] != null) {
+                classes += indexes[i].getKnownClasses().size();
+            }
+        }
+        for (int i = 0; i < indexes.length; ++i) {
+            if (indexes[i] != null) {
+                cache.write(pending.keys.get(i), indexes[i], (classes > 0) ? indexingTime * indexes[i].getKnownClasses().size() / classes : 0L);
+            }
+        }
+    }
+
+    @Override
+    public void undeploy(DeploymentUnit context) {
+    }
+}
@@ -35,6 +35,10 @@ public interface EESubsystemModel {
     String JBOSS_DESCRIPTOR_PROPERTY_REPLACEMENT = "jboss-descriptor-property-replacement";
     String ANNOTATION_PROPERTY_REPLACEMENT = "annotation-property-replacement";
 
+    String ANNOTATION_INDEX_CACHE_HITS = "annotation-index-cache-hits";
+    String ANNOTATION_INDEX_CACHE_MISSES = "annotation-index-cache-misses";
+    String ANNOTATION_INDEX_CACHE_TIME_SAVED = "annotation-index-cache-time-saved";
+
     String DEFAULT_BINDINGS = "default-bindings";
 
     String CONTEXT_SERVICE = "context-service";
@@ -63,6 +63,9 @@ public class EeExtension implements Extension {
 
         // Register the root subsystem resource.
         final ManagementResourceRegistration rootResource = subsystem.registerSubsystemModel(EeSubsystemRootResource.create());
+        if (context.isRuntimeOnlyRegistrationValid()) {
+            EeSubsystemRootResource.registerMetrics(rootResource);
+        }
 
         // Mandatory describe operation
         rootResource.registerOperationHandler(GenericSubsystemDescribeHandler.DEFINITION, GenericSubsystemDescribeHandler.INSTANCE);
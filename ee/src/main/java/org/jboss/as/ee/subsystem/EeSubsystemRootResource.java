@@ -21,13 +21,16 @@
  */
 package org.jboss.as.ee.subsystem;
 
+import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
 import org.jboss.as.controller.AttributeDefinition;
+import org.jboss.as.controller.OperationContext;
 import org.jboss.as.controller.ReloadRequiredRemoveStepHandler;
 import org.jboss.as.controller.SimpleAttributeDefinition;
 import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
 import org.jboss.as.controller.SimpleResourceDefinition;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.ee.component.deployers.DefaultEarSubDeploymentsIsolationProcessor;
+import org.jboss.as.ee.structure.AnnotationIndexCache;
 import org.jboss.as.ee.structure.AnnotationPropertyReplacementProcessor;
 import org.jboss.as.ee.structure.Attachments;
 import org.jboss.as.ee.structure.DescriptorPropertyReplacementProcessor;
@@ -66,6 +69,21 @@ public class EeSubsystemRootResource extends SimpleResourceDefinition {
                     .setDefaultValue(new ModelNode(false))
                     .build();
 
+    static final SimpleAttributeDefinition ANNOTATION_INDEX_CACHE_HITS =
+            new SimpleAttributeDefinitionBuilder(EESubsystemModel.ANNOTATION_INDEX_CACHE_HITS, ModelType.LONG, true)
+                    .setStorageRuntime()
+                    .build();
+
+    static final SimpleAttributeDefinition ANNOTATION_INDEX_CACHE_MISSES =
+            new SimpleAttributeDefinitionBuilder(EESubsystemModel.ANNOTATION_INDEX_CACHE_MISSES, ModelType.LONG, true)
+                    .setStorageRuntime()
+                    .build();
+
+    static final SimpleAttributeDefinition ANNOTATION_INDEX_CACHE_TIME_SAVED =
+            new SimpleAttributeDefinitionBuilder(EESubsystemModel.ANNOTATION_INDEX_CACHE_TIME_SAVED, ModelType.LONG, true)
+                    .setStorageRuntime()
+                    .build();
+
     static final AttributeDefinition[] ATTRIBUTES = {GlobalModulesDefinition.INSTANCE, EAR_SUBDEPLOYMENTS_ISOLATED,
             SPEC_DESCRIPTOR_PROPERTY_REPLACEMENT, JBOSS_DESCRIPTOR_PROPERTY_REPLACEMENT, ANNOTATION_PROPERTY_REPLACEMENT};
 
@@ -98,6 +116,30 @@ public class EeSubsystemRootResource extends SimpleResourceDefinition {
         writeHandler.registerAttributes(rootResourceRegistration);
     }
 
+    /**
+     * Registers the annotation index cache metrics, which are only available at runtime.
+     */
+    static void registerMetrics(final ManagementResourceRegistration rootResourceRegistration) {
+        rootResourceRegistration.registerMetric(ANNOTATION_INDEX_CACHE_HITS, new AbstractRuntimeOnlyHandler() {
+            @Override
+            protected void executeRuntimeStep(OperationContext context, ModelNode operation) {
+                context.getResult().set(AnnotationIndexCache.getHitCount());
+            }
+        });
+        rootResourceRegistration.registerMetric(ANNOTATION_INDEX_CACHE_MISSES, new AbstractRuntimeOnlyHandler() {
+            @Override
+            protected void executeRuntimeStep(OperationContext context, ModelNode operation) {
+                context.getResult().set(AnnotationIndexCache.getMissCount());
+            }
+        });
+        rootResourceRegistration.registerMetric(ANNOTATION_INDEX_CACHE_TIME_SAVED, new AbstractRuntimeOnlyHandler() {
+            @Override
+            protected void executeRuntimeStep(OperationContext context, ModelNode operation) {
+                context.getResult().set(AnnotationIndexCache.getTimeSaved());
+            }
+        });
+    }
+
     protected static EeSubsystemRootResource create(){
         return new EeSubsystemRootResource();
     }
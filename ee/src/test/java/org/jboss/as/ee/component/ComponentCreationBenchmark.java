@@ -0,0 +1,169 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.component;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.naming.ConstructorManagedReferenceFactory;
+import org.jboss.as.naming.ManagedReferenceFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the throughput of creating a component instance and injecting its resources, i.e. three private fields and
+ * a setter method, either reflectively or through the handles bound by {@link MethodHandleAccessors}.
+ * Not executed by the unit test suite; run via {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComponentCreationBenchmark {
+
+    @Param({ "reflection", "methodHandle" })
+    public String accessor;
+
+    private final Object resource = new Object();
+    private final String name = "resource";
+    private final Integer count = 1;
+
+    private Instantiator instantiator;
+    private Injector[] fieldInjectors;
+    private Injector methodInjector;
+
+    @Setup
+    public void setup() throws Exception {
+        Constructor<?> constructor = Bean.class.getDeclaredConstructor();
+        Field[] fields = new Field[] { Bean.class.getDeclaredField("resource"), Bean.class.getDeclaredField("name"), Bean.class.getDeclaredField("count") };
+        Method method = Bean.class.getDeclaredMethod("setOther", Object.class);
+        // As done by the deployment reflection index
+        constructor.setAccessible(true);
+        for (Field field : fields) {
+            field.setAccessible(true);
+        }
+        method.setAccessible(true);
+
+        this.fieldInjectors = new Injector[fields.length];
+        if (this.accessor.equals("reflection")) {
+            ManagedReferenceFactory factory = new ConstructorManagedReferenceFactory(constructor);
+            this.instantiator = () -> factory.getReference().getInstance();
+            for (int i = 0; i < fields.length; ++i) {
+                Field field = fields[i];
+                this.fieldInjectors[i] = field::set;
+            }
+            this.methodInjector = method::invoke;
+        } else {
+            ManagedReferenceFactory factory = new MethodHandleClassIntrospector().createFactory(Bean.class);
+            this.instantiator = () -> factory.getReference().getInstance();
+            for (int i = 0; i < fields.length; ++i) {
+                this.fieldInjectors[i] = handleInjector(MethodHandleAccessors.setter(fields[i]));
+            }
+            this.methodInjector = handleInjector(MethodHandleAccessors.injector(method));
+        }
+        // Both accessors must create and inject the same instance
+        Bean bean = (Bean) this.createAndInject();
+        if ((bean.resource != this.resource) || (bean.name != this.name) || (bean.count != this.count) || (bean.other != this.resource)) {
+            throw new IllegalStateException(bean.toString());
+        }
+    }
+
+    private static Injector handleInjector(MethodHandle handle) {
+        if (handle == null) {
+            throw new IllegalStateException();
+        }
+        return (target, value) -> {
+            try {
+                handle.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    private Object createAndInject() throws Exception {
+        Object instance = this.instantiator.create();
+        this.fieldInjectors[0].inject(instance, this.resource);
+        this.fieldInjectors[1].inject(instance, this.name);
+        this.fieldInjectors[2].inject(instance, this.count);
+        this.methodInjector.inject(instance, this.resource);
+        return instance;
+    }
+
+    @Benchmark
+    public void create(Blackhole blackhole) throws Exception {
+        blackhole.consume(this.createAndInject());
+    }
+
+    public static void main(String... args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ComponentCreationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+    interface Instantiator {
+        Object create() throws Exception;
+    }
+
+    interface Injector {
+        void inject(Object target, Object value) throws Exception;
+    }
+
+    public static class Bean {
+        private Object resource;
+        private String name;
+        private Integer count;
+        private Object other;
+
+        public Bean() {
+        }
+
+        private void setOther(Object other) {
+            this.other = other;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s, %s, %s, %s", this.resource, this.name, this.count, this.other);
+        }
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ee.component;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jboss.as.ee.logging.EeLogger;
+import org.jboss.as.naming.ConstructorManagedReferenceFactory;
+import org.jboss.as.naming.ImmediateManagedReference;
+import org.jboss.as.naming.ManagedReferenceFactory;
+import org.jboss.invocation.Interceptor;
+import org.jboss.invocation.InterceptorContext;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link MethodHandleAccessors}, and for the injection interceptors and factories falling back to
+ * reflection when a member cannot be bound.
+ */
+public class MethodHandleAccessorsTestCase {
+
+    private static final Object TARGET_KEY = new Object();
+    private static final Object VALUE_KEY = new Object();
+
+    private static Field field(String name) throws NoSuchFieldException {
+        Field field = Bean.class.getDeclaredField(name);
+        // As done by the deployment reflection index
+        field.setAccessible(true);
+        return field;
+    }
+
+    private static Method method(String name, Class<?>... parameterTypes) throws NoSuchMethodException {
+        Method method = Bean.class.getDeclaredMethod(name, parameterTypes);
+        method.setAccessible(true);
+        return method;
+    }
+
+    /**
+     * Creates an invocation context for injecting into the specified target.
+     */
+    private static InterceptorContext context(Object target) {
+        Map<Object, Object> data = new HashMap<>();
+        data.put(TARGET_KEY, new ImmediateManagedReference(target));
+        ComponentInstance instance = (ComponentInstance) Proxy.newProxyInstance(ComponentInstance.class.getClassLoader(), new Class<?>[] { ComponentInstance.class }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getInstanceData":
+                    return data.get(args[0]);
+                case "setInstanceData":
+                    data.put(args[0], args[1]);
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+        InterceptorContext context = new InterceptorContext();
+        context.putPrivateData(ComponentInstance.class, instance);
+        context.setInterceptors(Collections.<Interceptor>singletonList(c -> null));
+        return context;
+    }
+
+    private static void injectField(Object target, Field field, Object value) throws Exception {
+        ManagedReferenceFactory factory = () -> new ImmediateManagedReference(value);
+        new ManagedReferenceFieldInjectionInterceptorFactory.ManagedReferenceFieldInjectionInterceptor(TARGET_KEY, VALUE_KEY, factory, field, false).processInvocation(context(target));
+    }
+
+    private static void injectMethod(Object target, Method method, Object value) throws Exception {
+        ManagedReferenceFactory factory = () -> new ImmediateManagedReference(value);
+        new ManagedReferenceMethodInjectionInterceptorFactory.ManagedReferenceMethodInjectionInterceptor(TARGET_KEY, VALUE_KEY, factory, method, false).processInvocation(context(target));
+    }
+
+    @Test
+    public void testPrivateField() throws Throwable {
+        MethodHandle setter = MethodHandleAccessors.setter(field("resource"));
+        assertNotNull(setter);
+        Bean bean = new Bean();
+        setter.invokeExact((Object) bean, (Object) "value");
+        assertEquals("value", bean.resource);
+
+        // A private field that was not made accessible cannot be bound
+        assertNull(MethodHandleAccessors.setter(Bean.class.getDeclaredField("resource")));
+
+        injectField(bean, field("resource"), "injected");
+        assertEquals("injected", bean.resource);
+    }
+
+    @Test
+    public void testFinalField() throws Exception {
+        assertNull(MethodHandleAccessors.setter(field("immutable")));
+        // Injected reflectively
+        Bean bean = new Bean();
+        injectField(bean, field("immutable"), "injected");
+        assertEquals("injected", field("immutable").get(bean));
+    }
+
+    @Test
+    public void testStaticField() throws Throwable {
+        MethodHandle setter = MethodHandleAccessors.setter(field("shared"));
+        assertNotNull(setter);
+        // The target is ignored
+        setter.invokeExact((Object) null, (Object) "value");
+        assertEquals("value", Bean.shared);
+
+        injectField(null, field("shared"), "injected");
+        assertEquals("injected", Bean.shared);
+        Bean.shared = null;
+    }
+
+    @Test
+    public void testUnboundMembers() throws Exception {
+        Bean bean = new Bean();
+        assertNull(MethodHandleAccessors.setter(field("primitive")));
+        injectField(bean, field("primitive"), 1);
+        assertEquals(1, bean.primitive);
+
+        assertNull(MethodHandleAccessors.injector(method("setPrimitive", int.class)));
+        injectMethod(bean, method("setPrimitive", int.class), 2);
+        assertEquals(2, bean.primitive);
+
+        assertNull(MethodHandleAccessors.injector(method("setVarArgs", String[].class)));
+        injectMethod(bean, method("setVarArgs", String[].class), new String[] { "varargs" });
+        assertEquals("varargs", bean.resource);
+
+        assertNull(MethodHandleAccessors.injector(method("setBoth", Object.class, Object.class)));
+        assertNull(MethodHandleAccessors.constructor(Bean.class.getDeclaredConstructor(Object.class)));
+        assertNull(MethodHandleAccessors.constructor(AbstractBean.class.getDeclaredConstructor()));
+    }
+
+    @Test
+    public void testMethod() throws Throwable {
+        MethodHandle injector = MethodHandleAccessors.injector(method("setResource", Object.class));
+        assertNotNull(injector);
+        Bean bean = new Bean();
+        injector.invokeExact((Object) bean, (Object) "value");
+        assertEquals("value", bean.resource);
+
+        injectMethod(bean, method("setResource", Object.class), "injected");
+        assertEquals("injected", bean.resource);
+
+        injector = MethodHandleAccessors.injector(method("setShared", Object.class));
+        assertNotNull(injector);
+        injector.invokeExact((Object) null, (Object) "value");
+        assertEquals("value", Bean.shared);
+        Bean.shared = null;
+    }
+
+    @Test
+    public void testFieldTypeMismatch() throws Exception {
+        Field field = field("name");
+        assertNotNull(MethodHandleAccessors.setter(field));
+        IllegalArgumentException expected = EeLogger.ROOT_LOGGER.cannotSetField(field.getName(), Integer.class, Integer.class.getClassLoader(), String.class, String.class.getClassLoader());
+        try {
+            injectField(new Bean(), field, 1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals(expected.getMessage(), e.getMessage());
+        }
+        // As for a field that cannot be bound
+        field = field("immutableName");
+        assertNull(MethodHandleAccessors.setter(field));
+        expected = EeLogger.ROOT_LOGGER.cannotSetField(field.getName(), Integer.class, Integer.class.getClassLoader(), String.class, String.class.getClassLoader());
+        try {
+            injectField(new Bean(), field, 1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals(expected.getMessage(), e.getMessage());
+        }
+    }
+
+    @Test
+    public void testMethodTypeMismatch() throws Exception {
+        Method method = method("setName", String.class);
+        assertNotNull(MethodHandleAccessors.injector(method));
+        IllegalArgumentException expected = null;
+        try {
+            method.invoke(new Bean(), 1);
+        } catch (IllegalArgumentException e) {
+            expected = e;
+        }
+        assertNotNull(expected);
+        try {
+            injectMethod(new Bean(), method, 1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals(expected.getMessage(), e.getMessage());
+        }
+    }
+
+    @Test
+    public void testConstructorException() throws Exception {
+        Constructor<?> constructor = FailingBean.class.getDeclaredConstructor();
+        assertNotNull(MethodHandleAccessors.constructor(constructor));
+
+        RuntimeException expected = null;
+        try {
+            new ConstructorManagedReferenceFactory(constructor).getReference();
+        } catch (RuntimeException e) {
+            expected = e;
+        }
+        assertNotNull(expected);
+        assertTrue(expected.getCause() instanceof InvocationTargetException);
+
+        try {
+            new MethodHandleClassIntrospector().createFactory(FailingBean.class).getReference();
+            fail();
+        } catch (RuntimeException e) {
+            assertSameWrapping(expected, e);
+        }
+        try {
+            new ConstructorComponentFactory(constructor).create(null);
+            fail();
+        } catch (RuntimeException e) {
+            assertSameWrapping(expected, e);
+        }
+    }
+
+    private static void assertSameWrapping(RuntimeException expected, RuntimeException actual) {
+        assertSame(expected.getClass(), actual.getClass());
+        assertEquals(expected.getMessage(), actual.getMessage());
+        assertSame(expected.getCause().getClass(), actual.getCause().getClass());
+        assertEquals(expected.getCause().getMessage(), actual.getCause().getMessage());
+        Throwable expectedTarget = ((InvocationTargetException) expected.getCause()).getTargetException();
+        Throwable actualTarget = ((InvocationTargetException) actual.getCause()).getTargetException();
+        assertSame(expectedTarget.getClass(), actualTarget.getClass());
+        assertEquals(expectedTarget.getMessage(), actualTarget.getMessage());
+    }
+
+    @Test
+    public void testConstructor() throws Exception {
+        ManagedReferenceFactory factory = new MethodHandleClassIntrospector().createFactory(Bean.class);
+        assertTrue(factory.getReference().getInstance() instanceof Bean);
+        assertTrue(new ConstructorComponentFactory(Bean.class.getDeclaredConstructor()).create(null).getInstance() instanceof Bean);
+    }
+
+    public static class Bean {
+        static Object shared;
+
+        private Object resource;
+        private String name;
+        private final Object immutable = null;
+        private final String immutableName = null;
+        private int primitive;
+
+        public Bean() {
+        }
+
+        Bean(Object resource) {
+            this.resource = resource;
+        }
+
+        private void setResource(Object resource) {
+            this.resource = resource;
+        }
+
+        void setName(String name) {
+            this.name = name;
+        }
+
+        static void setShared(Object value) {
+            shared = value;
+        }
+
+        void setPrimitive(int value) {
+            this.primitive = value;
+        }
+
+        void setVarArgs(String... values) {
+            this.resource = values[0];
+        }
+
+        void setBoth(Object resource, Object other) {
+            this.resource = resource;
+        }
+    }
+
+    public abstract static class AbstractBean {
+        public AbstractBean() {
+        }
+    }
+
+    public static class FailingBean {
+        public FailingBean() {
+            throw new IllegalStateException("failed");
+        }
+    }
+}
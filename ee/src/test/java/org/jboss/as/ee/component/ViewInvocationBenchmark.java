@@ -0,0 +1,270 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.component;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.jboss.as.naming.ManagedReference;
+import org.jboss.as.naming.context.NamespaceContextSelector;
+import org.jboss.invocation.Interceptor;
+import org.jboss.invocation.InterceptorContext;
+import org.jboss.invocation.Interceptors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the cost of a local business method call through {@link ProxyInvocationHandler}, with an interceptor chain
+ * shaped like that of a stateless, stateful or singleton session bean: a number of interceptors that look up the
+ * private data of the invocation, plus the interceptor that obtains the bean instance (from a pool, by session id or
+ * under a read lock).
+ * Not executed by the unit test suite; run via {@link #main(String[])} from the test classpath, which reports the
+ * allocation per call as gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewInvocationBenchmark {
+
+    private static final Object SESSION_ID_KEY = new Object();
+
+    @Param({ "stateless", "stateful", "singleton" })
+    public String type;
+
+    @Param({ "20" })
+    public int interceptors;
+
+    private ProxyInvocationHandler handler;
+    private Object proxy;
+    private Method method;
+    private Object[] parameters;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        final Object bean = new Object();
+        final List<Interceptor> chain = new ArrayList<>();
+        for (int i = 0; i < this.interceptors; ++i) {
+            chain.add(new PrivateDataInterceptor());
+        }
+        final ComponentClientInstance instance = new ComponentClientInstance();
+        switch (this.type) {
+            case "stateless": {
+                Queue<Object> pool = new ConcurrentLinkedQueue<>(Collections.singleton(bean));
+                chain.add(context -> {
+                    Object pooled = pool.poll();
+                    try {
+                        return context.proceed();
+                    } finally {
+                        pool.offer(pooled);
+                    }
+                });
+                break;
+            }
+            case "stateful": {
+                Object sessionId = new Object();
+                Map<Object, Object> cache = new ConcurrentHashMap<>(Collections.singletonMap(sessionId, bean));
+                instance.setViewInstanceData(SESSION_ID_KEY, sessionId);
+                chain.add(context -> {
+                    if (cache.get(context.getPrivateData(SESSION_ID_KEY)) == null) {
+                        throw new IllegalStateException();
+                    }
+                    return context.proceed();
+                });
+                break;
+            }
+            case "singleton": {
+                Lock lock = new ReentrantReadWriteLock().readLock();
+                chain.add(context -> {
+                    lock.lock();
+                    try {
+                        return context.proceed();
+                    } finally {
+                        lock.unlock();
+                    }
+                });
+                break;
+            }
+            default: {
+                throw new IllegalArgumentException(this.type);
+            }
+        }
+        chain.add(context -> context.getParameters()[0]);
+        instance.constructionComplete();
+
+        this.method = Object.class.getMethod("equals", Object.class);
+        this.proxy = new Object();
+        this.parameters = new Object[] { bean };
+        this.handler = new ProxyInvocationHandler(Collections.singletonMap(this.method, Interceptors.getChainedInterceptor(chain)), instance, new BenchmarkView(new BenchmarkComponent()));
+        // The call must pass through the whole chain
+        if (this.call() != bean) {
+            throw new IllegalStateException();
+        }
+    }
+
+    private Object call() throws Throwable {
+        return this.handler.invoke(this.proxy, this.method, this.parameters);
+    }
+
+    @Benchmark
+    public void invoke(Blackhole blackhole) throws Throwable {
+        blackhole.consume(this.call());
+    }
+
+    public static void main(String... args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ViewInvocationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+    private static class PrivateDataInterceptor implements Interceptor {
+        @Override
+        public Object processInvocation(InterceptorContext context) throws Exception {
+            if ((context.getPrivateData(Component.class) == null) || (context.getPrivateData(ComponentView.class) == null)) {
+                throw new IllegalStateException();
+            }
+            return context.proceed();
+        }
+    }
+
+    private static class BenchmarkComponent implements Component {
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public Class<?> getComponentClass() {
+            return Object.class;
+        }
+
+        @Override
+        public ComponentInstance createInstance() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ComponentInstance createInstance(Object instance) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public NamespaceContextSelector getNamespaceContextSelector() {
+            return null;
+        }
+
+        @Override
+        public void waitForComponentStart() {
+        }
+    }
+
+    private static class BenchmarkView implements ComponentView {
+        private final Component component;
+
+        BenchmarkView(Component component) {
+            this.component = component;
+        }
+
+        @Override
+        public ManagedReference createInstance() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ManagedReference createInstance(Map<Object, Object> contextData) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Object invoke(InterceptorContext interceptorContext) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Component getComponent() {
+            return this.component;
+        }
+
+        @Override
+        public Class<?> getProxyClass() {
+            return Object.class;
+        }
+
+        @Override
+        public Class<?> getViewClass() {
+            return Object.class;
+        }
+
+        @Override
+        public Set<Method> getViewMethods() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public Method getMethod(String name, String descriptor) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> T getPrivateData(Class<T> clazz) {
+            return null;
+        }
+
+        @Override
+        public boolean isAsynchronous(Method method) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ee.structure;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexWriter;
+import org.jboss.jandex.Indexer;
+import org.jboss.vfs.VFS;
+import org.jboss.vfs.VirtualFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for {@link AnnotationIndexCache}.
+ */
+public class AnnotationIndexCacheTestCase {
+
+    private static final String KEY = "0123456789abcdef";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Index createIndex() throws IOException {
+        Indexer indexer = new Indexer();
+        try (InputStream in = this.getClass().getResourceAsStream(this.getClass().getSimpleName() + ".class")) {
+            indexer.index(in);
+        }
+        return indexer.complete();
+    }
+
+    private static void assertIndexed(Index index) {
+        assertNotNull(index);
+        assertNotNull(index.getClassByName(DotName.createSimple(AnnotationIndexCacheTestCase.class.getName())));
+    }
+
+    private static VirtualFile createRoot(Path directory, String... files) throws IOException {
+        for (int i = 0; i < files.length; i += 2) {
+            Path file = directory.resolve(files[i]);
+            Files.createDirectories(file.getParent());
+            Files.write(file, files[i + 1].getBytes("UTF-8"));
+        }
+        return VFS.getChild(directory.toUri());
+    }
+
+    private static List<Path> list(Path directory) throws IOException {
+        List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            stream.forEach(entries::add);
+        }
+        return entries;
+    }
+
+    @Test
+    public void testKey() throws IOException {
+        String key = AnnotationIndexCache.key(createRoot(this.folder.newFolder().toPath(), "a/A.class", "a", "a/B.class", "b"));
+        assertNotNull(key);
+        // The same class files in another location
+        assertEquals(key, AnnotationIndexCache.key(createRoot(this.folder.newFolder().toPath(), "a/B.class", "b", "a/A.class", "a")));
+        // Other resources are not indexed
+        assertEquals(key, AnnotationIndexCache.key(createRoot(this.folder.newFolder().toPath(), "a/A.class", "a", "a/B.class", "b", "a/c.txt", "c")));
+
+        assertNotEquals(key, AnnotationIndexCache.key(createRoot(this.folder.newFolder().toPath(), "a/A.class", "a", "a/B.class", "c")));
+        assertNotEquals(key, AnnotationIndexCache.key(createRoot(this.folder.newFolder().toPath(), "a/A.class", "a", "a/C.class", "b")));
+        assertNotEquals(key, AnnotationIndexCache.key(createRoot(this.folder.newFolder().toPath(), "a/A.class", "a")));
+
+        assertNull(AnnotationIndexCache.key(createRoot(this.folder.newFolder().toPath(), "a/c.txt", "c")));
+    }
+
+    @Test
+    public void testReadWrite() throws IOException {
+        AnnotationIndexCache cache = new AnnotationIndexCache(this.folder.newFolder().toPath());
+        assertNull(cache.read(KEY, 0L));
+
+        long hits = AnnotationIndexCache.getHitCount();
+        long misses = AnnotationIndexCache.getMissCount();
+        cache.write(KEY, this.createIndex(), TimeUnit.SECONDS.toNanos(1));
+        assertEquals(misses + 1, AnnotationIndexCache.getMissCount());
+
+        assertIndexed(cache.read(KEY, 0L));
+        assertEquals(hits + 1, AnnotationIndexCache.getHitCount());
+        assertIndexed(cache.read(KEY, 0L));
+        assertEquals(hits + 2, AnnotationIndexCache.getHitCount());
+    }
+
+    @Test
+    public void testCorruptEntry() throws IOException {
+        Path directory = this.folder.newFolder().toPath();
+        AnnotationIndexCache cache = new AnnotationIndexCache(directory);
+        cache.write(KEY, this.createIndex(), 0L);
+        List<Path> entries = list(directory);
+        assertEquals(1, entries.size());
+        Files.write(entries.get(0), new byte[] { 0, 0, 0, 0, 0, 0, 0, 1, (byte) 0xff });
+
+        // A corrupt entry is removed
+        assertNull(cache.read(KEY, 0L));
+        assertTrue(list(directory).isEmpty());
+    }
+
+    @Test
+    public void testOtherJandexVersion() throws IOException {
+        Path directory = this.folder.newFolder().toPath();
+        AnnotationIndexCache cache = new AnnotationIndexCache(directory);
+        cache.write(KEY, this.createIndex(), 0L);
+        Path entry = list(directory).get(0);
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(entry))) {
+            out.writeLong(0L);
+            out.writeUTF(AnnotationIndexCache.jandexVersion() + "-other");
+            new IndexWriter(out).write(this.createIndex());
+        }
+
+        // An entry built by another version of Jandex is not used, but replaced
+        assertNull(cache.read(KEY, 0L));
+        cache.write(KEY, this.createIndex(), 0L);
+        assertIndexed(cache.read(KEY, 0L));
+    }
+
+    @Test
+    public void testExpiry() throws IOException {
+        Path directory = this.folder.newFolder().toPath();
+        AnnotationIndexCache cache = new AnnotationIndexCache(directory);
+        cache.write(KEY, this.createIndex(), 0L);
+        cache.write("expired", this.createIndex(), 0L);
+        cache.write("used", this.createIndex(), 0L);
+        Path entry = list(directory).stream().filter(path -> path.getFileName().toString().startsWith(KEY)).findFirst().get();
+        Path expired = list(directory).stream().filter(path -> path.getFileName().toString().startsWith("expired")).findFirst().get();
+        Path used = list(directory).stream().filter(path -> path.getFileName().toString().startsWith("used")).findFirst().get();
+        FileTime old = FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(31));
+        Files.setLastModifiedTime(expired, old);
+        Files.setLastModifiedTime(used, old);
+        // Reading an entry keeps it from expiring
+        assertIndexed(cache.read("used", 0L));
+        // Left over by an interrupted write
+        Path temp = Files.createTempFile(directory, KEY, ".tmp");
+
+        new AnnotationIndexCache(directory);
+
+        assertTrue(Files.exists(entry));
+        assertTrue(Files.exists(used));
+        assertFalse(Files.exists(expired));
+        assertFalse(Files.exists(temp));
+    }
+}
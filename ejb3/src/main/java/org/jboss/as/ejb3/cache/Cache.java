@@ -94,6 +94,27 @@ public interface Cache<K, V extends Identifiable<K>> extends AffinitySupport<K>,
 
     int getTotalSize();
 
+    /**
+     * Returns the number of lookups of an object owned by another cluster member that were served locally.
+     */
+    default long getNearCacheHitCount() {
+        return 0;
+    }
+
+    /**
+     * Returns the number of lookups of an object owned by another cluster member that were not served locally.
+     */
+    default long getNearCacheMissCount() {
+        return 0;
+    }
+
+    /**
+     * Returns the number of locally held copies of objects owned by another cluster member that were invalidated.
+     */
+    default long getNearCacheInvalidationCount() {
+        return 0;
+    }
+
     /**
      * Checks whether the supplied {@link Throwable} is remotable meaning it can be safely sent to the client over the wire.
      */
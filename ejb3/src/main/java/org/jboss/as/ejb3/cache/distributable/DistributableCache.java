@@ -219,6 +219,21 @@ public class DistributableCache<K, V extends Identifiable<K> & Contextual<Batch>
         return this.manager.getActiveCount() + this.manager.getPassiveCount();
     }
 
+    @Override
+    public long getNearCacheHitCount() {
+        return this.manager.getNearCacheHitCount();
+    }
+
+    @Override
+    public long getNearCacheMissCount() {
+        return this.manager.getNearCacheMissCount();
+    }
+
+    @Override
+    public long getNearCacheInvalidationCount() {
+        return this.manager.getNearCacheInvalidationCount();
+    }
+
     @Override
     public boolean isRemotable(Throwable throwable) {
         return this.manager.isRemotable(throwable);
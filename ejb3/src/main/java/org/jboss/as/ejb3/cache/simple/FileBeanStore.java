@@ -0,0 +1,159 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.cache.simple;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stores the serialized form of passivated beans within a directory of segment files, one segment per passivation batch.
+ * A segment is deleted as soon as none of the beans written to it remain passivated.
+ * Segments are not forced to disk, since their content does not outlive the cache.
+ */
+class FileBeanStore implements AutoCloseable {
+
+    private final File directory;
+    private final AtomicLong nextSegmentId = new AtomicLong();
+    private final Set<Segment> segments = ConcurrentHashMap.newKeySet();
+
+    FileBeanStore(File directory) throws IOException {
+        this.directory = Files.createDirectories(directory.toPath()).toFile();
+    }
+
+    File getDirectory() {
+        return this.directory;
+    }
+
+    int getSegmentCount() {
+        return this.segments.size();
+    }
+
+    /**
+     * Writes the specified serialized beans to a new segment.
+     * @param batch a list of serialized beans
+     * @return the location of each serialized bean, in the same order as the batch
+     * @throws IOException if the segment could not be written
+     */
+    List<Location> write(List<byte[]> batch) throws IOException {
+        File file = new File(this.directory, Long.toString(this.nextSegmentId.incrementAndGet()));
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Segment segment = new Segment(file, channel, batch.size());
+        List<Location> locations = new ArrayList<>(batch.size());
+        ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+        long offset = 0;
+        for (int i = 0; i < buffers.length; ++i) {
+            byte[] bytes = batch.get(i);
+            buffers[i] = ByteBuffer.wrap(bytes);
+            locations.add(new Location(segment, offset, bytes.length));
+            offset += bytes.length;
+        }
+        try {
+            // Write the whole batch with as few system calls as possible
+            for (long written = 0; written < offset; ) {
+                written += channel.write(buffers);
+            }
+        } catch (IOException e) {
+            segment.delete();
+            throw e;
+        }
+        this.segments.add(segment);
+        return locations;
+    }
+
+    @Override
+    public void close() {
+        for (Segment segment : this.segments) {
+            segment.delete();
+        }
+        this.segments.clear();
+        this.directory.delete();
+    }
+
+    /**
+     * The location of a serialized bean within a segment.
+     * Each location must be released exactly once, after which it can no longer be read.
+     */
+    static class Location {
+        private final Segment segment;
+        private final long offset;
+        private final int length;
+
+        Location(Segment segment, long offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        byte[] read() throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(this.length);
+            FileChannel channel = this.segment.channel;
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, this.offset + buffer.position()) < 0) {
+                    throw new IOException(this.segment.file.getPath());
+                }
+            }
+            return buffer.array();
+        }
+
+        void release() {
+            this.segment.release();
+        }
+    }
+
+    private class Segment {
+        final File file;
+        final FileChannel channel;
+        private final AtomicInteger references;
+
+        Segment(File file, FileChannel channel, int references) {
+            this.file = file;
+            this.channel = channel;
+            this.references = new AtomicInteger(references);
+        }
+
+        void release() {
+            if (this.references.decrementAndGet() == 0) {
+                FileBeanStore.this.segments.remove(this);
+                this.delete();
+            }
+        }
+
+        void delete() {
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+            this.file.delete();
+        }
+    }
+}
@@ -21,13 +21,25 @@
  */
 package org.jboss.as.ejb3.cache.simple;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jboss.as.ejb3.cache.Cache;
@@ -38,10 +50,18 @@ import org.jboss.as.ejb3.logging.EjbLogger;
 import org.jboss.as.server.ServerEnvironment;
 import org.jboss.ejb.client.Affinity;
 import org.jboss.ejb.client.NodeAffinity;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.Unmarshaller;
 import org.wildfly.clustering.ejb.IdentifierFactory;
+import org.wildfly.clustering.ejb.PassivationListener;
+import org.wildfly.clustering.marshalling.jboss.MarshallingContext;
+import org.wildfly.security.manager.WildFlySecurityManager;
 
 /**
  * Simple {@link Cache} implementation using in-memory storage and eager expiration.
+ * If a maximum size is specified, then whenever the number of beans in memory exceeds it, the least recently used
+ * idle beans are passivated, in batches, to a local file store. Passivated beans are activated again on access.
  *
  * @author Paul Ferraro
  *
@@ -58,21 +78,59 @@ public class SimpleCache<K, V extends Identifiable<K>> implements Cache<K, V> {
     private final ServerEnvironment environment;
     private final ScheduledExecutorService executor;
 
+    private final int maxSize;
+    private final PassivationListener<V> passivationListener;
+    private final MarshallingContext context;
+    private final File directory;
+    // Idle beans in memory, least recently used first
+    private final Map<K, Entry<V>> idle = new LinkedHashMap<>();
+    private final AtomicInteger residentCount = new AtomicInteger();
+    private final AtomicInteger passivatedCount = new AtomicInteger();
+    private final AtomicBoolean passivating = new AtomicBoolean();
+    private volatile Future<?> passivationFuture;
+    private volatile FileBeanStore store;
+
     public SimpleCache(StatefulObjectFactory<V> factory, IdentifierFactory<K> identifierFactory, StatefulTimeoutInfo timeout, ServerEnvironment environment, ScheduledExecutorService executor) {
+        this(factory, identifierFactory, timeout, environment, executor, 0, null, null, null);
+    }
+
+    /**
+     * Creates a cache that passivates idle beans once it holds more than the specified number of beans in memory.
+     * @param maxSize the maximum number of beans to hold in memory, or 0, if unbounded
+     * @param passivationListener notified before passivation and after activation of a bean
+     * @param context the marshalling context used to serialize passivated beans
+     * @param directory the directory of the file store of passivated beans, created on start and deleted on stop
+     */
+    public SimpleCache(StatefulObjectFactory<V> factory, IdentifierFactory<K> identifierFactory, StatefulTimeoutInfo timeout, ServerEnvironment environment, ScheduledExecutorService executor,
+            int maxSize, PassivationListener<V> passivationListener, MarshallingContext context, File directory) {
         this.factory = factory;
         this.identifierFactory = identifierFactory;
         this.timeout = timeout;
         this.environment = environment;
         this.executor = executor;
+        this.maxSize = maxSize;
+        this.passivationListener = passivationListener;
+        this.context = context;
+        this.directory = directory;
     }
 
     @Override
     public void start() {
-        // Do nothing
+        if (this.maxSize > 0) {
+            try {
+                this.store = new FileBeanStore(this.directory);
+            } catch (IOException e) {
+                throw EjbLogger.ROOT_LOGGER.passivationDirectoryCreationFailed(this.directory.getPath());
+            }
+        }
     }
 
     @Override
     public void stop() {
+        Future<?> passivationFuture = this.passivationFuture;
+        if (passivationFuture != null) {
+            passivationFuture.cancel(true);
+        }
         for (Future<?> future: this.expirationFutures.values()) {
             future.cancel(true);
         }
@@ -88,10 +146,24 @@ public class SimpleCache<K, V extends Identifiable<K>> implements Cache<K, V> {
             }
         }
         for(Map.Entry<K, Entry<V>> entry : entries.entrySet()) {
-            this.factory.destroyInstance(entry.getValue().getValue());
+            V value = entry.getValue().getValue();
+            // Passivated beans are discarded without activation
+            if (value != null) {
+                this.factory.destroyInstance(value);
+            }
         }
         this.expirationFutures.clear();
         this.entries.clear();
+        FileBeanStore store = this.store;
+        if (store != null) {
+            synchronized (this.idle) {
+                this.idle.clear();
+            }
+            store.close();
+            this.store = null;
+            this.residentCount.set(0);
+            this.passivatedCount.set(0);
+        }
     }
 
     @Override
@@ -116,20 +188,32 @@ public class SimpleCache<K, V extends Identifiable<K>> implements Cache<K, V> {
             throw EjbLogger.ROOT_LOGGER.incompatibleCaches();
         }
         V bean = this.factory.createInstance();
-        this.entries.put(bean.getId(), new Entry<>(bean));
+        Entry<V> entry = new Entry<>(bean);
+        this.entries.put(bean.getId(), entry);
+        if (this.maxSize > 0) {
+            this.idle(bean.getId(), entry);
+            this.resident();
+        }
         return bean;
     }
 
     @Override
     public void discard(V value) {
-        this.entries.remove(value.getId());
+        K key = value.getId();
+        Entry<V> entry = this.entries.remove(key);
+        if ((entry != null) && (this.maxSize > 0)) {
+            this.evict(key, entry);
+        }
     }
 
     @Override
     public void remove(K key) {
         Entry<V> entry = this.entries.remove(key);
         if (entry != null) {
-            this.factory.destroyInstance(entry.getValue());
+            V value = (this.maxSize > 0) ? this.evict(key, entry) : entry.getValue();
+            if (value != null) {
+                this.factory.destroyInstance(value);
+            }
         }
     }
 
@@ -142,6 +226,12 @@ public class SimpleCache<K, V extends Identifiable<K>> implements Cache<K, V> {
         Entry<V> entry = this.entries.get(key);
         if (entry == null) return null;
         entry.use();
+        if (this.maxSize > 0) {
+            synchronized (this.idle) {
+                this.idle.remove(key);
+            }
+            return this.activate(key, entry);
+        }
         return entry.getValue();
     }
 
@@ -155,6 +245,12 @@ public class SimpleCache<K, V extends Identifiable<K>> implements Cache<K, V> {
         K id = bean.getId();
         Entry<V> entry = this.entries.get(id);
         if ((entry != null) && entry.done()) {
+            if (this.maxSize > 0) {
+                this.idle(id, entry);
+                if (this.residentCount.get() > this.maxSize) {
+                    this.schedulePassivation();
+                }
+            }
             if (this.timeout != null) {
                 long value = this.timeout.getValue();
                 if (value > 0) {
@@ -175,17 +271,190 @@ public class SimpleCache<K, V extends Identifiable<K>> implements Cache<K, V> {
 
     @Override
     public int getCacheSize() {
-        return this.entries.size();
+        return (this.maxSize > 0) ? this.residentCount.get() : this.entries.size();
     }
 
     @Override
     public int getPassivatedCount() {
-        return 0;
+        return this.passivatedCount.get();
     }
 
     @Override
     public int getTotalSize() {
-        return this.getCacheSize();
+        return this.entries.size();
+    }
+
+    private void idle(K key, Entry<V> entry) {
+        synchronized (this.idle) {
+            // Re-insert, to move the bean to the most recently used end
+            this.idle.remove(key);
+            this.idle.put(key, entry);
+        }
+    }
+
+    private void resident() {
+        if (this.residentCount.incrementAndGet() > this.maxSize) {
+            this.schedulePassivation();
+        }
+    }
+
+    /**
+     * Removes the specified entry from memory or from the file store.
+     * @return the value of the entry, if it was in memory, null otherwise
+     */
+    private V evict(K key, Entry<V> entry) {
+        synchronized (this.idle) {
+            this.idle.remove(key);
+        }
+        synchronized (entry) {
+            V value = entry.value;
+            if (value != null) {
+                entry.value = null;
+                this.residentCount.decrementAndGet();
+            } else if ((entry.bytes != null) || (entry.location != null)) {
+                if (entry.location != null) {
+                    entry.location.release();
+                }
+                entry.bytes = null;
+                entry.location = null;
+                this.passivatedCount.decrementAndGet();
+            }
+            return value;
+        }
+    }
+
+    private V activate(K key, Entry<V> entry) {
+        V value;
+        synchronized (entry) {
+            value = entry.value;
+            if (value != null) return value;
+            byte[] bytes = entry.bytes;
+            FileBeanStore.Location location = entry.location;
+            // Entry was removed concurrently
+            if ((bytes == null) && (location == null)) return null;
+            try {
+                value = this.unmarshal((bytes != null) ? bytes : location.read());
+            } catch (IOException | ClassNotFoundException e) {
+                // The passivated bean cannot be recovered
+                this.entries.remove(key, entry);
+                this.evict(key, entry);
+                throw EjbLogger.ROOT_LOGGER.activationFailed(e, key);
+            }
+            if (location != null) {
+                location.release();
+            }
+            entry.bytes = null;
+            entry.location = null;
+            entry.value = value;
+            this.passivatedCount.decrementAndGet();
+            this.passivationListener.postActivate(value);
+        }
+        this.resident();
+        return value;
+    }
+
+    private void schedulePassivation() {
+        if (this.passivating.compareAndSet(false, true)) {
+            try {
+                this.passivationFuture = this.executor.submit(new PassivateTask());
+            } catch (RejectedExecutionException e) {
+                this.passivating.set(false);
+            }
+        }
+    }
+
+    void passivate() {
+        FileBeanStore store = this.store;
+        if (store == null) return;
+        // Passivate beyond the maximum size, so that a single batch makes room for a number of subsequent beans
+        int target = this.maxSize - (this.maxSize / 8);
+        List<Entry<V>> batch = new ArrayList<>();
+        List<byte[]> serialized = new ArrayList<>();
+        while ((this.residentCount.get() > target) && !Thread.currentThread().isInterrupted()) {
+            K key;
+            Entry<V> entry;
+            synchronized (this.idle) {
+                Iterator<Map.Entry<K, Entry<V>>> candidates = this.idle.entrySet().iterator();
+                if (!candidates.hasNext()) break;
+                Map.Entry<K, Entry<V>> candidate = candidates.next();
+                candidates.remove();
+                key = candidate.getKey();
+                entry = candidate.getValue();
+            }
+            synchronized (entry) {
+                V value = entry.value;
+                // Skip beans that were accessed or removed since becoming idle
+                if ((value == null) || !entry.isIdle()) continue;
+                try {
+                    this.passivationListener.prePassivate(value);
+                    entry.bytes = this.marshal(value);
+                } catch (IOException | RuntimeException e) {
+                    // Retain bean in memory
+                    EjbLogger.ROOT_LOGGER.failedToPassivateBean(key, e);
+                    this.passivationListener.postActivate(value);
+                    continue;
+                }
+                entry.value = null;
+                batch.add(entry);
+                serialized.add(entry.bytes);
+            }
+            this.residentCount.decrementAndGet();
+            this.passivatedCount.incrementAndGet();
+        }
+        if (!batch.isEmpty()) {
+            try {
+                List<FileBeanStore.Location> locations = store.write(serialized);
+                for (int i = 0; i < batch.size(); ++i) {
+                    Entry<V> entry = batch.get(i);
+                    FileBeanStore.Location location = locations.get(i);
+                    synchronized (entry) {
+                        if (entry.bytes == serialized.get(i)) {
+                            entry.bytes = null;
+                            entry.location = location;
+                        } else {
+                            // Bean was activated or removed while its batch was written
+                            location.release();
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // Passivated beans are retained in memory in their serialized form
+                EjbLogger.ROOT_LOGGER.failedToWritePassivatedBeans(store.getDirectory(), e);
+            }
+        }
+    }
+
+    private byte[] marshal(V value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int version = this.context.getCurrentVersion();
+        ClassLoader loader = WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(this.context.getClassLoader());
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeInt(version);
+            try (Marshaller marshaller = this.context.createMarshaller(version)) {
+                marshaller.start(Marshalling.createByteOutput(output));
+                marshaller.writeObject(value);
+                marshaller.finish();
+            }
+        } finally {
+            WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(loader);
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private V unmarshal(byte[] bytes) throws IOException, ClassNotFoundException {
+        ClassLoader loader = WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(this.context.getClassLoader());
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            int version = input.readInt();
+            try (Unmarshaller unmarshaller = this.context.createUnmarshaller(version)) {
+                unmarshaller.start(Marshalling.createByteInput(input));
+                V value = (V) unmarshaller.readObject();
+                unmarshaller.finish();
+                return value;
+            }
+        } finally {
+            WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(loader);
+        }
     }
 
     class RemoveTask implements Runnable {
@@ -204,9 +473,24 @@ public class SimpleCache<K, V extends Identifiable<K>> implements Cache<K, V> {
         }
     }
 
+    class PassivateTask implements Runnable {
+        @Override
+        public void run() {
+            try {
+                SimpleCache.this.passivate();
+            } finally {
+                SimpleCache.this.passivating.set(false);
+            }
+        }
+    }
+
     static class Entry<V> {
-        private final V value;
+        private volatile V value;
         private final AtomicInteger usage = new AtomicInteger();
+        // The serialized form of a passivated value, until it is written to the file store
+        private byte[] bytes;
+        // The location of a passivated value within the file store
+        private FileBeanStore.Location location;
 
         Entry(V value) {
             this.value = value;
@@ -220,6 +504,13 @@ public class SimpleCache<K, V extends Identifiable<K>> implements Cache<K, V> {
             return this.usage.decrementAndGet() == 0;
         }
 
+        boolean isIdle() {
+            return this.usage.get() == 0;
+        }
+
+        /**
+         * Returns the value of this entry, or null, if it is passivated.
+         */
         V getValue() {
             return this.value;
         }
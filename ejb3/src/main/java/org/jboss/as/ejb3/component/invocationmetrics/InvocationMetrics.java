@@ -22,17 +22,21 @@
 package org.jboss.as.ejb3.component.invocationmetrics;
 
 import java.lang.reflect.Method;
-import java.util.AbstractMap;
-import java.util.AbstractSet;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
+import java.util.StringJoiner;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
+ * Invocation statistics of a component.
+ * Totals are kept in striped counters and latencies in {@link LatencyHistogram}s, so that recording an invocation
+ * neither allocates nor spins, in the aggregate as well as per method.
+ *
  * @author <a href="mailto:cdewolf@redhat.com">Carlo de Wolf</a>
  */
 public class InvocationMetrics {
@@ -40,11 +44,15 @@ public class InvocationMetrics {
         final long invocations;
         final long executionTime;
         final long waitTime;
-
-        private Values(final long invocations, final long waitTime, final long executionTime) {
-            this.invocations = invocations;
-            this.executionTime = executionTime;
-            this.waitTime = waitTime;
+        final Percentiles executionTimePercentiles;
+        final Percentiles waitTimePercentiles;
+
+        private Values(final Statistics statistics) {
+            this.invocations = statistics.invocations.sum();
+            this.executionTime = TimeUnit.NANOSECONDS.toMillis(statistics.executionTime.sum());
+            this.waitTime = TimeUnit.NANOSECONDS.toMillis(statistics.waitTime.sum());
+            this.executionTimePercentiles = new Percentiles(statistics.executionTimeHistogram);
+            this.waitTimePercentiles = new Percentiles(statistics.waitTimeHistogram);
         }
 
         public long getExecutionTime() {
@@ -58,40 +66,112 @@ public class InvocationMetrics {
         public long getWaitTime() {
             return waitTime;
         }
+
+        public Percentiles getExecutionTimePercentiles() {
+            return executionTimePercentiles;
+        }
+
+        public Percentiles getWaitTimePercentiles() {
+            return waitTimePercentiles;
+        }
+    }
+
+    /**
+     * Latency percentiles, in microseconds.
+     */
+    public static class Percentiles {
+        final long p50;
+        final long p95;
+        final long p99;
+        final long max;
+
+        Percentiles(final LatencyHistogram histogram) {
+            this.p50 = histogram.getValueAtPercentile(50);
+            this.p95 = histogram.getValueAtPercentile(95);
+            this.p99 = histogram.getValueAtPercentile(99);
+            this.max = histogram.getMax();
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP95() {
+            return p95;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public long getMax() {
+            return max;
+        }
+    }
+
+    static class Statistics {
+        final LongAdder invocations = new LongAdder();
+        // in nanoseconds
+        final LongAdder executionTime = new LongAdder();
+        final LongAdder waitTime = new LongAdder();
+        // in microseconds
+        final LatencyHistogram executionTimeHistogram = new LatencyHistogram();
+        final LatencyHistogram waitTimeHistogram = new LatencyHistogram();
+
+        void record(final long waitNanos, final long executionNanos) {
+            this.invocations.increment();
+            this.waitTime.add(waitNanos);
+            this.executionTime.add(executionNanos);
+            this.waitTimeHistogram.record(TimeUnit.NANOSECONDS.toMicros(waitNanos));
+            this.executionTimeHistogram.record(TimeUnit.NANOSECONDS.toMicros(executionNanos));
+        }
     }
 
-    private final AtomicReference<Values> values = new AtomicReference<Values>(new Values(0, 0, 0));
+    private final Statistics statistics = new Statistics();
+    // in nanoseconds
+    private final LongAdder lockWaitTime = new LongAdder();
+    // in microseconds
+    private final LatencyHistogram lockWaitTimeHistogram = new LatencyHistogram();
+    private final LongAdder sharedLockAcquisitions = new LongAdder();
     private final AtomicLong concurrent = new AtomicLong(0);
     private final AtomicLong peakConcurrent = new AtomicLong(0);
 
-    private final ConcurrentMap<String, AtomicReference<Values>> methods = new ConcurrentHashMap<String, AtomicReference<Values>>();
+    private final ConcurrentMap<Method, Statistics> methods = new ConcurrentHashMap<Method, Statistics>();
 
+    /**
+     * Records a completed invocation.
+     * @param method the invoked method
+     * @param invocationWaitTime the time spent waiting to obtain an instance, in nanoseconds
+     * @param invocationExecutionTime the time spent within the bean method, in nanoseconds
+     */
     void finishInvocation(final Method method, final long invocationWaitTime, final long invocationExecutionTime) {
         concurrent.decrementAndGet();
-        for(;;) {
-            final Values oldv = values.get();
-            final Values newv = new Values(oldv.invocations + 1, oldv.waitTime + invocationWaitTime, oldv.executionTime + invocationExecutionTime);
-            if (values.compareAndSet(oldv, newv))
-                break;
-        }
-        final AtomicReference<Values> methodValues = ref(methods, method.getName());
-        for (;;) {
-            final Values oldv = methodValues.get();
-            final Values newv = new Values(oldv.invocations + 1, oldv.waitTime + invocationWaitTime, oldv.executionTime + invocationExecutionTime);
-            if (methodValues.compareAndSet(oldv, newv))
-                break;
+        statistics.record(invocationWaitTime, invocationExecutionTime);
+        statistics(methods, method).record(invocationWaitTime, invocationExecutionTime);
+    }
+
+    /**
+     * Records the acquisition of the lock guarding a component instance.
+     * @param shared whether the lock was acquired in shared mode, i.e. concurrently with other invocations
+     * @param waitTime the time spent waiting to obtain the lock, in nanoseconds
+     */
+    public void recordLockWait(final boolean shared, final long waitTime) {
+        lockWaitTime.add(waitTime);
+        lockWaitTimeHistogram.record(TimeUnit.NANOSECONDS.toMicros(waitTime));
+        if (shared) {
+            sharedLockAcquisitions.increment();
         }
     }
 
-    private static AtomicReference<Values> ref(final ConcurrentMap<String, AtomicReference<Values>> map, final String key) {
-        AtomicReference<Values> ref = map.get(key);
-        if (ref == null) {
-            ref = new AtomicReference<Values>(new Values(0, 0, 0));
-            final AtomicReference<Values> prevRef = map.putIfAbsent(key, ref);
-            if (prevRef != null)
-                ref = prevRef;
+    private static Statistics statistics(final ConcurrentMap<Method, Statistics> map, final Method key) {
+        Statistics statistics = map.get(key);
+        if (statistics == null) {
+            statistics = new Statistics();
+            final Statistics existing = map.putIfAbsent(key, statistics);
+            if (existing != null)
+                statistics = existing;
         }
-        return ref;
+        return statistics;
     }
 
     public long getConcurrent() {
@@ -99,62 +179,44 @@ public class InvocationMetrics {
     }
 
     public long getExecutionTime() {
-        return values.get().executionTime;
+        return TimeUnit.NANOSECONDS.toMillis(statistics.executionTime.sum());
     }
 
     public long getInvocations() {
-        return values.get().invocations;
+        return statistics.invocations.sum();
+    }
+
+    public Percentiles getExecutionTimePercentiles() {
+        return new Percentiles(statistics.executionTimeHistogram);
+    }
+
+    public Percentiles getWaitTimePercentiles() {
+        return new Percentiles(statistics.waitTimeHistogram);
     }
 
+    /**
+     * Returns a snapshot of the statistics of each invoked method, keyed by method name.
+     * Overloaded methods are distinguished by appending their parameter types to the name.
+     */
     public Map<String, Values> getMethods() {
-        return new AbstractMap<String, Values>() {
-            @Override
-            public Set<Entry<String, Values>> entrySet() {
-                return new AbstractSet<Entry<String, Values>>() {
-                    @Override
-                    public Iterator<Entry<String, Values>> iterator() {
-                        final Iterator<Entry<String, AtomicReference<Values>>> delegate = methods.entrySet().iterator();
-                        return new Iterator<Entry<String, Values>>() {
-                            @Override
-                            public boolean hasNext() {
-                                return delegate.hasNext();
-                            }
-
-                            @Override
-                            public Entry<String, Values> next() {
-                                final Entry<String, AtomicReference<Values>> next = delegate.next();
-                                return new Entry<String, Values>() {
-                                    @Override
-                                    public String getKey() {
-                                        return next.getKey();
-                                    }
-
-                                    @Override
-                                    public Values getValue() {
-                                        return next.getValue().get();
-                                    }
-
-                                    @Override
-                                    public Values setValue(final Values value) {
-                                        throw new UnsupportedOperationException("NYI");
-                                    }
-                                };
-                            }
-
-                            @Override
-                            public void remove() {
-                                throw new UnsupportedOperationException("NYI");
-                            }
-                        };
-                    }
-
-                    @Override
-                    public int size() {
-                        return methods.size();
-                    }
-                };
-            }
-        };
+        final Map<String, Integer> overloads = new HashMap<String, Integer>();
+        for (Method method : methods.keySet()) {
+            overloads.merge(method.getName(), 1, Integer::sum);
+        }
+        final Map<String, Values> result = new HashMap<String, Values>();
+        for (Map.Entry<Method, Statistics> entry : methods.entrySet()) {
+            final Method method = entry.getKey();
+            result.put(overloads.get(method.getName()) > 1 ? signature(method) : method.getName(), new Values(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static String signature(final Method method) {
+        final StringJoiner joiner = new StringJoiner(",", method.getName() + "(", ")");
+        for (Class<?> type : method.getParameterTypes()) {
+            joiner.add(type.getName());
+        }
+        return joiner.toString();
     }
 
     public long getPeakConcurrent() {
@@ -162,7 +224,19 @@ public class InvocationMetrics {
     }
 
     public long getWaitTime() {
-        return values.get().waitTime;
+        return TimeUnit.NANOSECONDS.toMillis(statistics.waitTime.sum());
+    }
+
+    public long getLockWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(lockWaitTime.sum());
+    }
+
+    public Percentiles getLockWaitTimePercentiles() {
+        return new Percentiles(lockWaitTimeHistogram);
+    }
+
+    public long getSharedLockAcquisitions() {
+        return sharedLockAcquisitions.sum();
     }
 
     void startInvocation() {
@@ -115,6 +115,10 @@ public class StrictMaxPoolConfigService implements Service<StrictMaxPoolConfig>
         poolConfig.setTimeoutUnit(timeUnit);
     }
 
+    public void setStriped(boolean striped) {
+        poolConfig.setStriped(striped);
+    }
+
     @Override
     public void stop(StopContext context) {
 
@@ -82,6 +82,7 @@ public class StatefulComponentDescription extends SessionBeanComponentDescriptio
     private CacheInfo cache;
     // by default stateful beans are passivation capable, but beans can override it via annotation or deployment descriptor, starting EJB 3.2
     private boolean passivationApplicable = true;
+    private boolean readMostly = false;
     private final ServiceName deploymentUnitServiceName;
 
     /**
@@ -379,6 +380,18 @@ public class StatefulComponentDescription extends SessionBeanComponentDescriptio
         this.cache = cache;
     }
 
+    /**
+     * Indicates whether invocations of {@link javax.ejb.LockType#READ} methods outside of a transaction may run
+     * concurrently on the same bean instance.
+     */
+    public boolean isReadMostly() {
+        return this.readMostly;
+    }
+
+    public void setReadMostly(final boolean readMostly) {
+        this.readMostly = readMostly;
+    }
+
     @Override
     public boolean isPassivationApplicable() {
         return this.passivationApplicable;
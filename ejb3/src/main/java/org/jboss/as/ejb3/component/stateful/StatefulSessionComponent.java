@@ -35,6 +35,7 @@ import javax.ejb.ConcurrentAccessTimeoutException;
 import javax.ejb.EJBException;
 import javax.ejb.EJBLocalObject;
 import javax.ejb.EJBObject;
+import javax.ejb.LockType;
 import javax.ejb.RemoveException;
 import javax.ejb.TimerService;
 
@@ -94,6 +95,9 @@ public class StatefulSessionComponent extends SessionBeanComponent implements St
     private final InterceptorFactory postActivate;
     private Interceptor postActivateInterceptor;
     private final Map<EJBBusinessMethod, AccessTimeoutDetails> methodAccessTimeouts;
+    private final Map<String, LockType> beanLevelLockType;
+    private final Map<EJBBusinessMethod, LockType> methodLockTypes;
+    private final boolean readMostly;
     private final DefaultAccessTimeoutService defaultAccessTimeoutProvider;
     private final Value<CacheFactory> cacheFactory;
     private final InterceptorFactory ejb2XRemoveMethod;
@@ -125,6 +129,9 @@ public class StatefulSessionComponent extends SessionBeanComponent implements St
         this.prePassivate = ejbComponentCreateService.getPrePassivate();
         this.postActivate = ejbComponentCreateService.getPostActivate();
         this.methodAccessTimeouts = ejbComponentCreateService.getMethodApplicableAccessTimeouts();
+        this.beanLevelLockType = ejbComponentCreateService.getBeanLockType();
+        this.methodLockTypes = ejbComponentCreateService.getMethodApplicableLockTypes();
+        this.readMostly = ejbComponentCreateService.isReadMostly();
         this.defaultAccessTimeoutProvider = ejbComponentCreateService.getDefaultAccessTimeoutService();
         this.ejb2XRemoveMethod = ejbComponentCreateService.getEjb2XRemoveMethod();
         this.serialiableInterceptorContextKeys = ejbComponentCreateService.getSerializableInterceptorContextKeys();
@@ -236,6 +243,31 @@ public class StatefulSessionComponent extends SessionBeanComponent implements St
         return defaultAccessTimeoutProvider.getDefaultAccessTimeout();
     }
 
+    /**
+     * Indicates whether {@link LockType#READ} methods may be invoked concurrently on the same instance, outside of a transaction.
+     */
+    public boolean isReadMostly() {
+        return this.readMostly;
+    }
+
+    /**
+     * Returns the {@link LockType} applicable to given method
+     */
+    public LockType getLockType(Method method) {
+        final EJBBusinessMethod ejbMethod = new EJBBusinessMethod(method);
+        final LockType lockType = this.methodLockTypes.get(ejbMethod);
+        if (lockType != null) {
+            return lockType;
+        }
+        // check bean level lock type
+        final LockType type = this.beanLevelLockType.get(method.getDeclaringClass().getName());
+        if (type != null) {
+            return type;
+        }
+        // default WRITE lock type
+        return LockType.WRITE;
+    }
+
     public SessionID createSession() {
         return this.cache.create().getId();
     }
@@ -74,6 +74,7 @@ public class StatefulSessionComponentCreateService extends SessionBeanComponentC
     private final InjectedValue<CacheFactoryBuilder> cacheFactoryBuilder = new InjectedValue<>();
     private final Set<Object> serializableInterceptorContextKeys;
     final boolean passivationCapable;
+    private final boolean readMostly;
     private final ModuleLoader moduleLoader;
     private final ServiceName deploymentUnitServiceName;
     private final ServiceName componentServiceName;
@@ -107,6 +108,7 @@ public class StatefulSessionComponentCreateService extends SessionBeanComponentC
         this.moduleLoader = componentConfiguration.getModuleLoader();
         this.serializableInterceptorContextKeys = componentConfiguration.getInterceptorContextKeys();
         this.passivationCapable = componentDescription.isPassivationApplicable();
+        this.readMostly = componentDescription.isReadMostly();
         this.deploymentUnitServiceName = componentDescription.getDeploymentUnitServiceName();
         this.componentServiceName = componentDescription.getServiceName();
         this.cacheFactory = cacheFactory;
@@ -199,6 +201,10 @@ public class StatefulSessionComponentCreateService extends SessionBeanComponentC
         return this.passivationCapable;
     }
 
+    boolean isReadMostly() {
+        return this.readMostly;
+    }
+
     @Override
     public ClassLoader getClassLoader() {
         return this.loader;
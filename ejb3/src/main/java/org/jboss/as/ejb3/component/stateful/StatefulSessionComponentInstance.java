@@ -27,6 +27,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.ejb.EJBException;
 import javax.transaction.Transaction;
@@ -70,6 +71,12 @@ public class StatefulSessionComponentInstance extends SessionBeanComponentInstan
      */
     private final OwnableReentrantLock lock = new OwnableReentrantLock();
 
+    /**
+     * Guards the state of a read-mostly bean: shared by concurrent non-transactional READ invocations, and held
+     * exclusively by every other invocation. Null unless the component is read-mostly.
+     */
+    private final ReentrantReadWriteLock stateLock;
+
     /**
      * true if this bean has been enrolled in a transaction
      */
@@ -112,6 +119,10 @@ public class StatefulSessionComponentInstance extends SessionBeanComponentInstan
         return lock;
     }
 
+    ReentrantReadWriteLock getStateLock() {
+        return stateLock;
+    }
+
     AtomicInteger getInvocationSynchState() {
         return invocationSynchState;
     }
@@ -132,6 +143,7 @@ public class StatefulSessionComponentInstance extends SessionBeanComponentInstan
         this.prePassivate = component.getPrePassivate();
         this.postActivate = component.getPostActivate();
         this.ejb2XRemoveInterceptor = component.getEjb2XRemoveMethod();
+        this.stateLock = component.isReadMostly() ? new ReentrantReadWriteLock() : null;
     }
 
     protected void afterBegin() {
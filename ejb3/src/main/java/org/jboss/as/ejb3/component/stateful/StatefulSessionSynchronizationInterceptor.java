@@ -22,6 +22,7 @@
 package org.jboss.as.ejb3.component.stateful;
 
 import javax.ejb.EJBException;
+import javax.ejb.LockType;
 import javax.ejb.TransactionManagementType;
 import javax.transaction.Status;
 import javax.transaction.Synchronization;
@@ -39,7 +40,9 @@ import org.jboss.invocation.InterceptorFactory;
 import org.jboss.invocation.InterceptorFactoryContext;
 import org.wildfly.transaction.client.ContextTransactionSynchronizationRegistry;
 
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static org.jboss.as.ejb3.component.stateful.StatefulSessionComponentInstance.SYNC_STATE_AFTER_COMPLETE_DELAYED_COMMITTED;
 import static org.jboss.as.ejb3.component.stateful.StatefulSessionComponentInstance.SYNC_STATE_AFTER_COMPLETE_DELAYED_NO_COMMIT;
@@ -78,13 +81,24 @@ public class StatefulSessionSynchronizationInterceptor extends AbstractEJBInterc
         final StatefulSessionComponentInstance instance = getComponentInstance(context);
 
         final OwnableReentrantLock lock = instance.getLock();
-        final Object threadLock = instance.getThreadLock();
-        final AtomicInteger invocationSyncState = instance.getInvocationSynchState();
+        final ReentrantReadWriteLock stateLock = instance.getStateLock();
 
         final TransactionSynchronizationRegistry transactionSynchronizationRegistry = ContextTransactionSynchronizationRegistry.getInstance();
         final Object lockOwner = getLockOwner();
         final AccessTimeoutDetails timeout = component.getAccessTimeout(context.getMethod());
-        boolean toDiscard = false;
+        final long start = System.nanoTime();
+        // a read-mostly bean runs READ methods invoked outside of a transaction concurrently,
+        // unless the instance is currently held by a transaction or by an exclusive invocation
+        if (stateLock != null && containerManagedTransactions && transactionSynchronizationRegistry.getTransactionKey() == null && component.getLockType(context.getMethod()) == LockType.READ) {
+            if (lockShared(component.getComponentName(), lock, stateLock, timeout)) {
+                component.getInvocationMetrics().recordLockWait(true, System.nanoTime() - start);
+                return processSharedInvocation(context, instance, stateLock);
+            }
+        }
+        if (stateLock != null && stateLock.getReadHoldCount() > 0) {
+            // this thread is within a shared invocation of this instance, which cannot be upgraded
+            throw EjbLogger.ROOT_LOGGER.failToUpgradeToWriteLock();
+        }
         if (ROOT_LOGGER.isTraceEnabled()) {
             ROOT_LOGGER.trace("Trying to acquire lock: " + lock + " for stateful component instance: " + instance + " during invocation: " + context);
         }
@@ -94,6 +108,72 @@ public class StatefulSessionSynchronizationInterceptor extends AbstractEJBInterc
         if (!acquired) {
             throw EjbLogger.ROOT_LOGGER.failToObtainLock(component.getComponentName(), timeout.getValue(), timeout.getTimeUnit());
         }
+        if (stateLock != null) {
+            // wait for any shared invocations to complete
+            final long remaining = timeout.getTimeUnit().toNanos(timeout.getValue()) - (System.nanoTime() - start);
+            if (!stateLock.writeLock().tryLock(remaining, TimeUnit.NANOSECONDS)) {
+                releaseLock(instance);
+                throw EjbLogger.ROOT_LOGGER.failToObtainLock(component.getComponentName(), timeout.getValue(), timeout.getTimeUnit());
+            }
+        }
+        component.getInvocationMetrics().recordLockWait(false, System.nanoTime() - start);
+        try {
+            return processExclusiveInvocation(context, component, instance);
+        } finally {
+            if (stateLock != null) {
+                stateLock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Acquires the state lock of a read-mostly bean instance in shared mode, unless the instance is held exclusively.
+     * A thread that already holds the state lock in shared mode always reacquires it, even if another thread holds or
+     * waits for the instance exclusively, as that thread cannot proceed before the enclosing shared invocation completes.
+     *
+     * @return true, if the state lock was acquired in shared mode, or false if the instance must be acquired exclusively
+     */
+    static boolean lockShared(final String componentName, final OwnableReentrantLock lock, final ReentrantReadWriteLock stateLock, final AccessTimeoutDetails timeout) throws InterruptedException {
+        if (stateLock.getReadHoldCount() > 0) {
+            // a reentrant read lock acquisition never waits
+            stateLock.readLock().lock();
+            return true;
+        }
+        if (!stateLock.readLock().tryLock(timeout.getValue(), timeout.getTimeUnit())) {
+            throw EjbLogger.ROOT_LOGGER.failToObtainLock(componentName, timeout.getValue(), timeout.getTimeUnit());
+        }
+        if (!lock.isLocked()) {
+            return true;
+        }
+        stateLock.readLock().unlock();
+        return false;
+    }
+
+    /**
+     * Processes an invocation of a read-mostly bean that holds its state lock in shared mode.
+     * Such an invocation never enlists the instance in a transaction, so the instance is released as soon as it completes.
+     */
+    private static Object processSharedInvocation(final InterceptorContext context, final StatefulSessionComponentInstance instance, final ReentrantReadWriteLock stateLock) throws Exception {
+        try {
+            return context.proceed();
+        } finally {
+            try {
+                if (!instance.isDiscarded()) {
+                    // mark the SFSB instance as no longer in use
+                    instance.getComponent().getCache().release(instance);
+                }
+            } finally {
+                stateLock.readLock().unlock();
+            }
+        }
+    }
+
+    private Object processExclusiveInvocation(final InterceptorContext context, final StatefulSessionComponent component, final StatefulSessionComponentInstance instance) throws Exception {
+        final OwnableReentrantLock lock = instance.getLock();
+        final Object threadLock = instance.getThreadLock();
+        final AtomicInteger invocationSyncState = instance.getInvocationSynchState();
+        final TransactionSynchronizationRegistry transactionSynchronizationRegistry = ContextTransactionSynchronizationRegistry.getInstance();
+        boolean toDiscard = false;
         synchronized (threadLock) {
             invocationSyncState.set(SYNC_STATE_INVOCATION_IN_PROGRESS); //invocation in progress
             if (ROOT_LOGGER.isTraceEnabled()) {
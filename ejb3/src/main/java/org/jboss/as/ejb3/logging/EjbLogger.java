@@ -2734,11 +2734,9 @@ public interface EjbLogger extends BasicLogger {
     @Message(id = 400, value = "Failed to passivate %s")
     RuntimeException passivationFailed(@Cause Throwable cause, Object id);
 
-    @Deprecated
     @Message(id = 401, value = "Failed to activate %s")
     RuntimeException activationFailed(@Cause Throwable cause, Object id);
 
-    @Deprecated
     @Message(id = 402, value = "Failed to create passivation directory: %s")
     RuntimeException passivationDirectoryCreationFailed(String path);
 
@@ -3154,4 +3152,39 @@ public interface EjbLogger extends BasicLogger {
     @LogMessage(level = ERROR)
     @Message(id = 502, value = "Exception checking if timer %s should run")
     void exceptionCheckingIfTimerShouldRun(Timer timer, @Cause Exception e);
+
+    @LogMessage(level = ERROR)
+    @Message(id = 503, value = "Timer task failed")
+    void timerWheelTaskFailed(@Cause Throwable e);
+
+    @LogMessage(level = WARN)
+    @Message(id = 504, value = "Failed to compact timer journal in %s")
+    void failedToCompactTimerJournal(File directory, @Cause Throwable e);
+
+    @LogMessage(level = WARN)
+    @Message(id = 505, value = "Ignoring timer journal segment %s with an invalid header")
+    void invalidTimerJournalSegment(File segment);
+
+    @LogMessage(level = WARN)
+    @Message(id = 506, value = "Timer journal segment %s is truncated or corrupt, discarding records after offset %d")
+    void truncatedTimerJournalSegment(File segment, long offset);
+
+    @Message(id = 507, value = "Failed to write timer %s to the timer journal")
+    RuntimeException failedToWriteTimerJournal(String timerId, @Cause Throwable e);
+
+    @LogMessage(level = WARN)
+    @Message(id = 508, value = "Could not add the CREATED_DATE column to the timer table, every refresh will compare all timers of the partition")
+    void couldNotAddTimerCreatedDate(@Cause Throwable cause);
+
+    @LogMessage(level = WARN)
+    @Message(id = 509, value = "Failed to passivate %s, it will be retained in memory")
+    void failedToPassivateBean(Object id, @Cause Throwable cause);
+
+    @LogMessage(level = WARN)
+    @Message(id = 510, value = "Failed to write passivated beans to %s, they will be retained in memory")
+    void failedToWritePassivatedBeans(File directory, @Cause Throwable cause);
+
+    @LogMessage(level = INFO)
+    @Message(id = 511, value = "The timer table has no CREATED_DATE column, every refresh will compare all timers of the partition. Add the column, or set the %s system property to true to add it on start")
+    void timerCreatedDateMissing(String propertyName);
 }
@@ -0,0 +1,260 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.pool.strictmax;
+
+import static org.jboss.as.ejb3.logging.EjbLogger.ROOT_LOGGER;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.jboss.as.ejb3.logging.EjbLogger;
+import org.jboss.as.ejb3.pool.AbstractPool;
+import org.jboss.as.ejb3.pool.StatelessObjectFactory;
+
+/**
+ * A pool with a maximum size whose idle instances are spread across a number of stripes.
+ * <p/>
+ * Each thread has a home stripe, selected from its id, into which it returns instances and from which it
+ * preferably takes them. When the home stripe is empty (or full, on release), the other stripes are visited in
+ * turn, so that an idle instance is never stranded. Stripes are fixed size arrays of slots, so neither
+ * {@link #get()} nor {@link #release(Object)} allocate in the common case. The number of instances in use is still
+ * bounded by a single semaphore, which is first acquired without blocking and only falls back to a timed wait
+ * when the pool is exhausted.
+ */
+public class StripedStrictMaxPool<T> extends AbstractPool<T> {
+
+    private static final int MIN_STRIPE_CAPACITY = 4;
+
+    /**
+     * Bounds the number of instances in use to maxSize.
+     */
+    private final Semaphore semaphore;
+    /**
+     * The maximum number of instances allowed in the pool
+     */
+    private final int maxSize;
+    /**
+     * The time to wait for the semaphore.
+     */
+    private final long timeout;
+    private final TimeUnit timeUnit;
+    private final Stripe<T>[] stripes;
+    private final int mask;
+    /**
+     * Holds instances that could not be placed in any stripe, which can only happen transiently under heavy contention.
+     */
+    private final Queue<T> overflow = new ConcurrentLinkedQueue<>();
+
+    public StripedStrictMaxPool(StatelessObjectFactory<T> factory, int maxSize, long timeout, TimeUnit timeUnit) {
+        this(factory, maxSize, timeout, timeUnit, Runtime.getRuntime().availableProcessors());
+    }
+
+    @SuppressWarnings("unchecked")
+    public StripedStrictMaxPool(StatelessObjectFactory<T> factory, int maxSize, long timeout, TimeUnit timeUnit, int concurrency) {
+        super(factory);
+        this.maxSize = maxSize;
+        this.semaphore = new Semaphore(maxSize, false);
+        this.timeout = timeout;
+        this.timeUnit = timeUnit;
+        int count = ceilingPowerOfTwo(Math.max(1, Math.min(concurrency, maxSize)));
+        int capacity = Math.max(MIN_STRIPE_CAPACITY, 2 * ((maxSize + count - 1) / count));
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; ++i) {
+            this.stripes[i] = new Stripe<>(capacity);
+        }
+        this.mask = count - 1;
+    }
+
+    private static int ceilingPowerOfTwo(int value) {
+        return (value <= 1) ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    /**
+     * Returns the index of the home stripe of the current thread.
+     */
+    private int home() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & this.mask;
+    }
+
+    int getStripeCount() {
+        return this.stripes.length;
+    }
+
+    @Override
+    public void discard(T ctx) {
+        if (ROOT_LOGGER.isTraceEnabled()) {
+            ROOT_LOGGER.tracef("Discard instance %s#%s", this, ctx);
+        }
+
+        this.semaphore.release();
+
+        super.doRemove(ctx);
+    }
+
+    @Override
+    public int getCurrentSize() {
+        return this.getCreateCount() - this.getRemoveCount();
+    }
+
+    @Override
+    public int getAvailableCount() {
+        return this.semaphore.availablePermits();
+    }
+
+    @Override
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    @Override
+    public void setMaxSize(int maxSize) {
+        throw EjbLogger.ROOT_LOGGER.methodNotImplemented();
+    }
+
+    @Override
+    public T get() {
+        // Barge for a permit first, which is a single CAS when the pool is not exhausted
+        if (!this.semaphore.tryAcquire()) {
+            try {
+                if (!this.semaphore.tryAcquire(this.timeout, this.timeUnit)) {
+                    throw EjbLogger.ROOT_LOGGER.failedToAcquirePermit(this.timeout, this.timeUnit);
+                }
+            } catch (InterruptedException e) {
+                throw EjbLogger.ROOT_LOGGER.acquireSemaphoreInterrupted();
+            }
+        }
+
+        T bean = this.poll();
+
+        if (bean != null) {
+            return bean;
+        }
+
+        try {
+            // Pool is empty, create an instance
+            bean = this.create();
+        } finally {
+            if (bean == null) {
+                this.semaphore.release();
+            }
+        }
+        return bean;
+    }
+
+    @Override
+    public void release(T obj) {
+        if (ROOT_LOGGER.isTraceEnabled()) {
+            ROOT_LOGGER.tracef("%s/%s Free instance: %s", this.maxSize - this.semaphore.availablePermits(), this.maxSize, this);
+        }
+
+        if (!this.offer(obj)) {
+            this.overflow.add(obj);
+        }
+
+        this.semaphore.release();
+    }
+
+    @Override
+    @Deprecated
+    public void remove(T ctx) {
+        if (ROOT_LOGGER.isTraceEnabled()) {
+            ROOT_LOGGER.tracef("Removing instance: %s#%s", this, ctx);
+        }
+
+        this.semaphore.release();
+
+        super.doRemove(ctx);
+    }
+
+    @Override
+    public void start() {
+        // Nothing to start
+    }
+
+    @Override
+    public void stop() {
+        for (Stripe<T> stripe : this.stripes) {
+            for (T obj = stripe.poll(); obj != null; obj = stripe.poll()) {
+                this.destroy(obj);
+            }
+        }
+        for (T obj = this.overflow.poll(); obj != null; obj = this.overflow.poll()) {
+            this.destroy(obj);
+        }
+    }
+
+    private T poll() {
+        int home = this.home();
+        for (int i = 0; i < this.stripes.length; ++i) {
+            T bean = this.stripes[(home + i) & this.mask].poll();
+            if (bean != null) {
+                return bean;
+            }
+        }
+        return this.overflow.poll();
+    }
+
+    private boolean offer(T bean) {
+        int home = this.home();
+        for (int i = 0; i < this.stripes.length; ++i) {
+            if (this.stripes[(home + i) & this.mask].offer(bean)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A fixed number of slots, each holding at most one idle instance.
+     */
+    private static class Stripe<T> {
+        private final AtomicReferenceArray<T> slots;
+
+        Stripe(int capacity) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+        }
+
+        T poll() {
+            for (int i = 0; i < this.slots.length(); ++i) {
+                T bean = this.slots.get(i);
+                if ((bean != null) && this.slots.compareAndSet(i, bean, null)) {
+                    return bean;
+                }
+            }
+            return null;
+        }
+
+        boolean offer(T bean) {
+            for (int i = 0; i < this.slots.length(); ++i) {
+                if ((this.slots.get(i) == null) && this.slots.compareAndSet(i, null, bean)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -32,6 +32,7 @@ import org.jboss.as.controller.ServiceRemoveStepHandler;
 import org.jboss.as.controller.SimpleAttributeDefinition;
 import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
 import org.jboss.as.controller.SimpleResourceDefinition;
+import org.jboss.as.controller.client.helpers.MeasurementUnit;
 import org.jboss.as.controller.operations.validation.ModelTypeValidator;
 import org.jboss.as.controller.operations.validation.StringLengthValidator;
 import org.jboss.as.controller.registry.AttributeAccess;
@@ -85,6 +86,27 @@ public class DatabaseDataStoreResourceDefinition extends SimpleResourceDefinitio
                     .setDefaultValue(new ModelNode(true))
                     .build();
 
+    public static final SimpleAttributeDefinition REFRESH_COUNT =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.REFRESH_COUNT, ModelType.LONG, true)
+                    .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+                    .build();
+
+    public static final SimpleAttributeDefinition LAST_REFRESH_DURATION =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.LAST_REFRESH_DURATION, ModelType.LONG, true)
+                    .setMeasurementUnit(MeasurementUnit.MILLISECONDS)
+                    .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+                    .build();
+
+    public static final SimpleAttributeDefinition CLAIM_COUNT =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.CLAIM_COUNT, ModelType.LONG, true)
+                    .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+                    .build();
+
+    public static final SimpleAttributeDefinition CLAIM_CONFLICTS =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.CLAIM_CONFLICTS, ModelType.LONG, true)
+                    .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+                    .build();
+
     public static final Map<String, AttributeDefinition> ATTRIBUTES ;
 
     static {
@@ -110,6 +132,11 @@ public class DatabaseDataStoreResourceDefinition extends SimpleResourceDefinitio
         for (AttributeDefinition attr : ATTRIBUTES.values()) {
             resourceRegistration.registerReadWriteAttribute(attr, null, new ReloadRequiredWriteAttributeHandler(attr));
         }
+
+        DatabaseDataStoreMetricsHandler metricsHandler = new DatabaseDataStoreMetricsHandler();
+        for (AttributeDefinition metric : new AttributeDefinition[] { REFRESH_COUNT, LAST_REFRESH_DURATION, CLAIM_COUNT, CLAIM_CONFLICTS }) {
+            resourceRegistration.registerMetric(metric, metricsHandler);
+        }
     }
 
 }
@@ -503,6 +503,13 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>
                     }
                     break;
                 }
+                case MAX_SIZE: {
+                    if (this.getExpectedNamespace().compareTo(EJB3SubsystemNamespace.EJB3_5_0) < 0) {
+                        throw unexpectedAttribute(reader, i);
+                    }
+                    CacheFactoryResourceDefinition.MAX_SIZE.parseAndSetParameter(value, operation, reader);
+                    break;
+                }
                 default: {
                     throw unexpectedAttribute(reader, i);
                 }
@@ -201,6 +201,7 @@ public class EJB3Subsystem20Parser extends EJB3Subsystem14Parser {
     private void parseFileDataStore(final XMLExtendedStreamReader reader, final List<ModelNode> operations) throws XMLStreamException {
         String dataStorePath = null;
         String dataStorePathRelativeTo = null;
+        ModelNode journal = null;
         String name = null;
         final EnumSet<EJB3SubsystemXMLAttribute> required = EnumSet.of(EJB3SubsystemXMLAttribute.NAME, EJB3SubsystemXMLAttribute.PATH);
         final int count = reader.getAttributeCount();
@@ -228,6 +229,12 @@ public class EJB3Subsystem20Parser extends EJB3Subsystem14Parser {
                     }
                     dataStorePathRelativeTo = FileDataStoreResourceDefinition.RELATIVE_TO.parse(value, reader).asString();
                     break;
+                case JOURNAL:
+                    if (journal != null || this.getExpectedNamespace().compareTo(EJB3SubsystemNamespace.EJB3_5_0) < 0) {
+                        throw unexpectedAttribute(reader, i);
+                    }
+                    journal = FileDataStoreResourceDefinition.JOURNAL.parse(value, reader);
+                    break;
                 default:
                     throw unexpectedAttribute(reader, i);
             }
@@ -246,6 +253,9 @@ public class EJB3Subsystem20Parser extends EJB3Subsystem14Parser {
         if (dataStorePathRelativeTo != null) {
             fileDataStoreAdd.get(RELATIVE_TO).set(dataStorePathRelativeTo);
         }
+        if (journal != null) {
+            fileDataStoreAdd.get(FileDataStoreResourceDefinition.JOURNAL.getName()).set(journal);
+        }
         operations.add(fileDataStoreAdd);
         requireNoContent(reader);
     }
@@ -226,6 +226,12 @@ public class EJB3Subsystem40Parser extends EJB3Subsystem30Parser {
                 case INSTANCE_ACQUISITION_TIMEOUT_UNIT:
                     StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT_UNIT.parseAndSetParameter(value, operation, reader);
                     break;
+                case STRIPED:
+                    if (this.getExpectedNamespace().compareTo(EJB3SubsystemNamespace.EJB3_5_0) < 0) {
+                        throw unexpectedAttribute(reader, i);
+                    }
+                    StrictMaxPoolResourceDefinition.STRIPED.parseAndSetParameter(value, operation, reader);
+                    break;
                 default:
                     throw unexpectedAttribute(reader, i);
             }
@@ -69,12 +69,14 @@ public interface EJB3SubsystemModel {
     String STATISTICS_ENABLED = "statistics-enabled";
 
     String FILE_DATA_STORE = "file-data-store";
+    String JOURNAL = "journal";
 
     String MAX_POOL_SIZE = "max-pool-size";
     String DERIVE_SIZE = "derive-size";
     String DERIVED_SIZE = "derived-size";
 
     String STRICT_MAX_BEAN_INSTANCE_POOL = "strict-max-bean-instance-pool";
+    String STRIPED = "striped";
 
     String MAX_THREADS = "max-threads";
     String KEEPALIVE_TIME = "keepalive-time";
@@ -135,6 +137,10 @@ public interface EJB3SubsystemModel {
     String PARTITION  = "partition";
     String REFRESH_INTERVAL = "refresh-interval";
     String ALLOW_EXECUTION = "allow-execution";
+    String REFRESH_COUNT = "refresh-count";
+    String LAST_REFRESH_DURATION = "last-refresh-duration";
+    String CLAIM_COUNT = "claim-count";
+    String CLAIM_CONFLICTS = "claim-conflicts";
 
     String STATIC_URLS = "static-urls";
 
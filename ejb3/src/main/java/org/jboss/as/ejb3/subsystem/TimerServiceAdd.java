@@ -22,9 +22,12 @@
 
 package org.jboss.as.ejb3.subsystem;
 
+import static java.security.AccessController.doPrivileged;
 import static org.jboss.as.ejb3.logging.EjbLogger.ROOT_LOGGER;
 
+import java.security.PrivilegedAction;
 import java.util.Timer;
+import java.util.concurrent.ThreadFactory;
 
 import org.jboss.as.controller.AbstractBoottimeAddStepHandler;
 import org.jboss.as.controller.AttributeDefinition;
@@ -34,6 +37,7 @@ import org.jboss.as.ejb3.deployment.processors.AroundTimeoutAnnotationParsingPro
 import org.jboss.as.ejb3.deployment.processors.TimerServiceDeploymentProcessor;
 import org.jboss.as.ejb3.deployment.processors.annotation.TimerServiceAnnotationProcessor;
 import org.jboss.as.ejb3.deployment.processors.merging.TimerMethodMergingProcessor;
+import org.jboss.as.ejb3.timerservice.wheel.HashedTimingWheel;
 import org.jboss.as.server.AbstractDeploymentChainStep;
 import org.jboss.as.server.DeploymentProcessorTarget;
 import org.jboss.as.server.deployment.Phase;
@@ -43,6 +47,7 @@ import org.jboss.msc.service.ServiceName;
 import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
 import org.jboss.msc.service.StopContext;
+import org.jboss.threads.JBossThreadFactory;
 
 /**
  * Adds the timer service
@@ -91,6 +96,8 @@ public class TimerServiceAdd extends AbstractBoottimeAddStepHandler {
 
         context.getServiceTarget().addService(TimerServiceDeploymentProcessor.TIMER_SERVICE_NAME, new TimerValueService())
                 .install();
+        context.getServiceTarget().addService(TimerServiceDeploymentProcessor.TIMING_WHEEL_SERVICE_NAME, new TimingWheelService())
+                .install();
 
     }
 
@@ -114,4 +121,26 @@ public class TimerServiceAdd extends AbstractBoottimeAddStepHandler {
             return timer;
         }
     }
+
+    private static final class TimingWheelService implements Service<HashedTimingWheel> {
+        private static final ThreadFactory THREAD_FACTORY = doPrivileged((PrivilegedAction<JBossThreadFactory>) () -> new JBossThreadFactory(new ThreadGroup(HashedTimingWheel.class.getSimpleName()), Boolean.FALSE, null, "%G - %t", null, null));
+
+        private HashedTimingWheel wheel;
+
+        @Override
+        public synchronized void start(final StartContext context) throws StartException {
+            wheel = new HashedTimingWheel(THREAD_FACTORY);
+        }
+
+        @Override
+        public synchronized void stop(final StopContext context) {
+            wheel.stop();
+            wheel = null;
+        }
+
+        @Override
+        public synchronized HashedTimingWheel getValue() throws IllegalStateException, IllegalArgumentException {
+            return wheel;
+        }
+    }
 }
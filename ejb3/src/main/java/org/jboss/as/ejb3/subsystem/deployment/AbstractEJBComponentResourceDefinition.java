@@ -34,9 +34,11 @@ import org.jboss.as.controller.PrimitiveListAttributeDefinition;
 import org.jboss.as.controller.SimpleAttributeDefinition;
 import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
 import org.jboss.as.controller.SimpleResourceDefinition;
+import org.jboss.as.controller.client.helpers.MeasurementUnit;
 import org.jboss.as.controller.operations.validation.StringLengthValidator;
 import org.jboss.as.controller.registry.AttributeAccess;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
+import org.jboss.as.ejb3.cache.Cache;
 import org.jboss.as.ejb3.component.EJBComponent;
 import org.jboss.as.ejb3.component.invocationmetrics.InvocationMetrics;
 import org.jboss.as.ejb3.component.stateful.StatefulSessionComponent;
@@ -80,7 +82,15 @@ public abstract class AbstractEJBComponentResourceDefinition extends SimpleResou
             .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
             .build();
 
-    private static final AttributeDefinition METHODS = ObjectTypeAttributeDefinition.Builder.of("methods", EXECUTION_TIME, INVOCATIONS, WAIT_TIME)
+    private static final AttributeDefinition P50 = createPercentile("p50");
+    private static final AttributeDefinition P95 = createPercentile("p95");
+    private static final AttributeDefinition P99 = createPercentile("p99");
+    private static final AttributeDefinition MAX = createPercentile("max");
+
+    private static final ObjectTypeAttributeDefinition EXECUTION_TIME_PERCENTILES = createPercentiles("execution-time-percentiles");
+    private static final ObjectTypeAttributeDefinition WAIT_TIME_PERCENTILES = createPercentiles("wait-time-percentiles");
+
+    private static final AttributeDefinition METHODS = ObjectTypeAttributeDefinition.Builder.of("methods", EXECUTION_TIME, INVOCATIONS, WAIT_TIME, EXECUTION_TIME_PERCENTILES, WAIT_TIME_PERCENTILES)
             .setRequired(false)
             .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
             .build();
@@ -112,6 +122,28 @@ public abstract class AbstractEJBComponentResourceDefinition extends SimpleResou
             .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
             .build();
 
+    private static final AttributeDefinition NEAR_CACHE_HIT_RATIO = new SimpleAttributeDefinitionBuilder("near-cache-hit-ratio", ModelType.DOUBLE)
+            .setUndefinedMetricValue(new ModelNode(0.0))
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    private static final AttributeDefinition NEAR_CACHE_INVALIDATIONS = new SimpleAttributeDefinitionBuilder("near-cache-invalidations", ModelType.LONG)
+            .setUndefinedMetricValue(new ModelNode(0))
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    private static final AttributeDefinition LOCK_WAIT_TIME = new SimpleAttributeDefinitionBuilder("lock-wait-time", ModelType.LONG)
+            .setUndefinedMetricValue(new ModelNode(0))
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    private static final ObjectTypeAttributeDefinition LOCK_WAIT_TIME_PERCENTILES = createPercentiles("lock-wait-time-percentiles");
+
+    private static final AttributeDefinition SHARED_LOCK_ACQUISITIONS = new SimpleAttributeDefinitionBuilder("shared-lock-acquisitions", ModelType.LONG)
+            .setUndefinedMetricValue(new ModelNode(0))
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
     // Pool attributes
 
     public static final SimpleAttributeDefinition POOL_AVAILABLE_COUNT = new SimpleAttributeDefinitionBuilder("pool-available-count", ModelType.INT, false)
@@ -128,6 +160,30 @@ public abstract class AbstractEJBComponentResourceDefinition extends SimpleResou
     public static final SimpleAttributeDefinition POOL_MAX_SIZE = new SimpleAttributeDefinitionBuilder("pool-max-size", ModelType.INT, false)
             .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME).build();
 
+    private static AttributeDefinition createPercentile(final String name) {
+        return new SimpleAttributeDefinitionBuilder(name, ModelType.LONG)
+                .setUndefinedMetricValue(new ModelNode(0))
+                .setMeasurementUnit(MeasurementUnit.MICROSECONDS)
+                .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+                .build();
+    }
+
+    private static ObjectTypeAttributeDefinition createPercentiles(final String name) {
+        return ObjectTypeAttributeDefinition.Builder.of(name, P50, P95, P99, MAX)
+                .setRequired(false)
+                .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+                .build();
+    }
+
+    private static ModelNode toModelNode(final InvocationMetrics.Percentiles percentiles) {
+        final ModelNode result = new ModelNode();
+        result.get(P50.getName()).set(percentiles.getP50());
+        result.get(P95.getName()).set(percentiles.getP95());
+        result.get(P99.getName()).set(percentiles.getP99());
+        result.get(MAX.getName()).set(percentiles.getMax());
+        return result;
+    }
+
     private final EJBComponentType componentType;
 
     public AbstractEJBComponentResourceDefinition(final EJBComponentType componentType) {
@@ -175,6 +231,39 @@ public abstract class AbstractEJBComponentResourceDefinition extends SimpleResou
                     context.getResult().set(((StatefulSessionComponent)component).getCache().getTotalSize());
                 }
             });
+            resourceRegistration.registerMetric(NEAR_CACHE_HIT_RATIO, new AbstractRuntimeMetricsHandler() {
+                @Override
+                protected void executeReadMetricStep(final OperationContext context, final ModelNode operation, final EJBComponent component) throws OperationFailedException {
+                    final Cache<?, ?> cache = ((StatefulSessionComponent)component).getCache();
+                    final long hits = cache.getNearCacheHitCount();
+                    final long lookups = hits + cache.getNearCacheMissCount();
+                    context.getResult().set((lookups > 0) ? (double) hits / lookups : 0.0);
+                }
+            });
+            resourceRegistration.registerMetric(NEAR_CACHE_INVALIDATIONS, new AbstractRuntimeMetricsHandler() {
+                @Override
+                protected void executeReadMetricStep(final OperationContext context, final ModelNode operation, final EJBComponent component) throws OperationFailedException {
+                    context.getResult().set(((StatefulSessionComponent)component).getCache().getNearCacheInvalidationCount());
+                }
+            });
+            resourceRegistration.registerMetric(LOCK_WAIT_TIME, new AbstractRuntimeMetricsHandler() {
+                @Override
+                protected void executeReadMetricStep(final OperationContext context, final ModelNode operation, final EJBComponent component) throws OperationFailedException {
+                    context.getResult().set(component.getInvocationMetrics().getLockWaitTime());
+                }
+            });
+            resourceRegistration.registerMetric(LOCK_WAIT_TIME_PERCENTILES, new AbstractRuntimeMetricsHandler() {
+                @Override
+                protected void executeReadMetricStep(final OperationContext context, final ModelNode operation, final EJBComponent component) throws OperationFailedException {
+                    context.getResult().set(toModelNode(component.getInvocationMetrics().getLockWaitTimePercentiles()));
+                }
+            });
+            resourceRegistration.registerMetric(SHARED_LOCK_ACQUISITIONS, new AbstractRuntimeMetricsHandler() {
+                @Override
+                protected void executeReadMetricStep(final OperationContext context, final ModelNode operation, final EJBComponent component) throws OperationFailedException {
+                    context.getResult().set(component.getInvocationMetrics().getSharedLockAcquisitions());
+                }
+            });
         }
 
         resourceRegistration.registerMetric(EXECUTION_TIME, new AbstractRuntimeMetricsHandler() {
@@ -201,6 +290,18 @@ public abstract class AbstractEJBComponentResourceDefinition extends SimpleResou
                 context.getResult().set(component.getInvocationMetrics().getWaitTime());
             }
         });
+        resourceRegistration.registerMetric(EXECUTION_TIME_PERCENTILES, new AbstractRuntimeMetricsHandler() {
+            @Override
+            protected void executeReadMetricStep(final OperationContext context, final ModelNode operation, final EJBComponent component) throws OperationFailedException {
+                context.getResult().set(toModelNode(component.getInvocationMetrics().getExecutionTimePercentiles()));
+            }
+        });
+        resourceRegistration.registerMetric(WAIT_TIME_PERCENTILES, new AbstractRuntimeMetricsHandler() {
+            @Override
+            protected void executeReadMetricStep(final OperationContext context, final ModelNode operation, final EJBComponent component) throws OperationFailedException {
+                context.getResult().set(toModelNode(component.getInvocationMetrics().getWaitTimePercentiles()));
+            }
+        });
         resourceRegistration.registerMetric(METHODS, new AbstractRuntimeMetricsHandler() {
             @Override
             protected void executeReadMetricStep(final OperationContext context, final ModelNode operation, final EJBComponent component) throws OperationFailedException {
@@ -211,6 +312,8 @@ public abstract class AbstractEJBComponentResourceDefinition extends SimpleResou
                     result.get("execution-time").set(values.getExecutionTime());
                     result.get("invocations").set(values.getInvocations());
                     result.get("wait-time").set(values.getWaitTime());
+                    result.get(EXECUTION_TIME_PERCENTILES.getName()).set(toModelNode(values.getExecutionTimePercentiles()));
+                    result.get(WAIT_TIME_PERCENTILES.getName()).set(toModelNode(values.getWaitTimePercentiles()));
                     context.getResult().get(entry.getKey()).set(result);
                 }
             }
@@ -0,0 +1,143 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import javax.ejb.ScheduleExpression;
+
+import org.jboss.as.ejb3.timerservice.spi.ScheduleTimer;
+
+/**
+ * Matches persisted auto timers against the auto timers of a timed object, hashing each auto timer by its timeout
+ * method and schedule, so that restoring n persisted timers against m auto timers takes O(n + m) rather than O(n * m).
+ * Only persistent auto timers can be matched, and each can be matched at most once.
+ */
+class AutoTimerIndex {
+
+    private final List<ScheduleTimer> timers;
+    private final Map<Key, Queue<ScheduleTimer>> index = new HashMap<>();
+    private final Set<ScheduleTimer> matched = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    AutoTimerIndex(List<ScheduleTimer> timers) {
+        this.timers = timers;
+        for (ScheduleTimer timer : timers) {
+            if (timer.getTimerConfig().isPersistent()) {
+                this.index.computeIfAbsent(new Key(timer.getMethod(), timer.getScheduleExpression()), key -> new LinkedList<>()).add(timer);
+            }
+        }
+    }
+
+    /**
+     * Matches a persisted auto timer with an unmatched auto timer having the same timeout method and schedule.
+     * @param timeoutMethod the timeout method of a persisted auto timer
+     * @param schedule the schedule of a persisted auto timer
+     * @return the matching auto timer, or null, if there was no match
+     */
+    ScheduleTimer match(Method timeoutMethod, ScheduleExpression schedule) {
+        Queue<ScheduleTimer> candidates = this.index.get(new Key(timeoutMethod, schedule));
+        ScheduleTimer timer = (candidates != null) ? candidates.poll() : null;
+        if (timer != null) {
+            this.matched.add(timer);
+        }
+        return timer;
+    }
+
+    /**
+     * Returns the auto timers not matched by any persisted timer, in their original order.
+     * @return a list of auto timers
+     */
+    List<ScheduleTimer> getUnmatchedTimers() {
+        List<ScheduleTimer> result = new ArrayList<>(this.timers.size() - this.matched.size());
+        for (ScheduleTimer timer : this.timers) {
+            if (!this.matched.contains(timer)) {
+                result.add(timer);
+            }
+        }
+        return result;
+    }
+
+    private static class Key {
+        private final String methodName;
+        private final String[] parameterTypes;
+        private final String second;
+        private final String minute;
+        private final String hour;
+        private final String dayOfWeek;
+        private final String dayOfMonth;
+        private final String month;
+        private final String year;
+        private final String timezone;
+        private final Date start;
+        private final Date end;
+        private final int hash;
+
+        Key(Method method, ScheduleExpression schedule) {
+            this.methodName = method.getName();
+            Class<?>[] types = method.getParameterTypes();
+            this.parameterTypes = new String[types.length];
+            for (int i = 0; i < types.length; ++i) {
+                this.parameterTypes[i] = types[i].getName();
+            }
+            this.second = schedule.getSecond();
+            this.minute = schedule.getMinute();
+            this.hour = schedule.getHour();
+            this.dayOfWeek = schedule.getDayOfWeek();
+            this.dayOfMonth = schedule.getDayOfMonth();
+            this.month = schedule.getMonth();
+            this.year = schedule.getYear();
+            this.timezone = schedule.getTimezone();
+            this.start = schedule.getStart();
+            this.end = schedule.getEnd();
+            this.hash = Objects.hash(this.methodName, Arrays.hashCode(this.parameterTypes), this.second, this.minute, this.hour,
+                    this.dayOfWeek, this.dayOfMonth, this.month, this.year, this.timezone, this.start, this.end);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) return true;
+            if (!(object instanceof Key)) return false;
+            Key key = (Key) object;
+            return (this.hash == key.hash) && this.methodName.equals(key.methodName) && Arrays.equals(this.parameterTypes, key.parameterTypes)
+                    && Objects.equals(this.second, key.second) && Objects.equals(this.minute, key.minute) && Objects.equals(this.hour, key.hour)
+                    && Objects.equals(this.dayOfWeek, key.dayOfWeek) && Objects.equals(this.dayOfMonth, key.dayOfMonth)
+                    && Objects.equals(this.month, key.month) && Objects.equals(this.year, key.year) && Objects.equals(this.timezone, key.timezone)
+                    && Objects.equals(this.start, key.start) && Objects.equals(this.end, key.end);
+        }
+    }
+}
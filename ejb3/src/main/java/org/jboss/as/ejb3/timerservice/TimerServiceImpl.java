@@ -30,13 +30,16 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.ejb.EJBException;
 import javax.ejb.ScheduleExpression;
@@ -62,6 +65,7 @@ import org.jboss.as.ejb3.subsystem.deployment.TimerServiceResource;
 import org.jboss.as.ejb3.timerservice.persistence.TimerPersistence;
 import org.jboss.as.ejb3.timerservice.spi.ScheduleTimer;
 import org.jboss.as.ejb3.timerservice.spi.TimedObjectInvoker;
+import org.jboss.as.ejb3.timerservice.wheel.HashedTimingWheel;
 import org.jboss.invocation.InterceptorContext;
 import org.jboss.msc.service.Service;
 import org.jboss.msc.service.ServiceName;
@@ -91,6 +95,11 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
 
     public static final ServiceName SERVICE_NAME = ServiceName.of("ejb3", "timerService");
 
+    /**
+     * The number of persistent timers restored by a single task, when restoring timers in parallel.
+     */
+    static final int RESTORE_CHUNK_SIZE = 1000;
+
     /**
      * The service name this timer service is registered under
      */
@@ -100,7 +109,7 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
 
     private final InjectedValue<ExecutorService> executorServiceInjectedValue = new InjectedValue<ExecutorService>();
 
-    private final InjectedValue<java.util.Timer> timerInjectedValue = new InjectedValue<java.util.Timer>();
+    private final InjectedValue<HashedTimingWheel> timerInjectedValue = new InjectedValue<HashedTimingWheel>();
 
     private final InjectedValue<TimedObjectInvoker> timedObjectInvoker = new InjectedValue<TimedObjectInvoker>();
 
@@ -117,12 +126,12 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
     /**
      * All timers which were created by this {@link TimerService}
      */
-    private final Map<String, TimerImpl> timers = Collections.synchronizedMap(new HashMap<String, TimerImpl>());
+    private final Map<String, TimerImpl> timers = new ConcurrentHashMap<String, TimerImpl>();
 
     /**
      * Holds the {@link java.util.concurrent.Future} of each of the timer tasks that have been scheduled
      */
-    private final Map<String, java.util.TimerTask> scheduledTimerFutures = new HashMap<String, java.util.TimerTask>();
+    private final Map<String, Task> scheduledTimerFutures = new ConcurrentHashMap<String, Task>();
 
     /**
      * Key that is used to store timers that are waiting on transaction completion in the transaction local
@@ -140,6 +149,17 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
 
     private volatile boolean started = false;
 
+    /**
+     * The number of persistent timers restored, and still to be restored, since this timer service was last activated
+     */
+    private final AtomicInteger restoredTimers = new AtomicInteger();
+    private final AtomicInteger pendingTimers = new AtomicInteger();
+
+    /**
+     * The restore in progress, if any
+     */
+    private TimerRestore restore;
+
     static {
         final Set<TimerState> states = new HashSet<TimerState>();
         states.add(TimerState.CANCELED);
@@ -204,7 +224,6 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
         started = false;
         IoUtils.safeClose(listenerHandle);
         listenerHandle = null;
-        timerInjectedValue.getValue().purge(); //WFLY-3823
     }
 
 
@@ -220,9 +239,29 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
     }
 
     public synchronized void deactivate() {
+        if (restore != null) {
+            restore.cancel();
+            restore = null;
+        }
         suspendTimers();
     }
 
+    /**
+     * Returns the number of persistent timers restored since this timer service was last activated.
+     * @return a number of timers
+     */
+    public int getRestoredTimerCount() {
+        return restoredTimers.get();
+    }
+
+    /**
+     * Returns the number of persistent timers that are still to be restored.
+     * @return a number of timers
+     */
+    public int getPendingTimerCount() {
+        return pendingTimers.get();
+    }
+
     @Override
     public synchronized TimerService getValue() throws IllegalStateException, IllegalArgumentException {
         return this;
@@ -393,13 +432,11 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
         Object pk = currentPrimaryKey();
         final Set<Timer> activeTimers = new HashSet<Timer>();
         // get all active timers for this timerservice
-        synchronized (this.timers) {
-            for (final TimerImpl timer : this.timers.values()) {
-                // Less disruptive way to get WFLY-8457 fixed.
-                if (timer.isActive() || (!timer.isActive() && timer.getState() == TimerState.ACTIVE)) {
-                    if (timer.getPrimaryKey() == null || timer.getPrimaryKey().equals(pk)) {
-                        activeTimers.add(timer);
-                    }
+        for (final TimerImpl timer : this.timers.values()) {
+            // Less disruptive way to get WFLY-8457 fixed.
+            if (timer.isActive() || (!timer.isActive() && timer.getState() == TimerState.ACTIVE)) {
+                if (timer.getPrimaryKey() == null || timer.getPrimaryKey().equals(pk)) {
+                    activeTimers.add(timer);
                 }
             }
         }
@@ -674,6 +711,8 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
      * </p>
      * <p>
      * All such restored timers will be schedule for their next timeouts.
+     * If there are more than {@link #RESTORE_CHUNK_SIZE} such timers, they are restored in parallel chunks
+     * using the timer service executor, and this method returns before all of them are scheduled.
      * </p>
      *
      * @param autoTimers
@@ -682,42 +721,18 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
         // get the persisted timers which are considered active
         List<TimerImpl> restorableTimers = this.getActivePersistentTimers();
 
-        //timers are removed from the list as they are loaded
-        final List<ScheduleTimer> newAutoTimers = new LinkedList<ScheduleTimer>(autoTimers);
+        // auto timers are matched by method and schedule, each at most once
+        final AutoTimerIndex autoTimerIndex = new AutoTimerIndex(autoTimers);
 
         if (EJB3_TIMER_LOGGER.isDebugEnabled()) {
             EJB3_TIMER_LOGGER.debug("Found " + restorableTimers.size() + " active persistentTimers for timedObjectId: "
                     + getInvoker().getTimedObjectId());
         }
-        // now "start" each of the restorable timer. This involves, moving the timer to an ACTIVE state
-        // and scheduling the timer task
         for (final TimerImpl activeTimer : restorableTimers) {
-
             if (activeTimer.isAutoTimer()) {
                 CalendarTimer calendarTimer = (CalendarTimer) activeTimer;
-                boolean found = false;
                 //so we know we have an auto timer. We need to try and match it up with the auto timers.
-                ListIterator<ScheduleTimer> it = newAutoTimers.listIterator();
-                while (it.hasNext()) {
-                    ScheduleTimer timer = it.next();
-                    final String methodName = timer.getMethod().getName();
-                    final String[] params = new String[timer.getMethod().getParameterTypes().length];
-                    for (int i = 0; i < timer.getMethod().getParameterTypes().length; ++i) {
-                        params[i] = timer.getMethod().getParameterTypes()[i].getName();
-                    }
-                    if (doesTimeoutMethodMatch(calendarTimer.getTimeoutMethod(), methodName, params)) {
-
-                        //the timers have the same method.
-                        //now lets make sure the schedule is the same
-                        // and the timer does not change the persistence
-                        if (this.doesScheduleMatch(calendarTimer.getScheduleExpression(), timer.getScheduleExpression()) && timer.getTimerConfig().isPersistent()) {
-                            it.remove();
-                            found = true;
-                            break;
-                        }
-                    }
-                }
-                if (!found) {
+                if (autoTimerIndex.match(calendarTimer.getTimeoutMethod(), calendarTimer.getScheduleExpression()) == null) {
                     activeTimer.setTimerState(TimerState.CANCELED);
                 } else {
                     // ensure state switch to active if was TIMEOUT in the DB
@@ -725,27 +740,53 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
                     // timers of other nodes in the cluster
                     activeTimer.setTimerState(TimerState.ACTIVE);
                 }
-                try {
-                    this.persistTimer(activeTimer, false);
-                } catch (Exception e) {
-                    EJB3_TIMER_LOGGER.failedToPersistTimerOnStartup(activeTimer, e);
-                }
-                if (found) {
-                    startTimer(activeTimer);
-                    EJB3_TIMER_LOGGER.debugv("Started timer: {0}", activeTimer);
-                }
-            } else if (!ineligibleTimerStates.contains(activeTimer.getState())) {
-                startTimer(activeTimer);
             }
-            EJB3_TIMER_LOGGER.debugv("Started timer: {0}",  activeTimer);
         }
 
-        for (ScheduleTimer timer : newAutoTimers) {
+        // now "start" each of the restorable timer. This involves, moving the timer to an ACTIVE state
+        // and scheduling the timer task
+        if (this.restore != null) {
+            this.restore.cancel();
+        }
+        restoredTimers.set(0);
+        pendingTimers.set(restorableTimers.size());
+        final ExecutorService executor = executorServiceInjectedValue.getOptionalValue();
+        if ((executor != null) && (restorableTimers.size() > RESTORE_CHUNK_SIZE)) {
+            // restore the remaining timers in parallel, after the component becomes available
+            this.restore = new TimerRestore(restorableTimers, executor);
+        } else {
+            for (final TimerImpl activeTimer : restorableTimers) {
+                this.restoreTimer(activeTimer);
+            }
+        }
+
+        for (ScheduleTimer timer : autoTimerIndex.getUnmatchedTimers()) {
             this.loadAutoTimer(timer.getScheduleExpression(), timer.getTimerConfig(), timer.getMethod());
         }
 
     }
 
+    /**
+     * Persists the state of a restored auto timer, and starts the timer if it is eligible for timeouts.
+     */
+    private void restoreTimer(final TimerImpl activeTimer) {
+        if (activeTimer.isAutoTimer()) {
+            try {
+                this.persistTimer(activeTimer, false);
+            } catch (Exception e) {
+                EJB3_TIMER_LOGGER.failedToPersistTimerOnStartup(activeTimer, e);
+            }
+            if (activeTimer.getState() == TimerState.ACTIVE) {
+                startTimer(activeTimer);
+            }
+        } else if (!ineligibleTimerStates.contains(activeTimer.getState())) {
+            startTimer(activeTimer);
+        }
+        EJB3_TIMER_LOGGER.debugv("Started timer: {0}",  activeTimer);
+        restoredTimers.incrementAndGet();
+        pendingTimers.decrementAndGet();
+    }
+
     /**
      * Registers a timer with a transaction (if any in progress) and then moves
      * the timer to an active state, so that it becomes eligible for timeouts
@@ -850,42 +891,42 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
      * Creates and schedules a {@link TimerTask} for the next timeout of the passed <code>timer</code>
      */
     protected void scheduleTimeout(TimerImpl timer, boolean newTimer) {
-        synchronized (scheduledTimerFutures) {
-            if (!newTimer && !scheduledTimerFutures.containsKey(timer.getId())) {
-                //this timer has been cancelled by another thread. We just return
-                return;
-            }
-
-            Date nextExpiration = timer.getNextExpiration();
-            if (nextExpiration == null) {
-                EJB3_TIMER_LOGGER.nextExpirationIsNull(timer);
-                return;
-            }
-            // create the timer task
-            final TimerTask<?> timerTask = timer.getTimerTask();
-            // find out how long is it away from now
-            long delay = nextExpiration.getTime() - System.currentTimeMillis();
-            // if in past, then trigger immediately
-            if (delay < 0) {
-                delay = 0;
-            }
-            long intervalDuration = timer.getInterval();
-            final Task task = new Task(timerTask, ejbComponentInjectedValue.getValue().getControlPoint());
-            if (intervalDuration > 0) {
-                EJB3_TIMER_LOGGER.debugv("Scheduling timer {0} at fixed rate, starting at {1} milliseconds from now with repeated interval={2}",
-                        timer, delay, intervalDuration);
-                // schedule the task
-                this.timerInjectedValue.getValue().scheduleAtFixedRate(task, delay, intervalDuration);
-                // maintain it in timerservice for future use (like cancellation)
-                this.scheduledTimerFutures.put(timer.getId(), task);
-            } else {
-                EJB3_TIMER_LOGGER.debugv("Scheduling a single action timer {0} starting at {1} milliseconds from now", timer, delay);
-                // schedule the task
-                this.timerInjectedValue.getValue().schedule(task, delay);
-                // maintain it in timerservice for future use (like cancellation)
-                this.scheduledTimerFutures.put(timer.getId(), task);
+        if (!newTimer && !scheduledTimerFutures.containsKey(timer.getId())) {
+            //this timer has been cancelled by another thread. We just return
+            return;
+        }
 
-            }
+        Date nextExpiration = timer.getNextExpiration();
+        if (nextExpiration == null) {
+            EJB3_TIMER_LOGGER.nextExpirationIsNull(timer);
+            return;
+        }
+        // create the timer task
+        final TimerTask<?> timerTask = timer.getTimerTask();
+        // find out how long is it away from now
+        long delay = nextExpiration.getTime() - System.currentTimeMillis();
+        // if in past, then trigger immediately
+        if (delay < 0) {
+            delay = 0;
+        }
+        long intervalDuration = timer.getInterval();
+        final Task task = new Task(timerTask, ejbComponentInjectedValue.getValue().getControlPoint());
+        // maintain it in timerservice for future use (like cancellation)
+        if (newTimer) {
+            this.scheduledTimerFutures.put(timer.getId(), task);
+        } else if (this.scheduledTimerFutures.computeIfPresent(timer.getId(), (id, previous) -> task) == null) {
+            //this timer has been cancelled by another thread. We just return
+            return;
+        }
+        if (intervalDuration > 0) {
+            EJB3_TIMER_LOGGER.debugv("Scheduling timer {0} at fixed rate, starting at {1} milliseconds from now with repeated interval={2}",
+                    timer, delay, intervalDuration);
+            // schedule the task
+            task.setTimeout(this.timerInjectedValue.getValue().scheduleAtFixedRate(task, delay, intervalDuration, TimeUnit.MILLISECONDS));
+        } else {
+            EJB3_TIMER_LOGGER.debugv("Scheduling a single action timer {0} starting at {1} milliseconds from now", timer, delay);
+            // schedule the task
+            task.setTimeout(this.timerInjectedValue.getValue().schedule(task, delay, TimeUnit.MILLISECONDS));
         }
     }
 
@@ -895,18 +936,14 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
      * @param timer
      */
     protected void cancelTimeout(final TimerImpl timer) {
-        synchronized (this.scheduledTimerFutures) {
-            java.util.TimerTask timerTask = this.scheduledTimerFutures.remove(timer.getId());
-            if (timerTask != null) {
-                timerTask.cancel();
-            }
+        Task task = this.scheduledTimerFutures.remove(timer.getId());
+        if (task != null) {
+            task.cancel();
         }
     }
 
     public boolean isScheduled(final String tid){
-        synchronized (this.scheduledTimerFutures) {
-            return this.scheduledTimerFutures.containsKey(tid);
-        }
+        return this.scheduledTimerFutures.containsKey(tid);
     }
 
     /**
@@ -957,77 +994,6 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
         return activeTimers;
     }
 
-    private boolean doesTimeoutMethodMatch(final Method timeoutMethod, final String timeoutMethodName, final String[] methodParams) {
-        if (timeoutMethod.getName().equals(timeoutMethodName) == false) {
-            return false;
-        }
-        final Class<?>[] timeoutMethodParams = timeoutMethod.getParameterTypes();
-        return this.methodParamsMatch(timeoutMethodParams, methodParams);
-    }
-
-    private boolean doesScheduleMatch(final ScheduleExpression expression1, final ScheduleExpression expression2) {
-        if (!same(expression1.getDayOfMonth(), expression2.getDayOfMonth())) {
-            return false;
-        }
-        if (!same(expression1.getDayOfWeek(), expression2.getDayOfWeek())) {
-            return false;
-        }
-        if (!same(expression1.getEnd(), expression2.getEnd())) {
-            return false;
-        }
-        if (!same(expression1.getHour(), expression2.getHour())) {
-            return false;
-        }
-        if (!same(expression1.getMinute(), expression2.getMinute())) {
-            return false;
-        }
-        if (!same(expression1.getMonth(), expression2.getMonth())) {
-            return false;
-        }
-        if (!same(expression1.getSecond(), expression2.getSecond())) {
-            return false;
-        }
-        if (!same(expression1.getStart(), expression2.getStart())) {
-            return false;
-        }
-        if (!same(expression1.getTimezone(), expression2.getTimezone())) {
-            return false;
-        }
-        if (!same(expression1.getYear(), expression2.getYear())) {
-            return false;
-        }
-        return true;
-    }
-
-    private boolean same(Object i1, Object i2) {
-        if (i1 == null && i2 != null) {
-            return false;
-        }
-        if (i2 == null && i1 != null) {
-            return false;
-        }
-        if (i1 == null && i2 == null) {
-            return true;
-        }
-        return i1.equals(i2);
-    }
-
-
-    private boolean methodParamsMatch(Class<?>[] methodParams, String[] otherMethodParams) {
-        if (otherMethodParams == null) {
-            otherMethodParams = new String[0];
-        }
-        if (methodParams.length != otherMethodParams.length) {
-            return false;
-        }
-        for (int i = 0; i < methodParams.length; i++) {
-            if (!methodParams[i].getName().equals(otherMethodParams[i])) {
-                return false;
-            }
-        }
-        return true;
-    }
-
     /**
      * Marks the transaction for rollback
      * NOTE: This method will soon be removed, once this timer service
@@ -1061,7 +1027,7 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
         return executorServiceInjectedValue;
     }
 
-    public InjectedValue<java.util.Timer> getTimerInjectedValue() {
+    public InjectedValue<HashedTimingWheel> getTimerInjectedValue() {
         return timerInjectedValue;
     }
 
@@ -1180,7 +1146,7 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
         }
     }
 
-    private class Task extends java.util.TimerTask {
+    private class Task implements Runnable {
 
         private final TimerTask<?> delegate;
         private final ControlPoint controlPoint;
@@ -1189,6 +1155,8 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
          * used to stop timer tasks banking up when the container is suspended.
          */
         private volatile boolean queued = false;
+        private volatile boolean cancelled = false;
+        private volatile HashedTimingWheel.Timeout timeout;
 
         public Task(final TimerTask<?> delegate, ControlPoint controlPoint) {
             this.delegate = delegate;
@@ -1216,10 +1184,74 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
             }
         }
 
-        @Override
-        public boolean cancel() {
+        void setTimeout(HashedTimingWheel.Timeout timeout) {
+            this.timeout = timeout;
+            // Cancellation may have raced with scheduling
+            if (cancelled) {
+                timeout.cancel();
+            }
+        }
+
+        public void cancel() {
             delegate.cancel();
-            return super.cancel();
+            cancelled = true;
+            HashedTimingWheel.Timeout timeout = this.timeout;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+        }
+    }
+
+    /**
+     * Restores persistent timers in chunks, in parallel, using the timer service executor.
+     * Cancelling a restore waits for any chunks in progress, leaving the remaining timers to be restored on the next activation.
+     */
+    private final class TimerRestore {
+        private final CountDownLatch latch;
+        private volatile boolean cancelled = false;
+
+        TimerRestore(final List<TimerImpl> timers, final ExecutorService executor) {
+            this.latch = new CountDownLatch((timers.size() + RESTORE_CHUNK_SIZE - 1) / RESTORE_CHUNK_SIZE);
+            for (int i = 0; i < timers.size(); i += RESTORE_CHUNK_SIZE) {
+                final List<TimerImpl> chunk = timers.subList(i, Math.min(i + RESTORE_CHUNK_SIZE, timers.size()));
+                final Runnable task = new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            for (TimerImpl timer : chunk) {
+                                if (cancelled) {
+                                    return;
+                                }
+                                restoreTimer(timer);
+                            }
+                        } finally {
+                            latch.countDown();
+                        }
+                    }
+                };
+                try {
+                    executor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    task.run();
+                }
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    latch.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            pendingTimers.set(0);
         }
     }
 
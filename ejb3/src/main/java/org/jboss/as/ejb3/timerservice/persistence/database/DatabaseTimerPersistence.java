@@ -52,6 +52,7 @@ import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.sql.DataSource;
 import javax.transaction.HeuristicMixedException;
@@ -84,6 +85,7 @@ import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
 import org.jboss.msc.service.StopContext;
 import org.jboss.msc.value.InjectedValue;
+import org.wildfly.security.manager.WildFlySecurityManager;
 import org.wildfly.transaction.client.ContextTransactionManager;
 
 /**
@@ -117,6 +119,7 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
     private final int refreshInterval;
     /** Flag whether this instance should execute persistent timers*/
     private final boolean allowExecution;
+    private final TransactionManager transactionManager;
     private volatile ManagedReference managedReference;
     private volatile DataSource dataSource;
     private volatile Properties sql;
@@ -124,23 +127,50 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
     private MarshallingConfiguration configuration;
     private RefreshTask refreshTask;
 
+    /** Flag whether the timer table records when a timer was created, see {@link RefreshTask} */
+    private boolean createdDate;
+    private final Object claimQueueLock = new Object();
+    // Guarded by claimQueueLock
+    private List<Claim> claimQueue = new ArrayList<>();
+
+    private final LongAdder refreshCount = new LongAdder();
+    private volatile long lastRefreshDuration;
+    private final LongAdder claimCount = new LongAdder();
+    private final LongAdder claimConflicts = new LongAdder();
+
+    /**
+     * Set this system property to true to add the CREATED_DATE column to a timer table created by a previous version
+     */
+    static final String ADD_CREATED_DATE_PROPERTY = "wildfly.ejb3.timer.add-created-date";
+
     /** Names for the different SQL commands stored in the properties*/
     private static final String CREATE_TABLE = "create-table";
     private static final String CREATE_TIMER = "create-timer";
+    private static final String CREATE_TIMER_WITH_CREATED_DATE = "create-timer-with-created-date";
     private static final String UPDATE_TIMER = "update-timer";
     private static final String LOAD_ALL_TIMERS = "load-all-timers";
     private static final String LOAD_TIMER = "load-timer";
+    private static final String LOAD_TIMER_IDS = "load-timer-ids";
+    private static final String LOAD_NEW_TIMERS = "load-new-timers";
+    private static final String ADD_CREATED_DATE = "add-created-date";
     private static final String DELETE_TIMER = "delete-timer";
     private static final String UPDATE_RUNNING = "update-running";
     /** The format for scheduler start and end date*/
     private static final String SCHEDULER_DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
+    /** Number of refreshes after which all timer ids of the partition are compared with the known ones */
+    private static final int RECONCILIATION_PERIOD = 10;
 
     public DatabaseTimerPersistence(final String database, String partition, String nodeName, int refreshInterval, boolean allowExecution) {
+        this(database, partition, nodeName, refreshInterval, allowExecution, ContextTransactionManager.getInstance());
+    }
+
+    DatabaseTimerPersistence(final String database, String partition, String nodeName, int refreshInterval, boolean allowExecution, TransactionManager transactionManager) {
         this.database = database;
         this.partition = partition;
         this.nodeName = nodeName;
         this.refreshInterval = refreshInterval;
         this.allowExecution = allowExecution;
+        this.transactionManager = transactionManager;
     }
 
     @Override
@@ -280,6 +310,7 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
             preparedStatement.setString(2, "NON-EXISTENT");
             preparedStatement.setString(3, "NON-EXISTENT");
             resultSet = preparedStatement.executeQuery();
+            createdDate = checkCreatedDate(connection);
         } catch (SQLException e) {
             //the query failed, assume it is because the table does not exist
             if (connection != null) {
@@ -294,6 +325,7 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
                             safeClose(statement);
                         }
                     }
+                    createdDate = true;
                 } catch (SQLException e1) {
                     EjbLogger.EJB3_TIMER_LOGGER.couldNotCreateTable(e1);
                 }
@@ -308,6 +340,45 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         }
     }
 
+    /**
+     * Checks whether the timer table has the CREATED_DATE column. The column is only added to a table created by a
+     * previous version if the {@value #ADD_CREATED_DATE_PROPERTY} system property is set, as the table may be managed
+     * by an administrator.
+     *
+     * @return true, if the table records the creation date of timers
+     */
+    private boolean checkCreatedDate(final Connection connection) {
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        try {
+            preparedStatement = connection.prepareStatement(sql(LOAD_NEW_TIMERS));
+            preparedStatement.setString(1, "NON-EXISTENT");
+            preparedStatement.setTimestamp(2, new Timestamp(0));
+            resultSet = preparedStatement.executeQuery();
+            return true;
+        } catch (SQLException e) {
+            // the query failed, assume it is because the column does not exist
+            if (!Boolean.parseBoolean(WildFlySecurityManager.getPropertyPrivileged(ADD_CREATED_DATE_PROPERTY, "false"))) {
+                EjbLogger.EJB3_TIMER_LOGGER.timerCreatedDateMissing(ADD_CREATED_DATE_PROPERTY);
+                return false;
+            }
+            Statement statement = null;
+            try {
+                statement = connection.createStatement();
+                statement.executeUpdate(sql(ADD_CREATED_DATE));
+                return true;
+            } catch (SQLException e1) {
+                EjbLogger.EJB3_TIMER_LOGGER.couldNotAddTimerCreatedDate(e1);
+                return false;
+            } finally {
+                safeClose(statement);
+            }
+        } finally {
+            safeClose(resultSet);
+            safeClose(preparedStatement);
+        }
+    }
+
     private String sql(final String key) {
         if (database != null) {
             String result = sql.getProperty(key + "." + database);
@@ -320,7 +391,7 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
 
     @Override
     public void addTimer(final TimerImpl timerEntity) {
-        String createTimer = sql(CREATE_TIMER);
+        String createTimer = sql(createdDate ? CREATE_TIMER_WITH_CREATED_DATE : CREATE_TIMER);
         Connection connection = null;
         PreparedStatement statement = null;
         ResultSet resultSet = null;
@@ -331,6 +402,9 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
             connection = dataSource.getConnection();
             statement = connection.prepareStatement(createTimer);
             statementParameters(timerEntity, statement);
+            if (createdDate) {
+                statement.setTimestamp(27, timestamp(new Date()));
+            }
             statement.execute();
         } catch (SQLException e) {
             throw new RuntimeException(e);
@@ -385,30 +459,142 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         }
     }
 
+    /**
+     * Claims the timer for execution on this node.
+     * <p>
+     * Timers often expire together, e.g. calendar timers at the start of a minute, so concurrent claims are queued.
+     * The thread that finds the queue empty obtains a connection and then issues all claims queued by then as a single
+     * JDBC batch, in one transaction. Claims queued after that start the next batch, which may run concurrently.
+     */
     @Override
     public boolean shouldRun(TimerImpl timer, @Deprecated TransactionManager ignored) {
-        final ContextTransactionManager tm = ContextTransactionManager.getInstance();
         if (!allowExecution) {
             //timers never execute on this node
             return false;
         }
-        String loadTimer = sql(UPDATE_RUNNING);
+        final Claim claim = new Claim(timer);
+        final boolean leader;
+        synchronized (claimQueueLock) {
+            leader = claimQueue.isEmpty();
+            claimQueue.add(claim);
+        }
+        if (leader) {
+            claimQueued();
+        }
+        return claim.await();
+    }
+
+    private void claimQueued() {
         Connection connection = null;
+        Exception failure = null;
+        try {
+            connection = dataSource.getConnection();
+        } catch (SQLException | RuntimeException e) {
+            failure = e;
+        }
+        // Claims queued while the connection was obtained join the batch
+        final List<Claim> batch;
+        synchronized (claimQueueLock) {
+            batch = claimQueue;
+            claimQueue = new ArrayList<>();
+        }
+        try {
+            if (connection == null) {
+                for (Claim claim : batch) {
+                    // fix for WFLY-10130
+                    EjbLogger.EJB3_TIMER_LOGGER.exceptionCheckingIfTimerShouldRun(claim.timer, failure);
+                }
+            } else if (batch.size() == 1) {
+                batch.get(0).claimed = claimTimer(batch.get(0).timer, connection);
+            } else if (!claimBatch(batch, connection)) {
+                safeClose(connection);
+                connection = null;
+                for (Claim claim : batch) {
+                    claim.claimed = claimTimer(claim.timer);
+                }
+            }
+        } finally {
+            safeClose(connection);
+            claimCount.add(batch.size());
+            for (Claim claim : batch) {
+                claim.complete();
+            }
+        }
+    }
+
+    /**
+     * Claims all timers of the batch in a single round trip.
+     *
+     * @return false, if the batch could not be claimed as a whole and the timers need to be claimed one by one
+     */
+    private boolean claimBatch(final List<Claim> batch, final Connection connection) {
+        final TransactionManager tm = transactionManager;
         PreparedStatement statement = null;
         try {
             try {
-                connection = dataSource.getConnection();
-                statement = connection.prepareStatement(loadTimer);
-                statement.setString(1, TimerState.IN_TIMEOUT.name());
-                setNodeName(TimerState.IN_TIMEOUT, statement, 2);
-                statement.setString(3, timer.getId());
-                statement.setString(4, TimerState.IN_TIMEOUT.name());
-                statement.setString(5, TimerState.RETRY_TIMEOUT.name());
-                if (timer.getNextExpiration() == null) {
-                    statement.setTimestamp(6, null);
-                } else {
-                    statement.setTimestamp(6, timestamp(timer.getNextExpiration()));
+                statement = connection.prepareStatement(sql(UPDATE_RUNNING));
+                for (Claim claim : batch) {
+                    claimParameters(claim.timer, statement);
+                    statement.addBatch();
                 }
+            } catch (SQLException e) {
+                EjbLogger.EJB3_TIMER_LOGGER.debugf(e, "Unable to prepare claim of %d timers", batch.size());
+                return false;
+            }
+            tm.begin();
+            final int[] affected = statement.executeBatch();
+            for (int count : affected) {
+                if (count < 0) {
+                    // SUCCESS_NO_INFO or EXECUTE_FAILED, the driver does not tell us which timers we own
+                    tm.rollback();
+                    return false;
+                }
+            }
+            tm.commit();
+            for (int i = 0; i < batch.size(); ++i) {
+                batch.get(i).claimed = affected[i] == 1;
+                if (affected[i] == 0) {
+                    claimConflicts.increment();
+                }
+            }
+            return true;
+        } catch (SQLException | SystemException | SecurityException | IllegalStateException | RollbackException | HeuristicMixedException | HeuristicRollbackException e) {
+            try {
+                tm.rollback();
+            } catch (IllegalStateException | SecurityException | SystemException rbe) {
+                EjbLogger.EJB3_TIMER_LOGGER.timerUpdateFailedAndRollbackNotPossible(rbe);
+            }
+            EjbLogger.EJB3_TIMER_LOGGER.debugf(e, "Claim of %d timers failed, claiming them individually", batch.size());
+            return false;
+        } catch (NotSupportedException e) {
+            // happen from tm.begin, no rollback necessary
+            return false;
+        } finally {
+            safeClose(statement);
+        }
+    }
+
+    private boolean claimTimer(final TimerImpl timer) {
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            return claimTimer(timer, connection);
+        } catch (SQLException e) {
+            // fix for WFLY-10130
+            EjbLogger.EJB3_TIMER_LOGGER.exceptionCheckingIfTimerShouldRun(timer, e);
+            return false;
+        } finally {
+            safeClose(connection);
+        }
+    }
+
+    private boolean claimTimer(final TimerImpl timer, final Connection connection) {
+        final TransactionManager tm = transactionManager;
+        PreparedStatement statement = null;
+        try {
+            try {
+                statement = connection.prepareStatement(sql(UPDATE_RUNNING));
+                claimParameters(timer, statement);
             } catch (SQLException e) {
                 // fix for WFLY-10130
                 EjbLogger.EJB3_TIMER_LOGGER.exceptionCheckingIfTimerShouldRun(timer, e);
@@ -417,6 +603,9 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
             tm.begin();
             int affected = statement.executeUpdate();
             tm.commit();
+            if (affected == 0) {
+                claimConflicts.increment();
+            }
             return affected == 1;
         } catch (SQLException | SystemException | SecurityException | IllegalStateException | RollbackException | HeuristicMixedException | HeuristicRollbackException e) {
             // failed to update the DB
@@ -433,7 +622,19 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
             return false;
         } finally {
             safeClose(statement);
-            safeClose(connection);
+        }
+    }
+
+    private void claimParameters(final TimerImpl timer, final PreparedStatement statement) throws SQLException {
+        statement.setString(1, TimerState.IN_TIMEOUT.name());
+        setNodeName(TimerState.IN_TIMEOUT, statement, 2);
+        statement.setString(3, timer.getId());
+        statement.setString(4, TimerState.IN_TIMEOUT.name());
+        statement.setString(5, TimerState.RETRY_TIMEOUT.name());
+        if (timer.getNextExpiration() == null) {
+            statement.setTimestamp(6, null);
+        } else {
+            statement.setTimestamp(6, timestamp(timer.getNextExpiration()));
         }
     }
 
@@ -743,6 +944,34 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         return timerInjectedValue;
     }
 
+    /**
+     * @return the number of completed refreshes against the database
+     */
+    public long getRefreshCount() {
+        return refreshCount.sum();
+    }
+
+    /**
+     * @return the duration in milliseconds of the most recent refresh
+     */
+    public long getLastRefreshDuration() {
+        return lastRefreshDuration;
+    }
+
+    /**
+     * @return the number of timer expirations this node attempted to claim
+     */
+    public long getClaimCount() {
+        return claimCount.sum();
+    }
+
+    /**
+     * @return the number of timer expirations that were already claimed, typically by another node
+     */
+    public long getClaimConflicts() {
+        return claimConflicts.sum();
+    }
+
     private static void safeClose(final Closeable resource) {
         try {
             if (resource != null) {
@@ -783,77 +1012,215 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         }
     }
 
-    private class RefreshTask extends TimerTask {
+    /**
+     * Synchronizes the timers of this node with the database.
+     * <p>
+     * Each refresh loads, in a single query, the timers of the partition created since the previous refresh, overlapping
+     * it by one refresh interval to allow for transactions still in flight and for clock differences between nodes.
+     * Every {@value #RECONCILIATION_PERIOD} refreshes, the timer ids of the partition are compared with the known ones,
+     * to remove timers deleted by other nodes and to load timers created without a creation date, e.g. by a node of a
+     * previous version. Without the CREATED_DATE column, every refresh compares the timer ids.
+     */
+    class RefreshTask extends TimerTask {
 
         private volatile AtomicBoolean running = new AtomicBoolean();
+        // Only accessed by the refresh task
+        private long since = System.currentTimeMillis() - refreshInterval;
+        private int refreshes;
 
         @Override
         public void run() {
             if (running.compareAndSet(false, true)) {
+                final long start = System.currentTimeMillis();
                 try {
-                    Set<String> timedObjects;
-                    synchronized (DatabaseTimerPersistence.this) {
-                        timedObjects = new HashSet<>(knownTimerIds.keySet());
+                    refresh();
+                } finally {
+                    lastRefreshDuration = System.currentTimeMillis() - start;
+                    refreshCount.increment();
+                    running.set(false);
+                }
+            }
+        }
+
+        private void refresh() {
+            final Map<String, Set<String>> removed = new HashMap<>();
+            synchronized (DatabaseTimerPersistence.this) {
+                for (Map.Entry<String, Set<String>> entry : knownTimerIds.entrySet()) {
+                    if (changeListeners.containsKey(entry.getKey())) {
+                        removed.put(entry.getKey(), new HashSet<>(entry.getValue()));
                     }
-                    for (String timedObjectId : timedObjects) {
-                        TimerChangeListener listener = changeListeners.get(timedObjectId);
-                        if (listener == null) {
-                            continue;
-                        }
-                        final Set<String> existing;
-                        synchronized (DatabaseTimerPersistence.this) {
-                            existing = new HashSet<>(knownTimerIds.get(timedObjectId));
+                }
+            }
+            if (removed.isEmpty()) {
+                return;
+            }
+            final boolean reconcile = !createdDate || (++refreshes % RECONCILIATION_PERIOD == 0);
+            final long start = System.currentTimeMillis();
+            Connection connection = null;
+            try {
+                connection = dataSource.getConnection();
+                if (createdDate) {
+                    loadNewTimers(connection);
+                    since = start - refreshInterval;
+                }
+                if (reconcile) {
+                    reconcile(connection, removed);
+                }
+            } catch (SQLException e) {
+                EjbLogger.EJB3_TIMER_LOGGER.failedToRefreshTimers(partition);
+            } finally {
+                safeClose(connection);
+            }
+        }
+
+        private void loadNewTimers(final Connection connection) throws SQLException {
+            PreparedStatement statement = null;
+            ResultSet resultSet = null;
+            try {
+                statement = connection.prepareStatement(sql(LOAD_NEW_TIMERS));
+                statement.setString(1, partition);
+                statement.setTimestamp(2, timestamp(new Date(since)));
+                resultSet = statement.executeQuery();
+                while (resultSet.next()) {
+                    timerLoaded(resultSet);
+                }
+            } finally {
+                safeClose(resultSet);
+                safeClose(statement);
+            }
+        }
+
+        /**
+         * Compares the timer ids of the partition with the known ones, loading the missing timers and removing those
+         * no longer present.
+         *
+         * @param removed the known timer ids by timed object, taken before the comparison
+         */
+        private void reconcile(final Connection connection, final Map<String, Set<String>> removed) throws SQLException {
+            final Map<String, Set<String>> added = new HashMap<>();
+            PreparedStatement statement = null;
+            ResultSet resultSet = null;
+            try {
+                statement = connection.prepareStatement(sql(LOAD_TIMER_IDS));
+                statement.setString(1, partition);
+                resultSet = statement.executeQuery();
+                while (resultSet.next()) {
+                    final String timedObjectId = resultSet.getString(1);
+                    final Set<String> ids = removed.get(timedObjectId);
+                    if (ids != null) {
+                        final String id = resultSet.getString(2);
+                        if (!ids.remove(id)) {
+                            added.computeIfAbsent(timedObjectId, key -> new HashSet<>()).add(id);
                         }
-                        String loadTimer = sql(LOAD_ALL_TIMERS);
-                        Connection connection = null;
-                        PreparedStatement statement = null;
-                        ResultSet resultSet = null;
-                        try {
-                            connection = dataSource.getConnection();
-                            statement = connection.prepareStatement(loadTimer);
-                            statement.setString(1, timedObjectId);
-                            statement.setString(2, partition);
-                            resultSet = statement.executeQuery();
-                            while (resultSet.next()) {
-                                try {
-                                    String id = resultSet.getString(1);
-                                    if (!existing.remove(id)) {
-                                        synchronized (DatabaseTimerPersistence.this) {
-                                            knownTimerIds.get(timedObjectId).add(id);
-                                        }
-                                        final Holder holder = timerFromResult(resultSet, listener.getTimerService());
-                                        if(holder != null) {
-                                            listener.timerAdded(holder.timer);
-                                        }
-                                    }
-                                } catch (Exception e) {
-                                    EjbLogger.EJB3_TIMER_LOGGER.timerReinstatementFailed(resultSet.getString(2), resultSet.getString(1), e);
-                                }
-                            }
-
-                            synchronized (DatabaseTimerPersistence.this) {
-                                Set<String> timers = knownTimerIds.get(timedObjectId);
-                                for (String timer : existing) {
-                                    timers.remove(timer);
-                                    listener.timerRemoved(timer);
-                                }
-                            }
-                        } catch (SQLException e) {
-                            EjbLogger.EJB3_TIMER_LOGGER.failedToRefreshTimers(timedObjectId);
-                        } finally {
-                            safeClose(resultSet);
-                            safeClose(statement);
-                            safeClose(connection);
+                    }
+                }
+                safeClose(resultSet);
+                resultSet = null;
+                safeClose(statement);
+                statement = null;
+
+                // Load the missing timers with one query per timed object
+                for (Map.Entry<String, Set<String>> entry : added.entrySet()) {
+                    statement = connection.prepareStatement(sql(LOAD_ALL_TIMERS));
+                    statement.setString(1, entry.getKey());
+                    statement.setString(2, partition);
+                    resultSet = statement.executeQuery();
+                    while (resultSet.next()) {
+                        if (entry.getValue().contains(resultSet.getString(1))) {
+                            timerLoaded(resultSet);
                         }
                     }
-                } finally {
-                    running.set(false);
+                    safeClose(resultSet);
+                    resultSet = null;
+                    safeClose(statement);
+                    statement = null;
                 }
+            } finally {
+                safeClose(resultSet);
+                safeClose(statement);
             }
 
+            synchronized (DatabaseTimerPersistence.this) {
+                for (Map.Entry<String, Set<String>> entry : removed.entrySet()) {
+                    final TimerChangeListener listener = changeListeners.get(entry.getKey());
+                    final Set<String> timers = knownTimerIds.get(entry.getKey());
+                    if (listener == null || timers == null) {
+                        continue;
+                    }
+                    for (String timer : entry.getValue()) {
+                        timers.remove(timer);
+                        listener.timerRemoved(timer);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Adds the timer of the current row to its timed object, unless it is already known to this node.
+         */
+        private void timerLoaded(final ResultSet resultSet) throws SQLException {
+            final String id = resultSet.getString(1);
+            final String timedObjectId = resultSet.getString(2);
+            final TimerChangeListener listener = changeListeners.get(timedObjectId);
+            if (listener == null) {
+                return;
+            }
+            synchronized (DatabaseTimerPersistence.this) {
+                final Set<String> known = knownTimerIds.get(timedObjectId);
+                // Skip timers undeployed, or created on or already loaded by this node
+                if (known == null || !known.add(id)) {
+                    return;
+                }
+            }
+            try {
+                final Holder holder = timerFromResult(resultSet, listener.getTimerService());
+                if (holder != null) {
+                    listener.timerAdded(holder.timer);
+                }
+            } catch (Exception e) {
+                EjbLogger.EJB3_TIMER_LOGGER.timerReinstatementFailed(timedObjectId, id, e);
+            }
         }
     }
 
+    /**
+     * A timer waiting to be claimed, by the thread that claims the batch it was queued in.
+     */
+    private static class Claim {
+        final TimerImpl timer;
+        // Written by the claiming thread before completion
+        boolean claimed;
+        private boolean done;
+
+        Claim(TimerImpl timer) {
+            this.timer = timer;
+        }
+
+        synchronized void complete() {
+            done = true;
+            notifyAll();
+        }
+
+        /**
+         * Waits until the claim completed.
+         *
+         * @return true, if the timer was claimed by this node
+         */
+        synchronized boolean await() {
+            boolean interrupted = false;
+            while (!done) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return claimed;
+        }
+    }
 
     static final class Holder {
         final TimerImpl timer;
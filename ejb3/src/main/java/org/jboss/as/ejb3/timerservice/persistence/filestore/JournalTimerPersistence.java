@@ -0,0 +1,525 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.persistence.filestore;
+
+import org.jboss.as.controller.services.path.PathManager;
+import org.jboss.as.ejb3.component.stateful.CurrentSynchronizationCallback;
+import org.jboss.as.ejb3.timerservice.CalendarTimer;
+import org.jboss.as.ejb3.timerservice.TimerImpl;
+import org.jboss.as.ejb3.timerservice.TimerServiceImpl;
+import org.jboss.as.ejb3.timerservice.TimerState;
+import org.jboss.as.ejb3.timerservice.persistence.TimeoutMethod;
+import org.jboss.as.ejb3.timerservice.persistence.TimerPersistence;
+import org.jboss.marshalling.ByteBufferInput;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.ModularClassResolver;
+import org.jboss.marshalling.OutputStreamByteOutput;
+import org.jboss.marshalling.Unmarshaller;
+import org.jboss.marshalling.river.RiverMarshallerFactory;
+import org.jboss.modules.ModuleLoader;
+import org.jboss.msc.service.Service;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StartException;
+import org.jboss.msc.service.StopContext;
+import org.jboss.msc.value.InjectedValue;
+import org.wildfly.security.manager.WildFlySecurityManager;
+
+import javax.ejb.ScheduleExpression;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.SystemException;
+import javax.transaction.TransactionManager;
+import javax.transaction.TransactionSynchronizationRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FilePermission;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.security.PrivilegedAction;
+import java.security.PrivilegedExceptionAction;
+import java.security.PrivilegedActionException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static java.security.AccessController.doPrivileged;
+import static org.jboss.as.ejb3.logging.EjbLogger.EJB3_TIMER_LOGGER;
+
+/**
+ * File based persistent timer store that appends compact binary records to a {@link TimerJournal}, rather than
+ * rewriting an XML file per timer.
+ * <p/>
+ * Like {@link FileTimerPersistence}, timers modified within a transaction are only written once it commits.
+ */
+public class JournalTimerPersistence implements TimerPersistence, Service<JournalTimerPersistence> {
+
+    static final String JOURNAL_DIRECTORY = "journal";
+    private static final long SEGMENT_SIZE = 16 * 1024 * 1024;
+    private static final long COMPACTION_THRESHOLD = 4 * 1024 * 1024;
+
+    private static final FilePermission FILE_PERMISSION = new FilePermission("<<ALL FILES>>", "read,write,delete");
+    private static final byte FORMAT_VERSION = 1;
+
+    private final boolean createIfNotExists;
+    private MarshallerFactory factory;
+    private MarshallingConfiguration configuration;
+    private final InjectedValue<TransactionManager> transactionManager = new InjectedValue<TransactionManager>();
+    private final InjectedValue<TransactionSynchronizationRegistry> transactionSynchronizationRegistry = new InjectedValue<TransactionSynchronizationRegistry>();
+    private final InjectedValue<ModuleLoader> moduleLoader = new InjectedValue<ModuleLoader>();
+    private final InjectedValue<PathManager> pathManager = new InjectedValue<PathManager>();
+    private final String path;
+    private final String pathRelativeTo;
+    private PathManager.Callback.Handle callbackHandle;
+    private volatile TimerJournal journal;
+
+    public JournalTimerPersistence(final boolean createIfNotExists, final String path, final String pathRelativeTo) {
+        final SecurityManager sm = System.getSecurityManager();
+        if (sm != null) {
+            sm.checkPermission(FILE_PERMISSION);
+        }
+        this.createIfNotExists = createIfNotExists;
+        this.path = path;
+        this.pathRelativeTo = pathRelativeTo;
+    }
+
+    @Override
+    public void start(final StartContext context) throws StartException {
+        try {
+            if (WildFlySecurityManager.isChecking()) {
+                WildFlySecurityManager.doUnchecked(new PrivilegedExceptionAction<Void>() {
+                    public Void run() throws IOException {
+                        doStart();
+                        return null;
+                    }
+                });
+            } else {
+                doStart();
+            }
+        } catch (PrivilegedActionException e) {
+            throw new StartException(e.getCause());
+        } catch (IOException e) {
+            throw new StartException(e);
+        }
+    }
+
+    private void doStart() throws IOException {
+        final RiverMarshallerFactory factory = new RiverMarshallerFactory();
+        final MarshallingConfiguration configuration = new MarshallingConfiguration();
+        configuration.setClassResolver(ModularClassResolver.getInstance(moduleLoader.getValue()));
+        configuration.setVersion(3);
+
+        this.configuration = configuration;
+        this.factory = factory;
+        if (pathRelativeTo != null) {
+            callbackHandle = pathManager.getValue().registerCallback(pathRelativeTo, PathManager.ReloadServerCallback.create(), PathManager.Event.UPDATED, PathManager.Event.REMOVED);
+        }
+        final File baseDir = new File(pathManager.getValue().resolveRelativePathEntry(path, pathRelativeTo));
+        if (!baseDir.exists()) {
+            if (createIfNotExists) {
+                if (!baseDir.mkdirs()) {
+                    throw EJB3_TIMER_LOGGER.failToCreateTimerFileStoreDir(baseDir);
+                }
+            } else {
+                throw EJB3_TIMER_LOGGER.timerFileStoreDirNotExist(baseDir);
+            }
+        }
+        if (!baseDir.isDirectory()) {
+            throw EJB3_TIMER_LOGGER.invalidTimerFileStoreDir(baseDir);
+        }
+        // Keep the journal apart from the per timed object directories of the XML store
+        final File journalDir = new File(baseDir, JOURNAL_DIRECTORY);
+        if (!journalDir.isDirectory() && !journalDir.mkdirs()) {
+            throw EJB3_TIMER_LOGGER.failToCreateTimerFileStoreDir(journalDir);
+        }
+        final TimerJournal journal = new TimerJournal(journalDir, SEGMENT_SIZE, COMPACTION_THRESHOLD);
+        journal.open();
+        this.journal = journal;
+    }
+
+    @Override
+    public void stop(final StopContext context) {
+        try {
+            journal.close();
+        } catch (IOException e) {
+            EJB3_TIMER_LOGGER.failToCloseFile(e);
+        }
+        journal = null;
+        if (callbackHandle != null) {
+            callbackHandle.remove();
+        }
+        factory = null;
+        configuration = null;
+    }
+
+    @Override
+    public JournalTimerPersistence getValue() throws IllegalStateException, IllegalArgumentException {
+        return this;
+    }
+
+    @Override
+    public void addTimer(final TimerImpl timer) {
+        if (WildFlySecurityManager.isChecking()) {
+            WildFlySecurityManager.doUnchecked(new PrivilegedAction<Object>() {
+                @Override
+                public Object run() {
+                    persistTimer(timer, true);
+                    return null;
+                }
+            });
+        } else {
+            persistTimer(timer, true);
+        }
+    }
+
+    @Override
+    public void persistTimer(final TimerImpl timer) {
+        if (WildFlySecurityManager.isChecking()) {
+            WildFlySecurityManager.doUnchecked(new PrivilegedAction<Object>() {
+                @Override
+                public Object run() {
+                    persistTimer(timer, false);
+                    return null;
+                }
+            });
+        } else {
+            persistTimer(timer, false);
+        }
+    }
+
+    @Override
+    public boolean shouldRun(TimerImpl timer, TransactionManager tm) {
+        return true;
+    }
+
+    private void persistTimer(final TimerImpl timer, boolean newTimer) {
+        try {
+            final int status = transactionManager.getValue().getStatus();
+            if (status == Status.STATUS_MARKED_ROLLBACK || status == Status.STATUS_ROLLEDBACK ||
+                    status == Status.STATUS_ROLLING_BACK) {
+                //no need to persist anyway
+                return;
+            }
+
+            if (status == Status.STATUS_NO_TRANSACTION ||
+                    status == Status.STATUS_UNKNOWN || isBeforeCompletion()
+                    || status == Status.STATUS_COMMITTED) {
+                write(timer, newTimer);
+            } else {
+                final String key = timerTransactionKey(timer);
+                Object existing = transactionSynchronizationRegistry.getValue().getResource(key);
+                //check is there is already a persist sync for this timer
+                if (existing == null) {
+                    transactionSynchronizationRegistry.getValue().registerInterposedSynchronization(new PersistTransactionSynchronization(key, newTimer));
+                }
+                //update the most recent version of the timer to be persisted
+                transactionSynchronizationRegistry.getValue().putResource(key, timer);
+            }
+        } catch (SystemException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void write(final TimerImpl timer, final boolean newTimer) {
+        try {
+            if (timer.getState() == TimerState.CANCELED ||
+                    timer.getState() == TimerState.EXPIRED) {
+                journal.remove(timer.getTimedObjectId(), timer.getId());
+            } else {
+                //if it is not a new timer and is not in the journal then it has
+                //been removed by another thread.
+                journal.update(timer.getTimedObjectId(), timer.getId(), encode(timer), !newTimer);
+            }
+        } catch (IOException e) {
+            throw EJB3_TIMER_LOGGER.failedToWriteTimerJournal(timer.getId(), e);
+        }
+    }
+
+    private String timerTransactionKey(final TimerImpl timer) {
+        return "org.jboss.as.ejb3.timerJournalTransactionKey." + timer.getId();
+    }
+
+    @Override
+    public void timerUndeployed(final String timedObjectId) {
+        // The journal holds no class loader references
+    }
+
+    private boolean isBeforeCompletion() {
+        final CurrentSynchronizationCallback.CallbackType type = CurrentSynchronizationCallback.get();
+        if (type != null) {
+            return type == CurrentSynchronizationCallback.CallbackType.BEFORE_COMPLETION;
+        }
+        return false;
+    }
+
+    @Override
+    public List<TimerImpl> loadActiveTimers(final String timedObjectId, final TimerServiceImpl timerService) {
+        final ClassLoader classLoader = timerService.getTimedObjectInvoker().getValue().getClassLoader();
+        final List<TimerImpl> entities = new ArrayList<TimerImpl>();
+        for (Map.Entry<String, byte[]> entry : journal.read(timedObjectId).entrySet()) {
+            final String timerId = entry.getKey();
+            try {
+                final TimerImpl timer = decode(timedObjectId, timerId, entry.getValue(), timerService, classLoader);
+                if (timer != null) {
+                    entities.add(mostRecentEntityVersion(timer));
+                } else {
+                    // The timeout method of this auto timer no longer exists
+                    EJB3_TIMER_LOGGER.timerReinstatementFailed(timedObjectId, timerId, null);
+                    journal.remove(timedObjectId, timerId);
+                }
+            } catch (Exception e) {
+                EJB3_TIMER_LOGGER.timerReinstatementFailed(timedObjectId, timerId, e);
+            }
+        }
+        return entities;
+    }
+
+    @Override
+    public Closeable registerChangeListener(String timedObjectId, TimerChangeListener listener) {
+        return new Closeable() {
+            @Override
+            public void close() throws IOException {
+            }
+        };
+    }
+
+    /**
+     * Returns either the loaded entity or the most recent version of the entity that has
+     * been persisted in this transaction.
+     */
+    private TimerImpl mostRecentEntityVersion(final TimerImpl timerImpl) {
+        try {
+            final int status = transactionManager.getValue().getStatus();
+            if (status == Status.STATUS_UNKNOWN ||
+                    status == Status.STATUS_NO_TRANSACTION) {
+                return timerImpl;
+            }
+            final String key = timerTransactionKey(timerImpl);
+            TimerImpl existing = (TimerImpl) transactionSynchronizationRegistry.getValue().getResource(key);
+            return existing != null ? existing : timerImpl;
+        } catch (SystemException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private byte[] encode(final TimerImpl timer) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        final DataOutputStream output = new DataOutputStream(bytes);
+        output.writeByte(FORMAT_VERSION);
+        final boolean calendar = timer instanceof CalendarTimer;
+        output.writeBoolean(calendar);
+        writeDate(output, timer.getInitialExpiration());
+        output.writeLong(timer.getInterval());
+        writeDate(output, timer.getNextExpiration());
+        writeDate(output, timer.getPreviousRun());
+        output.writeUTF(timer.getState().name());
+        writeObject(output, timer.getInfo());
+        writeObject(output, timer.getPrimaryKey());
+        if (calendar) {
+            final CalendarTimer calendarTimer = (CalendarTimer) timer;
+            final ScheduleExpression schedule = calendarTimer.getScheduleExpression();
+            writeString(output, schedule.getSecond());
+            writeString(output, schedule.getMinute());
+            writeString(output, schedule.getHour());
+            writeString(output, schedule.getDayOfWeek());
+            writeString(output, schedule.getDayOfMonth());
+            writeString(output, schedule.getMonth());
+            writeString(output, schedule.getYear());
+            writeDate(output, schedule.getStart());
+            writeDate(output, schedule.getEnd());
+            writeString(output, schedule.getTimezone());
+            output.writeBoolean(calendarTimer.isAutoTimer());
+            if (calendarTimer.isAutoTimer()) {
+                final Method method = calendarTimer.getTimeoutMethod();
+                output.writeUTF(method.getDeclaringClass().getName());
+                output.writeUTF(method.getName());
+                final Class<?>[] parameterTypes = method.getParameterTypes();
+                output.writeInt(parameterTypes.length);
+                for (Class<?> parameterType : parameterTypes) {
+                    output.writeUTF(parameterType.getName());
+                }
+            }
+        }
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a timer, returning null if it is an auto timer whose timeout method no longer exists.
+     */
+    private TimerImpl decode(final String timedObjectId, final String timerId, final byte[] data, final TimerServiceImpl timerService, final ClassLoader classLoader) throws IOException, ClassNotFoundException {
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(data));
+        final byte version = input.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException(Byte.toString(version));
+        }
+        final boolean calendar = input.readBoolean();
+        final TimerImpl.Builder builder = calendar ? CalendarTimer.builder() : TimerImpl.builder();
+        builder.setPersistent(true);
+        builder.setTimedObjectId(timedObjectId);
+        builder.setId(timerId);
+        builder.setInitialDate(readDate(input));
+        builder.setRepeatInterval(input.readLong());
+        builder.setNextDate(readDate(input));
+        builder.setPreviousRun(readDate(input));
+        builder.setTimerState(TimerState.valueOf(input.readUTF()));
+        builder.setInfo((Serializable) readObject(input));
+        builder.setPrimaryKey(readObject(input));
+        if (!calendar) {
+            return builder.build(timerService);
+        }
+        final CalendarTimer.Builder calendarBuilder = (CalendarTimer.Builder) builder;
+        calendarBuilder.setScheduleExprSecond(readString(input));
+        calendarBuilder.setScheduleExprMinute(readString(input));
+        calendarBuilder.setScheduleExprHour(readString(input));
+        calendarBuilder.setScheduleExprDayOfWeek(readString(input));
+        calendarBuilder.setScheduleExprDayOfMonth(readString(input));
+        calendarBuilder.setScheduleExprMonth(readString(input));
+        calendarBuilder.setScheduleExprYear(readString(input));
+        calendarBuilder.setScheduleExprStartDate(readDate(input));
+        calendarBuilder.setScheduleExprEndDate(readDate(input));
+        calendarBuilder.setScheduleExprTimezone(readString(input));
+        final boolean autoTimer = input.readBoolean();
+        calendarBuilder.setAutoTimer(autoTimer);
+        if (autoTimer) {
+            final String className = input.readUTF();
+            final String methodName = input.readUTF();
+            final String[] params = new String[input.readInt()];
+            for (int i = 0; i < params.length; ++i) {
+                params[i] = input.readUTF();
+            }
+            final Method timeoutMethod = CalendarTimer.getTimeoutMethod(new TimeoutMethod(className, methodName, params), classLoader);
+            if (timeoutMethod == null) {
+                return null;
+            }
+            calendarBuilder.setTimeoutMethod(timeoutMethod);
+        }
+        return calendarBuilder.build(timerService);
+    }
+
+    private void writeObject(final DataOutputStream output, final Object object) throws IOException {
+        if (object == null) {
+            output.writeInt(-1);
+            return;
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final Marshaller marshaller = factory.createMarshaller(configuration);
+        marshaller.start(new OutputStreamByteOutput(bytes));
+        marshaller.writeObject(object);
+        marshaller.finish();
+        marshaller.flush();
+        output.writeInt(bytes.size());
+        bytes.writeTo(output);
+    }
+
+    private Object readObject(final DataInputStream input) throws IOException, ClassNotFoundException {
+        final int length = input.readInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] data = new byte[length];
+        input.readFully(data);
+        final Unmarshaller unmarshaller = factory.createUnmarshaller(configuration);
+        unmarshaller.start(new ByteBufferInput(ByteBuffer.wrap(data)));
+        try {
+            return unmarshaller.readObject();
+        } finally {
+            unmarshaller.close();
+        }
+    }
+
+    private static void writeDate(final DataOutputStream output, final Date date) throws IOException {
+        output.writeBoolean(date != null);
+        if (date != null) {
+            output.writeLong(date.getTime());
+        }
+    }
+
+    private static Date readDate(final DataInputStream input) throws IOException {
+        return input.readBoolean() ? new Date(input.readLong()) : null;
+    }
+
+    private static void writeString(final DataOutputStream output, final String value) throws IOException {
+        output.writeBoolean(value != null);
+        if (value != null) {
+            output.writeUTF(value);
+        }
+    }
+
+    private static String readString(final DataInputStream input) throws IOException {
+        return input.readBoolean() ? input.readUTF() : null;
+    }
+
+    private final class PersistTransactionSynchronization implements Synchronization {
+
+        private final String transactionKey;
+        private final boolean newTimer;
+        private volatile TimerImpl timer;
+
+        PersistTransactionSynchronization(final String transactionKey, final boolean newTimer) {
+            this.transactionKey = transactionKey;
+            this.newTimer = newTimer;
+        }
+
+        @Override
+        public void beforeCompletion() {
+            //get the latest version of the entity
+            timer = (TimerImpl) transactionSynchronizationRegistry.getValue().getResource(transactionKey);
+        }
+
+        @Override
+        public void afterCompletion(final int status) {
+            doPrivileged(new PrivilegedAction<Void>() {
+                public Void run() {
+                    if (timer != null && status == Status.STATUS_COMMITTED) {
+                        write(timer, newTimer);
+                    }
+                    return null;
+                }
+            });
+        }
+    }
+
+    public InjectedValue<TransactionManager> getTransactionManager() {
+        return transactionManager;
+    }
+
+    public InjectedValue<TransactionSynchronizationRegistry> getTransactionSynchronizationRegistry() {
+        return transactionSynchronizationRegistry;
+    }
+
+    public InjectedValue<ModuleLoader> getModuleLoader() {
+        return moduleLoader;
+    }
+
+    public InjectedValue<PathManager> getPathManager() {
+        return pathManager;
+    }
+}
@@ -0,0 +1,529 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.persistence.filestore;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import static org.jboss.as.ejb3.logging.EjbLogger.EJB3_TIMER_LOGGER;
+
+/**
+ * Segmented, append-only journal of opaque timer records, keyed by timed object id and timer id.
+ * <p/>
+ * Each record is length prefixed and checksummed, so that a torn write at the tail of the journal is detected and
+ * discarded on recovery. Concurrent writers are group committed: whichever writer acquires the append lock writes
+ * the records of every writer queued behind it and forces the channel once on behalf of all of them.
+ * <p/>
+ * Once the journal is mostly garbage, it is compacted by writing the live records to a new snapshot segment, which is
+ * renamed into place once durable. On recovery, replay starts from the most recent snapshot segment, so older
+ * segments are never consulted again and are deleted. Segments are scanned via memory mapping.
+ * <p/>
+ * The live records are also kept in memory, so reads never touch the disk.
+ *
+ * @see JournalTimerPersistence
+ */
+public class TimerJournal implements Closeable {
+
+    static final String SEGMENT_PREFIX = "timers-";
+    static final String SEGMENT_SUFFIX = ".journal";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private static final int MAGIC = 0x454a4254; // "EJBT"
+    private static final int VERSION = 1;
+    private static final int SEGMENT_HEADER_SIZE = 9;
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private static final byte UPDATE = 1;
+    private static final byte REMOVE = 2;
+
+    private final File directory;
+    private final long segmentSize;
+    private final long compactionThreshold;
+
+    private final ConcurrentMap<String, ConcurrentMap<String, Entry>> index = new ConcurrentHashMap<>();
+    private final Lock appendLock = new ReentrantLock();
+    private List<Write> queue = new ArrayList<>();
+    private final Object queueLock = new Object();
+
+    // Guarded by appendLock
+    private FileChannel channel;
+    private long sequence;
+    private long journalSize;
+    private long liveSize;
+
+    public TimerJournal(File directory, long segmentSize, long compactionThreshold) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Recovers the contents of the journal and opens a new segment for appending.
+     */
+    public void open() throws IOException {
+        this.appendLock.lock();
+        try {
+            File[] files = this.directory.listFiles();
+            List<File> segments = new ArrayList<>();
+            for (File file : (files != null) ? files : new File[0]) {
+                String name = file.getName();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    segments.add(file);
+                } else if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(TEMPORARY_SUFFIX)) {
+                    // Incomplete compaction
+                    Files.deleteIfExists(file.toPath());
+                }
+            }
+            // Segment names embed a fixed width sequence number
+            Collections.sort(segments);
+            int start = 0;
+            for (int i = segments.size() - 1; i > 0; --i) {
+                if (isSnapshot(segments.get(i))) {
+                    start = i;
+                    break;
+                }
+            }
+            for (int i = 0; i < start; ++i) {
+                Files.deleteIfExists(segments.get(i).toPath());
+            }
+            long valid = 0;
+            for (File segment : segments.subList(start, segments.size())) {
+                valid = this.replay(segment);
+                this.journalSize += valid;
+            }
+            if (segments.isEmpty()) {
+                this.sequence = 0;
+                this.roll();
+            } else {
+                File last = segments.get(segments.size() - 1);
+                this.sequence = sequence(last) + 1;
+                if (valid > 0 && valid == last.length()) {
+                    // Resume appending to the last segment
+                    this.channel = FileChannel.open(last.toPath(), StandardOpenOption.WRITE);
+                    this.channel.position(valid);
+                } else {
+                    // Never append after a torn record, since it cannot be truncated while the segment may still be mapped
+                    this.roll();
+                }
+            }
+        } finally {
+            this.appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.appendLock.lock();
+        try {
+            if (this.channel != null) {
+                this.channel.close();
+                this.channel = null;
+            }
+            this.index.clear();
+        } finally {
+            this.appendLock.unlock();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the live records of the specified timed object, keyed by timer id.
+     */
+    public Map<String, byte[]> read(String timedObjectId) {
+        Map<String, Entry> entries = this.index.get(timedObjectId);
+        if (entries == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, byte[]> result = new HashMap<>();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().data);
+        }
+        return result;
+    }
+
+    public boolean contains(String timedObjectId, String timerId) {
+        Map<String, Entry> entries = this.index.get(timedObjectId);
+        return (entries != null) && entries.containsKey(timerId);
+    }
+
+    /**
+     * Durably records the latest state of a timer, blocking until the record has been forced to disk.
+     * @param timedObjectId the timed object id
+     * @param timerId the timer id
+     * @param data the timer state
+     * @param onlyIfPresent if true, the record is only written if the timer has not been removed
+     * @return true, if the record was written
+     */
+    public boolean update(String timedObjectId, String timerId, byte[] data, boolean onlyIfPresent) throws IOException {
+        return this.write(new Write(timedObjectId, timerId, data, onlyIfPresent));
+    }
+
+    /**
+     * Durably removes a timer, blocking until the removal has been forced to disk.
+     * @param timedObjectId the timed object id
+     * @param timerId the timer id
+     * @return true, if the timer existed
+     */
+    public boolean remove(String timedObjectId, String timerId) throws IOException {
+        return this.write(new Write(timedObjectId, timerId, null, true));
+    }
+
+    private boolean write(Write write) throws IOException {
+        synchronized (this.queueLock) {
+            this.queue.add(write);
+        }
+        this.appendLock.lock();
+        try {
+            // Unless a previous leader already committed our write, commit everything queued so far
+            if (!write.done) {
+                List<Write> batch;
+                synchronized (this.queueLock) {
+                    batch = this.queue;
+                    this.queue = new ArrayList<>();
+                }
+                this.commit(batch);
+            }
+        } finally {
+            this.appendLock.unlock();
+        }
+        if (write.failure != null) {
+            throw write.failure;
+        }
+        return write.applied;
+    }
+
+    private void commit(List<Write> batch) {
+        if (this.channel == null) {
+            IOException exception = new IOException(this.directory.getPath());
+            for (Write write : batch) {
+                write.failure = exception;
+                write.done = true;
+            }
+            return;
+        }
+        List<Runnable> undo = new ArrayList<>(batch.size());
+        int size = 0;
+        for (Write write : batch) {
+            ConcurrentMap<String, Entry> entries = this.index.computeIfAbsent(write.timedObjectId, key -> new ConcurrentHashMap<>());
+            Entry previous = entries.get(write.timerId);
+            if (write.onlyIfPresent && previous == null) {
+                continue;
+            }
+            write.applied = true;
+            size += write.record.length;
+            if (write.data != null) {
+                entries.put(write.timerId, new Entry(write.data, write.record.length));
+                this.liveSize += write.record.length;
+            } else {
+                entries.remove(write.timerId);
+            }
+            if (previous != null) {
+                this.liveSize -= previous.size;
+            }
+            undo.add(() -> {
+                if (previous != null) {
+                    entries.put(write.timerId, previous);
+                    this.liveSize += previous.size;
+                } else {
+                    entries.remove(write.timerId);
+                }
+                if (write.data != null) {
+                    this.liveSize -= write.record.length;
+                }
+            });
+        }
+        IOException failure = null;
+        if (size > 0) {
+            long position = 0;
+            try {
+                position = this.channel.position();
+                ByteBuffer buffer = ByteBuffer.allocate(size);
+                for (Write write : batch) {
+                    if (write.applied) {
+                        buffer.put(write.record);
+                    }
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    this.channel.write(buffer);
+                }
+                this.channel.force(false);
+                this.journalSize += size;
+            } catch (IOException e) {
+                failure = e;
+                for (int i = undo.size() - 1; i >= 0; --i) {
+                    undo.get(i).run();
+                }
+                try {
+                    this.channel.truncate(position);
+                } catch (IOException ignored) {
+                    // Recovery will discard any partial record
+                }
+            }
+        }
+        for (Write write : batch) {
+            write.failure = failure;
+            if (failure != null) {
+                write.applied = false;
+            }
+            write.done = true;
+        }
+        if (failure == null) {
+            try {
+                if (this.journalSize > this.compactionThreshold && this.liveSize * 2 < this.journalSize) {
+                    this.compact();
+                } else if (this.channel.position() > this.segmentSize) {
+                    this.roll();
+                }
+            } catch (IOException e) {
+                EJB3_TIMER_LOGGER.failedToCompactTimerJournal(this.directory, e);
+            }
+        }
+    }
+
+    /**
+     * Writes all live records to a new snapshot segment and deletes all previous segments.
+     */
+    private void compact() throws IOException {
+        File segment = this.segment(this.sequence);
+        File temporary = new File(this.directory, segment.getName() + TEMPORARY_SUFFIX);
+        long size = SEGMENT_HEADER_SIZE;
+        try (FileChannel snapshot = FileChannel.open(temporary.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            snapshot.write(header(true));
+            for (Map.Entry<String, ConcurrentMap<String, Entry>> entries : this.index.entrySet()) {
+                for (Map.Entry<String, Entry> entry : entries.getValue().entrySet()) {
+                    ByteBuffer buffer = ByteBuffer.wrap(record(entries.getKey(), entry.getKey(), entry.getValue().data));
+                    size += buffer.remaining();
+                    while (buffer.hasRemaining()) {
+                        snapshot.write(buffer);
+                    }
+                }
+            }
+            snapshot.force(true);
+        }
+        Files.move(temporary.toPath(), segment.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        this.sequence += 1;
+        this.journalSize = size;
+        this.liveSize = size - SEGMENT_HEADER_SIZE;
+        this.roll();
+        // Previous segments are now superseded by the snapshot, so failure to delete them is harmless
+        File[] files = this.directory.listFiles();
+        for (File file : (files != null) ? files : new File[0]) {
+            String name = file.getName();
+            if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX) && (name.compareTo(segment.getName()) < 0)) {
+                if (!file.delete()) {
+                    EJB3_TIMER_LOGGER.debugf("Failed to delete superseded timer journal segment %s", file);
+                }
+            }
+        }
+    }
+
+    private void roll() throws IOException {
+        if (this.channel != null) {
+            this.channel.close();
+        }
+        File segment = this.segment(this.sequence++);
+        this.channel = FileChannel.open(segment.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        this.channel.write(header(false));
+        this.channel.force(true);
+        this.journalSize += SEGMENT_HEADER_SIZE;
+    }
+
+    /**
+     * Applies the valid records of the specified segment to the index.
+     * @return the number of valid bytes in the segment
+     */
+    private long replay(File segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < SEGMENT_HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                EJB3_TIMER_LOGGER.invalidTimerJournalSegment(segment);
+                return 0;
+            }
+            if (buffer.get() != 0) {
+                this.index.clear();
+                this.liveSize = 0;
+            }
+            CRC32 crc = new CRC32();
+            while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+                int position = buffer.position();
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    buffer.position(position);
+                    break;
+                }
+                ByteBuffer payload = buffer.slice();
+                payload.limit(length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    buffer.position(position);
+                    break;
+                }
+                buffer.position(position + RECORD_HEADER_SIZE + length);
+                this.apply(payload, RECORD_HEADER_SIZE + length);
+            }
+            if (buffer.hasRemaining()) {
+                EJB3_TIMER_LOGGER.truncatedTimerJournalSegment(segment, buffer.position());
+            }
+            return buffer.position();
+        }
+    }
+
+    private void apply(ByteBuffer payload, int size) {
+        byte type = payload.get();
+        String timedObjectId = readString(payload);
+        String timerId = readString(payload);
+        ConcurrentMap<String, Entry> entries = this.index.computeIfAbsent(timedObjectId, key -> new ConcurrentHashMap<>());
+        Entry previous;
+        if (type == UPDATE) {
+            byte[] data = new byte[payload.remaining()];
+            payload.get(data);
+            previous = entries.put(timerId, new Entry(data, size));
+            this.liveSize += size;
+        } else {
+            previous = entries.remove(timerId);
+        }
+        if (previous != null) {
+            this.liveSize -= previous.size;
+        }
+    }
+
+    private File segment(long sequence) {
+        return new File(this.directory, String.format("%s%016x%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+    }
+
+    private static long sequence(File segment) {
+        String name = segment.getName();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()), 16);
+    }
+
+    private static boolean isSnapshot(File segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading
+            }
+            buffer.flip();
+            return buffer.remaining() == SEGMENT_HEADER_SIZE && buffer.getInt() == MAGIC && buffer.getInt() == VERSION && buffer.get() != 0;
+        }
+    }
+
+    private static ByteBuffer header(boolean snapshot) {
+        ByteBuffer buffer = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+        buffer.putInt(MAGIC).putInt(VERSION).put(snapshot ? (byte) 1 : (byte) 0);
+        buffer.flip();
+        return buffer;
+    }
+
+    static byte[] record(String timedObjectId, String timerId, byte[] data) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + ((data != null) ? data.length : 0));
+            DataOutputStream output = new DataOutputStream(bytes);
+            output.writeInt(0);
+            output.writeInt(0);
+            output.writeByte((data != null) ? UPDATE : REMOVE);
+            writeString(output, timedObjectId);
+            writeString(output, timerId);
+            if (data != null) {
+                output.write(data);
+            }
+            output.flush();
+            ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+            int length = record.limit() - RECORD_HEADER_SIZE;
+            CRC32 crc = new CRC32();
+            crc.update(record.array(), RECORD_HEADER_SIZE, length);
+            record.putInt(0, length);
+            record.putInt(4, (int) crc.getValue());
+            return record.array();
+        } catch (IOException e) {
+            // Cannot happen when writing to a byte array
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static class Entry {
+        final byte[] data;
+        final int size;
+
+        Entry(byte[] data, int size) {
+            this.data = data;
+            this.size = size;
+        }
+    }
+
+    /**
+     * A write waiting to be group committed. All fields but the immutable ones are guarded by the append lock.
+     */
+    private static class Write {
+        final String timedObjectId;
+        final String timerId;
+        final byte[] data;
+        final boolean onlyIfPresent;
+        final byte[] record;
+        boolean done;
+        boolean applied;
+        IOException failure;
+
+        Write(String timedObjectId, String timerId, byte[] data, boolean onlyIfPresent) {
+            this.timedObjectId = timedObjectId;
+            this.timerId = timerId;
+            this.data = data;
+            this.onlyIfPresent = onlyIfPresent;
+            // Encode outside of the append lock
+            this.record = record(timedObjectId, timerId, data);
+        }
+    }
+}
@@ -0,0 +1,407 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.schedule;
+
+import java.util.BitSet;
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.jboss.as.ejb3.timerservice.schedule.attribute.DayOfMonth;
+import org.jboss.as.ejb3.timerservice.schedule.attribute.DayOfWeek;
+import org.jboss.as.ejb3.timerservice.schedule.attribute.Hour;
+import org.jboss.as.ejb3.timerservice.schedule.attribute.IntegerBasedExpression;
+import org.jboss.as.ejb3.timerservice.schedule.attribute.Minute;
+import org.jboss.as.ejb3.timerservice.schedule.attribute.Month;
+import org.jboss.as.ejb3.timerservice.schedule.attribute.Second;
+import org.jboss.as.ejb3.timerservice.schedule.attribute.Year;
+
+/**
+ * A schedule expression compiled to bit masks of its matching values, which computes timeouts on plain
+ * epoch-day arithmetic instead of {@link java.util.Calendar} fields.
+ * <p>
+ * The next timeout is the earliest instant after the current one whose local time, in the timezone of the
+ * schedule, matches all fields. A local time skipped by a daylight saving transition is shifted forward by the
+ * length of the gap. A local time repeated by a transition resolves to a single instant, as with
+ * {@link java.util.Calendar}: its later, standard time instant, unless the search continues from an earlier time of
+ * the same day, in which case the times of the repeated interval that follow on that day match as well.
+ * </p>
+ */
+class CompiledSchedule {
+
+    /**
+     * Returned when there are no more timeouts
+     */
+    static final long NONE = Long.MIN_VALUE;
+
+    private static final long MILLIS_PER_DAY = 86400000L;
+    private static final int SECONDS_PER_DAY = 86400;
+    /**
+     * Days between 0000-03-01 and 1970-01-01
+     */
+    private static final long DAYS_0000_TO_1970 = 719468L;
+
+    private final long seconds;
+    private final long minutes;
+    private final long hours;
+    private final long months;
+    /**
+     * Day of week bit mask, with bit 0 for Sunday
+     */
+    private final int daysOfWeek;
+    /**
+     * Null if the day of month is a wildcard
+     */
+    private final DayOfMonth dayOfMonth;
+    /**
+     * Null if the year is a wildcard
+     */
+    private final BitSet years;
+    private final TimeZone timezone;
+    private final long start;
+    private final long end;
+
+    CompiledSchedule(Second second, Minute minute, Hour hour, DayOfWeek dayOfWeek, DayOfMonth dayOfMonth, Month month, Year year,
+            TimeZone timezone, Date start, Date end) {
+        this.seconds = mask(second, 0, 59);
+        this.minutes = mask(minute, 0, 59);
+        this.hours = mask(hour, 0, 23);
+        this.months = mask(month, 1, 12);
+        this.daysOfWeek = dayOfWeek.isWildcard() ? 0 : (int) mask(dayOfWeek, 0, 6);
+        this.dayOfMonth = dayOfMonth.isWildcard() ? null : dayOfMonth;
+        if (year.isWildcard()) {
+            this.years = null;
+        } else {
+            this.years = new BitSet(Year.MAX_YEAR + 1);
+            for (Integer value : year.getAbsoluteValues()) {
+                this.years.set(value);
+            }
+        }
+        this.timezone = timezone;
+        this.start = (start != null) ? start.getTime() : Long.MIN_VALUE;
+        this.end = (end != null) ? end.getTime() : Long.MAX_VALUE;
+    }
+
+    private static long mask(IntegerBasedExpression expression, int min, int max) {
+        if (expression.isWildcard()) {
+            return (-1L << min) & (-1L >>> (63 - max));
+        }
+        long mask = 0;
+        for (Integer value : expression.getAbsoluteValues()) {
+            if (value >= min && value <= max) {
+                mask |= 1L << value;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Computes the first timeout of this schedule, i.e. from its start or, without a start, from the beginning of the current day.
+     *
+     * @param now the current time in milliseconds
+     * @return the first timeout in milliseconds, or {@link #NONE} if there are no timeouts
+     */
+    long getFirstTimeout(long now) {
+        if (this.start != Long.MIN_VALUE) {
+            return this.getNextTimeout(this.start, false);
+        }
+        long local = now + this.timezone.getOffset(now);
+        long midnight = this.resolve(local - Math.floorMod(local, MILLIS_PER_DAY), Long.MIN_VALUE, false);
+        return this.getNextTimeout(midnight, false);
+    }
+
+    /**
+     * Computes the next timeout of this schedule.
+     *
+     * @param current   the current time in milliseconds
+     * @param increment whether the next timeout needs to be strictly after the second of the current time
+     * @return the next timeout in milliseconds, or {@link #NONE} if there are no more timeouts
+     */
+    long getNextTimeout(long current, boolean increment) {
+        if (current > this.end) {
+            return NONE;
+        }
+        final long from;
+        if (current < this.start) {
+            // this may result in a millisecond component, however that is ok
+            // otherwise WFLY-6561 will rear its ugly head
+            // also as the start time may include milliseconds this is technically correct
+            from = this.start;
+        } else {
+            from = current - Math.floorMod(current, 1000L) + (increment ? 1000L : 0L);
+        }
+        final long millis = Math.floorMod(from, 1000L);
+        long next = this.next(from - millis);
+        if (next == NONE) {
+            return NONE;
+        }
+        next += millis;
+        return (next > this.end) ? NONE : next;
+    }
+
+    /**
+     * Returns the earliest matching instant at or after the passed one, which is on a whole second.
+     */
+    private long next(final long from) {
+        final int offset = this.timezone.getOffset(from);
+        final long day = Math.floorDiv(from + offset, MILLIS_PER_DAY);
+        long next;
+        long local = from + offset;
+        long candidate;
+        do {
+            candidate = this.nextLocal(local);
+            if (candidate == NONE) {
+                return NONE;
+            }
+            next = this.resolve(candidate, from, Math.floorDiv(candidate, MILLIS_PER_DAY) == day);
+            local = candidate + 1000L;
+        } while (next < from);
+
+        if (Math.floorDiv(candidate, MILLIS_PER_DAY) == day && this.timezone.getOffset(next) < offset) {
+            // The clocks were set back later on the same day, so the local times following the transition occur a second time.
+            long transition = this.findTransition(from, next, offset);
+            int repeatedOffset = this.timezone.getOffset(transition);
+            long repeated = this.nextLocal(transition + repeatedOffset);
+            if (repeated != NONE && repeated - repeatedOffset < next) {
+                next = repeated - repeatedOffset;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Returns the first instant in (from, to] whose offset differs from the passed one.
+     */
+    private long findTransition(long from, long to, int offset) {
+        long low = from;
+        long high = to;
+        while (high - low > 1000L) {
+            long mid = low + (((high - low) / 2000L) * 1000L);
+            if (this.timezone.getOffset(mid) == offset) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * Converts a local time to an instant. If the local time occurs twice, this is its later instant, unless the
+     * local time is on the same day as the current instant and its earlier instant is not before the current one.
+     */
+    private long resolve(long local, long current, boolean sameDay) {
+        final int before = this.timezone.getOffset(local - MILLIS_PER_DAY);
+        final int after = this.timezone.getOffset(local + MILLIS_PER_DAY);
+        if (before == after) {
+            return local - before;
+        }
+        final long earlier = local - before;
+        final long later = local - after;
+        final boolean earlierValid = this.timezone.getOffset(earlier) == before;
+        final boolean laterValid = this.timezone.getOffset(later) == after;
+        if (earlierValid && laterValid) {
+            long first = Math.min(earlier, later);
+            return (sameDay && first >= current) ? first : Math.max(earlier, later);
+        }
+        if (laterValid) {
+            return later;
+        }
+        // Either unambiguous, or within a gap, which is shifted forward by its length
+        return earlier;
+    }
+
+    /**
+     * Returns the earliest local time, in milliseconds since the local epoch, at or after the passed one matching all fields
+     * of this schedule, or {@link #NONE} if there is none.
+     */
+    private long nextLocal(long local) {
+        // Convert the epoch day to a date, see http://howardhinnant.github.io/date_algorithms.html#civil_from_days
+        final long z = Math.floorDiv(local, MILLIS_PER_DAY) + DAYS_0000_TO_1970;
+        final long era = Math.floorDiv(z, 146097L);
+        final int dayOfEra = (int) (z - era * 146097L);
+        final int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        final int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        final int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = (mp < 10) ? mp + 3 : mp - 9;
+        long longYear = era * 400 + yearOfEra + ((month <= 2) ? 1 : 0);
+        if (longYear > Year.MAX_YEAR) {
+            return NONE;
+        }
+        int year = (int) longYear;
+        int secondOfDay = (int) (Math.floorMod(local, MILLIS_PER_DAY) / 1000L);
+
+        while (year <= Year.MAX_YEAR) {
+            if (this.years != null && !this.years.get(year)) {
+                int nextYear = this.years.nextSetBit(year);
+                if (nextYear < 0) {
+                    return NONE;
+                }
+                year = nextYear;
+                month = 1;
+                day = 1;
+                secondOfDay = 0;
+            }
+            int nextMonth = nextSetBit(this.months, month);
+            if (nextMonth < 0) {
+                year++;
+                month = 1;
+                day = 1;
+                secondOfDay = 0;
+                continue;
+            }
+            if (nextMonth != month) {
+                month = nextMonth;
+                day = 1;
+                secondOfDay = 0;
+            }
+            final int lengthOfMonth = lengthOfMonth(year, month);
+            int nextDay = nextSetBit(this.daysOfMonth(year, month, lengthOfMonth), day);
+            if (nextDay < 0) {
+                month++;
+                if (month > 12) {
+                    year++;
+                    month = 1;
+                }
+                day = 1;
+                secondOfDay = 0;
+                continue;
+            }
+            if (nextDay != day) {
+                day = nextDay;
+                secondOfDay = 0;
+            }
+            int nextSecondOfDay = this.nextSecondOfDay(secondOfDay);
+            if (nextSecondOfDay < 0) {
+                day++;
+                secondOfDay = 0;
+                if (day > lengthOfMonth) {
+                    month++;
+                    if (month > 12) {
+                        year++;
+                        month = 1;
+                    }
+                    day = 1;
+                }
+                continue;
+            }
+            return (epochDay(year, month, day) * SECONDS_PER_DAY + nextSecondOfDay) * 1000L;
+        }
+        return NONE;
+    }
+
+    /**
+     * Returns the days of the month matching this schedule, as a bit mask with bit n set if day n matches.
+     */
+    private long daysOfMonth(int year, int month, int lengthOfMonth) {
+        final boolean dayOfWeekWildcard = this.daysOfWeek == 0;
+        if (this.dayOfMonth == null && dayOfWeekWildcard) {
+            return (-1L << 1) & (-1L >>> (63 - lengthOfMonth));
+        }
+        final int firstDayOfWeek = (int) Math.floorMod(epochDay(year, month, 1) + 4, 7L);
+        long days = 0;
+        if (!dayOfWeekWildcard) {
+            for (int day = 1; day <= lengthOfMonth; ++day) {
+                if ((this.daysOfWeek & (1 << ((firstDayOfWeek + day - 1) % 7))) != 0) {
+                    days |= 1L << day;
+                }
+            }
+        }
+        if (this.dayOfMonth != null) {
+            // If both day of month and day of week are specified, a day matching either one matches
+            days |= this.dayOfMonth.getDaysOfMonth(lengthOfMonth, firstDayOfWeek);
+        }
+        return days;
+    }
+
+    /**
+     * Returns the earliest matching second of a day at or after the passed one, or -1 if there is none.
+     */
+    private int nextSecondOfDay(int secondOfDay) {
+        int hour = secondOfDay / 3600;
+        int minute = (secondOfDay / 60) % 60;
+        int second = secondOfDay % 60;
+        while (true) {
+            int nextHour = nextSetBit(this.hours, hour);
+            if (nextHour < 0) {
+                return -1;
+            }
+            if (nextHour != hour) {
+                hour = nextHour;
+                minute = 0;
+                second = 0;
+            }
+            int nextMinute = nextSetBit(this.minutes, minute);
+            if (nextMinute < 0) {
+                hour++;
+                minute = 0;
+                second = 0;
+                continue;
+            }
+            if (nextMinute != minute) {
+                minute = nextMinute;
+                second = 0;
+            }
+            int nextSecond = nextSetBit(this.seconds, second);
+            if (nextSecond < 0) {
+                minute++;
+                second = 0;
+                continue;
+            }
+            return hour * 3600 + minute * 60 + nextSecond;
+        }
+    }
+
+    private static int nextSetBit(long mask, int from) {
+        if (from > 63) {
+            return -1;
+        }
+        long bits = mask & (-1L << from);
+        return (bits == 0) ? -1 : Long.numberOfTrailingZeros(bits);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return ((year % 4 == 0) && ((year % 100 != 0) || (year % 400 == 0))) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Converts a date to an epoch day, see http://howardhinnant.github.io/date_algorithms.html#days_from_civil
+     */
+    private static long epochDay(int year, int month, int day) {
+        final int y = (month <= 2) ? year - 1 : year;
+        final long era = Math.floorDiv(y, 400);
+        final int yearOfEra = (int) (y - era * 400);
+        final int dayOfYear = (153 * (month + ((month > 2) ? -3 : 9)) + 2) / 5 + day - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - DAYS_0000_TO_1970;
+    }
+}
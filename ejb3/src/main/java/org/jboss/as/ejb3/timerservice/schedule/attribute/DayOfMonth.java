@@ -104,6 +104,11 @@ public class DayOfMonth extends IntegerBasedExpression {
 
     }
 
+    /**
+     * Offset of the compiled day codes that are day-of-week based, see {@link #compile(String)}
+     */
+    private static final int WEEK_BASED = 100;
+
     private static final Set<String> ORDINALS = new HashSet<String>();
 
     private static final Map<String, Integer> ORDINAL_TO_WEEK_NUMBER_MAPPING = new HashMap<String, Integer>();
@@ -125,6 +130,16 @@ public class DayOfMonth extends IntegerBasedExpression {
     }
 
 
+    /**
+     * The absolute days of month, as a bit mask where bit n is set if day n matches
+     */
+    private long absoluteDays;
+
+    /**
+     * The relative values compiled to pairs of start and end day codes, see {@link #resolve(int, int, int)}
+     */
+    private final int[] relativeDays;
+
     /**
      * Creates a {@link DayOfMonth} by parsing the passed {@link String} <code>value</code>
      * <p>
@@ -139,6 +154,24 @@ public class DayOfMonth extends IntegerBasedExpression {
      */
     public DayOfMonth(String value) {
         super(value);
+        for (Integer day : this.absoluteValues) {
+            if (day >= 1) {
+                this.absoluteDays |= 1L << day;
+            }
+        }
+        this.relativeDays = new int[2 * this.relativeValues.size()];
+        int i = 0;
+        for (ScheduleValue relativeValue : this.relativeValues) {
+            if (relativeValue instanceof RangeValue) {
+                RangeValue range = (RangeValue) relativeValue;
+                this.relativeDays[i++] = this.compile(range.getStart());
+                this.relativeDays[i++] = this.compile(range.getEnd());
+            } else {
+                int day = this.compile(((SingleValue) relativeValue).getValue());
+                this.relativeDays[i++] = day;
+                this.relativeDays[i++] = day;
+            }
+        }
     }
 
     /**
@@ -181,6 +214,82 @@ public class DayOfMonth extends IntegerBasedExpression {
         return eligibleDaysOfMonth.first();
     }
 
+    /**
+     * Returns the days of a month matching this expression as a bit mask, where bit n is set if day n matches.
+     * <p>
+     * Unlike {@link #getNextMatch(Calendar)}, relative values are resolved against the month without allocating.
+     * </p>
+     *
+     * @param lengthOfMonth  The number of days of the month
+     * @param firstDayOfWeek The day of week of the first day of the month, from 0 for Sunday to 6 for Saturday
+     */
+    public long getDaysOfMonth(int lengthOfMonth, int firstDayOfWeek) {
+        if (this.scheduleExpressionType == ScheduleExpressionType.WILDCARD) {
+            return days(1, lengthOfMonth);
+        }
+        long days = this.absoluteDays;
+        for (int i = 0; i < this.relativeDays.length; i += 2) {
+            int start = resolve(this.relativeDays[i], lengthOfMonth, firstDayOfWeek);
+            int end = resolve(this.relativeDays[i + 1], lengthOfMonth, firstDayOfWeek);
+            if (start <= end) {
+                days |= days(start, end);
+            } else {
+                // In range "x-y", if x is larger than y, the range is equivalent to "x-max, min-y"
+                days |= days(start, MAX_DAY_OF_MONTH) | days(1, end);
+            }
+        }
+        return days & days(1, lengthOfMonth);
+    }
+
+    private static long days(int start, int end) {
+        return (-1L << start) & (-1L >>> (63 - end));
+    }
+
+    /**
+     * Compiles a single day of month value, which is either
+     * <ul>
+     * <li>an absolute day, compiled to itself</li>
+     * <li>"Last" or a negative offset from it, compiled to the offset from the last day, i.e. 0 to -7</li>
+     * <li>day-of-week based, compiled to {@link #WEEK_BASED} + 7 * week + day of week, with week 0 for "Last"</li>
+     * </ul>
+     */
+    private int compile(String value) {
+        String trimmed = value.trim();
+        if (this.isRelativeValue(trimmed) == false) {
+            Integer day = this.parseInt(trimmed);
+            this.assertValid(day);
+            return day;
+        }
+        if (trimmed.equalsIgnoreCase("last")) {
+            return 0;
+        }
+        if (this.isValidNegativeDayOfMonth(trimmed)) {
+            return Integer.parseInt(trimmed);
+        }
+        String[] parts = trimmed.split("\\s+");
+        String ordinal = parts[0].toLowerCase(Locale.ENGLISH);
+        int week = ordinal.equals("last") ? 0 : ORDINAL_TO_WEEK_NUMBER_MAPPING.get(ordinal);
+        int dayOfWeek = DAY_OF_MONTH_ALIAS.get(parts[1].toLowerCase(Locale.ENGLISH)) - Calendar.SUNDAY;
+        return WEEK_BASED + 7 * week + dayOfWeek;
+    }
+
+    private static int resolve(int day, int lengthOfMonth, int firstDayOfWeek) {
+        if (day <= 0) {
+            return lengthOfMonth + day;
+        }
+        if (day < WEEK_BASED) {
+            return day;
+        }
+        int week = (day - WEEK_BASED) / 7;
+        int first = 1 + Math.floorMod((day - WEEK_BASED) % 7 - firstDayOfWeek, 7);
+        if (week == 0) {
+            return first + 7 * ((lengthOfMonth - first) / 7);
+        }
+        int date = first + 7 * (week - 1);
+        // Like getAbsoluteDayOfMonth(), fall back to the last day if the month does not have such a day, e.g. "5th Wed"
+        return (date <= lengthOfMonth) ? date : lengthOfMonth;
+    }
+
     @Override
     protected void assertValid(Integer value) throws IllegalArgumentException {
         if (value != null && value == 0) {
@@ -0,0 +1,304 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.wheel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import org.jboss.as.ejb3.logging.EjbLogger;
+
+/**
+ * A hashed timing wheel, in the style of Varghese and Lauck, used to schedule timer expirations.
+ * <p/>
+ * Scheduling and cancelling a timeout are O(1) and never block: new timeouts are handed to the worker thread via a
+ * lock-free queue, cancellation is a single CAS, and only the worker thread ever touches the wheel itself. Cancelled
+ * timeouts are unlinked the next time the worker visits their bucket, so they are retained for at most one revolution
+ * of the wheel. Each tick, the worker collects every timeout that expired within that tick and then runs the whole
+ * batch. Tasks are therefore expected to
+ * be short, typically handing off to an executor, as was the case for tasks scheduled on the {@link java.util.Timer}
+ * this replaces. Timeouts are accurate to within one tick.
+ */
+public class HashedTimingWheel {
+
+    public static final long DEFAULT_TICK_DURATION = 10;
+    public static final TimeUnit DEFAULT_TICK_UNIT = TimeUnit.MILLISECONDS;
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    // Bounds the work done per tick, so that a flood of new timeouts cannot delay expiration of existing ones
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final Bucket[] wheel;
+    private final int mask;
+    private final long tickNanos;
+    private final Thread worker;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final long startTime;
+    private volatile boolean running = true;
+    private long tick;
+
+    public HashedTimingWheel(ThreadFactory factory) {
+        this(factory, DEFAULT_TICK_DURATION, DEFAULT_TICK_UNIT, DEFAULT_WHEEL_SIZE);
+    }
+
+    public HashedTimingWheel(ThreadFactory factory, long tickDuration, TimeUnit unit, int wheelSize) {
+        if (tickDuration <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException();
+        }
+        int size = Integer.highestOneBit(wheelSize);
+        if (size < wheelSize) {
+            size <<= 1;
+        }
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; ++i) {
+            this.wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.startTime = System.nanoTime();
+        this.worker = factory.newThread(this::work);
+        this.worker.start();
+    }
+
+    /**
+     * Schedules a one-shot timeout.
+     * @param task the task to run on expiration
+     * @param delay the delay before expiration
+     * @param unit the unit of the delay
+     * @return a handle for the scheduled timeout
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return this.schedule(task, delay, 0, unit);
+    }
+
+    /**
+     * Schedules a timeout that repeats at a fixed rate, until cancelled.
+     * @param task the task to run on each expiration
+     * @param delay the delay before first expiration
+     * @param period the period between successive expirations
+     * @param unit the unit of the delay and period
+     * @return a handle for the scheduled timeout
+     */
+    public Timeout scheduleAtFixedRate(Runnable task, long delay, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException();
+        }
+        return this.schedule(task, delay, period, unit);
+    }
+
+    private Timeout schedule(Runnable task, long delay, long period, TimeUnit unit) {
+        if (!this.running) {
+            throw new IllegalStateException();
+        }
+        long deadline = System.nanoTime() - this.startTime + unit.toNanos(Math.max(delay, 0));
+        Timeout timeout = new Timeout(task, deadline, unit.toNanos(period));
+        this.pending.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stops the worker thread. Outstanding timeouts will never expire.
+     */
+    public void stop() {
+        this.running = false;
+        LockSupport.unpark(this.worker);
+        if (Thread.currentThread() != this.worker) {
+            try {
+                this.worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        this.pending.clear();
+    }
+
+    private void work() {
+        List<Timeout> expired = new ArrayList<>();
+        while (this.running) {
+            this.waitForNextTick();
+            if (!this.running) {
+                break;
+            }
+            this.transferPending();
+            this.wheel[(int) (this.tick & this.mask)].expire(expired);
+            for (Timeout timeout : expired) {
+                timeout.run();
+                if (timeout.period > 0 && timeout.state == Timeout.ST_SCHEDULED) {
+                    timeout.deadline += timeout.period;
+                    // The bucket of the current tick was just drained, so an already due timeout goes in the next one
+                    this.place(timeout, this.tick + 1);
+                }
+            }
+            expired.clear();
+            this.tick += 1;
+        }
+    }
+
+    private void waitForNextTick() {
+        long deadline = this.tickNanos * (this.tick + 1);
+        for (;;) {
+            long remaining = deadline - (System.nanoTime() - this.startTime);
+            if (remaining <= 0 || !this.running) {
+                return;
+            }
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+
+    private void transferPending() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; ++i) {
+            Timeout timeout = this.pending.poll();
+            if (timeout == null) {
+                break;
+            }
+            if (timeout.state == Timeout.ST_SCHEDULED) {
+                // Ticks already processed are never revisited, so an overdue timeout goes in the current bucket
+                this.place(timeout, this.tick);
+            }
+        }
+    }
+
+    /**
+     * Places the timeout in the bucket of the tick of its deadline, or of the specified tick if that is later.
+     * The specified tick is the first one whose bucket has yet to be expired, from which the remaining rounds are counted.
+     */
+    private void place(Timeout timeout, long earliestTick) {
+        long ticks = Math.max(timeout.deadline / this.tickNanos, earliestTick);
+        timeout.remainingRounds = (ticks - earliestTick) / this.wheel.length;
+        this.wheel[(int) (ticks & this.mask)].add(timeout);
+    }
+
+    /**
+     * Handle for a scheduled timeout.
+     */
+    public static final class Timeout {
+        static final int ST_SCHEDULED = 0;
+        static final int ST_CANCELLED = 1;
+        static final int ST_EXPIRED = 2;
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE = AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final Runnable task;
+        private final long period;
+        private volatile int state = ST_SCHEDULED;
+
+        // Only accessed by the worker thread
+        long deadline;
+        long remainingRounds;
+        Bucket bucket;
+        Timeout next;
+        Timeout previous;
+
+        Timeout(Runnable task, long deadline, long period) {
+            this.task = task;
+            this.deadline = deadline;
+            this.period = period;
+        }
+
+        /**
+         * Cancels this timeout. If the task is currently running, it is not interrupted, but it will not run again.
+         * @return true, if this timeout was cancelled by this invocation, false if it was already cancelled or expired
+         */
+        public boolean cancel() {
+            return STATE.compareAndSet(this, ST_SCHEDULED, ST_CANCELLED);
+        }
+
+        public boolean isCancelled() {
+            return this.state == ST_CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return this.state == ST_EXPIRED;
+        }
+
+        void run() {
+            if (this.period == 0 && !STATE.compareAndSet(this, ST_SCHEDULED, ST_EXPIRED)) {
+                return;
+            }
+            if (this.state == ST_CANCELLED) {
+                return;
+            }
+            try {
+                this.task.run();
+            } catch (Throwable e) {
+                EjbLogger.EJB3_TIMER_LOGGER.timerWheelTaskFailed(e);
+            }
+        }
+    }
+
+    /**
+     * Doubly linked list of timeouts that hash to the same slot of the wheel.
+     */
+    static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.next = null;
+            timeout.previous = this.tail;
+            if (this.tail == null) {
+                this.head = timeout;
+            } else {
+                this.tail.next = timeout;
+            }
+            this.tail = timeout;
+        }
+
+        void remove(Timeout timeout) {
+            Timeout next = timeout.next;
+            if (timeout.previous != null) {
+                timeout.previous.next = next;
+            } else {
+                this.head = next;
+            }
+            if (next != null) {
+                next.previous = timeout.previous;
+            } else {
+                this.tail = timeout.previous;
+            }
+            timeout.next = null;
+            timeout.previous = null;
+            timeout.bucket = null;
+        }
+
+        void expire(List<Timeout> expired) {
+            Timeout timeout = this.head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.state != Timeout.ST_SCHEDULED) {
+                    this.remove(timeout);
+                } else if (timeout.remainingRounds <= 0) {
+                    this.remove(timeout);
+                    expired.add(timeout);
+                } else {
+                    timeout.remainingRounds -= 1;
+                }
+                timeout = next;
+            }
+        }
+    }
+}
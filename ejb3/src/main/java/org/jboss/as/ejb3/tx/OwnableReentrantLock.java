@@ -135,6 +135,15 @@ public class OwnableReentrantLock {
         }
     }
 
+    /**
+     * Indicates whether this lock is currently held by any owner.
+     */
+    public boolean isLocked() {
+        synchronized (this.lock) {
+            return this.owner != null;
+        }
+    }
+
     /**
      * Returns a string identifying this lock, as well as its lock state.  The state, in brackets, includes either the
      * String &quot;Unlocked&quot; or the String &quot;Locked by&quot; followed by the String representation of the lock
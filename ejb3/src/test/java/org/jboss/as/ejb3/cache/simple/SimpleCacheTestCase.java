@@ -0,0 +1,217 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.cache.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.jboss.as.ejb3.cache.Identifiable;
+import org.jboss.as.ejb3.cache.StatefulObjectFactory;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wildfly.clustering.ejb.PassivationListener;
+import org.wildfly.clustering.marshalling.jboss.MarshallingContext;
+import org.wildfly.clustering.marshalling.jboss.SimpleMarshallingConfigurationRepository;
+import org.wildfly.clustering.marshalling.jboss.SimpleMarshallingContextFactory;
+
+/**
+ * Unit test for passivation by {@link SimpleCache}.
+ */
+public class SimpleCacheTestCase {
+
+    private static final int MAX_SIZE = 8;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final List<Bean> destroyed = new ArrayList<>();
+    private final List<Bean> passivated = new ArrayList<>();
+    private final List<Bean> activated = new ArrayList<>();
+    private File directory;
+    private SimpleCache<UUID, Bean> cache;
+
+    @Before
+    public void init() {
+        StatefulObjectFactory<Bean> factory = new StatefulObjectFactory<Bean>() {
+            @Override
+            public Bean createInstance() {
+                return new Bean();
+            }
+
+            @Override
+            public void destroyInstance(Bean bean) {
+                SimpleCacheTestCase.this.destroyed.add(bean);
+            }
+        };
+        PassivationListener<Bean> listener = new PassivationListener<Bean>() {
+            @Override
+            public void prePassivate(Bean bean) {
+                SimpleCacheTestCase.this.passivated.add(bean);
+            }
+
+            @Override
+            public void postActivate(Bean bean) {
+                SimpleCacheTestCase.this.activated.add(bean);
+            }
+        };
+        MarshallingContext context = new SimpleMarshallingContextFactory().createMarshallingContext(new SimpleMarshallingConfigurationRepository(new MarshallingConfiguration()), Bean.class.getClassLoader());
+        this.directory = new File(this.folder.getRoot(), "passivation");
+        this.cache = new SimpleCache<>(factory, UUID::randomUUID, null, null, this.executor, MAX_SIZE, listener, context, this.directory);
+        this.cache.start();
+    }
+
+    @After
+    public void destroy() {
+        this.cache.stop();
+        this.executor.shutdown();
+    }
+
+    /**
+     * Waits for any scheduled passivation to complete.
+     */
+    private void drain() throws InterruptedException, ExecutionException {
+        this.executor.submit(() -> { }).get();
+    }
+
+    @Test
+    public void passivateAndActivate() throws Exception {
+        List<Bean> beans = new ArrayList<>();
+        for (int i = 0; i < MAX_SIZE + 2; ++i) {
+            Bean bean = this.cache.create();
+            bean.value = i;
+            beans.add(bean);
+        }
+        this.drain();
+
+        assertTrue(this.cache.getCacheSize() <= MAX_SIZE);
+        assertEquals(beans.size(), this.cache.getTotalSize());
+        assertEquals(beans.size() - this.cache.getCacheSize(), this.cache.getPassivatedCount());
+        assertEquals(this.cache.getPassivatedCount(), this.passivated.size());
+        // Least recently created beans are passivated first
+        assertEquals(beans.get(0), this.passivated.get(0));
+        assertEquals(1, this.directory.list().length);
+
+        Bean original = beans.get(0);
+        Bean bean = this.cache.get(original.getId());
+        assertNotNull(bean);
+        assertNotSame(original, bean);
+        assertEquals(original.getId(), bean.getId());
+        assertEquals(0, bean.value);
+        assertEquals(1, this.activated.size());
+        assertEquals(beans.size() - this.cache.getCacheSize(), this.cache.getPassivatedCount());
+        this.cache.release(bean);
+
+        // Once all its beans are activated, a segment is deleted
+        for (Bean passivated : new ArrayList<>(this.passivated)) {
+            this.cache.release(this.cache.get(passivated.getId()));
+        }
+        this.drain();
+        assertTrue(this.cache.getCacheSize() <= MAX_SIZE);
+        assertEquals(beans.size(), this.cache.getTotalSize());
+
+        // Passivated beans are discarded on stop
+        int resident = this.cache.getCacheSize();
+        this.cache.stop();
+        assertFalse(this.directory.exists());
+        assertEquals(resident, this.destroyed.size());
+        assertEquals(0, this.cache.getTotalSize());
+        this.cache.start();
+    }
+
+    @Test
+    public void beansInUseAreNotPassivated() throws Exception {
+        List<Bean> beans = new ArrayList<>();
+        for (int i = 0; i < MAX_SIZE + 1; ++i) {
+            Bean bean = this.cache.create();
+            beans.add(this.cache.get(bean.getId()));
+        }
+        this.drain();
+        assertEquals(0, this.cache.getPassivatedCount());
+        assertEquals(MAX_SIZE + 1, this.cache.getCacheSize());
+
+        this.cache.release(beans.get(0));
+        this.drain();
+        assertEquals(1, this.cache.getPassivatedCount());
+        assertEquals(beans.get(0), this.passivated.get(0));
+    }
+
+    @Test
+    public void removePassivated() throws Exception {
+        List<Bean> beans = new ArrayList<>();
+        for (int i = 0; i < MAX_SIZE + 1; ++i) {
+            beans.add(this.cache.create());
+        }
+        this.drain();
+        int passivated = this.cache.getPassivatedCount();
+        assertTrue(passivated > 0);
+
+        for (Bean bean : this.passivated) {
+            this.cache.remove(bean.getId());
+            assertFalse(this.cache.contains(bean.getId()));
+        }
+        // Passivated beans are removed without activation
+        assertEquals(0, this.cache.getPassivatedCount());
+        assertTrue(this.destroyed.isEmpty());
+        assertTrue(this.activated.isEmpty());
+        assertEquals(0, this.directory.list().length);
+        assertEquals(beans.size() - passivated, this.cache.getTotalSize());
+    }
+
+    static class Bean implements Identifiable<UUID>, Serializable {
+        private static final long serialVersionUID = -1386466733005349047L;
+
+        private final UUID id = UUID.randomUUID();
+        int value;
+
+        @Override
+        public UUID getId() {
+            return this.id;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return (object instanceof Bean) && this.id.equals(((Bean) object).id);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.id.hashCode();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.component.invocationmetrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link InvocationMetrics} and {@link LatencyHistogram}.
+ */
+public class InvocationMetricsTestCase {
+
+    @Test
+    public void histogramIndex() {
+        // Buckets are contiguous and each value falls within its bucket
+        int previous = -1;
+        for (long value = 0; value < 100_000; ++value) {
+            int index = LatencyHistogram.index(value);
+            assertTrue(index == previous || index == previous + 1);
+            assertTrue(value <= LatencyHistogram.highestEquivalentValue(index));
+            if (index > 0) {
+                assertTrue(value > LatencyHistogram.highestEquivalentValue(index - 1));
+            }
+            previous = index;
+        }
+    }
+
+    @Test
+    public void histogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        for (long value = 1; value <= 1000; ++value) {
+            histogram.record(value);
+        }
+        assertEquals(1000, histogram.getMax());
+        assertWithin(500, histogram.getValueAtPercentile(50));
+        assertWithin(950, histogram.getValueAtPercentile(95));
+        assertWithin(990, histogram.getValueAtPercentile(99));
+        assertEquals(1000, histogram.getValueAtPercentile(100));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(String.valueOf(actual), actual >= expected && actual <= expected + expected / 8);
+    }
+
+    @Test
+    public void metrics() throws NoSuchMethodException {
+        InvocationMetrics metrics = new InvocationMetrics();
+        Method hashCode = Object.class.getMethod("hashCode");
+        Method wait = Object.class.getMethod("wait");
+        Method waitTimeout = Object.class.getMethod("wait", long.class);
+
+        invoke(metrics, hashCode, 2, 10);
+        invoke(metrics, hashCode, 4, 20);
+        invoke(metrics, wait, 0, 5);
+        invoke(metrics, waitTimeout, 0, 5);
+
+        assertEquals(4, metrics.getInvocations());
+        assertEquals(40, metrics.getExecutionTime());
+        assertEquals(6, metrics.getWaitTime());
+        assertEquals(0, metrics.getConcurrent());
+        assertEquals(1, metrics.getPeakConcurrent());
+        assertEquals(TimeUnit.MILLISECONDS.toMicros(20), metrics.getExecutionTimePercentiles().getMax());
+
+        Map<String, InvocationMetrics.Values> methods = metrics.getMethods();
+        assertEquals(3, methods.size());
+        InvocationMetrics.Values values = methods.get("hashCode");
+        assertEquals(2, values.getInvocations());
+        assertEquals(30, values.getExecutionTime());
+        assertEquals(6, values.getWaitTime());
+        assertEquals(TimeUnit.MILLISECONDS.toMicros(4), values.getWaitTimePercentiles().getMax());
+        // Overloaded methods are reported separately
+        assertEquals(1, methods.get("wait()").getInvocations());
+        assertEquals(1, methods.get("wait(long)").getInvocations());
+    }
+
+    @Test
+    public void lockWait() {
+        InvocationMetrics metrics = new InvocationMetrics();
+        assertEquals(0, metrics.getLockWaitTime());
+        assertEquals(0, metrics.getLockWaitTimePercentiles().getMax());
+
+        metrics.recordLockWait(false, TimeUnit.MILLISECONDS.toNanos(3));
+        metrics.recordLockWait(true, TimeUnit.MILLISECONDS.toNanos(1));
+        metrics.recordLockWait(true, 0);
+
+        assertEquals(4, metrics.getLockWaitTime());
+        assertEquals(2, metrics.getSharedLockAcquisitions());
+        assertEquals(TimeUnit.MILLISECONDS.toMicros(3), metrics.getLockWaitTimePercentiles().getMax());
+        // Lock waits are not invocations
+        assertEquals(0, metrics.getInvocations());
+    }
+
+    private static void invoke(InvocationMetrics metrics, Method method, long waitMillis, long executionMillis) {
+        metrics.startInvocation();
+        metrics.finishInvocation(method, TimeUnit.MILLISECONDS.toNanos(waitMillis), TimeUnit.MILLISECONDS.toNanos(executionMillis));
+    }
+}
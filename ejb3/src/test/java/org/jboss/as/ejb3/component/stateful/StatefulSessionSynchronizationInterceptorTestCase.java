@@ -25,7 +25,11 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.transaction.Status;
 import javax.transaction.Synchronization;
@@ -35,6 +39,7 @@ import org.jboss.as.ee.component.Component;
 import org.jboss.as.ee.component.ComponentInstance;
 import org.jboss.as.ejb3.cache.Cache;
 import org.jboss.as.ejb3.concurrency.AccessTimeoutDetails;
+import org.jboss.as.ejb3.tx.OwnableReentrantLock;
 import org.jboss.ejb.client.SessionID;
 import org.jboss.invocation.Interceptor;
 import org.jboss.invocation.InterceptorContext;
@@ -43,6 +48,9 @@ import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
@@ -111,4 +119,70 @@ public class StatefulSessionSynchronizationInterceptorTestCase {
 
         interceptor.processInvocation(context);
     }
+
+    /**
+     * A READ invocation within a shared invocation of the same instance proceeds, even while another thread holds the
+     * instance and waits for the shared invocation to complete.
+     */
+    @Test
+    public void testReentrantRead() throws Exception {
+        final OwnableReentrantLock lock = new OwnableReentrantLock();
+        final ReentrantReadWriteLock stateLock = new ReentrantReadWriteLock();
+        final AccessTimeoutDetails timeout = new AccessTimeoutDetails(100, TimeUnit.MILLISECONDS);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertTrue(StatefulSessionSynchronizationInterceptor.lockShared("bean", lock, stateLock, timeout));
+
+            // an exclusive invocation acquires the instance, then waits for the shared invocation
+            final Object owner = new Object();
+            final Future<Boolean> exclusive = executor.submit(() -> {
+                lock.lock(owner);
+                try {
+                    boolean locked = stateLock.writeLock().tryLock(5, TimeUnit.SECONDS);
+                    if (locked) {
+                        stateLock.writeLock().unlock();
+                    }
+                    return locked;
+                } finally {
+                    lock.unlock(owner);
+                }
+            });
+            while (!stateLock.hasQueuedThreads()) {
+                Thread.sleep(1);
+            }
+            assertTrue(lock.isLocked());
+
+            assertTrue(StatefulSessionSynchronizationInterceptor.lockShared("bean", lock, stateLock, timeout));
+            assertEquals(2, stateLock.getReadHoldCount());
+
+            stateLock.readLock().unlock();
+            stateLock.readLock().unlock();
+
+            assertTrue(exclusive.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * A READ invocation outside of any shared invocation does not share an instance held exclusively.
+     */
+    @Test
+    public void testReadWhileHeldExclusively() throws Exception {
+        final OwnableReentrantLock lock = new OwnableReentrantLock();
+        final ReentrantReadWriteLock stateLock = new ReentrantReadWriteLock();
+        final AccessTimeoutDetails timeout = new AccessTimeoutDetails(100, TimeUnit.MILLISECONDS);
+        final Object owner = new Object();
+
+        lock.lock(owner);
+        try {
+            assertFalse(StatefulSessionSynchronizationInterceptor.lockShared("bean", lock, stateLock, timeout));
+            assertEquals(0, stateLock.getReadHoldCount());
+        } finally {
+            lock.unlock(owner);
+        }
+
+        assertTrue(StatefulSessionSynchronizationInterceptor.lockShared("bean", lock, stateLock, timeout));
+        stateLock.readLock().unlock();
+    }
 }
@@ -0,0 +1,106 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timer.schedule;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import javax.ejb.ScheduleExpression;
+
+import org.jboss.as.ejb3.timerservice.schedule.CalendarBasedTimeout;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures computing the next timeout of representative cron-like schedule expressions, and creating a
+ * {@link CalendarBasedTimeout} as done for every calendar timer restored on startup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CalendarBasedTimeoutBenchmark {
+
+    // Spans a year, so that the computed timeouts cross month ends and daylight saving transitions
+    private static final long FROM = 1514764800000L; // 2018-01-01T00:00:00Z
+    private static final long SPAN = 365L * 24 * 60 * 60 * 1000;
+
+    @Param({ "every-15-seconds", "weekdays-8:15", "last-friday", "first-of-quarter", "hourly-dst" })
+    private String expression;
+
+    private CalendarBasedTimeout timeout;
+    private Date current;
+
+    @Setup
+    public void setup() {
+        this.timeout = new CalendarBasedTimeout(schedule(this.expression));
+        this.current = new Date(FROM);
+    }
+
+    private static ScheduleExpression schedule(String expression) {
+        switch (expression) {
+            case "every-15-seconds":
+                return new ScheduleExpression().second("*/15").minute("*").hour("*");
+            case "weekdays-8:15":
+                return new ScheduleExpression().second("0").minute("15").hour("8").dayOfWeek("Mon-Fri");
+            case "last-friday":
+                return new ScheduleExpression().second("0").minute("30").hour("17").dayOfMonth("Last Fri");
+            case "first-of-quarter":
+                return new ScheduleExpression().second("0").minute("0").hour("0").dayOfMonth("1").month("Jan,Apr,Jul,Oct");
+            case "hourly-dst":
+                return new ScheduleExpression().second("0").minute("0").hour("*").timezone("Europe/Berlin");
+            default:
+                throw new IllegalArgumentException(expression);
+        }
+    }
+
+    @Benchmark
+    public Date nextTimeout() {
+        Date next = this.timeout.getNextTimeout(this.current);
+        this.current = (next != null && next.getTime() < FROM + SPAN) ? next : new Date(FROM);
+        return next;
+    }
+
+    @Benchmark
+    public Date restore() {
+        CalendarBasedTimeout timeout = new CalendarBasedTimeout(schedule(this.expression));
+        return timeout.getNextTimeout(this.current);
+    }
+
+    public static void main(String... args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CalendarBasedTimeoutBenchmark.class.getSimpleName()).build()).run();
+    }
+}
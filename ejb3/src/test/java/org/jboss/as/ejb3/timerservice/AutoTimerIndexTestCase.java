@@ -0,0 +1,94 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import javax.ejb.ScheduleExpression;
+import javax.ejb.Timer;
+import javax.ejb.TimerConfig;
+
+import org.jboss.as.ejb3.timerservice.spi.ScheduleTimer;
+import org.junit.Test;
+
+public class AutoTimerIndexTestCase {
+
+    public void timeout() {
+    }
+
+    public void timeout(Timer timer) {
+    }
+
+    private static ScheduleExpression schedule(String hour) {
+        return new ScheduleExpression().second("0").minute("0").hour(hour).start(new Date(0));
+    }
+
+    @Test
+    public void matchByMethodAndSchedule() throws Exception {
+        Method timeout = this.getClass().getMethod("timeout");
+        Method timerTimeout = this.getClass().getMethod("timeout", Timer.class);
+        ScheduleTimer first = new ScheduleTimer(timeout, schedule("1"), new TimerConfig());
+        ScheduleTimer second = new ScheduleTimer(timerTimeout, schedule("1"), new TimerConfig());
+        ScheduleTimer third = new ScheduleTimer(timeout, schedule("2"), new TimerConfig());
+        AutoTimerIndex index = new AutoTimerIndex(Arrays.asList(first, second, third));
+
+        assertSame(second, index.match(timerTimeout, schedule("1")));
+        assertSame(third, index.match(timeout, schedule("2")));
+        assertNull(index.match(timeout, schedule("3")));
+        assertNull(index.match(timeout, schedule("1").timezone("UTC")));
+        assertNull(index.match(timeout, schedule("1").end(new Date(1))));
+
+        assertEquals(Collections.singletonList(first), index.getUnmatchedTimers());
+    }
+
+    @Test
+    public void matchEachTimerOnce() throws Exception {
+        Method timeout = this.getClass().getMethod("timeout");
+        ScheduleTimer first = new ScheduleTimer(timeout, schedule("1"), new TimerConfig());
+        ScheduleTimer second = new ScheduleTimer(timeout, schedule("1"), new TimerConfig());
+        AutoTimerIndex index = new AutoTimerIndex(Arrays.asList(first, second));
+
+        assertSame(first, index.match(timeout, schedule("1")));
+        assertSame(second, index.match(timeout, schedule("1")));
+        assertNull(index.match(timeout, schedule("1")));
+        assertEquals(Collections.emptyList(), index.getUnmatchedTimers());
+    }
+
+    @Test
+    public void nonPersistentTimersAreNotMatched() throws Exception {
+        Method timeout = this.getClass().getMethod("timeout");
+        ScheduleTimer transientTimer = new ScheduleTimer(timeout, schedule("1"), new TimerConfig(null, false));
+        ScheduleTimer persistentTimer = new ScheduleTimer(timeout, schedule("2"), new TimerConfig(null, true));
+        AutoTimerIndex index = new AutoTimerIndex(Arrays.asList(transientTimer, persistentTimer));
+
+        assertNull(index.match(timeout, schedule("1")));
+        List<ScheduleTimer> unmatched = index.getUnmatchedTimers();
+        assertEquals(Arrays.asList(transientTimer, persistentTimer), unmatched);
+    }
+}
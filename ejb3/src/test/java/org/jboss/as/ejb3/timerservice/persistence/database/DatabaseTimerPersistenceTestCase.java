@@ -0,0 +1,386 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.persistence.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.sql.DataSource;
+import javax.transaction.TransactionManager;
+
+import org.jboss.as.ejb3.timerservice.TimerImpl;
+import org.jboss.as.ejb3.timerservice.TimerServiceImpl;
+import org.jboss.as.ejb3.timerservice.TimerState;
+import org.jboss.as.ejb3.timerservice.persistence.TimerPersistence.TimerChangeListener;
+import org.jboss.as.ejb3.timerservice.spi.TimedObjectInvoker;
+import org.jboss.as.naming.ManagedReference;
+import org.jboss.as.naming.ManagedReferenceFactory;
+import org.jboss.modules.ModuleFinder;
+import org.jboss.modules.ModuleLoader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+/**
+ * Tests the statements issued by {@link DatabaseTimerPersistence}. The statements of the timer-sql.properties test
+ * resource are named like their keys, so that each key identifies its prepared statement.
+ */
+public class DatabaseTimerPersistenceTestCase {
+
+    private static final String TIMED_OBJECT_ID = "bean";
+    private static final String PARTITION = "partition";
+
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+    private final DataSource dataSource = mock(DataSource.class);
+    private final Connection connection = mock(Connection.class);
+    private final Statement ddlStatement = mock(Statement.class);
+    private final TransactionManager transactionManager = mock(TransactionManager.class);
+    private final TimerServiceImpl timerService = mock(TimerServiceImpl.class);
+    private final TimerChangeListener listener = mock(TimerChangeListener.class);
+    private DatabaseTimerPersistence persistence;
+
+    @Before
+    public void setup() throws SQLException {
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_READ_COMMITTED);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> statement(invocation.getArgument(0)));
+        when(connection.createStatement()).thenReturn(ddlStatement);
+        TimedObjectInvoker invoker = mock(TimedObjectInvoker.class);
+        when(invoker.getTimedObjectId()).thenReturn(TIMED_OBJECT_ID);
+        when(timerService.getInvoker()).thenReturn(invoker);
+        when(listener.getTimerService()).thenReturn(timerService);
+    }
+
+    @After
+    public void clearProperty() {
+        System.clearProperty(DatabaseTimerPersistence.ADD_CREATED_DATE_PROPERTY);
+    }
+
+    private PreparedStatement statement(String key) {
+        return statements.computeIfAbsent(key, k -> mock(PreparedStatement.class));
+    }
+
+    private void start(boolean allowExecution) throws Exception {
+        ManagedReference reference = mock(ManagedReference.class);
+        when(reference.getInstance()).thenReturn(dataSource);
+        ManagedReferenceFactory factory = mock(ManagedReferenceFactory.class);
+        when(factory.getReference()).thenReturn(reference);
+        persistence = new DatabaseTimerPersistence("test", PARTITION, "node", 0, allowExecution, transactionManager);
+        persistence.getDataSourceInjectedValue().inject(factory);
+        persistence.getModuleLoader().inject(new ModuleLoader(new ModuleFinder[0]));
+        persistence.start(null);
+    }
+
+    /**
+     * Starts the persistence against a timer table with the CREATED_DATE column and deploys a timed object without
+     * timers.
+     */
+    private void deploy() throws Exception {
+        when(statement("load-new-timers").executeQuery()).thenReturn(resultSet());
+        start(true);
+        // Only the refreshes use the statement from now on
+        statements.remove("load-new-timers");
+        when(statement("load-all-timers").executeQuery()).thenReturn(resultSet());
+        persistence.loadActiveTimers(TIMED_OBJECT_ID, timerService);
+        persistence.registerChangeListener(TIMED_OBJECT_ID, listener);
+    }
+
+    /**
+     * Starts the persistence against a timer table created by a previous version, without the CREATED_DATE column.
+     */
+    private void startLegacy() throws Exception {
+        when(statement("load-new-timers").executeQuery()).thenThrow(new SQLException("CREATED_DATE"));
+        start(true);
+    }
+
+    private TimerImpl timer(String id) {
+        return TimerImpl.builder()
+                .setId(id)
+                .setTimedObjectId(TIMED_OBJECT_ID)
+                .setInitialDate(new Date())
+                .setTimerState(TimerState.ACTIVE)
+                .setPersistent(true)
+                .setNewTimer(true)
+                .build(timerService);
+    }
+
+    /**
+     * @return a timer row of the timer table, with the columns read when a timer is loaded
+     */
+    private static String[] timerRow(String id) {
+        return new String[] { id, TIMED_OBJECT_ID, null, null, null, null, null, null, TimerState.ACTIVE.name() };
+    }
+
+    /**
+     * @return a result set over the given rows, each row holding the string values of its columns
+     */
+    private static ResultSet resultSet(String[]... rows) throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        int[] row = new int[] { -1 };
+        when(resultSet.next()).thenAnswer(invocation -> ++row[0] < rows.length);
+        when(resultSet.getString(anyInt())).thenAnswer(invocation -> {
+            String[] values = rows[row[0]];
+            int column = invocation.getArgument(0);
+            return column <= values.length ? values[column - 1] : null;
+        });
+        return resultSet;
+    }
+
+    @Test
+    public void testLegacyTableIsNotAltered() throws Exception {
+        startLegacy();
+        verify(connection, never()).createStatement();
+
+        when(statement("load-all-timers").executeQuery()).thenReturn(resultSet());
+        persistence.loadActiveTimers(TIMED_OBJECT_ID, timerService);
+        persistence.addTimer(timer("t1"));
+        verify(connection, never()).prepareStatement("create-timer-with-created-date");
+        PreparedStatement createTimer = statement("create-timer");
+        verify(createTimer).setString(1, "t1");
+        verify(createTimer).setString(25, PARTITION);
+        verify(createTimer, never()).setTimestamp(eq(27), any());
+        verify(createTimer).execute();
+    }
+
+    @Test
+    public void testLegacyTableAlteredOnRequest() throws Exception {
+        System.setProperty(DatabaseTimerPersistence.ADD_CREATED_DATE_PROPERTY, "true");
+        startLegacy();
+        verify(ddlStatement).executeUpdate("add-created-date");
+
+        when(statement("load-all-timers").executeQuery()).thenReturn(resultSet());
+        persistence.loadActiveTimers(TIMED_OBJECT_ID, timerService);
+        persistence.addTimer(timer("t1"));
+        verify(connection, never()).prepareStatement("create-timer");
+        verify(statement("create-timer-with-created-date")).setTimestamp(eq(27), any(Timestamp.class));
+    }
+
+    @Test
+    public void testFailedAlterKeepsLegacyInsert() throws Exception {
+        System.setProperty(DatabaseTimerPersistence.ADD_CREATED_DATE_PROPERTY, "true");
+        when(ddlStatement.executeUpdate("add-created-date")).thenThrow(new SQLException("permission denied"));
+        startLegacy();
+
+        when(statement("load-all-timers").executeQuery()).thenReturn(resultSet());
+        persistence.loadActiveTimers(TIMED_OBJECT_ID, timerService);
+        persistence.addTimer(timer("t1"));
+        verify(connection, never()).prepareStatement("create-timer-with-created-date");
+        verify(statement("create-timer")).execute();
+    }
+
+    @Test
+    public void testDeltaRefresh() throws Exception {
+        deploy();
+        DatabaseTimerPersistence.RefreshTask task = persistence.new RefreshTask();
+        PreparedStatement loadNewTimers = statement("load-new-timers");
+        when(loadNewTimers.executeQuery()).thenAnswer(invocation -> resultSet(timerRow("t1")));
+
+        task.run();
+        ArgumentCaptor<TimerImpl> added = ArgumentCaptor.forClass(TimerImpl.class);
+        verify(listener).timerAdded(added.capture());
+        assertEquals("t1", added.getValue().getId());
+        verify(loadNewTimers).setString(1, PARTITION);
+
+        // The timer loaded by the previous refresh is returned again by the overlapping window
+        task.run();
+        verify(listener, times(1)).timerAdded(any());
+
+        ArgumentCaptor<Timestamp> since = ArgumentCaptor.forClass(Timestamp.class);
+        verify(loadNewTimers, times(2)).setTimestamp(eq(2), since.capture());
+        List<Timestamp> values = since.getAllValues();
+        assertTrue(values.get(1).getTime() >= values.get(0).getTime());
+        assertTrue(values.get(1).getTime() <= System.currentTimeMillis());
+        assertEquals(2, persistence.getRefreshCount());
+    }
+
+    @Test
+    public void testDeltaRefreshReconciles() throws Exception {
+        deploy();
+        DatabaseTimerPersistence.RefreshTask task = persistence.new RefreshTask();
+        AtomicReference<String[][]> newTimers = new AtomicReference<>(new String[][] { timerRow("t1") });
+        when(statement("load-new-timers").executeQuery()).thenAnswer(invocation -> resultSet(newTimers.get()));
+        when(statement("load-timer-ids").executeQuery()).thenAnswer(invocation -> resultSet());
+
+        for (int i = 1; i < 10; ++i) {
+            task.run();
+        }
+        verify(connection, never()).prepareStatement("load-timer-ids");
+
+        // The tenth refresh compares the timer ids, t1 was deleted by another node
+        newTimers.set(new String[0][]);
+        task.run();
+        verify(connection).prepareStatement("load-timer-ids");
+        verify(statement("load-timer-ids")).setString(1, PARTITION);
+        verify(listener).timerRemoved("t1");
+    }
+
+    @Test
+    public void testLegacyRefreshReconciles() throws Exception {
+        startLegacy();
+        when(statement("load-all-timers").executeQuery()).thenReturn(resultSet(timerRow("t1")));
+        assertEquals(1, persistence.loadActiveTimers(TIMED_OBJECT_ID, timerService).size());
+        persistence.registerChangeListener(TIMED_OBJECT_ID, listener);
+        DatabaseTimerPersistence.RefreshTask task = persistence.new RefreshTask();
+
+        // t1 is unchanged, t2 was created by another node
+        AtomicReference<String[][]> timerIds = new AtomicReference<>(new String[][] { { TIMED_OBJECT_ID, "t1" }, { TIMED_OBJECT_ID, "t2" } });
+        when(statement("load-timer-ids").executeQuery()).thenAnswer(invocation -> resultSet(timerIds.get()));
+        when(statement("load-all-timers").executeQuery()).thenAnswer(invocation -> resultSet(timerRow("t1"), timerRow("t2")));
+        task.run();
+        ArgumentCaptor<TimerImpl> added = ArgumentCaptor.forClass(TimerImpl.class);
+        verify(listener).timerAdded(added.capture());
+        assertEquals("t2", added.getValue().getId());
+        verify(listener, never()).timerRemoved(anyString());
+
+        // Without the CREATED_DATE column, every refresh compares the timer ids
+        timerIds.set(new String[][] { { TIMED_OBJECT_ID, "t2" } });
+        task.run();
+        verify(listener).timerRemoved("t1");
+        verify(connection, times(2)).prepareStatement("load-timer-ids");
+        // Only the detection on start
+        verify(connection, times(1)).prepareStatement("load-new-timers");
+    }
+
+    @Test
+    public void testClaim() throws Exception {
+        deploy();
+        PreparedStatement updateRunning = statement("update-running");
+        when(updateRunning.executeUpdate()).thenReturn(1, 0);
+
+        assertTrue(persistence.shouldRun(timer("t1"), null));
+        verify(updateRunning).setString(1, TimerState.IN_TIMEOUT.name());
+        verify(updateRunning).setString(2, "node");
+        verify(updateRunning).setString(3, "t1");
+        verify(transactionManager).begin();
+        verify(transactionManager).commit();
+        assertEquals(0, persistence.getClaimConflicts());
+
+        // Claimed by another node
+        assertFalse(persistence.shouldRun(timer("t2"), null));
+        assertEquals(2, persistence.getClaimCount());
+        assertEquals(1, persistence.getClaimConflicts());
+        verify(updateRunning, never()).executeBatch();
+    }
+
+    @Test
+    public void testClaimNotAllowed() throws Exception {
+        when(statement("load-new-timers").executeQuery()).thenReturn(resultSet());
+        start(false);
+        assertFalse(persistence.shouldRun(timer("t1"), null));
+        verify(connection, never()).prepareStatement("update-running");
+    }
+
+    /**
+     * Claims two timers concurrently, the second being queued while the first obtains its connection.
+     *
+     * @return the results of the claims
+     */
+    private boolean[] claimConcurrently() throws Exception {
+        CountDownLatch connecting = new CountDownLatch(1);
+        CountDownLatch connected = new CountDownLatch(1);
+        AtomicBoolean first = new AtomicBoolean(true);
+        when(dataSource.getConnection()).thenAnswer(invocation -> {
+            if (first.compareAndSet(true, false)) {
+                connecting.countDown();
+                connected.await();
+            }
+            return connection;
+        });
+        TimerImpl t1 = timer("t1");
+        TimerImpl t2 = timer("t2");
+        FutureTask<Boolean> leader = new FutureTask<>(() -> persistence.shouldRun(t1, null));
+        FutureTask<Boolean> follower = new FutureTask<>(() -> persistence.shouldRun(t2, null));
+        new Thread(leader).start();
+        assertTrue(connecting.await(10, TimeUnit.SECONDS));
+        Thread thread = new Thread(follower);
+        thread.start();
+        // The follower waits for the claim of the batch it was queued in
+        while (thread.getState() != Thread.State.WAITING) {
+            Thread.yield();
+        }
+        connected.countDown();
+        return new boolean[] { leader.get(10, TimeUnit.SECONDS), follower.get(10, TimeUnit.SECONDS) };
+    }
+
+    @Test
+    public void testBatchClaim() throws Exception {
+        deploy();
+        PreparedStatement updateRunning = statement("update-running");
+        when(updateRunning.executeBatch()).thenReturn(new int[] { 1, 0 });
+
+        boolean[] claimed = claimConcurrently();
+        assertTrue(claimed[0]);
+        assertFalse(claimed[1]);
+        verify(updateRunning, times(2)).addBatch();
+        verify(updateRunning).setString(3, "t1");
+        verify(updateRunning).setString(3, "t2");
+        verify(updateRunning, never()).executeUpdate();
+        verify(transactionManager).begin();
+        verify(transactionManager).commit();
+        assertEquals(2, persistence.getClaimCount());
+        assertEquals(1, persistence.getClaimConflicts());
+    }
+
+    @Test
+    public void testBatchClaimWithoutUpdateCounts() throws Exception {
+        deploy();
+        PreparedStatement updateRunning = statement("update-running");
+        when(updateRunning.executeBatch()).thenReturn(new int[] { Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO });
+        when(updateRunning.executeUpdate()).thenReturn(1, 0);
+
+        boolean[] claimed = claimConcurrently();
+        // The driver does not tell which timers were claimed, so the batch is rolled back and each timer is claimed
+        verify(transactionManager).rollback();
+        verify(updateRunning, times(2)).executeUpdate();
+        assertTrue(claimed[0]);
+        assertFalse(claimed[1]);
+        assertEquals(2, persistence.getClaimCount());
+        assertEquals(1, persistence.getClaimConflicts());
+    }
+}
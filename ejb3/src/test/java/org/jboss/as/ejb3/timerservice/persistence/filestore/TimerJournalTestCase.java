@@ -0,0 +1,215 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.persistence.filestore;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for {@link TimerJournal}.
+ */
+public class TimerJournalTestCase {
+
+    private static final long SEGMENT_SIZE = 4096;
+    private static final long COMPACTION_THRESHOLD = 16384;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TimerJournal open() throws IOException {
+        TimerJournal journal = new TimerJournal(this.folder.getRoot(), SEGMENT_SIZE, COMPACTION_THRESHOLD);
+        journal.open();
+        return journal;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private File[] segments() {
+        File[] segments = this.folder.getRoot().listFiles((dir, name) -> name.startsWith(TimerJournal.SEGMENT_PREFIX) && name.endsWith(TimerJournal.SEGMENT_SUFFIX));
+        Arrays.sort(segments);
+        return segments;
+    }
+
+    @Test
+    public void updateAndRemove() throws IOException {
+        try (TimerJournal journal = this.open()) {
+            assertTrue(journal.update("bean", "1", bytes("a"), false));
+            assertTrue(journal.update("bean", "1", bytes("b"), true));
+            assertFalse(journal.update("bean", "2", bytes("c"), true));
+            assertTrue(journal.update("other", "3", bytes("d"), false));
+
+            Map<String, byte[]> timers = journal.read("bean");
+            assertEquals(1, timers.size());
+            assertArrayEquals(bytes("b"), timers.get("1"));
+            assertTrue(journal.contains("other", "3"));
+
+            assertTrue(journal.remove("bean", "1"));
+            assertFalse(journal.remove("bean", "1"));
+            assertFalse(journal.contains("bean", "1"));
+            // A removed timer is not resurrected by a stale update
+            assertFalse(journal.update("bean", "1", bytes("e"), true));
+            assertTrue(journal.read("bean").isEmpty());
+            assertTrue(journal.read("unknown").isEmpty());
+        }
+    }
+
+    @Test
+    public void recover() throws IOException {
+        try (TimerJournal journal = this.open()) {
+            journal.update("bean", "1", bytes("a"), false);
+            journal.update("bean", "2", bytes("b"), false);
+            journal.update("bean", "1", bytes("c"), true);
+            journal.remove("bean", "2");
+        }
+        try (TimerJournal journal = this.open()) {
+            Map<String, byte[]> timers = journal.read("bean");
+            assertEquals(1, timers.size());
+            assertArrayEquals(bytes("c"), timers.get("1"));
+            journal.update("bean", "3", bytes("d"), false);
+        }
+        try (TimerJournal journal = this.open()) {
+            assertEquals(2, journal.read("bean").size());
+        }
+        // Reopening the journal appends to the existing segment
+        assertEquals(1, this.segments().length);
+    }
+
+    @Test
+    public void recoverTornRecord() throws IOException {
+        long length;
+        try (TimerJournal journal = this.open()) {
+            journal.update("bean", "1", bytes("a"), false);
+            length = this.segments()[0].length();
+            journal.update("bean", "2", bytes("b"), false);
+        }
+        File segment = this.segments()[0];
+        // Simulate a crash part way through writing the last record
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.setLength(file.length() - 1);
+        }
+        try (TimerJournal journal = this.open()) {
+            Map<String, byte[]> timers = journal.read("bean");
+            assertEquals(1, timers.size());
+            assertTrue(timers.containsKey("1"));
+        }
+        // Corrupt the payload of the remaining record
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.seek(length - 1);
+            file.write('z');
+        }
+        try (TimerJournal journal = this.open()) {
+            assertTrue(journal.read("bean").isEmpty());
+        }
+    }
+
+    @Test
+    public void compact() throws IOException {
+        byte[] data = new byte[100];
+        try (TimerJournal journal = this.open()) {
+            journal.update("bean", "live", bytes("live"), false);
+            for (int i = 0; i < 1000; ++i) {
+                journal.update("bean", "churn", data, false);
+                journal.remove("bean", "churn");
+            }
+            // 1000 updates of over 100 bytes each would otherwise need dozens of segments
+            assertTrue(this.segments().length < 10);
+            journal.update("bean", "after", bytes("after"), false);
+        }
+        try (TimerJournal journal = this.open()) {
+            Map<String, byte[]> timers = journal.read("bean");
+            assertEquals(2, timers.size());
+            assertArrayEquals(bytes("live"), timers.get("live"));
+            assertArrayEquals(bytes("after"), timers.get("after"));
+        }
+    }
+
+    @Test
+    public void roll() throws IOException {
+        byte[] data = new byte[1000];
+        try (TimerJournal journal = this.open()) {
+            for (int i = 0; i < 10; ++i) {
+                journal.update("bean", Integer.toString(i), data, false);
+            }
+        }
+        assertTrue(this.segments().length > 1);
+        try (TimerJournal journal = this.open()) {
+            assertEquals(10, journal.read("bean").size());
+        }
+    }
+
+    @Test
+    public void concurrentWrites() throws Exception {
+        int threads = 8;
+        int timers = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (TimerJournal journal = this.open()) {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; ++i) {
+                String timedObjectId = "bean" + i;
+                futures.add(executor.submit((Callable<Void>) () -> {
+                    for (int j = 0; j < timers; ++j) {
+                        journal.update(timedObjectId, Integer.toString(j), bytes(timedObjectId), false);
+                        if (j % 2 == 0) {
+                            journal.remove(timedObjectId, Integer.toString(j));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        try (TimerJournal journal = this.open()) {
+            for (int i = 0; i < threads; ++i) {
+                Map<String, byte[]> entries = journal.read("bean" + i);
+                assertEquals(timers / 2, entries.size());
+                for (byte[] value : entries.values()) {
+                    assertArrayEquals(bytes("bean" + i), value);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.schedule;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.jboss.as.ejb3.timerservice.schedule.attribute.DayOfMonth;
+import org.jboss.as.ejb3.timerservice.schedule.attribute.DayOfWeek;
+import org.jboss.as.ejb3.timerservice.schedule.attribute.Hour;
+import org.jboss.as.ejb3.timerservice.schedule.attribute.Minute;
+import org.jboss.as.ejb3.timerservice.schedule.attribute.Month;
+import org.jboss.as.ejb3.timerservice.schedule.attribute.Second;
+import org.jboss.as.ejb3.timerservice.schedule.attribute.Year;
+import org.junit.Test;
+
+/**
+ * Tests the timeouts computed by {@link CompiledSchedule}. Unless noted otherwise, the expected timeouts are those of the
+ * previous {@link java.util.Calendar} based implementation of {@link CalendarBasedTimeout}.
+ */
+public class CompiledScheduleTestCase {
+
+    @Test
+    public void repeatedLocalTimeFiresOnce() {
+        // 01:30 occurs at 05:30Z (EDT) and 06:30Z (EST) on 2021-11-07, the later instant is used
+        assertTimeouts("0", "30", "1", "*", "*", "*", "*", "America/New_York", "2021-11-06T12:00:00Z",
+                "2021-11-07T06:30:00Z", "2021-11-08T06:30:00Z", "2021-11-09T06:30:00Z");
+    }
+
+    @Test
+    public void repeatedLocalTimeFromSameDay() {
+        // Searching from earlier on the same day, the first instant is used
+        assertTimeouts("0", "30", "1", "*", "*", "*", "*", "America/New_York", "2021-11-07T04:00:00Z",
+                "2021-11-07T05:30:00Z", "2021-11-08T06:30:00Z");
+        // Searching from within the repeated hour, after the first instant, the time does not match again that day
+        assertTimeouts("0", "30", "1", "*", "*", "*", "*", "America/New_York", "2021-11-07T05:45:00Z",
+                "2021-11-08T06:30:00Z", "2021-11-09T06:30:00Z");
+    }
+
+    @Test
+    public void repeatedHourFiresContinuously() {
+        // The clocks go back from 03:00 CEST to 02:00 CET at 01:00Z, a schedule matching every hour keeps its interval
+        assertTimeouts("0", "*/20", "*", "*", "*", "*", "*", "Europe/Prague", "2021-10-31T00:00:00Z",
+                "2021-10-31T00:20:00Z", "2021-10-31T00:40:00Z", "2021-10-31T01:00:00Z", "2021-10-31T01:20:00Z",
+                "2021-10-31T01:40:00Z", "2021-10-31T02:00:00Z");
+    }
+
+    @Test
+    public void skippedLocalTimeShiftsForward() {
+        // 02:30 does not exist on 2021-03-28, the clocks go forward from 02:00 CET to 03:00 CEST, so it fires at 03:30 CEST.
+        // The previous implementation fired at 01:30 CET as well.
+        assertTimeouts("0", "30", "2", "*", "*", "*", "*", "Europe/Prague", "2021-03-27T12:00:00Z",
+                "2021-03-28T01:30:00Z", "2021-03-29T00:30:00Z", "2021-03-30T00:30:00Z");
+    }
+
+    @Test
+    public void skippedHourFiresContinuously() {
+        assertTimeouts("0", "*/20", "*", "*", "*", "*", "*", "America/New_York", "2021-03-14T06:30:00Z",
+                "2021-03-14T06:40:00Z", "2021-03-14T07:00:00Z", "2021-03-14T07:20:00Z", "2021-03-14T07:40:00Z");
+    }
+
+    @Test
+    public void dayOfMonthOrDayOfWeek() {
+        // A day matching either the day of month or the day of week matches
+        assertTimeouts("0", "0", "0", "15", "*", "Mon", "*", "UTC", "2021-06-01T00:00:00Z",
+                "2021-06-07T00:00:00Z", "2021-06-14T00:00:00Z", "2021-06-15T00:00:00Z", "2021-06-21T00:00:00Z",
+                "2021-06-28T00:00:00Z", "2021-07-05T00:00:00Z");
+        assertTimeouts("0", "0", "12", "*", "*", "Sat,Sun", "*", "Europe/London", "2021-12-30T00:00:00Z",
+                "2022-01-01T12:00:00Z", "2022-01-02T12:00:00Z", "2022-01-08T12:00:00Z", "2022-01-09T12:00:00Z");
+    }
+
+    @Test
+    public void lastDayOfMonth() {
+        assertTimeouts("0", "0", "0", "Last", "*", "*", "*", "UTC", "2024-01-15T00:00:00Z",
+                "2024-01-31T00:00:00Z", "2024-02-29T00:00:00Z", "2024-03-31T00:00:00Z", "2024-04-30T00:00:00Z");
+        assertTimeouts("0", "0", "0", "-1", "*", "*", "*", "UTC", "2024-01-15T00:00:00Z",
+                "2024-01-30T00:00:00Z", "2024-02-28T00:00:00Z", "2024-03-30T00:00:00Z", "2024-04-29T00:00:00Z");
+        assertTimeouts("0", "0", "0", "Last Fri", "*", "*", "*", "UTC", "2024-01-15T00:00:00Z",
+                "2024-01-26T00:00:00Z", "2024-02-23T00:00:00Z", "2024-03-29T00:00:00Z", "2024-04-26T00:00:00Z",
+                "2024-05-31T00:00:00Z");
+    }
+
+    @Test
+    public void yearRollover() {
+        assertTimeouts("0", "0", "0", "31", "12", "*", "*", "UTC", "2021-12-31T00:00:00Z",
+                "2022-12-31T00:00:00Z", "2023-12-31T00:00:00Z");
+        assertTimeouts("0", "0", "0", "29", "2", "*", "*", "UTC", "2021-01-01T00:00:00Z",
+                "2024-02-29T00:00:00Z", "2028-02-29T00:00:00Z", "2032-02-29T00:00:00Z");
+    }
+
+    @Test
+    public void lastYear() {
+        assertTimeouts("0", "0", "0", "1", "1", "*", "2022,2024", "UTC", "2021-06-01T00:00:00Z",
+                "2022-01-01T00:00:00Z", "2024-01-01T00:00:00Z", null);
+    }
+
+    /**
+     * Asserts the timeouts following the passed instant, where a null timeout means there are no more.
+     */
+    private static void assertTimeouts(String second, String minute, String hour, String dayOfMonth, String month, String dayOfWeek,
+            String year, String timezone, String from, String... expected) {
+        CompiledSchedule schedule = new CompiledSchedule(new Second(second), new Minute(minute), new Hour(hour), new DayOfWeek(dayOfWeek),
+                new DayOfMonth(dayOfMonth), new Month(month), new Year(year), TimeZone.getTimeZone(timezone), null, null);
+        List<String> timeouts = new ArrayList<>();
+        long current = Instant.parse(from).toEpochMilli();
+        for (int i = 0; i < expected.length; ++i) {
+            current = schedule.getNextTimeout(current, true);
+            if (current == CompiledSchedule.NONE) {
+                timeouts.add(null);
+                break;
+            }
+            timeouts.add(Instant.ofEpochMilli(current).toString());
+        }
+        assertEquals(Arrays.asList(expected), timeouts);
+    }
+}
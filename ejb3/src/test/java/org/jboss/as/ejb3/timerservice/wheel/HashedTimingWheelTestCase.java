@@ -0,0 +1,147 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.wheel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link HashedTimingWheel}.
+ */
+public class HashedTimingWheelTestCase {
+
+    private HashedTimingWheel wheel;
+
+    @Before
+    public void init() {
+        // Small wheel, so that timeouts span several rounds
+        this.wheel = new HashedTimingWheel(Executors.defaultThreadFactory(), 5, TimeUnit.MILLISECONDS, 8);
+    }
+
+    @After
+    public void destroy() {
+        this.wheel.stop();
+    }
+
+    @Test
+    public void schedule() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+        HashedTimingWheel.Timeout timeout = this.wheel.schedule(latch::countDown, 100, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 100);
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.cancel());
+    }
+
+    @Test
+    public void scheduleInPast() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        this.wheel.schedule(latch::countDown, -1, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void cancel() throws InterruptedException {
+        AtomicInteger count = new AtomicInteger();
+        HashedTimingWheel.Timeout timeout = this.wheel.schedule(count::incrementAndGet, 50, TimeUnit.MILLISECONDS);
+        assertTrue(timeout.cancel());
+        assertTrue(timeout.isCancelled());
+        assertFalse(timeout.cancel());
+        CountDownLatch latch = new CountDownLatch(1);
+        this.wheel.schedule(latch::countDown, 100, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(0, count.get());
+    }
+
+    @Test
+    public void fixedRate() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(5);
+        HashedTimingWheel.Timeout timeout = this.wheel.scheduleAtFixedRate(latch::countDown, 0, 20, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.isExpired());
+    }
+
+    @Test
+    public void fixedRateShorterThanTick() throws InterruptedException {
+        // Default sized wheel, so that a timeout placed in an already drained bucket would wait a whole revolution
+        HashedTimingWheel wheel = new HashedTimingWheel(Executors.defaultThreadFactory(), 10, TimeUnit.MILLISECONDS, HashedTimingWheel.DEFAULT_WHEEL_SIZE);
+        try {
+            int count = 10;
+            long[] times = new long[count];
+            AtomicInteger index = new AtomicInteger();
+            CountDownLatch latch = new CountDownLatch(count);
+            HashedTimingWheel.Timeout timeout = wheel.scheduleAtFixedRate(() -> {
+                int i = index.getAndIncrement();
+                if (i < count) {
+                    times[i] = System.nanoTime();
+                    latch.countDown();
+                }
+            }, 0, 1, TimeUnit.MILLISECONDS);
+            assertTrue(latch.await(2, TimeUnit.SECONDS));
+            timeout.cancel();
+            for (int i = 1; i < count; ++i) {
+                // Expect one expiration per tick, allowing for some scheduling jitter
+                assertTrue(TimeUnit.NANOSECONDS.toMillis(times[i] - times[i - 1]) < 100);
+            }
+        } finally {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    public void failingTask() throws InterruptedException {
+        this.wheel.schedule(() -> {
+            throw new IllegalStateException();
+        }, 0, TimeUnit.MILLISECONDS);
+        CountDownLatch latch = new CountDownLatch(1);
+        this.wheel.schedule(latch::countDown, 10, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void expirationOrder() throws InterruptedException {
+        int count = 1000;
+        CountDownLatch latch = new CountDownLatch(count);
+        AtomicInteger cancelled = new AtomicInteger();
+        for (int i = 0; i < count; ++i) {
+            HashedTimingWheel.Timeout timeout = this.wheel.schedule(latch::countDown, i % 200, TimeUnit.MILLISECONDS);
+            if ((i % 2 == 0) && timeout.cancel()) {
+                cancelled.incrementAndGet();
+                latch.countDown();
+            }
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(count / 2, cancelled.get());
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.wheel;
+
+import java.util.Random;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares creating then cancelling 100,000 timers using {@link HashedTimingWheel} versus {@link java.util.Timer}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TimingWheelBenchmark {
+
+    private static final int TIMERS = 100_000;
+    private static final Runnable NOOP = () -> { };
+    private static final long[] DELAYS = new Random(0).longs(TIMERS, 60_000, 3_600_000).toArray();
+
+    @Param({ "wheel", "timer" })
+    private String type;
+
+    private HashedTimingWheel wheel;
+    private Timer timer;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        if (this.type.equals("wheel")) {
+            this.wheel = new HashedTimingWheel(Executors.defaultThreadFactory());
+        } else {
+            this.timer = new Timer(true);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        if (this.wheel != null) {
+            this.wheel.stop();
+            this.wheel = null;
+        }
+        if (this.timer != null) {
+            this.timer.cancel();
+            this.timer = null;
+        }
+    }
+
+    @Benchmark
+    public int createAndCancel() {
+        return (this.wheel != null) ? this.createAndCancelWheel() : this.createAndCancelTimer();
+    }
+
+    private int createAndCancelWheel() {
+        HashedTimingWheel.Timeout[] timeouts = new HashedTimingWheel.Timeout[TIMERS];
+        for (int i = 0; i < TIMERS; ++i) {
+            timeouts[i] = this.wheel.schedule(NOOP, DELAYS[i], TimeUnit.MILLISECONDS);
+        }
+        int cancelled = 0;
+        for (HashedTimingWheel.Timeout timeout : timeouts) {
+            if (timeout.cancel()) {
+                cancelled += 1;
+            }
+        }
+        return cancelled;
+    }
+
+    private int createAndCancelTimer() {
+        TimerTask[] tasks = new TimerTask[TIMERS];
+        for (int i = 0; i < TIMERS; ++i) {
+            tasks[i] = new TimerTask() {
+                @Override
+                public void run() {
+                }
+            };
+            this.timer.schedule(tasks[i], DELAYS[i]);
+        }
+        int cancelled = 0;
+        for (TimerTask task : tasks) {
+            if (task.cancel()) {
+                cancelled += 1;
+            }
+        }
+        // Cancelled tasks otherwise linger in the queue, as with WFLY-3823
+        this.timer.purge();
+        return cancelled;
+    }
+
+    public static void main(String... args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TimingWheelBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -22,7 +22,10 @@
 
 package org.jboss.as.jpa.config;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.persistence.EntityManagerFactory;
@@ -152,6 +155,12 @@ public class Configuration {
      */
     public static final String JPA_ALLOW_TWO_PHASE_BOOTSTRAP = "wildfly.jpa.twophasebootstrap";
 
+    /**
+     * comma separated names of the persistence units that must be started before this persistence unit is started,
+     * in the same form as the unitName of a persistence context reference (e.g. "other" or "lib.jar#other")
+     */
+    private static final String JPA_DEPENDS_ON = "wildfly.jpa.depends-on";
+
     /**
      * set to false to ignore default data source (defaults to true)
      */
@@ -297,6 +306,27 @@ public class Configuration {
         return result;
     }
 
+    /**
+     * Get the names of the persistence units that the specified persistence unit depends on
+     *
+     * @param pu
+     * @return the names of the persistence units that must be started first, possibly empty
+     */
+    public static List<String> getPersistenceUnitDependencies(PersistenceUnitMetadata pu) {
+        final String dependsOn = pu.getProperties().getProperty(JPA_DEPENDS_ON);
+        if (dependsOn == null) {
+            return Collections.emptyList();
+        }
+        final List<String> result = new ArrayList<>();
+        for (String name : dependsOn.split(",")) {
+            name = name.trim();
+            if (!name.isEmpty()) {
+                result.add(name);
+            }
+        }
+        return result;
+    }
+
     /**
      * Return true if detaching of managed entities should be deferred until the entity manager is closed.
      * Note:  only applies to transaction scoped entity managers used without an active JTA transaction.
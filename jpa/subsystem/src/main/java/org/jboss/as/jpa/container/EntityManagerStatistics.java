@@ -0,0 +1,59 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.jpa.container;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the underlying entity managers created and reused on behalf of container managed transaction scoped entity
+ * managers, across all persistence units.
+ */
+public final class EntityManagerStatistics {
+
+    private static final LongAdder created = new LongAdder();
+    private static final LongAdder reused = new LongAdder();
+
+    private EntityManagerStatistics() {
+    }
+
+    /**
+     * @return the number of underlying entity managers created, with or without a JTA transaction
+     */
+    public static long getCreatedCount() {
+        return created.sum();
+    }
+
+    /**
+     * @return the number of invocations that were served by an already created underlying entity manager
+     */
+    public static long getReusedCount() {
+        return reused.sum();
+    }
+
+    static void created() {
+        created.increment();
+    }
+
+    static void reused() {
+        reused.increment();
+    }
+}
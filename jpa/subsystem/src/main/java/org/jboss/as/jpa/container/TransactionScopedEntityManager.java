@@ -27,11 +27,14 @@ import static org.jboss.as.jpa.messages.JpaLogger.ROOT_LOGGER;
 import java.io.IOException;
 import java.io.Serializable;
 import java.security.AccessController;
+import java.util.HashMap;
 import java.util.Map;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.SynchronizationType;
+import javax.transaction.Synchronization;
+import javax.transaction.Transaction;
 import javax.transaction.TransactionManager;
 import javax.transaction.TransactionSynchronizationRegistry;
 
@@ -45,6 +48,7 @@ import org.jboss.as.txn.service.TransactionManagerService;
 import org.jboss.as.txn.service.TransactionSynchronizationRegistryService;
 import org.jboss.msc.service.ServiceContainer;
 import org.jboss.msc.service.ServiceController;
+import org.jboss.tm.TxUtils;
 
 /**
  * Transaction scoped entity manager will be injected into SLSB or SFSB beans.  At bean invocation time, they
@@ -59,6 +63,12 @@ public class TransactionScopedEntityManager extends AbstractEntityManager implem
 
     private static final long serialVersionUID = 455498112L;
 
+    /**
+     * The underlying entity managers last resolved by the current thread within a JTA transaction.
+     * Key = scoped persistence unit name
+     */
+    private static final ThreadLocal<Map<String, CachedEntityManager>> cachedEntityManagers = ThreadLocal.withInitial(HashMap::new);
+
     private final String puScopedName;          // Scoped name of the persistent unit
     private final Map properties;
     private transient EntityManagerFactory emf;
@@ -79,22 +89,46 @@ public class TransactionScopedEntityManager extends AbstractEntityManager implem
     @Override
     protected EntityManager getEntityManager() {
         EntityManager entityManager;
-        boolean isInTx;
+        Transaction transaction = TransactionUtil.getTransaction(transactionManager);
 
-        isInTx = TransactionUtil.isInTx(transactionManager);
-
-        if (isInTx) {
-            entityManager = getOrCreateTransactionScopedEntityManager(emf, puScopedName, properties, synchronizationType);
+        if (transaction != null && TxUtils.isActive(transaction)) {
+            final Map<String, CachedEntityManager> cache = cachedEntityManagers.get();
+            final CachedEntityManager cached = cache.get(puScopedName);
+            entityManager = (cached != null) ? cached.get(transaction, synchronizationType) : null;
+            if (entityManager != null) {
+                EntityManagerStatistics.reused();
+            } else {
+                entityManager = getOrCreateTransactionScopedEntityManager(emf, puScopedName, properties, synchronizationType);
+                cacheEntityManager(cache, transaction, entityManager);
+            }
         } else {
             entityManager = NonTxEmCloser.get(puScopedName);
             if (entityManager == null) {
                 entityManager = createEntityManager(emf, properties, synchronizationType);
                 NonTxEmCloser.add(puScopedName, entityManager);
+            } else {
+                EntityManagerStatistics.reused();
             }
         }
         return entityManager;
     }
 
+    /**
+     * Remember the entity manager of the specified transaction for subsequent invocations on the current thread,
+     * until the transaction completes.
+     */
+    private void cacheEntityManager(Map<String, CachedEntityManager> cache, Transaction transaction, EntityManager entityManager) {
+        final CachedEntityManager cached = new CachedEntityManager(transaction, entityManager);
+        try {
+            transactionSynchronizationRegistry.registerInterposedSynchronization(cached);
+        } catch (IllegalStateException e) {
+            // transaction is already completing, resolve the entity manager on each invocation
+            cache.remove(puScopedName);
+            return;
+        }
+        cache.put(puScopedName, cached);
+    }
+
     @Override
     protected boolean isExtendedPersistenceContext() {
         return false;
@@ -164,6 +198,7 @@ public class TransactionScopedEntityManager extends AbstractEntityManager implem
         }
         else {
             testForMixedSynchronizationTypes(emf, entityManager, puScopedName, synchronizationType, properties);
+            EntityManagerStatistics.reused();
             if (ROOT_LOGGER.isDebugEnabled()) {
                 ROOT_LOGGER.debugf("%s: reuse entity manager session already in tx %s", TransactionUtil.getEntityManagerDetails(entityManager, scopedPuName),
                         TransactionUtil.getTransaction(transactionManager).toString());
@@ -174,6 +209,7 @@ public class TransactionScopedEntityManager extends AbstractEntityManager implem
 
     private EntityManager createEntityManager(
         EntityManagerFactory emf, Map properties, final SynchronizationType synchronizationType) {
+        EntityManagerStatistics.created();
         // only JPA 2.1 applications can specify UNSYNCHRONIZED.
         // Default is SYNCHRONIZED if synchronizationType is not passed to createEntityManager
         if (SynchronizationType.UNSYNCHRONIZED.equals(synchronizationType)) {
@@ -223,4 +259,42 @@ public class TransactionScopedEntityManager extends AbstractEntityManager implem
             throw JpaLogger.ROOT_LOGGER.badSynchronizationTypeCombination(scopedPuName);
         }
     }
+
+    /**
+     * The entity manager resolved for a transaction, which is forgotten once the transaction completes.
+     */
+    private static final class CachedEntityManager implements Synchronization {
+        private volatile Transaction transaction;
+        private volatile EntityManager entityManager;
+        private final boolean unsynchronized;
+
+        CachedEntityManager(Transaction transaction, EntityManager entityManager) {
+            this.transaction = transaction;
+            this.entityManager = entityManager;
+            this.unsynchronized = entityManager instanceof SynchronizationTypeAccess &&
+                    SynchronizationType.UNSYNCHRONIZED.equals(((SynchronizationTypeAccess) entityManager).getSynchronizationType());
+        }
+
+        /**
+         * Returns the cached entity manager, or null if it belongs to a different or completed transaction, or if it
+         * is UNSYNCHRONIZED and a SYNCHRONIZED one is requested, which needs the check for mixed synchronization types.
+         */
+        EntityManager get(Transaction transaction, SynchronizationType synchronizationType) {
+            final EntityManager entityManager = this.entityManager;
+            if (this.transaction != transaction || (unsynchronized && SynchronizationType.SYNCHRONIZED.equals(synchronizationType))) {
+                return null;
+            }
+            return entityManager;
+        }
+
+        @Override
+        public void beforeCompletion() {
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            transaction = null;
+            entityManager = null;
+        }
+    }
 }
@@ -752,4 +752,14 @@ public interface JpaLogger extends BasicLogger {
     DeploymentUnitProcessingException differentSearchModuleDependencies(String deployment, String searchModuleName1, String searchModuleName2);
 
     // id = 72, value = "Could not obtain TransactionListenerRegistry from transaction manager")
+
+    /**
+     * Logs a warning message indicating that the value of a system property is not a valid number of threads.
+     *
+     * @param propertyName the name of the system property
+     * @param value        the invalid value
+     */
+    @LogMessage(level = WARN)
+    @Message(id = 73, value = "Ignoring system property %s, whose value '%s' is not a non-negative number of threads")
+    void invalidThreadCount(String propertyName, String value);
 }
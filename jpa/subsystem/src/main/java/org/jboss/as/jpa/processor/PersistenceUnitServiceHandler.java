@@ -23,7 +23,6 @@
 package org.jboss.as.jpa.processor;
 
 import static org.jboss.as.jpa.messages.JpaLogger.ROOT_LOGGER;
-import static org.jboss.as.server.Services.addServerExecutorDependency;
 
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -34,6 +33,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import javax.enterprise.inject.spi.BeanManager;
 import javax.persistence.SynchronizationType;
@@ -63,12 +63,14 @@ import org.jboss.as.jpa.config.Configuration;
 import org.jboss.as.jpa.config.PersistenceProviderDeploymentHolder;
 import org.jboss.as.jpa.config.PersistenceUnitMetadataHolder;
 import org.jboss.as.jpa.config.PersistenceUnitsInApplication;
+import org.jboss.as.jpa.container.PersistenceUnitSearch;
 import org.jboss.as.jpa.container.TransactionScopedEntityManager;
 import org.jboss.as.jpa.interceptor.WebNonTxEmCloserAction;
 import org.jboss.as.jpa.messages.JpaLogger;
 import org.jboss.as.jpa.persistenceprovider.PersistenceProviderLoader;
 import org.jboss.as.jpa.processor.secondLevelCache.CacheDeploymentListener;
 import org.jboss.as.jpa.service.JPAService;
+import org.jboss.as.jpa.service.PersistenceUnitBootstrapExecutorService;
 import org.jboss.as.jpa.service.PersistenceUnitServiceImpl;
 import org.jboss.as.jpa.service.PhaseOnePersistenceUnitServiceImpl;
 import org.jboss.as.jpa.spi.PersistenceUnitService;
@@ -364,6 +366,7 @@ public class PersistenceUnitServiceHandler {
             deploymentUnit.addToAttachmentList(Attachments.WEB_DEPENDENCIES, puServiceName);
 
             ServiceBuilder<PersistenceUnitService> builder = serviceTarget.addService(puServiceName, service);
+            addPersistenceUnitDependencies(deploymentUnit, pu, builder);
             boolean useDefaultDataSource = Configuration.allowDefaultDataSourceUse(pu);
             final String jtaDataSource = adjustJndi(pu.getJtaDataSourceName());
             final String nonJtaDataSource = adjustJndi(pu.getNonJtaDataSourceName());
@@ -429,8 +432,8 @@ public class PersistenceUnitServiceHandler {
             builder.setInitialMode(ServiceController.Mode.ACTIVE)
                 .addInjection(service.getPropertiesInjector(), properties);
 
-            // get async executor from Services.addServerExecutorDependency
-            addServerExecutorDependency(builder, service.getExecutorInjector());
+            // get async executor, which is either the server executor or the bounded bootstrap executor
+            builder.addDependency(PersistenceUnitBootstrapExecutorService.SERVICE_NAME, ExecutorService.class, service.getExecutorInjector());
 
             builder.install();
 
@@ -442,6 +445,20 @@ public class PersistenceUnitServiceHandler {
         }
     }
 
+    /**
+     * Adds a dependency on each persistence unit listed in the {@link Configuration#getPersistenceUnitDependencies(PersistenceUnitMetadata) depends-on}
+     * property, so that independent persistence units can be started concurrently while dependent ones wait.
+     */
+    private static void addPersistenceUnitDependencies(final DeploymentUnit deploymentUnit, final PersistenceUnitMetadata pu, final ServiceBuilder<?> builder) throws DeploymentUnitProcessingException {
+        for (String name : Configuration.getPersistenceUnitDependencies(pu)) {
+            PersistenceUnitMetadata dependency = PersistenceUnitSearch.resolvePersistenceUnitSupplier(deploymentUnit, name);
+            if (dependency == null) {
+                throw new DeploymentUnitProcessingException(JpaLogger.ROOT_LOGGER.persistenceUnitNotFound(name, deploymentUnit));
+            }
+            builder.addDependency(PersistenceUnitServiceImpl.getPUServiceName(dependency));
+        }
+    }
+
     /**
      * first phase of starting the persistence unit
      *
@@ -544,8 +561,8 @@ public class PersistenceUnitServiceHandler {
             builder.setInitialMode(ServiceController.Mode.ACTIVE)
                 .addInjection(service.getPropertiesInjector(), properties);
 
-            // get async executor from Services.addServerExecutorDependency
-            addServerExecutorDependency(builder, service.getExecutorInjector());
+            // get async executor, which is either the server executor or the bounded bootstrap executor
+            builder.addDependency(PersistenceUnitBootstrapExecutorService.SERVICE_NAME, ExecutorService.class, service.getExecutorInjector());
 
             builder.install();
 
@@ -613,6 +630,9 @@ public class PersistenceUnitServiceHandler {
             // add dependency on first phase
             builder.addDependency(puServiceName.append(FIRST_PHASE), new CastingInjector<>(service.getPhaseOnePersistenceUnitServiceImplInjector(), PhaseOnePersistenceUnitServiceImpl.class));
 
+            // add dependencies on persistence units that have to be started first
+            addPersistenceUnitDependencies(deploymentUnit, pu, builder);
+
             boolean useDefaultDataSource = Configuration.allowDefaultDataSourceUse(pu);
             final String jtaDataSource = adjustJndi(pu.getJtaDataSourceName());
             final String nonJtaDataSource = adjustJndi(pu.getNonJtaDataSourceName());
@@ -679,8 +699,8 @@ public class PersistenceUnitServiceHandler {
             builder.setInitialMode(ServiceController.Mode.ACTIVE)
                 .addInjection(service.getPropertiesInjector(), properties);
 
-            // get async executor from Services.addServerExecutorDependency
-            addServerExecutorDependency(builder, service.getExecutorInjector());
+            // get async executor, which is either the server executor or the bounded bootstrap executor
+            builder.addDependency(PersistenceUnitBootstrapExecutorService.SERVICE_NAME, ExecutorService.class, service.getExecutorInjector());
 
             builder.install();
 
@@ -22,6 +22,7 @@
 
 package org.jboss.as.jpa.service;
 
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ADDRESS;
 import static org.jboss.as.jpa.messages.JpaLogger.ROOT_LOGGER;
 
 import java.util.HashSet;
@@ -29,8 +30,13 @@ import java.util.Locale;
 import java.util.ResourceBundle;
 import java.util.Set;
 
+import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
+import org.jboss.as.controller.AttributeDefinition;
+import org.jboss.as.controller.OperationContext;
 import org.jboss.as.controller.PathAddress;
 import org.jboss.as.controller.PathElement;
+import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
+import org.jboss.as.controller.client.helpers.MeasurementUnit;
 import org.jboss.as.controller.descriptions.ModelDescriptionConstants;
 import org.jboss.as.controller.descriptions.ResourceDescriptionResolver;
 import org.jboss.as.controller.descriptions.StandardResourceDescriptionResolver;
@@ -42,10 +48,14 @@ import org.jboss.as.jpa.management.EntityManagerFactoryLookup;
 import org.jboss.as.jpa.management.ManagementResourceDefinition;
 import org.jboss.as.jpa.processor.CacheDeploymentHelper;
 import org.jboss.as.jpa.processor.PersistenceUnitServiceHandler;
+import org.jboss.as.jpa.spi.PersistenceUnitService;
 import org.jboss.as.jpa.subsystem.JPAExtension;
+import org.jboss.as.jpa.subsystem.PersistenceUnitRegistryImpl;
 import org.jboss.as.jpa.util.JPAServiceNames;
 import org.jboss.as.server.deployment.DeploymentModelUtils;
 import org.jboss.as.server.deployment.DeploymentUnit;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
 import org.jboss.msc.service.Service;
 import org.jboss.msc.service.ServiceController;
 import org.jboss.msc.service.ServiceName;
@@ -65,6 +75,9 @@ public class JPAService implements Service<Void> {
 
     public static final ServiceName SERVICE_NAME = JPAServiceNames.getJPAServiceName();
 
+    private static final AttributeDefinition BOOTSTRAP_PHASE_ONE_TIME = new SimpleAttributeDefinitionBuilder("bootstrap-phase-one-time", ModelType.LONG, true).setMeasurementUnit(MeasurementUnit.MILLISECONDS).setStorageRuntime().build();
+    private static final AttributeDefinition BOOTSTRAP_PHASE_TWO_TIME = new SimpleAttributeDefinitionBuilder("bootstrap-phase-two-time", ModelType.LONG, true).setMeasurementUnit(MeasurementUnit.MILLISECONDS).setStorageRuntime().build();
+
     private static volatile String defaultDataSourceName = null;
     private static volatile ExtendedPersistenceInheritance defaultExtendedPersistenceInheritance = null;
     private static final Set<String> existingResourceDescriptionResolver = new HashSet<>();
@@ -165,10 +178,12 @@ public class JPAService implements Service<Void> {
                 ManagementResourceRegistration providerResource = deploymentSubsystemRegistration.registerSubModel(
                         new ManagementResourceDefinition(PathElement.pathElement(managementAdaptor.getIdentificationLabel()), resourceDescriptionResolver, statistics, entityManagerFactoryLookup));
                 providerResource.registerReadOnlyAttribute(PersistenceUnitServiceHandler.SCOPED_UNIT_NAME, null);
+                registerBootstrapMetrics(providerResource);
 
                 providerResource = subdeploymentSubsystemRegistration.registerSubModel(
                         new ManagementResourceDefinition(PathElement.pathElement(managementAdaptor.getIdentificationLabel()), resourceDescriptionResolver, statistics, entityManagerFactoryLookup));
                 providerResource.registerReadOnlyAttribute(PersistenceUnitServiceHandler.SCOPED_UNIT_NAME, null);
+                registerBootstrapMetrics(providerResource);
 
                 existingResourceDescriptionResolver.add(managementAdaptor.getVersion());
             }
@@ -177,6 +192,14 @@ public class JPAService implements Service<Void> {
         }
     }
 
+    /**
+     * Registers the bootstrap phase timings of the persistence unit addressed by the resource.
+     */
+    private static void registerBootstrapMetrics(ManagementResourceRegistration providerResource) {
+        providerResource.registerMetric(BOOTSTRAP_PHASE_ONE_TIME, new BootstrapTimeHandler(true));
+        providerResource.registerMetric(BOOTSTRAP_PHASE_TWO_TIME, new BootstrapTimeHandler(false));
+    }
+
     @Override
     public void start(StartContext startContext) throws StartException {
         cacheDeploymentHelper.register();
@@ -195,4 +218,22 @@ public class JPAService implements Service<Void> {
         return null;
     }
 
+    private static class BootstrapTimeHandler extends AbstractRuntimeOnlyHandler {
+        private final boolean phaseOne;
+
+        BootstrapTimeHandler(boolean phaseOne) {
+            this.phaseOne = phaseOne;
+        }
+
+        @Override
+        protected void executeRuntimeStep(OperationContext context, ModelNode operation) {
+            // the resource is registered under the scoped persistence unit name
+            String scopedPersistenceUnitName = PathAddress.pathAddress(operation.get(ADDRESS)).getLastElement().getValue();
+            PersistenceUnitService service = PersistenceUnitRegistryImpl.INSTANCE.getPersistenceUnitService(scopedPersistenceUnitName);
+            if (service instanceof PersistenceUnitServiceImpl) {
+                PersistenceUnitServiceImpl persistenceUnitService = (PersistenceUnitServiceImpl) service;
+                context.getResult().set(phaseOne ? persistenceUnitService.getPhaseOneTime() : persistenceUnitService.getPhaseTwoTime());
+            }
+        }
+    }
 }
@@ -0,0 +1,126 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.jpa.service;
+
+import static org.jboss.as.jpa.messages.JpaLogger.ROOT_LOGGER;
+import static org.jboss.as.server.Services.addServerExecutorDependency;
+
+import java.security.PrivilegedAction;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.jpa.util.JPAServiceNames;
+import org.jboss.msc.service.Service;
+import org.jboss.msc.service.ServiceBuilder;
+import org.jboss.msc.service.ServiceController;
+import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.ServiceTarget;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StartException;
+import org.jboss.msc.service.StopContext;
+import org.jboss.msc.value.InjectedValue;
+import org.jboss.threads.JBossThreadFactory;
+import org.wildfly.security.manager.WildFlySecurityManager;
+
+/**
+ * Provides the executor on which the persistence unit services are started and stopped.
+ * <p/>
+ * By default, this is the server executor, which starts every persistence unit, whose datasource and persistence unit
+ * dependencies are satisfied, at once. If the {@value #BOOTSTRAP_THREADS} system property is set to a positive number,
+ * the persistence units are instead started on a dedicated executor with that many threads, so that the persistence
+ * units of large deployments are built concurrently without all competing for the CPU at the same time. Invalid values
+ * are logged and ignored.
+ */
+public class PersistenceUnitBootstrapExecutorService implements Service<ExecutorService> {
+
+    public static final ServiceName SERVICE_NAME = JPAServiceNames.getJPAServiceName().append("bootstrap-executor");
+
+    static final String BOOTSTRAP_THREADS = "wildfly.jpa.bootstrap.threads";
+
+    private static final long IDLE_TIMEOUT = 60L;
+
+    private final InjectedValue<ExecutorService> serverExecutor = new InjectedValue<>();
+    private final int threads;
+    private volatile ExecutorService executor;
+
+    public PersistenceUnitBootstrapExecutorService(final int threads) {
+        this.threads = threads;
+    }
+
+    @Override
+    public void start(StartContext context) throws StartException {
+        if (threads > 0) {
+            final PrivilegedAction<ThreadFactory> action = () -> new JBossThreadFactory(new ThreadGroup(PersistenceUnitBootstrapExecutorService.class.getSimpleName()), Boolean.FALSE, null, "%G - %t", null, null);
+            final ThreadPoolExecutor bounded = new ThreadPoolExecutor(threads, threads, IDLE_TIMEOUT, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), WildFlySecurityManager.doUnchecked(action));
+            bounded.allowCoreThreadTimeOut(true);
+            executor = bounded;
+        } else {
+            executor = serverExecutor.getValue();
+        }
+    }
+
+    @Override
+    public void stop(StopContext context) {
+        if (threads > 0) {
+            executor.shutdown();
+        }
+        executor = null;
+    }
+
+    @Override
+    public ExecutorService getValue() throws IllegalStateException, IllegalArgumentException {
+        return executor;
+    }
+
+    /**
+     * Parses the value of the {@value #BOOTSTRAP_THREADS} system property.
+     *
+     * @param value the value of the system property, or null if it is not set
+     * @return the number of threads, or 0, if the server executor should be used
+     */
+    static int parseThreads(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            final int threads = Integer.parseInt(value.trim());
+            if (threads >= 0) {
+                return threads;
+            }
+        } catch (NumberFormatException e) {
+            // logged below
+        }
+        ROOT_LOGGER.invalidThreadCount(BOOTSTRAP_THREADS, value);
+        return 0;
+    }
+
+    public static void addService(ServiceTarget target) {
+        final PersistenceUnitBootstrapExecutorService service = new PersistenceUnitBootstrapExecutorService(parseThreads(WildFlySecurityManager.getPropertyPrivileged(BOOTSTRAP_THREADS, null)));
+        final ServiceBuilder<ExecutorService> builder = target.addService(SERVICE_NAME, service);
+        addServerExecutorDependency(builder, service.serverExecutor);
+        builder.setInitialMode(ServiceController.Mode.ACTIVE)
+                .install();
+    }
+}
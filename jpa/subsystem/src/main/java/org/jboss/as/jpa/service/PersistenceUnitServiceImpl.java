@@ -89,6 +89,8 @@ public class PersistenceUnitServiceImpl implements Service<PersistenceUnitServic
 
     private volatile EntityManagerFactory entityManagerFactory;
     private volatile ProxyBeanManager proxyBeanManager;
+    private volatile long phaseOneTime;
+    private volatile long phaseTwoTime;
     private final SetupAction javaNamespaceSetup;
 
     public PersistenceUnitServiceImpl(
@@ -164,7 +166,10 @@ public class PersistenceUnitServiceImpl implements Service<PersistenceUnitServic
                                         }
 
                                         // get the EntityManagerFactory from the second phase of the persistence unit bootstrap
+                                        phaseOneTime = phaseOnePersistenceUnitService.getPhaseOneTime();
+                                        long start = System.currentTimeMillis();
                                         entityManagerFactory = emfBuilder.build();
+                                        phaseTwoTime = System.currentTimeMillis() - start;
                                     } else {
                                         ROOT_LOGGER.startingService("Persistence Unit", pu.getScopedPersistenceUnitName());
                                         // start the persistence unit in one pass (1 of 1)
@@ -184,7 +189,9 @@ public class PersistenceUnitServiceImpl implements Service<PersistenceUnitServic
                                               properties.getValue().put(CDI_BEAN_MANAGER, proxyBeanManager);
                                             }
                                         }
+                                        long start = System.currentTimeMillis();
                                         entityManagerFactory = createContainerEntityManagerFactory();
+                                        phaseTwoTime = System.currentTimeMillis() - start;
                                     }
                                     persistenceUnitRegistry.add(getScopedPersistenceUnitName(), getValue());
                                     if(wrapperBeanManagerLifeCycle != null) {
@@ -307,6 +314,24 @@ public class PersistenceUnitServiceImpl implements Service<PersistenceUnitServic
         return entityManagerFactory;
     }
 
+    /**
+     * Get the time spent in the first bootstrap phase
+     *
+     * @return the time in milliseconds, or zero if the persistence unit was started in one pass
+     */
+    public long getPhaseOneTime() {
+        return phaseOneTime;
+    }
+
+    /**
+     * Get the time spent in the second bootstrap phase
+     *
+     * @return the time in milliseconds it took to create the entity manager factory
+     */
+    public long getPhaseTwoTime() {
+        return phaseTwoTime;
+    }
+
     @Override
     public String getScopedPersistenceUnitName() {
         return pu.getScopedPersistenceUnitName();
@@ -75,6 +75,8 @@ public class PhaseOnePersistenceUnitServiceImpl implements Service<PhaseOnePersi
 
     private volatile boolean secondPhaseStarted = false;
 
+    private volatile long phaseOneTime;
+
     public PhaseOnePersistenceUnitServiceImpl(
             final ClassLoader classLoader,
             final PersistenceUnitMetadata pu,
@@ -122,7 +124,9 @@ public class PhaseOnePersistenceUnitServiceImpl implements Service<PhaseOnePersi
                                     }
 
                                     WritableServiceBasedNamingStore.pushOwner(deploymentUnitServiceName);
+                                    long start = System.currentTimeMillis();
                                     entityManagerFactoryBuilder = createContainerEntityManagerFactoryBuilder();
+                                    phaseOneTime = System.currentTimeMillis() - start;
                                     context.complete();
                                 } catch (Throwable t) {
                                     context.failed(new StartException(t));
@@ -218,6 +222,15 @@ public class PhaseOnePersistenceUnitServiceImpl implements Service<PhaseOnePersi
         return entityManagerFactoryBuilder;
     }
 
+    /**
+     * Get the time spent in the first bootstrap phase
+     *
+     * @return the time in milliseconds it took to create the entity manager factory builder
+     */
+    public long getPhaseOneTime() {
+        return phaseOneTime;
+    }
+
     public void setSecondPhaseStarted(boolean secondPhaseStarted) {
         this.secondPhaseStarted = secondPhaseStarted;
     }
@@ -30,4 +30,6 @@ interface CommonAttributes {
     String DEFAULT_DATASOURCE = "default-datasource";
     String JPA = "jpa";
     String DEFAULT_EXTENDEDPERSISTENCE_INHERITANCE = "default-extended-persistence-inheritance";
+    String ENTITY_MANAGERS_CREATED = "entity-managers-created";
+    String ENTITY_MANAGERS_REUSED = "entity-managers-reused";
 }
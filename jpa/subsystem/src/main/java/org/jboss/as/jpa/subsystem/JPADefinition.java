@@ -22,6 +22,8 @@
 
 package org.jboss.as.jpa.subsystem;
 
+import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
+import org.jboss.as.controller.OperationContext;
 import org.jboss.as.controller.PathElement;
 import org.jboss.as.controller.ReloadRequiredRemoveStepHandler;
 import org.jboss.as.controller.ReloadRequiredWriteAttributeHandler;
@@ -34,6 +36,7 @@ import org.jboss.as.controller.operations.validation.StringLengthValidator;
 import org.jboss.as.controller.registry.AttributeAccess;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.jpa.config.ExtendedPersistenceInheritance;
+import org.jboss.as.jpa.container.EntityManagerStatistics;
 import org.jboss.dmr.ModelNode;
 import org.jboss.dmr.ModelType;
 
@@ -73,9 +76,37 @@ public class JPADefinition extends SimpleResourceDefinition {
                     .setDefaultValue(new ModelNode(ExtendedPersistenceInheritance.DEEP.toString()))
                     .build();
 
+    protected static final SimpleAttributeDefinition ENTITY_MANAGERS_CREATED =
+            new SimpleAttributeDefinitionBuilder(CommonAttributes.ENTITY_MANAGERS_CREATED, ModelType.LONG, true)
+                    .setStorageRuntime()
+                    .build();
+
+    protected static final SimpleAttributeDefinition ENTITY_MANAGERS_REUSED =
+            new SimpleAttributeDefinitionBuilder(CommonAttributes.ENTITY_MANAGERS_REUSED, ModelType.LONG, true)
+                    .setStorageRuntime()
+                    .build();
+
     @Override
     public void registerAttributes(ManagementResourceRegistration registration) {
         registration.registerReadWriteAttribute(DEFAULT_DATASOURCE, null, new ReloadRequiredWriteAttributeHandler(DEFAULT_DATASOURCE));
         registration.registerReadWriteAttribute(DEFAULT_EXTENDEDPERSISTENCE_INHERITANCE, null, new ReloadRequiredWriteAttributeHandler(DEFAULT_EXTENDEDPERSISTENCE_INHERITANCE));
     }
+
+    /**
+     * Registers the container managed entity manager counters, which are only available at runtime.
+     */
+    static void registerMetrics(ManagementResourceRegistration registration) {
+        registration.registerMetric(ENTITY_MANAGERS_CREATED, new AbstractRuntimeOnlyHandler() {
+            @Override
+            protected void executeRuntimeStep(OperationContext context, ModelNode operation) {
+                context.getResult().set(EntityManagerStatistics.getCreatedCount());
+            }
+        });
+        registration.registerMetric(ENTITY_MANAGERS_REUSED, new AbstractRuntimeOnlyHandler() {
+            @Override
+            protected void executeRuntimeStep(OperationContext context, ModelNode operation) {
+                context.getResult().set(EntityManagerStatistics.getReusedCount());
+            }
+        });
+    }
 }
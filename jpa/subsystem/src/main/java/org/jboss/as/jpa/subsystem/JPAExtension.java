@@ -88,6 +88,7 @@ public class JPAExtension implements Extension {
         }
 
         if (context.isRuntimeOnlyRegistrationValid()) {
+            JPADefinition.registerMetrics(nodeRegistration);
             registration.registerDeploymentModel(JPADefinition.DEPLOYMENT_INSTANCE);
         }
     }
@@ -42,6 +42,7 @@ import org.jboss.as.jpa.processor.PersistenceRefProcessor;
 import org.jboss.as.jpa.processor.PersistenceUnitParseProcessor;
 import org.jboss.as.jpa.service.JPAService;
 import org.jboss.as.jpa.service.JPAUserTransactionListenerService;
+import org.jboss.as.jpa.service.PersistenceUnitBootstrapExecutorService;
 import org.jboss.as.server.AbstractDeploymentChainStep;
 import org.jboss.as.server.DeploymentProcessorTarget;
 import org.jboss.as.server.deployment.Phase;
@@ -135,6 +136,7 @@ class JPASubSystemAdd extends AbstractBoottimeAddStepHandler {
         final ServiceTarget target = context.getServiceTarget();
         JPAService.addService(target, dataSourceName, defaultExtendedPersistenceInheritance);
         JPAUserTransactionListenerService.addService(target);
+        PersistenceUnitBootstrapExecutorService.addService(target);
 
     }
 }
@@ -0,0 +1,94 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.jpa.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link PersistenceUnitBootstrapExecutorService}.
+ */
+public class PersistenceUnitBootstrapExecutorServiceTestCase {
+
+    @Test
+    public void testParseThreads() {
+        assertEquals(0, PersistenceUnitBootstrapExecutorService.parseThreads(null));
+        assertEquals(0, PersistenceUnitBootstrapExecutorService.parseThreads("0"));
+        assertEquals(4, PersistenceUnitBootstrapExecutorService.parseThreads(" 4 "));
+        // invalid values fall back to the server executor
+        assertEquals(0, PersistenceUnitBootstrapExecutorService.parseThreads("-1"));
+        assertEquals(0, PersistenceUnitBootstrapExecutorService.parseThreads("four"));
+        assertEquals(0, PersistenceUnitBootstrapExecutorService.parseThreads(""));
+    }
+
+    @Test
+    public void testConcurrencyBound() throws Exception {
+        final int threads = 2;
+        final int tasks = 6;
+        PersistenceUnitBootstrapExecutorService service = new PersistenceUnitBootstrapExecutorService(threads);
+        service.start(null);
+        ExecutorService executor = service.getValue();
+        try {
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            CountDownLatch started = new CountDownLatch(threads);
+            CountDownLatch release = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < tasks; ++i) {
+                futures.add(executor.submit(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    started.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            // give any excess task the chance to start
+            Thread.sleep(100);
+            assertEquals(threads, running.get());
+
+            release.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+            assertEquals(threads, maxRunning.get());
+        } finally {
+            service.stop(null);
+        }
+        assertTrue(executor.isShutdown());
+    }
+}
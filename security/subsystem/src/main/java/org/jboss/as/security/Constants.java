@@ -118,6 +118,9 @@ public interface Constants {
     String LIST_CACHED_PRINCIPALS = "list-cached-principals";
     String FLUSH_CACHE = "flush-cache";
     String PRINCIPAL_ARGUMENT = "principal";
+    String CACHE_EVICTIONS = "cache-evictions";
+    String CACHE_HITS = "cache-hits";
+    String CACHE_MISSES = "cache-misses";
     // ELYTRON INTEGRATION CONSTANTS
     String ELYTRON_INTEGRATION = "elytron-integration";
     String SECURITY_REALMS = "security-realms";
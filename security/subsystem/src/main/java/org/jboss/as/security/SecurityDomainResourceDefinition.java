@@ -29,6 +29,7 @@ import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
 import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
 import org.jboss.as.controller.OperationContext;
@@ -45,11 +46,13 @@ import org.jboss.as.controller.access.management.AccessConstraintDefinition;
 import org.jboss.as.controller.access.management.ApplicationTypeAccessConstraintDefinition;
 import org.jboss.as.controller.access.management.SensitiveTargetAccessConstraintDefinition;
 import org.jboss.as.controller.capability.RuntimeCapability;
+import org.jboss.as.controller.descriptions.ModelDescriptionConstants;
 import org.jboss.as.controller.operations.common.Util;
 import org.jboss.as.controller.operations.validation.StringAllowedValuesValidator;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.controller.registry.OperationEntry;
 import org.jboss.as.security.logging.SecurityLogger;
+import org.jboss.as.security.lru.TinyLfuCache;
 import org.jboss.as.security.plugins.SecurityDomainContext;
 import org.jboss.as.security.service.SecurityDomainService;
 import org.jboss.dmr.ModelNode;
@@ -76,6 +79,16 @@ class SecurityDomainResourceDefinition extends SimpleResourceDefinition {
             .setValidator(new StringAllowedValuesValidator("default", INFINISPAN_CACHE_TYPE))
             .build();
 
+    static final SimpleAttributeDefinition CACHE_HITS = new SimpleAttributeDefinitionBuilder(Constants.CACHE_HITS, ModelType.LONG)
+            .setStorageRuntime()
+            .build();
+    static final SimpleAttributeDefinition CACHE_MISSES = new SimpleAttributeDefinitionBuilder(Constants.CACHE_MISSES, ModelType.LONG)
+            .setStorageRuntime()
+            .build();
+    static final SimpleAttributeDefinition CACHE_EVICTIONS = new SimpleAttributeDefinitionBuilder(Constants.CACHE_EVICTIONS, ModelType.LONG)
+            .setStorageRuntime()
+            .build();
+
     private final boolean registerRuntimeOnly;
     private final List<AccessConstraintDefinition> accessConstraints;
 
@@ -109,6 +122,12 @@ class SecurityDomainResourceDefinition extends SimpleResourceDefinition {
     @Override
     public void registerAttributes(final ManagementResourceRegistration resourceRegistration) {
         resourceRegistration.registerReadWriteAttribute(CACHE_TYPE, null, new SecurityDomainReloadWriteHandler(CACHE_TYPE));
+
+        if (registerRuntimeOnly) {
+            for (SimpleAttributeDefinition metric : Arrays.asList(CACHE_HITS, CACHE_MISSES, CACHE_EVICTIONS)) {
+                resourceRegistration.registerMetric(metric, CacheMetricsHandler.INSTANCE);
+            }
+        }
     }
 
     @Override
@@ -216,6 +235,42 @@ class SecurityDomainResourceDefinition extends SimpleResourceDefinition {
         }
     }
 
+    /**
+     * Reads the statistics of the default authentication cache of a security domain. The metrics are left undefined
+     * when the security domain uses no cache or an infinispan cache.
+     */
+    static final class CacheMetricsHandler extends AbstractRuntimeOnlyHandler {
+        static final CacheMetricsHandler INSTANCE = new CacheMetricsHandler();
+
+        @Override
+        protected void executeRuntimeStep(OperationContext context, ModelNode operation) throws OperationFailedException {
+            final String securityDomain = context.getCurrentAddressValue();
+            final String metric = operation.require(ModelDescriptionConstants.NAME).asString();
+
+            ServiceController<?> controller = context.getServiceRegistry(false).getService(SecurityDomainService.SERVICE_NAME.append(securityDomain));
+            if ((controller != null) && (controller.getState() == ServiceController.State.UP)) {
+                ConcurrentMap<?, ?> cache = ((SecurityDomainService) controller.getService()).getDefaultCache();
+                if (cache instanceof TinyLfuCache) {
+                    TinyLfuCache<?, ?> statistics = (TinyLfuCache<?, ?>) cache;
+                    switch (metric) {
+                        case Constants.CACHE_HITS:
+                            context.getResult().set(statistics.getHitCount());
+                            break;
+                        case Constants.CACHE_MISSES:
+                            context.getResult().set(statistics.getMissCount());
+                            break;
+                        case Constants.CACHE_EVICTIONS:
+                            context.getResult().set(statistics.getEvictionCount());
+                            break;
+                        default:
+                            // Not a cache metric
+                    }
+                }
+            }
+            context.completeStep(OperationContext.RollbackHandler.NOOP_ROLLBACK_HANDLER);
+        }
+    }
+
     /**
      * Wait for the required service to start up and fail otherwise. This method is necessary when a runtime operation
      * uses a service that might have been created within a composite operation.
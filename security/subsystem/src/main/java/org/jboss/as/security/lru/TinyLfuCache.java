@@ -0,0 +1,823 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jboss.as.security.lru;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded cache whose eviction policy follows the W-TinyLFU scheme.
+ * <p/>
+ * <p>New entries enter a small LRU admission window. Entries leaving the window join the probation segment of a
+ * segmented LRU main space, and are only retained at the expense of the probation victim if a
+ * {@link FrequencySketch frequency sketch} estimates them to be more popular. Entries accessed while on probation
+ * are promoted to the protected segment. This retains frequently used entries when the cache is flooded with
+ * entries that are used once, e.g. during a login storm. The size of the window is adapted by hill climbing
+ * according to the hit rate observed over each sample period.</p>
+ * <p/>
+ * <p>Hits are recorded in striped, lossy read buffers, so that reads never block; the buffers are replayed against
+ * the policy by whichever thread acquires the policy lock, either when a buffer fills up or on the next write.
+ * Entries may optionally expire a fixed duration after they were last written.</p>
+ * <p/>
+ * <p>The {@link RemoveCallback} is notified, outside of any lock, when an entry is evicted, expires, or is removed
+ * via {@link #remove(Object)}, {@link #replace(Object, Object)}, {@link #replace(Object, Object, Object)} or
+ * {@link #clear()}.</p>
+ */
+public class TinyLfuCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+    private static final int READ_BUFFER_SIZE = 16;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    private static final int READ_BUFFER_DRAIN_THRESHOLD = READ_BUFFER_SIZE / 2;
+    private static final int PROTECTED_PERCENTAGE = 80;
+    private static final double HILL_CLIMBER_RESTART_THRESHOLD = 0.05d;
+
+    private final int maxEntries;
+    private final long expireAfterWriteNanos;
+    private final RemoveCallback<K, V> removeCallback;
+    private final ConcurrentHashMap<K, Node<K, V>> cache = new ConcurrentHashMap<>();
+    private final ReadBuffer<K, V>[] readBuffers;
+    private final int readBufferMask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // Guarded by evictionLock
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final FrequencySketch sketch;
+    private final AccessQueue<K, V> window = new AccessQueue<>(false);
+    private final AccessQueue<K, V> probation = new AccessQueue<>(false);
+    private final AccessQueue<K, V> protectedQueue = new AccessQueue<>(false);
+    private final AccessQueue<K, V> writeQueue = new AccessQueue<>(true);
+    private int maxWindow;
+    private int stepSize;
+    private long sampledRequests;
+    private long sampledHits;
+    private double previousHitRate;
+
+    public TinyLfuCache(int maxEntries) {
+        this(maxEntries, null);
+    }
+
+    public TinyLfuCache(int maxEntries, RemoveCallback<K, V> removeCallback) {
+        this(maxEntries, 0, TimeUnit.NANOSECONDS, removeCallback);
+    }
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxEntries the maximum number of entries retained by the cache
+     * @param expireAfterWrite the duration after which entries expire following their creation or last update, or 0 if entries never expire
+     * @param unit the unit of the expiration duration
+     * @param removeCallback an optional callback notified of entries leaving the cache
+     */
+    @SuppressWarnings("unchecked")
+    public TinyLfuCache(int maxEntries, long expireAfterWrite, TimeUnit unit, RemoveCallback<K, V> removeCallback) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException(Integer.toString(maxEntries));
+        }
+        this.maxEntries = maxEntries;
+        this.expireAfterWriteNanos = unit.toNanos(expireAfterWrite);
+        this.removeCallback = removeCallback;
+        this.sketch = new FrequencySketch(maxEntries);
+        this.maxWindow = Math.max(1, maxEntries / 100);
+        this.stepSize = Math.max(1, maxEntries / 16);
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        int count = (processors <= 1) ? 1 : Integer.highestOneBit(processors - 1) << 1;
+        this.readBuffers = new ReadBuffer[count];
+        for (int i = 0; i < count; ++i) {
+            this.readBuffers[i] = new ReadBuffer<>();
+        }
+        this.readBufferMask = count - 1;
+    }
+
+    @Override
+    public V get(Object key) {
+        @SuppressWarnings("SuspiciousMethodCalls")
+        Node<K, V> node = this.cache.get(key);
+        if (node == null) {
+            this.misses.increment();
+            return null;
+        }
+        V value = node.value;
+        if (this.isExpired(node, System.nanoTime())) {
+            this.misses.increment();
+            if (this.cache.remove(node.key, node)) {
+                this.afterRemoval(node, true);
+            }
+            return null;
+        }
+        this.hits.increment();
+        this.afterRead(node);
+        return value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        @SuppressWarnings("SuspiciousMethodCalls")
+        Node<K, V> node = this.cache.get(key);
+        return (node != null) && !this.isExpired(node, System.nanoTime());
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return this.put(key, value, false);
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return this.put(key, value, true);
+    }
+
+    private V put(K key, V value, boolean ifAbsent) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        for (;;) {
+            Node<K, V> node = this.cache.get(key);
+            if (node == null) {
+                node = new Node<>(key, value, System.nanoTime());
+                if (this.cache.putIfAbsent(key, node) == null) {
+                    this.afterCreation(node);
+                    return null;
+                }
+                continue;
+            }
+            long now = System.nanoTime();
+            if (this.isExpired(node, now)) {
+                // Replace the stale entry by a fresh one
+                if (this.cache.remove(key, node)) {
+                    this.afterRemoval(node, true);
+                }
+                continue;
+            }
+            V old = node.value;
+            if (ifAbsent) {
+                this.afterRead(node);
+                return old;
+            }
+            synchronized (node) {
+                if (node.retired) {
+                    continue;
+                }
+                node.value = value;
+                node.writeTime = now;
+            }
+            this.afterUpdate(node);
+            return old;
+        }
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        Node<K, V> node = this.cache.get(key);
+        if (node == null || this.isExpired(node, System.nanoTime())) {
+            return null;
+        }
+        V old;
+        synchronized (node) {
+            if (node.retired) {
+                return null;
+            }
+            old = node.value;
+            node.value = value;
+            node.writeTime = System.nanoTime();
+        }
+        this.afterUpdate(node);
+        this.notifyRemoval(key, old);
+        return old;
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        if (newValue == null) {
+            throw new NullPointerException();
+        }
+        Node<K, V> node = this.cache.get(key);
+        if (node == null || this.isExpired(node, System.nanoTime())) {
+            return false;
+        }
+        synchronized (node) {
+            if (node.retired || node.value != oldValue) {
+                return false;
+            }
+            node.value = newValue;
+            node.writeTime = System.nanoTime();
+        }
+        this.afterUpdate(node);
+        this.notifyRemoval(key, oldValue);
+        return true;
+    }
+
+    @Override
+    public V remove(Object key) {
+        @SuppressWarnings("SuspiciousMethodCalls")
+        Node<K, V> node = this.cache.remove(key);
+        if (node == null) {
+            return null;
+        }
+        V value = this.afterRemoval(node, false);
+        this.notifyRemoval(node.key, value);
+        return value;
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        @SuppressWarnings("SuspiciousMethodCalls")
+        Node<K, V> node = this.cache.get(key);
+        if (node == null || node.value != value || !this.cache.remove(key, node)) {
+            return false;
+        }
+        this.afterRemoval(node, false);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        for (Node<K, V> node : this.cache.values()) {
+            if (this.cache.remove(node.key, node)) {
+                V value = this.afterRemoval(node, false);
+                this.notifyRemoval(node.key, value);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.cache.size();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new EntrySet();
+    }
+
+    public int getMaxEntries() {
+        return this.maxEntries;
+    }
+
+    /**
+     * Returns the number of lookups that found a live entry.
+     */
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups that found no entry, or an expired entry.
+     */
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    /**
+     * Returns the number of entries that left the cache because it exceeded its capacity, or because they expired.
+     */
+    public long getEvictionCount() {
+        return this.evictions.sum();
+    }
+
+    /**
+     * Forces any buffered reads, expirations and evictions to be applied to the cache.
+     */
+    public void cleanUp() {
+        List<Node<K, V>> removed = new ArrayList<>();
+        this.evictionLock.lock();
+        try {
+            this.maintain(removed);
+        } finally {
+            this.evictionLock.unlock();
+        }
+        this.notifyEvictions(removed);
+    }
+
+    private boolean isExpired(Node<K, V> node, long now) {
+        return (this.expireAfterWriteNanos > 0) && (now - node.writeTime >= this.expireAfterWriteNanos);
+    }
+
+    private void afterRead(Node<K, V> node) {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        ReadBuffer<K, V> buffer = this.readBuffers[(hash ^ (hash >>> 16)) & this.readBufferMask];
+        if (buffer.offer(node) && this.evictionLock.tryLock()) {
+            List<Node<K, V>> removed = new ArrayList<>();
+            try {
+                this.maintain(removed);
+            } finally {
+                this.evictionLock.unlock();
+            }
+            this.notifyEvictions(removed);
+        }
+    }
+
+    private void afterCreation(Node<K, V> node) {
+        List<Node<K, V>> removed = new ArrayList<>();
+        this.evictionLock.lock();
+        try {
+            this.drainReadBuffers();
+            // The node might already have been removed by a concurrent thread
+            if (!node.retired) {
+                this.sketch.increment(node.key);
+                node.queue = Node.WINDOW;
+                this.window.offer(node);
+                if (this.expireAfterWriteNanos > 0) {
+                    this.writeQueue.offer(node);
+                }
+            }
+            this.maintain(removed);
+        } finally {
+            this.evictionLock.unlock();
+        }
+        this.notifyEvictions(removed);
+    }
+
+    private void afterUpdate(Node<K, V> node) {
+        List<Node<K, V>> removed = new ArrayList<>();
+        this.evictionLock.lock();
+        try {
+            this.drainReadBuffers();
+            if (node.queue != Node.NONE) {
+                this.onAccess(node);
+                if (this.expireAfterWriteNanos > 0) {
+                    this.writeQueue.moveToBack(node);
+                }
+            }
+            this.maintain(removed);
+        } finally {
+            this.evictionLock.unlock();
+        }
+        this.notifyEvictions(removed);
+    }
+
+    /**
+     * Unlinks a node that was removed from the map by the calling thread.
+     *
+     * @return the final value of the node
+     */
+    private V afterRemoval(Node<K, V> node, boolean expired) {
+        V value;
+        synchronized (node) {
+            node.retired = true;
+            value = node.value;
+        }
+        List<Node<K, V>> removed = new ArrayList<>();
+        this.evictionLock.lock();
+        try {
+            this.unlink(node);
+            if (expired) {
+                this.evictions.increment();
+                removed.add(node);
+            }
+            this.maintain(removed);
+        } finally {
+            this.evictionLock.unlock();
+        }
+        this.notifyEvictions(removed);
+        return value;
+    }
+
+    private void notifyEvictions(List<Node<K, V>> removed) {
+        for (Node<K, V> node : removed) {
+            this.notifyRemoval(node.key, node.value);
+        }
+    }
+
+    private void notifyRemoval(K key, V value) {
+        if (this.removeCallback != null) {
+            this.removeCallback.afterRemove(key, value);
+        }
+    }
+
+    // Guarded by evictionLock
+    private void maintain(List<Node<K, V>> removed) {
+        this.drainReadBuffers();
+        this.expire(removed);
+        this.climb();
+        this.evict(removed);
+    }
+
+    // Guarded by evictionLock
+    private void drainReadBuffers() {
+        for (ReadBuffer<K, V> buffer : this.readBuffers) {
+            buffer.drain(this);
+        }
+    }
+
+    // Guarded by evictionLock
+    private void onAccess(Node<K, V> node) {
+        this.sketch.increment(node.key);
+        switch (node.queue) {
+            case Node.WINDOW:
+                this.window.moveToBack(node);
+                break;
+            case Node.PROBATION:
+                this.probation.remove(node);
+                node.queue = Node.PROTECTED;
+                this.protectedQueue.offer(node);
+                this.demote();
+                break;
+            case Node.PROTECTED:
+                this.protectedQueue.moveToBack(node);
+                break;
+            default:
+                // Already removed
+        }
+    }
+
+    // Guarded by evictionLock
+    private void demote() {
+        int maxProtected = (this.maxEntries - this.maxWindow) * PROTECTED_PERCENTAGE / 100;
+        while (this.protectedQueue.size > maxProtected) {
+            Node<K, V> node = this.protectedQueue.poll();
+            node.queue = Node.PROBATION;
+            this.probation.offer(node);
+        }
+    }
+
+    // Guarded by evictionLock
+    private void expire(List<Node<K, V>> removed) {
+        if (this.expireAfterWriteNanos > 0) {
+            long now = System.nanoTime();
+            for (Node<K, V> node = this.writeQueue.peek(); (node != null) && this.isExpired(node, now); node = this.writeQueue.peek()) {
+                this.evict(node, removed);
+            }
+        }
+    }
+
+    /**
+     * Adapts the size of the admission window, growing it while doing so improves the hit rate and shrinking it otherwise.
+     */
+    // Guarded by evictionLock
+    private void climb() {
+        long hitCount = this.hits.sum();
+        long requestCount = hitCount + this.misses.sum();
+        long sampled = requestCount - this.sampledRequests;
+        if (sampled < 10L * this.maxEntries) {
+            return;
+        }
+        double hitRate = (double) (hitCount - this.sampledHits) / sampled;
+        double change = hitRate - this.previousHitRate;
+        if (change < 0) {
+            this.stepSize = -this.stepSize;
+        }
+        if (Math.abs(change) >= HILL_CLIMBER_RESTART_THRESHOLD) {
+            this.stepSize = Integer.signum(this.stepSize) * Math.max(1, this.maxEntries / 16);
+        } else if (Math.abs(this.stepSize) > 1) {
+            // Converge as the hit rate stabilises
+            this.stepSize = this.stepSize * 3 / 4;
+        }
+        this.maxWindow = Math.max(1, Math.min(this.maxEntries - 1, this.maxWindow + this.stepSize));
+        this.previousHitRate = hitRate;
+        this.sampledRequests = requestCount;
+        this.sampledHits = hitCount;
+        this.demote();
+    }
+
+    // Guarded by evictionLock
+    private void evict(List<Node<K, V>> removed) {
+        while (this.window.size > this.maxWindow) {
+            Node<K, V> node = this.window.poll();
+            node.queue = Node.PROBATION;
+            this.probation.offer(node);
+        }
+        while (this.window.size + this.probation.size + this.protectedQueue.size > this.maxEntries) {
+            // The most recent arrival on probation competes with the least recently used entry on probation
+            Node<K, V> victim = this.probation.peek();
+            Node<K, V> candidate = this.probation.tail;
+            Node<K, V> node;
+            if (victim == null) {
+                node = (this.protectedQueue.peek() != null) ? this.protectedQueue.peek() : this.window.peek();
+            } else if (victim == candidate) {
+                node = victim;
+            } else {
+                node = (this.sketch.frequency(candidate.key) > this.sketch.frequency(victim.key)) ? victim : candidate;
+            }
+            this.evict(node, removed);
+        }
+    }
+
+    // Guarded by evictionLock
+    private void evict(Node<K, V> node, List<Node<K, V>> removed) {
+        this.unlink(node);
+        // Prevent a concurrent update from being applied to the evicted node
+        synchronized (node) {
+            if (!this.cache.remove(node.key, node)) {
+                // Already removed by a concurrent thread
+                return;
+            }
+            node.retired = true;
+        }
+        this.evictions.increment();
+        removed.add(node);
+    }
+
+    // Guarded by evictionLock
+    private void unlink(Node<K, V> node) {
+        switch (node.queue) {
+            case Node.WINDOW:
+                this.window.remove(node);
+                break;
+            case Node.PROBATION:
+                this.probation.remove(node);
+                break;
+            case Node.PROTECTED:
+                this.protectedQueue.remove(node);
+                break;
+            default:
+                return;
+        }
+        node.queue = Node.NONE;
+        if (this.expireAfterWriteNanos > 0) {
+            this.writeQueue.remove(node);
+        }
+    }
+
+    private static final class Node<K, V> {
+        static final int NONE = 0;
+        static final int WINDOW = 1;
+        static final int PROBATION = 2;
+        static final int PROTECTED = 3;
+
+        final K key;
+        volatile V value;
+        volatile long writeTime;
+        // Guarded by the node monitor
+        volatile boolean retired = false;
+
+        // Guarded by evictionLock
+        int queue = NONE;
+        Node<K, V> accessPrevious;
+        Node<K, V> accessNext;
+        Node<K, V> writePrevious;
+        Node<K, V> writeNext;
+
+        Node(K key, V value, long writeTime) {
+            this.key = key;
+            this.value = value;
+            this.writeTime = writeTime;
+        }
+    }
+
+    /**
+     * An intrusive doubly linked list of nodes, ordered either by access or by write.
+     */
+    private static final class AccessQueue<K, V> {
+        private final boolean writeOrder;
+        Node<K, V> head;
+        Node<K, V> tail;
+        int size;
+
+        AccessQueue(boolean writeOrder) {
+            this.writeOrder = writeOrder;
+        }
+
+        Node<K, V> peek() {
+            return this.head;
+        }
+
+        Node<K, V> poll() {
+            Node<K, V> node = this.head;
+            if (node != null) {
+                this.remove(node);
+            }
+            return node;
+        }
+
+        void offer(Node<K, V> node) {
+            this.setPrevious(node, this.tail);
+            this.setNext(node, null);
+            if (this.tail == null) {
+                this.head = node;
+            } else {
+                this.setNext(this.tail, node);
+            }
+            this.tail = node;
+            this.size += 1;
+        }
+
+        void moveToBack(Node<K, V> node) {
+            if (this.tail != node) {
+                this.remove(node);
+                this.offer(node);
+            }
+        }
+
+        void remove(Node<K, V> node) {
+            Node<K, V> previous = this.previous(node);
+            Node<K, V> next = this.next(node);
+            if (previous == null) {
+                this.head = next;
+            } else {
+                this.setNext(previous, next);
+            }
+            if (next == null) {
+                this.tail = previous;
+            } else {
+                this.setPrevious(next, previous);
+            }
+            this.setPrevious(node, null);
+            this.setNext(node, null);
+            this.size -= 1;
+        }
+
+        private Node<K, V> previous(Node<K, V> node) {
+            return this.writeOrder ? node.writePrevious : node.accessPrevious;
+        }
+
+        private Node<K, V> next(Node<K, V> node) {
+            return this.writeOrder ? node.writeNext : node.accessNext;
+        }
+
+        private void setPrevious(Node<K, V> node, Node<K, V> previous) {
+            if (this.writeOrder) {
+                node.writePrevious = previous;
+            } else {
+                node.accessPrevious = previous;
+            }
+        }
+
+        private void setNext(Node<K, V> node, Node<K, V> next) {
+            if (this.writeOrder) {
+                node.writeNext = next;
+            } else {
+                node.accessNext = next;
+            }
+        }
+    }
+
+    /**
+     * A lossy ring buffer of recently read nodes. Reads are dropped rather than blocking when the buffer is full,
+     * which only degrades the accuracy of the policy.
+     */
+    private static final class ReadBuffer<K, V> {
+        private final AtomicReferenceArray<Node<K, V>> slots = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        private final AtomicLong writes = new AtomicLong();
+        // Guarded by evictionLock
+        private volatile long reads = 0;
+
+        /**
+         * Records a read of the specified node.
+         *
+         * @return true, if the buffer should be drained
+         */
+        boolean offer(Node<K, V> node) {
+            long write = this.writes.get();
+            long pending = write - this.reads;
+            if (pending >= READ_BUFFER_SIZE) {
+                return true;
+            }
+            if (this.writes.compareAndSet(write, write + 1)) {
+                this.slots.lazySet((int) (write & READ_BUFFER_MASK), node);
+                return pending + 1 >= READ_BUFFER_DRAIN_THRESHOLD;
+            }
+            // Lost a race with another reader, so drop this read
+            return false;
+        }
+
+        // Guarded by evictionLock
+        void drain(TinyLfuCache<K, V> cache) {
+            long read = this.reads;
+            long write = this.writes.get();
+            for (; read < write; ++read) {
+                int index = (int) (read & READ_BUFFER_MASK);
+                Node<K, V> node = this.slots.get(index);
+                if (node == null) {
+                    // Slot reserved, but not yet published
+                    break;
+                }
+                this.slots.lazySet(index, null);
+                cache.onAccess(node);
+            }
+            this.reads = read;
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Entry<K, V>> {
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new EntryIterator(TinyLfuCache.this.cache.values().iterator());
+        }
+
+        @Override
+        public int size() {
+            return TinyLfuCache.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Entry))
+                return false;
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            @SuppressWarnings("SuspiciousMethodCalls")
+            Node<K, V> node = TinyLfuCache.this.cache.get(e.getKey());
+            return node != null && !TinyLfuCache.this.isExpired(node, System.nanoTime()) && node.value.equals(e.getValue());
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!(o instanceof Entry))
+                return false;
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            return TinyLfuCache.this.remove(e.getKey()) != null;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return TinyLfuCache.this.isEmpty();
+        }
+
+        @Override
+        public void clear() {
+            TinyLfuCache.this.clear();
+        }
+    }
+
+    /**
+     * Iterates over the live entries of the cache, skipping those that have expired.
+     */
+    private class EntryIterator implements Iterator<Entry<K, V>> {
+        private final Iterator<Node<K, V>> nodes;
+        private Node<K, V> next;
+        private Node<K, V> last;
+
+        EntryIterator(Iterator<Node<K, V>> nodes) {
+            this.nodes = nodes;
+            this.advance();
+        }
+
+        private void advance() {
+            long now = System.nanoTime();
+            this.next = null;
+            while (this.nodes.hasNext() && (this.next == null)) {
+                Node<K, V> node = this.nodes.next();
+                if (!TinyLfuCache.this.isExpired(node, now)) {
+                    this.next = node;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            Node<K, V> node = this.next;
+            if (node == null) {
+                throw new NoSuchElementException();
+            }
+            this.last = node;
+            this.advance();
+            return new SimpleEntry<K, V>(node.key, node.value) {
+                @Override
+                public V setValue(V value) {
+                    V old = TinyLfuCache.this.put(node.key, value);
+                    super.setValue(value);
+                    return old;
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (this.last == null) {
+                throw new IllegalStateException("next() not called");
+            }
+            TinyLfuCache.this.remove(this.last.key);
+            this.last = null;
+        }
+    }
+}
@@ -25,7 +25,7 @@ package org.jboss.as.security.plugins;
 import java.security.Principal;
 import java.util.concurrent.ConcurrentMap;
 
-import org.jboss.as.security.lru.LRUCache;
+import org.jboss.as.security.lru.TinyLfuCache;
 import org.jboss.security.authentication.JBossCachedAuthenticationManager.DomainInfo;
 
 /**
@@ -41,7 +41,7 @@ public class DefaultAuthenticationCacheFactory implements AuthenticationCacheFac
      * @return cache implementation
      */
     public ConcurrentMap<Principal, DomainInfo> getCache() {
-        return new LRUCache<>(1000, (key, value) -> {
+        return new TinyLfuCache<>(1000, (key, value) -> {
             if (value != null) {
                 value.logout();
             }
@@ -22,6 +22,7 @@
 
 package org.jboss.as.security.service;
 
+import java.security.Principal;
 import java.util.concurrent.ConcurrentMap;
 
 import javax.security.auth.login.Configuration;
@@ -41,6 +42,7 @@ import org.jboss.msc.service.StopContext;
 import org.jboss.msc.value.InjectedValue;
 import org.jboss.security.ISecurityManagement;
 import org.jboss.security.JSSESecurityDomain;
+import org.jboss.security.authentication.JBossCachedAuthenticationManager.DomainInfo;
 import org.jboss.security.config.ApplicationPolicy;
 import org.jboss.security.config.ApplicationPolicyRegistration;
 
@@ -69,6 +71,8 @@ public class SecurityDomainService implements Service<SecurityDomainContext> {
 
     private final String cacheType;
 
+    private volatile ConcurrentMap<Principal, DomainInfo> defaultCache;
+
     public SecurityDomainService(String name, ApplicationPolicy applicationPolicy, JSSESecurityDomain jsseSecurityDomain,
             String cacheType) {
         this.name = name;
@@ -91,7 +95,12 @@ public class SecurityDomainService implements Service<SecurityDomainContext> {
         if ("infinispan".equals(cacheType)) {
             cacheFactory = () -> this.cacheValue.getValue();
         } else if ("default".equals(cacheType)) {
-            cacheFactory = new DefaultAuthenticationCacheFactory();
+            AuthenticationCacheFactory defaultCacheFactory = new DefaultAuthenticationCacheFactory();
+            cacheFactory = () -> {
+                ConcurrentMap<Principal, DomainInfo> cache = defaultCacheFactory.getCache();
+                this.defaultCache = cache;
+                return cache;
+            };
         }
         SecurityDomainContext sdc;
         try {
@@ -120,6 +129,7 @@ public class SecurityDomainService implements Service<SecurityDomainContext> {
         final ApplicationPolicyRegistration applicationPolicyRegistration = (ApplicationPolicyRegistration) configurationValue
                 .getValue();
         applicationPolicyRegistration.removeApplicationPolicy(name);
+        this.defaultCache = null;
     }
 
     /** {@inheritDoc} */
@@ -128,6 +138,15 @@ public class SecurityDomainService implements Service<SecurityDomainContext> {
         return securityDomainContext;
     }
 
+    /**
+     * Returns the authentication cache created for a security domain using the default cache type.
+     *
+     * @return the authentication cache, or null if this security domain uses no cache or an infinispan cache
+     */
+    public ConcurrentMap<Principal, DomainInfo> getDefaultCache() {
+        return this.defaultCache;
+    }
+
     /**
      * Target {@code Injector}
      *
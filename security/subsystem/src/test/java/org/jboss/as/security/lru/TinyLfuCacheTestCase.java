@@ -0,0 +1,113 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jboss.as.security.lru;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TinyLfuCacheTestCase {
+
+    @Test
+    public void evictionRetainsFrequentEntries() {
+        List<Integer> removed = new ArrayList<>();
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(100, (key, value) -> removed.add(key));
+
+        for (int i = 0; i < 100; ++i) {
+            cache.put(i, Integer.toString(i));
+        }
+        // Make the first half popular
+        for (int round = 0; round < 5; ++round) {
+            for (int i = 0; i < 50; ++i) {
+                assertEquals(Integer.toString(i), cache.get(i));
+            }
+            cache.cleanUp();
+        }
+        // Scan through entries that are only used once
+        for (int i = 1000; i < 2000; ++i) {
+            cache.put(i, Integer.toString(i));
+        }
+        cache.cleanUp();
+
+        assertEquals(100, cache.size());
+        assertEquals(1000, cache.getEvictionCount());
+        assertEquals(1000, removed.size());
+        for (int i = 0; i < 50; ++i) {
+            assertTrue(Integer.toString(i), cache.containsKey(i));
+        }
+        assertEquals(250, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    public void expiration() throws InterruptedException {
+        List<Integer> removed = new ArrayList<>();
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(10, 50, TimeUnit.MILLISECONDS, (key, value) -> removed.add(key));
+
+        cache.put(1, "1");
+        cache.put(2, "2");
+        assertEquals("1", cache.get(1));
+
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        assertNull(cache.get(1));
+        assertFalse(cache.containsKey(2));
+        assertTrue(cache.isEmpty() || cache.entrySet().isEmpty());
+
+        cache.put(3, "3");
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.getEvictionCount());
+        assertEquals(2, removed.size());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void removeCallback() {
+        List<String> removed = new ArrayList<>();
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(10, (key, value) -> removed.add(value));
+
+        cache.put(1, "a");
+        cache.put(2, "b");
+        cache.put(3, "c");
+
+        assertEquals("a", cache.replace(1, "A"));
+        assertFalse(cache.replace(2, "x", "B"));
+        assertTrue(cache.replace(2, "b", "B"));
+        assertTrue(cache.remove(3, "c"));
+        assertEquals("A", cache.remove(1));
+        assertNull(cache.putIfAbsent(4, "d"));
+        assertEquals("d", cache.putIfAbsent(4, "e"));
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getEvictionCount());
+        assertEquals(Arrays.asList("a", "b", "A"), removed.subList(0, 3));
+        assertEquals(5, removed.size());
+        assertTrue(removed.containsAll(Arrays.asList("B", "d")));
+    }
+}
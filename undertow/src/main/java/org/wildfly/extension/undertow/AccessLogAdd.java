@@ -62,6 +62,8 @@ class AccessLogAdd extends AbstractAddStepHandler {
         final boolean extended = AccessLogDefinition.EXTENDED.resolveModelAttribute(context, model).asBoolean();
         final ModelNode relativeToNode = AccessLogDefinition.RELATIVE_TO.resolveModelAttribute(context, model);
         final String relativeTo = relativeToNode.isDefined() ? relativeToNode.asString() : null;
+        final AccessLogFormat format = AccessLogFormat.valueOf(AccessLogDefinition.FORMAT.resolveModelAttribute(context, model).asString());
+        final int queueSize = AccessLogDefinition.QUEUE_SIZE.resolveModelAttribute(context, model).asInt();
 
         Predicate predicate = null;
         ModelNode predicateNode = AccessLogDefinition.PREDICATE.resolveModelAttribute(context, model);
@@ -71,9 +73,9 @@ class AccessLogAdd extends AbstractAddStepHandler {
 
         final AccessLogService service;
         if (useServerLog) {
-            service = new AccessLogService(pattern, extended, predicate);
+            service = new AccessLogService(pattern, extended, predicate, format, queueSize);
         } else {
-            service = new AccessLogService(pattern, directory, relativeTo, filePrefix, fileSuffix, rotate, extended, predicate);
+            service = new AccessLogService(pattern, directory, relativeTo, filePrefix, fileSuffix, rotate, extended, predicate, format, queueSize);
         }
 
         final String serverName = serverAddress.getLastElement().getValue();
@@ -0,0 +1,169 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.extension.undertow;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.undertow.security.api.SecurityContext;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
+
+/**
+ * A bounded ring of preallocated access log records, into which any number of threads capture the raw attributes of
+ * completed exchanges, and from which a single thread consumes them. A record is captured by reference, so that
+ * formatting is entirely left to the consumer. If the ring is full, the record is dropped rather than blocking the
+ * thread completing the exchange.
+ */
+class AccessLogRingBuffer {
+
+    private final Record[] records;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // Only written by the consumer
+    private volatile long head = 0;
+    private final LongAdder dropped = new LongAdder();
+
+    AccessLogRingBuffer(int capacity) {
+        int size = (capacity <= 1) ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.records = new Record[size];
+        for (int i = 0; i < size; ++i) {
+            this.records[i] = new Record(i);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Captures the attributes of the specified completed exchange.
+     * @return false, if the ring was full and the record was dropped
+     */
+    boolean offer(HttpServerExchange exchange) {
+        for (;;) {
+            long position = this.tail.get();
+            Record record = this.records[(int) position & this.mask];
+            long difference = record.sequence - position;
+            if (difference == 0) {
+                if (this.tail.compareAndSet(position, position + 1)) {
+                    record.capture(exchange);
+                    // Publish the record to the consumer
+                    record.sequence = position + 1;
+                    return true;
+                }
+            } else if (difference < 0) {
+                this.dropped.increment();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Returns the oldest published record, or null if there is none. Must only be called by the consumer.
+     */
+    Record peek() {
+        long head = this.head;
+        Record record = this.records[(int) head & this.mask];
+        return (record.sequence == head + 1) ? record : null;
+    }
+
+    /**
+     * Returns the record returned by {@link #peek()} to the producers. Must only be called by the consumer.
+     */
+    void release(Record record) {
+        long head = this.head;
+        record.clear();
+        record.sequence = head + this.records.length;
+        this.head = head + 1;
+    }
+
+    int getCapacity() {
+        return this.records.length;
+    }
+
+    int size() {
+        return (int) Math.max(0L, this.tail.get() - this.head);
+    }
+
+    long getDroppedCount() {
+        return this.dropped.sum();
+    }
+
+    /**
+     * The raw attributes of a completed exchange.
+     */
+    static class Record {
+        volatile long sequence;
+
+        long timestamp;
+        long responseTime;
+        int status;
+        long bytesSent;
+        InetSocketAddress sourceAddress;
+        String remoteUser;
+        HttpString method;
+        String requestURI;
+        String queryString;
+        HttpString protocol;
+        String referer;
+        String userAgent;
+
+        Record(long sequence) {
+            this.sequence = sequence;
+        }
+
+        void capture(HttpServerExchange exchange) {
+            this.timestamp = System.currentTimeMillis();
+            long start = exchange.getRequestStartTime();
+            // The request start time is only recorded if enabled on the listener
+            this.responseTime = (start > 0) ? (System.nanoTime() - start) / 1000000L : -1L;
+            this.status = exchange.getStatusCode();
+            this.bytesSent = exchange.getResponseBytesSent();
+            this.sourceAddress = exchange.getSourceAddress();
+            SecurityContext context = exchange.getSecurityContext();
+            this.remoteUser = ((context != null) && context.isAuthenticated()) ? context.getAuthenticatedAccount().getPrincipal().getName() : null;
+            this.method = exchange.getRequestMethod();
+            this.requestURI = exchange.getRequestURI();
+            this.queryString = exchange.getQueryString();
+            this.protocol = exchange.getProtocol();
+            this.referer = exchange.getRequestHeaders().getFirst(Headers.REFERER);
+            this.userAgent = exchange.getRequestHeaders().getFirst(Headers.USER_AGENT);
+        }
+
+        void clear() {
+            this.sourceAddress = null;
+            this.remoteUser = null;
+            this.method = null;
+            this.requestURI = null;
+            this.queryString = null;
+            this.protocol = null;
+            this.referer = null;
+            this.userAgent = null;
+        }
+
+        String getRemoteAddress() {
+            InetSocketAddress address = this.sourceAddress;
+            if (address == null) return null;
+            return (address.getAddress() != null) ? address.getAddress().getHostAddress() : address.getHostString();
+        }
+    }
+}
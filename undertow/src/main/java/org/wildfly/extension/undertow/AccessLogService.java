@@ -61,7 +61,10 @@ class AccessLogService implements Service<AccessLogService> {
     private final boolean useServerLog;
     private final boolean extended;
     private final Predicate predicate;
+    private final AccessLogFormat format;
+    private final int queueSize;
     private volatile AccessLogReceiver logReceiver;
+    private volatile AsyncAccessLogWriter asyncWriter;
 
 
     private PathManager.Callback.Handle callbackHandle;
@@ -72,7 +75,7 @@ class AccessLogService implements Service<AccessLogService> {
     private final InjectedValue<PathManager> pathManager = new InjectedValue<PathManager>();
 
 
-    AccessLogService(String pattern, boolean extended, Predicate predicate) {
+    AccessLogService(String pattern, boolean extended, Predicate predicate, AccessLogFormat format, int queueSize) {
         this.pattern = pattern;
         this.extended = extended;
         this.path = null;
@@ -82,9 +85,11 @@ class AccessLogService implements Service<AccessLogService> {
         this.useServerLog = true;
         this.rotate = false; //doesn't really matter
         this.predicate = predicate == null ? Predicates.truePredicate() : predicate;
+        this.format = format;
+        this.queueSize = queueSize;
     }
 
-    AccessLogService(String pattern, String path, String pathRelativeTo, String filePrefix, String fileSuffix, boolean rotate, boolean extended, Predicate predicate) {
+    AccessLogService(String pattern, String path, String pathRelativeTo, String filePrefix, String fileSuffix, boolean rotate, boolean extended, Predicate predicate, AccessLogFormat format, int queueSize) {
         this.pattern = pattern;
         this.path = path;
         this.pathRelativeTo = pathRelativeTo;
@@ -94,12 +99,18 @@ class AccessLogService implements Service<AccessLogService> {
         this.extended = extended;
         this.useServerLog = false;
         this.predicate = predicate == null ? Predicates.truePredicate() : predicate;
+        this.format = format;
+        this.queueSize = queueSize;
     }
 
     @Override
     public void start(StartContext context) throws StartException {
         if (useServerLog) {
-            logReceiver = new JBossLoggingAccessLogReceiver();
+            if (format != AccessLogFormat.TEXT) {
+                asyncWriter = new AsyncAccessLogWriter(queueSize, worker.getValue());
+            } else {
+                logReceiver = new JBossLoggingAccessLogReceiver();
+            }
         } else {
             if (pathRelativeTo != null) {
                 callbackHandle = pathManager.getValue().registerCallback(pathRelativeTo, PathManager.ReloadServerCallback.create(), PathManager.Event.UPDATED, PathManager.Event.REMOVED);
@@ -112,21 +123,31 @@ class AccessLogService implements Service<AccessLogService> {
                     throw UndertowLogger.ROOT_LOGGER.couldNotCreateLogDirectory(directory, e);
                 }
             }
-            try {
-                DefaultAccessLogReceiver.Builder builder = DefaultAccessLogReceiver.builder().setLogWriteExecutor(worker.getValue())
-                        .setOutputDirectory(directory)
-                        .setLogBaseName(filePrefix)
-                        .setLogNameSuffix(fileSuffix)
-                        .setRotate(rotate);
-                if(extended) {
-                    builder.setLogFileHeaderGenerator(new ExtendedAccessLogParser.ExtendedAccessLogHeaderGenerator(pattern));
-                    extendedPattern = new ExtendedAccessLogParser(getClass().getClassLoader()).parse(pattern);
-                } else {
-                    extendedPattern = null;
+            if (format != AccessLogFormat.TEXT) {
+                AsyncAccessLogWriter writer = new AsyncAccessLogWriter(format, queueSize, worker.getValue(), directory, filePrefix, fileSuffix, rotate);
+                try {
+                    writer.open();
+                } catch (IOException e) {
+                    throw new StartException(e);
+                }
+                asyncWriter = writer;
+            } else {
+                try {
+                    DefaultAccessLogReceiver.Builder builder = DefaultAccessLogReceiver.builder().setLogWriteExecutor(worker.getValue())
+                            .setOutputDirectory(directory)
+                            .setLogBaseName(filePrefix)
+                            .setLogNameSuffix(fileSuffix)
+                            .setRotate(rotate);
+                    if(extended) {
+                        builder.setLogFileHeaderGenerator(new ExtendedAccessLogParser.ExtendedAccessLogHeaderGenerator(pattern));
+                        extendedPattern = new ExtendedAccessLogParser(getClass().getClassLoader()).parse(pattern);
+                    } else {
+                        extendedPattern = null;
+                    }
+                    logReceiver = builder.build();
+                } catch (IllegalStateException e) {
+                    throw new StartException(e);
                 }
-                logReceiver = builder.build();
-            } catch (IllegalStateException e) {
-                throw new StartException(e);
             }
         }
         host.getValue().setAccessLogService(this);
@@ -143,6 +164,10 @@ class AccessLogService implements Service<AccessLogService> {
             IoUtils.safeClose((DefaultAccessLogReceiver) logReceiver);
         }
         logReceiver = null;
+        if (asyncWriter != null) {
+            IoUtils.safeClose(asyncWriter);
+            asyncWriter = null;
+        }
     }
 
     @Override
@@ -158,7 +183,11 @@ class AccessLogService implements Service<AccessLogService> {
         return pathManager;
     }
 
-    protected AccessLogHandler configureAccessLogHandler(HttpHandler handler) {
+    protected HttpHandler configureAccessLogHandler(HttpHandler handler) {
+        AsyncAccessLogWriter writer = asyncWriter;
+        if (writer != null) {
+            return new StructuredAccessLogHandler(handler, writer, predicate);
+        }
         if(extendedPattern != null) {
             return new AccessLogHandler(handler, logReceiver, pattern, extendedPattern, predicate);
         } else {
@@ -177,4 +206,14 @@ class AccessLogService implements Service<AccessLogService> {
     String getPath() {
         return path;
     }
+
+    long getDroppedRecords() {
+        AsyncAccessLogWriter writer = asyncWriter;
+        return (writer != null) ? writer.getDroppedRecords() : 0L;
+    }
+
+    int getQueueDepth() {
+        AsyncAccessLogWriter writer = asyncWriter;
+        return (writer != null) ? writer.getQueueDepth() : 0;
+    }
 }
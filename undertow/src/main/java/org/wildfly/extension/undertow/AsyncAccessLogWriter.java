@@ -0,0 +1,330 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.extension.undertow;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.undertow.server.HttpServerExchange;
+import org.jboss.logging.Logger;
+import org.wildfly.extension.undertow.logging.UndertowLogger;
+
+/**
+ * Writes the records of an {@link AccessLogRingBuffer} as JSON lines or compact binary records, either to a file or to
+ * the server log. As for the default access log receiver, records are written by a task submitted to the worker of the
+ * access log when the ring becomes non-empty, which drains every published record before flushing, so that records are
+ * written in large batches. A file left by a previous run in another format is archived on opening, as if rotated,
+ * rather than appended with records of this format.
+ * <p/>
+ * A binary file starts with the magic number {@code 0x55414C42} and a version short. Each record then consists of:
+ * the timestamp in milliseconds since the epoch (long), the status code (int), the number of bytes sent (long), the
+ * response time in milliseconds, or -1 if not recorded (long), followed by the remote address, remote user, method,
+ * protocol, request URI, query string, referer and user agent, each as an int length of UTF-8 bytes, or -1 if absent,
+ * followed by the bytes.
+ */
+class AsyncAccessLogWriter implements Runnable, Closeable {
+
+    static final int BINARY_MAGIC = 0x55414C42;
+    static final short BINARY_VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // The category of the default access log receiver writing to the server log
+    private static final Logger SERVER_LOG = Logger.getLogger("io.undertow.accesslog");
+
+    private final AccessLogRingBuffer ring;
+    private final Executor executor;
+    private final AccessLogFormat format;
+    private final Path directory;
+    private final String prefix;
+    private final String suffix;
+    private final boolean rotate;
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final StringBuilder line = new StringBuilder(256);
+
+    // Guarded by this
+    private OutputStream output;
+    private LocalDate date;
+    private boolean closed = false;
+
+    /**
+     * Creates a writer of JSON lines to the server log.
+     */
+    AsyncAccessLogWriter(int capacity, Executor executor) {
+        this(AccessLogFormat.JSON, capacity, executor, null, null, null, false);
+    }
+
+    /**
+     * Creates a writer to the file named from the specified prefix and suffix, in the specified directory.
+     */
+    AsyncAccessLogWriter(AccessLogFormat format, int capacity, Executor executor, Path directory, String prefix, String suffix, boolean rotate) {
+        this.ring = new AccessLogRingBuffer(capacity);
+        this.executor = executor;
+        this.format = format;
+        this.directory = directory;
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.rotate = rotate;
+    }
+
+    private Path getFile() {
+        return this.directory.resolve(this.prefix + this.suffix);
+    }
+
+    synchronized void open() throws IOException {
+        if (this.directory == null) return;
+        Path file = this.getFile();
+        boolean exists = Files.exists(file);
+        // A file left by a previous run is rotated according to its own date
+        this.date = exists ? Instant.ofEpochMilli(Files.getLastModifiedTime(file).toMillis()).atZone(ZoneId.systemDefault()).toLocalDate() : LocalDate.now();
+        if (exists && (Files.size(file) > 0) && (isBinary(file) != (this.format == AccessLogFormat.BINARY))) {
+            // A file left in another format is archived, as if rotated, rather than mixed with records of this format
+            this.archive(file);
+            this.date = LocalDate.now();
+        }
+        this.openOutput(file);
+    }
+
+    private static boolean isBinary(Path file) throws IOException {
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(file))) {
+            return input.readInt() == BINARY_MAGIC;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    private void openOutput(Path file) throws IOException {
+        this.output = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE), BUFFER_SIZE);
+        if ((this.format == AccessLogFormat.BINARY) && (Files.size(file) == 0)) {
+            this.writeBinaryHeader();
+        }
+    }
+
+    /**
+     * Captures the attributes of a completed exchange, and schedules their writing if needed.
+     */
+    void log(HttpServerExchange exchange) {
+        if (this.ring.offer(exchange)) {
+            this.schedule();
+        }
+    }
+
+    private void schedule() {
+        if (!this.scheduled.get() && this.scheduled.compareAndSet(false, true)) {
+            try {
+                this.executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                this.scheduled.set(false);
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            this.drain();
+        } finally {
+            this.scheduled.set(false);
+        }
+        // Records published after the drain, but before the task was unscheduled, would otherwise wait for the next one
+        if (this.ring.peek() != null) {
+            this.schedule();
+        }
+    }
+
+    private synchronized void drain() {
+        if (this.closed) return;
+        try {
+            for (AccessLogRingBuffer.Record record = this.ring.peek(); record != null; record = this.ring.peek()) {
+                try {
+                    this.write(record);
+                } finally {
+                    this.ring.release(record);
+                }
+            }
+            if (this.output != null) {
+                this.output.flush();
+            }
+        } catch (IOException e) {
+            UndertowLogger.ROOT_LOGGER.errorWritingAccessLog(e);
+        }
+    }
+
+    private void write(AccessLogRingBuffer.Record record) throws IOException {
+        if (this.output == null) {
+            SERVER_LOG.info(this.formatJson(record));
+            return;
+        }
+        if (this.rotate) {
+            LocalDate date = Instant.ofEpochMilli(record.timestamp).atZone(ZoneId.systemDefault()).toLocalDate();
+            if (date.isAfter(this.date)) {
+                this.rotate(date);
+            }
+        }
+        if (this.format == AccessLogFormat.BINARY) {
+            this.writeBinary(record);
+        } else {
+            StringBuilder line = this.formatJson(record);
+            line.append('\n');
+            this.output.write(line.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void rotate(LocalDate date) throws IOException {
+        this.output.close();
+        Path file = this.getFile();
+        this.archive(file);
+        this.date = date;
+        this.openOutput(file);
+    }
+
+    /**
+     * Moves the specified file to a name including the date of its records, as for the default access log receiver.
+     */
+    private void archive(Path file) throws IOException {
+        String name = this.prefix + DateTimeFormatter.ISO_LOCAL_DATE.format(this.date);
+        Path target = this.directory.resolve(name + "." + this.suffix);
+        for (int i = 1; Files.exists(target); ++i) {
+            target = this.directory.resolve(name + "-" + i + "." + this.suffix);
+        }
+        Files.move(file, target);
+    }
+
+    private void writeBinaryHeader() throws IOException {
+        DataOutputStream output = new DataOutputStream(this.output);
+        output.writeInt(BINARY_MAGIC);
+        output.writeShort(BINARY_VERSION);
+    }
+
+    private void writeBinary(AccessLogRingBuffer.Record record) throws IOException {
+        DataOutputStream output = new DataOutputStream(this.output);
+        output.writeLong(record.timestamp);
+        output.writeInt(record.status);
+        output.writeLong(record.bytesSent);
+        output.writeLong(record.responseTime);
+        writeString(output, record.getRemoteAddress());
+        writeString(output, record.remoteUser);
+        writeString(output, (record.method != null) ? record.method.toString() : null);
+        writeString(output, (record.protocol != null) ? record.protocol.toString() : null);
+        writeString(output, record.requestURI);
+        writeString(output, record.queryString);
+        writeString(output, record.referer);
+        writeString(output, record.userAgent);
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+    }
+
+    StringBuilder formatJson(AccessLogRingBuffer.Record record) {
+        StringBuilder line = this.line;
+        line.setLength(0);
+        line.append("{\"time\":\"");
+        DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(record.timestamp), line);
+        line.append('"');
+        appendField(line, "remote-address", record.getRemoteAddress());
+        appendField(line, "remote-user", record.remoteUser);
+        appendField(line, "method", (record.method != null) ? record.method.toString() : null);
+        appendField(line, "uri", record.requestURI);
+        appendField(line, "query", ((record.queryString != null) && !record.queryString.isEmpty()) ? record.queryString : null);
+        appendField(line, "protocol", (record.protocol != null) ? record.protocol.toString() : null);
+        line.append(",\"status\":").append(record.status);
+        line.append(",\"bytes-sent\":").append(record.bytesSent);
+        if (record.responseTime >= 0) {
+            line.append(",\"response-time\":").append(record.responseTime);
+        }
+        appendField(line, "referer", record.referer);
+        appendField(line, "user-agent", record.userAgent);
+        return line.append('}');
+    }
+
+    private static void appendField(StringBuilder line, String name, String value) {
+        if (value == null) return;
+        line.append(",\"").append(name).append("\":\"");
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                case '\\':
+                    line.append('\\').append(c);
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+        line.append('"');
+    }
+
+    /**
+     * Writes the records published so far, and closes the output.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        this.drain();
+        this.closed = true;
+        if (this.output != null) {
+            this.output.close();
+            this.output = null;
+        }
+    }
+
+    long getDroppedRecords() {
+        return this.ring.getDroppedCount();
+    }
+
+    int getQueueDepth() {
+        return this.ring.size();
+    }
+}
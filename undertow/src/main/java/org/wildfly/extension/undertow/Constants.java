@@ -256,4 +256,9 @@ public interface Constants {
     String DEFAULT_COOKIE_VERSION = "default-cookie-version";
 
     String PROXY_PROTOCOL = "proxy-protocol";
+    String FORMAT = "format";
+    String QUEUE_SIZE = "queue-size";
+    String DROPPED_RECORDS = "dropped-records";
+    String QUEUE_DEPTH = "queue-depth";
+    String INCREMENTAL = "incremental";
 }
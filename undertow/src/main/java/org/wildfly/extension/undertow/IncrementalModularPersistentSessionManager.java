@@ -0,0 +1,483 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.extension.undertow;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.session.Session;
+import io.undertow.server.session.SessionListener;
+import io.undertow.servlet.UndertowServletLogger;
+import org.jboss.marshalling.ByteBufferInput;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.OutputStreamByteOutput;
+import org.jboss.marshalling.Unmarshaller;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StartException;
+import org.jboss.msc.service.StopContext;
+import org.jboss.threads.JBossThreadFactory;
+import org.wildfly.extension.undertow.logging.UndertowLogger;
+import org.wildfly.security.manager.WildFlySecurityManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.security.PrivilegedAction;
+import java.util.AbstractMap;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Persistent session manager that incrementally stores persistent session information to disk
+ * <p/>
+ * Changes to the sessions of a deployment are tracked by a {@link SessionListener} and written to a
+ * {@link SegmentedSessionStore} in the background while the deployment is running, so stopping the deployment only
+ * has to write the changes made since the last background write. Sessions are restored lazily, their attributes are
+ * only unmarshalled when the session is first requested.
+ * <p/>
+ * Attribute values are written when they are set on the session, so changes made to the state of an attribute value
+ * are not persisted unless the attribute is set again. Stopping the deployment only writes the new expiration time of
+ * sessions that were accessed without being changed. Setting the {@link #REWRITE_ACCESSED} system property to true
+ * writes all attributes of every session accessed since the sessions were loaded instead, at the cost of marshalling
+ * them again.
+ */
+public class IncrementalModularPersistentSessionManager extends DiskBasedModularPersistentSessionManager {
+
+    /**
+     * Set this system property to true to write all attributes of accessed sessions when the deployment is stopped
+     */
+    public static final String REWRITE_ACCESSED = "wildfly.undertow.persistent-sessions.rewrite-accessed";
+
+    private static final long FLUSH_INTERVAL = 1000;
+
+    private static final Object REMOVED = new Object();
+
+    private final Map<String, DeploymentSessions> deployments = new ConcurrentHashMap<>();
+    private final boolean rewriteAccessed;
+    private ScheduledExecutorService executor;
+
+    public IncrementalModularPersistentSessionManager(String path, String pathRelativeTo) {
+        this(path, pathRelativeTo, Boolean.parseBoolean(WildFlySecurityManager.getPropertyPrivileged(REWRITE_ACCESSED, "false")));
+    }
+
+    IncrementalModularPersistentSessionManager(String path, String pathRelativeTo, boolean rewriteAccessed) {
+        super(path, pathRelativeTo);
+        this.rewriteAccessed = rewriteAccessed;
+    }
+
+    @Override
+    public synchronized void start(StartContext startContext) throws StartException {
+        super.start(startContext);
+        PrivilegedAction<ThreadFactory> action = () -> new JBossThreadFactory(new ThreadGroup(IncrementalModularPersistentSessionManager.class.getSimpleName()), Boolean.TRUE, null, "%G - %t", null, null);
+        executor = new ScheduledThreadPoolExecutor(1, WildFlySecurityManager.doUnchecked(action));
+        executor.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop(StopContext stopContext) {
+        executor.shutdown();
+        for (DeploymentSessions deployment : deployments.values()) {
+            synchronized (deployment) {
+                deployment.active = false;
+                deployment.store.close();
+            }
+        }
+        deployments.clear();
+        super.stop(stopContext);
+    }
+
+    /**
+     * Creates the listener that tracks the changes to the sessions of a deployment.
+     */
+    public SessionListener createSessionListener(String deploymentName) {
+        return new IncrementalSessionListener(deploymentName);
+    }
+
+    @Override
+    public Map<String, PersistentSession> loadSessionAttributes(String deploymentName, ClassLoader classLoader) {
+        try {
+            final DeploymentSessions deployment = getDeployment(deploymentName);
+            synchronized (deployment) {
+                deployment.store.removeExpired(System.currentTimeMillis());
+                final Map<String, PersistentSession> ret = new HashMap<>();
+                for (Map.Entry<String, Long> session : deployment.store.getSessions().entrySet()) {
+                    ret.put(session.getKey(), new PersistentSession(new Date(session.getValue()), new LazySessionData(deployment, session.getKey())));
+                }
+                deployment.pending.clear();
+                deployment.pending.addAll(ret.keySet());
+                deployment.restored.clear();
+                deployment.dirty.clear();
+                deployment.flushed.clear();
+                deployment.active = true;
+                return ret;
+            }
+        } catch (Exception e) {
+            UndertowServletLogger.ROOT_LOGGER.failedtoLoadPersistentSessions(e);
+        }
+        return null;
+    }
+
+    @Override
+    public void persistSessions(String deploymentName, Map<String, PersistentSession> sessionData) {
+        try {
+            final DeploymentSessions deployment = getDeployment(deploymentName);
+            synchronized (deployment) {
+                deployment.active = false;
+                final SegmentedSessionStore store = deployment.store;
+                final Marshaller marshaller = createMarshaller();
+                try {
+                    for (Map.Entry<String, PersistentSession> sessionEntry : sessionData.entrySet()) {
+                        final String id = sessionEntry.getKey();
+                        final PersistentSession session = sessionEntry.getValue();
+                        final long expiry = session.getExpiration().getTime();
+                        final DirtySession dirty = deployment.dirty.remove(id);
+                        if ((dirty != null) && (dirty.previousId != null)) {
+                            store.renameSession(dirty.previousId, id);
+                        }
+                        final long storedExpiry = store.getExpiry(id);
+                        if (storedExpiry < 0) {
+                            store.writeSession(id, expiry);
+                            for (Map.Entry<String, Object> attribute : session.getSessionData().entrySet()) {
+                                writeAttribute(store, marshaller, id, attribute.getKey(), attribute.getValue());
+                            }
+                            continue;
+                        }
+                        // Sessions that were only accessed since they were last written just need a new expiration time
+                        if (storedExpiry != expiry) {
+                            store.writeSession(id, expiry);
+                        }
+                        if (rewriteAccessed && ((storedExpiry != expiry) || (dirty != null) || deployment.flushed.contains(id))) {
+                            // Attribute values of a session accessed since it was loaded may have been changed in place
+                            final Map<String, Object> attributes = session.getSessionData();
+                            for (String name : store.getAttributeNames(id)) {
+                                if (!attributes.containsKey(name)) {
+                                    store.removeAttribute(id, name);
+                                }
+                            }
+                            for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+                                writeAttribute(store, marshaller, id, attribute.getKey(), attribute.getValue());
+                            }
+                        } else if (dirty != null) {
+                            for (String name : dirty.attributes.keySet()) {
+                                writeAttribute(store, marshaller, id, name, session.getSessionData().get(name));
+                            }
+                        }
+                    }
+                    // Sessions that were neither persisted nor left to be restored lazily no longer exist
+                    for (String id : store.getSessions().keySet()) {
+                        if (!sessionData.containsKey(id) && !deployment.pending.contains(id)) {
+                            store.removeSession(id);
+                        }
+                    }
+                    deployment.dirty.clear();
+                    deployment.restored.clear();
+                    deployment.flushed.clear();
+                    store.compact();
+                    store.force();
+                } finally {
+                    marshaller.close();
+                }
+            }
+        } catch (Exception e) {
+            UndertowServletLogger.ROOT_LOGGER.failedToPersistSessions(e);
+        }
+    }
+
+    private DeploymentSessions getDeployment(String deploymentName) throws IOException {
+        try {
+            return deployments.computeIfAbsent(deploymentName, name -> {
+                try {
+                    return new DeploymentSessions(SegmentedSessionStore.open(new File(getBaseDir(), name + ".sessions"), SegmentedSessionStore.DEFAULT_SEGMENT_SIZE));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes the changes collected by the session listeners since the last flush.
+     */
+    private void flush() {
+        for (DeploymentSessions deployment : deployments.values()) {
+            if (!deployment.dirty.isEmpty()) {
+                synchronized (deployment) {
+                    if (deployment.active) {
+                        try {
+                            final Marshaller marshaller = createMarshaller();
+                            try {
+                                for (DirtySession dirty : deployment.dirty.values()) {
+                                    // Changes made from now on are collected by a new instance
+                                    if (deployment.dirty.remove(dirty.id, dirty)) {
+                                        write(deployment.store, marshaller, dirty);
+                                        deployment.flushed.add(dirty.id);
+                                    }
+                                }
+                                deployment.store.compact();
+                            } finally {
+                                marshaller.close();
+                            }
+                        } catch (Exception e) {
+                            UndertowServletLogger.ROOT_LOGGER.failedToPersistSessions(e);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void write(SegmentedSessionStore store, Marshaller marshaller, DirtySession dirty) throws IOException {
+        if (dirty.destroyed) {
+            store.removeSession(dirty.id);
+            return;
+        }
+        final long expiry;
+        try {
+            expiry = dirty.session.getLastAccessedTime() + (dirty.session.getMaxInactiveInterval() * 1000);
+        } catch (IllegalStateException e) {
+            // The session was invalidated, it will be removed once the destroyed event is flushed
+            return;
+        }
+        if (dirty.previousId != null) {
+            store.renameSession(dirty.previousId, dirty.id);
+        }
+        store.writeSession(dirty.id, expiry);
+        for (Map.Entry<String, Object> attribute : dirty.attributes.entrySet()) {
+            writeAttribute(store, marshaller, dirty.id, attribute.getKey(), (attribute.getValue() != REMOVED) ? attribute.getValue() : null);
+        }
+    }
+
+    private static void writeAttribute(SegmentedSessionStore store, Marshaller marshaller, String id, String name, Object value) throws IOException {
+        if (value == null) {
+            store.removeAttribute(id, name);
+            return;
+        }
+        final byte[] data;
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            marshaller.start(new OutputStreamByteOutput(out));
+            marshaller.writeObject(value);
+            marshaller.finish();
+            data = out.toByteArray();
+        } catch (Exception e) {
+            UndertowLogger.ROOT_LOGGER.failedToPersistSessionAttribute(name, value, id, e);
+            return;
+        }
+        store.writeAttribute(id, name, data);
+    }
+
+    private Map<String, Object> restore(DeploymentSessions deployment, String id) {
+        final Map<String, Object> session = new HashMap<>();
+        final Map<String, byte[]> data = deployment.store.getAttributes(id);
+        if (data != null) {
+            try {
+                final Unmarshaller unmarshaller = createUnmarshaller();
+                try {
+                    for (Map.Entry<String, byte[]> sessionAttribute : data.entrySet()) {
+                        unmarshaller.start(new ByteBufferInput(ByteBuffer.wrap(sessionAttribute.getValue())));
+                        session.put(sessionAttribute.getKey(), unmarshaller.readObject());
+                        unmarshaller.finish();
+                    }
+                } finally {
+                    unmarshaller.close();
+                }
+            } catch (Exception e) {
+                UndertowServletLogger.ROOT_LOGGER.failedtoLoadPersistentSessions(e);
+            }
+        }
+        // The attributes are about to be added to the new session, there is no need to write them again
+        deployment.restored.put(id, new ConcurrentHashMap<>(session));
+        deployment.pending.remove(id);
+        return session;
+    }
+
+    private static final class DeploymentSessions {
+        final SegmentedSessionStore store;
+        /**
+         * The sessions changed since the last flush, by session id.
+         */
+        final Map<String, DirtySession> dirty = new ConcurrentHashMap<>();
+        /**
+         * The ids of stored sessions that were not requested yet.
+         */
+        final Set<String> pending = ConcurrentHashMap.newKeySet();
+        /**
+         * The attributes of restored sessions that are about to be added to the session.
+         */
+        final Map<String, Map<String, Object>> restored = new ConcurrentHashMap<>();
+        /**
+         * The ids of the sessions written by a background flush since the sessions were loaded.
+         */
+        final Set<String> flushed = ConcurrentHashMap.newKeySet();
+        volatile boolean active;
+
+        DeploymentSessions(SegmentedSessionStore store) {
+            this.store = store;
+        }
+
+        void update(Session session, Consumer<DirtySession> update) {
+            final String id = session.getId();
+            DirtySession dirty;
+            do {
+                dirty = this.dirty.computeIfAbsent(id, key -> new DirtySession(key, session));
+                update.accept(dirty);
+                // Repeat the update if the instance was flushed concurrently
+            } while (this.dirty.get(id) != dirty);
+        }
+
+        boolean isRestoring(String id, String name, Object value) {
+            final Map<String, Object> attributes = restored.get(id);
+            if ((attributes != null) && attributes.remove(name, value)) {
+                if (attributes.isEmpty()) {
+                    restored.remove(id, attributes);
+                }
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class DirtySession {
+        final String id;
+        final Session session;
+        /**
+         * The changed attribute values, or {@link #REMOVED}.
+         */
+        final Map<String, Object> attributes = new ConcurrentHashMap<>();
+        volatile String previousId;
+        volatile boolean destroyed;
+
+        DirtySession(String id, Session session) {
+            this.id = id;
+            this.session = session;
+        }
+    }
+
+    /**
+     * The attributes of a stored session, which are read when the session is restored.
+     */
+    private final class LazySessionData extends AbstractMap<String, Object> {
+        private final DeploymentSessions deployment;
+        private final String id;
+        private volatile Map<String, Object> data;
+
+        LazySessionData(DeploymentSessions deployment, String id) {
+            this.deployment = deployment;
+            this.id = id;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            Map<String, Object> data = this.data;
+            if (data == null) {
+                synchronized (this) {
+                    data = this.data;
+                    if (data == null) {
+                        data = restore(deployment, id);
+                        this.data = data;
+                    }
+                }
+            }
+            return data.entrySet();
+        }
+    }
+
+    private final class IncrementalSessionListener implements SessionListener {
+        private final String deploymentName;
+
+        IncrementalSessionListener(String deploymentName) {
+            this.deploymentName = deploymentName;
+        }
+
+        private DeploymentSessions getActiveDeployment() {
+            final DeploymentSessions deployment = deployments.get(deploymentName);
+            return ((deployment != null) && deployment.active) ? deployment : null;
+        }
+
+        @Override
+        public void sessionCreated(Session session, HttpServerExchange exchange) {
+            final DeploymentSessions deployment = getActiveDeployment();
+            if (deployment != null) {
+                deployment.update(session, dirty -> { });
+            }
+        }
+
+        @Override
+        public void sessionDestroyed(Session session, HttpServerExchange exchange, SessionDestroyedReason reason) {
+            final DeploymentSessions deployment = getActiveDeployment();
+            // Sessions destroyed by an undeployment have been persisted
+            if ((deployment != null) && (reason != SessionDestroyedReason.UNDEPLOY)) {
+                deployment.update(session, dirty -> dirty.destroyed = true);
+            }
+        }
+
+        @Override
+        public void attributeAdded(Session session, String name, Object value) {
+            final DeploymentSessions deployment = getActiveDeployment();
+            if ((deployment != null) && !deployment.isRestoring(session.getId(), name, value)) {
+                deployment.update(session, dirty -> dirty.attributes.put(name, value));
+            }
+        }
+
+        @Override
+        public void attributeUpdated(Session session, String name, Object newValue, Object oldValue) {
+            final DeploymentSessions deployment = getActiveDeployment();
+            if (deployment != null) {
+                deployment.update(session, dirty -> dirty.attributes.put(name, newValue));
+            }
+        }
+
+        @Override
+        public void attributeRemoved(Session session, String name, Object oldValue) {
+            final DeploymentSessions deployment = getActiveDeployment();
+            if (deployment != null) {
+                deployment.update(session, dirty -> dirty.attributes.put(name, REMOVED));
+            }
+        }
+
+        @Override
+        public void sessionIdChanged(Session session, String oldSessionId) {
+            final DeploymentSessions deployment = getActiveDeployment();
+            if (deployment != null) {
+                final DirtySession previous = deployment.dirty.remove(oldSessionId);
+                deployment.update(session, dirty -> {
+                    dirty.previousId = ((previous != null) && (previous.previousId != null)) ? previous.previousId : oldSessionId;
+                    if (previous != null) {
+                        for (Map.Entry<String, Object> attribute : previous.attributes.entrySet()) {
+                            dirty.attributes.putIfAbsent(attribute.getKey(), attribute.getValue());
+                        }
+                    }
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,582 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.extension.undertow;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Append only log of serialized session state, kept in a number of memory mapped segment files.
+ * <p/>
+ * Every change to a session, an attribute or the expiration time, is appended as a single record, and the latest record
+ * for a session or attribute wins. Opening a store replays the record headers of all segments to rebuild the in-memory
+ * index, the serialized attribute values are only read when {@link #getAttributes(String)} is called. Space taken by
+ * superseded records is reclaimed by {@link #compact()}, which moves the live records of sparse segments to the tail
+ * of the log and deletes the segment files.
+ * <p/>
+ * All methods of this class are thread safe.
+ */
+final class SegmentedSessionStore implements Closeable {
+
+    static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    private static final String SEGMENT_SUFFIX = ".segment";
+
+    private static final byte SESSION = 1;
+    private static final byte ATTRIBUTE = 2;
+    private static final byte REMOVE_ATTRIBUTE = 3;
+    private static final byte REMOVE_SESSION = 4;
+
+    /**
+     * The record type, the record length and the length of the session id.
+     */
+    private static final int HEADER_SIZE = 1 + 4 + 4;
+
+    /**
+     * A segment is compacted once less than a quarter of its records are live.
+     */
+    private static final int COMPACTION_RATIO = 4;
+
+    private final File directory;
+    private final int segmentSize;
+    private final NavigableMap<Integer, Segment> segments = new TreeMap<>();
+    private final Map<String, SessionRecord> sessions = new HashMap<>();
+    /**
+     * Session removals that still shadow records in older segments.
+     */
+    private final Map<String, Location> removedSessions = new HashMap<>();
+    private Segment active;
+    private boolean closed;
+
+    private SegmentedSessionStore(File directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    static SegmentedSessionStore open(File directory, int segmentSize) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException(directory.getAbsolutePath());
+        }
+        SegmentedSessionStore store = new SegmentedSessionStore(directory, segmentSize);
+        store.load();
+        return store;
+    }
+
+    private void load() throws IOException {
+        File[] files = this.directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                try {
+                    int id = Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                    this.segments.put(id, new Segment(id, file, map(file, file.length())));
+                } catch (NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        }
+        for (Segment segment : this.segments.values()) {
+            segment.position = this.replay(segment);
+        }
+        // Attributes whose session record was lost
+        for (Iterator<SessionRecord> records = this.sessions.values().iterator(); records.hasNext(); ) {
+            SessionRecord record = records.next();
+            if (record.header == null) {
+                release(record);
+                records.remove();
+            }
+        }
+        // Never append to a segment that was not written by this instance, it may end with a partially written record
+        this.active = null;
+    }
+
+    private int replay(Segment segment) {
+        int offset = 0;
+        while (offset < segment.buffer.capacity()) {
+            Record record = Record.read(segment.buffer, offset);
+            if (record == null) {
+                break;
+            }
+            this.apply(record, new Location(segment, offset, record.length));
+            offset += record.length;
+        }
+        return offset;
+    }
+
+    private void apply(Record record, Location location) {
+        SessionRecord session = this.sessions.get(record.id);
+        switch (record.type) {
+            case SESSION: {
+                if (session == null) {
+                    session = new SessionRecord();
+                    this.sessions.put(record.id, session);
+                }
+                this.removedSessions.remove(record.id);
+                release(session.header);
+                session.header = location;
+                session.expiry = record.expiry;
+                location.segment.live += location.length;
+                break;
+            }
+            case ATTRIBUTE: {
+                if (session == null) {
+                    session = new SessionRecord();
+                    this.sessions.put(record.id, session);
+                }
+                this.removedSessions.remove(record.id);
+                session.removedAttributes.remove(record.name);
+                release(session.attributes.put(record.name, location));
+                location.segment.live += location.length;
+                break;
+            }
+            case REMOVE_ATTRIBUTE: {
+                if ((session != null) && session.attributes.containsKey(record.name)) {
+                    release(session.attributes.remove(record.name));
+                    session.removedAttributes.put(record.name, location);
+                }
+                break;
+            }
+            case REMOVE_SESSION: {
+                if (session != null) {
+                    this.sessions.remove(record.id);
+                    release(session);
+                    this.removedSessions.put(record.id, location);
+                }
+                break;
+            }
+            default: {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    private static void release(SessionRecord session) {
+        release(session.header);
+        for (Location location : session.attributes.values()) {
+            release(location);
+        }
+    }
+
+    private static void release(Location location) {
+        if (location != null) {
+            location.segment.live -= location.length;
+        }
+    }
+
+    /**
+     * Returns the expiration time of all stored sessions, by session id.
+     */
+    synchronized Map<String, Long> getSessions() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Map.Entry<String, SessionRecord> entry : this.sessions.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().expiry);
+        }
+        return result;
+    }
+
+    synchronized boolean contains(String id) {
+        return this.sessions.containsKey(id);
+    }
+
+    /**
+     * Returns the stored expiration time of a session, or -1 if the session is not stored.
+     */
+    synchronized long getExpiry(String id) {
+        SessionRecord session = this.sessions.get(id);
+        return (session != null) ? session.expiry : -1;
+    }
+
+    /**
+     * Reads the serialized attributes of a session, or returns null if the session is not stored.
+     */
+    synchronized Map<String, byte[]> getAttributes(String id) {
+        SessionRecord session = this.sessions.get(id);
+        if (session == null) {
+            return null;
+        }
+        Map<String, byte[]> result = new HashMap<>();
+        for (Map.Entry<String, Location> entry : session.attributes.entrySet()) {
+            result.put(entry.getKey(), read(entry.getValue()));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the names of the stored attributes of a session.
+     */
+    synchronized Set<String> getAttributeNames(String id) {
+        SessionRecord session = this.sessions.get(id);
+        return (session != null) ? new HashSet<>(session.attributes.keySet()) : Collections.emptySet();
+    }
+
+    synchronized void writeSession(String id, long expiry) throws IOException {
+        this.append(new Record(SESSION, id, null, expiry, null));
+    }
+
+    synchronized void writeAttribute(String id, String name, byte[] data) throws IOException {
+        this.append(new Record(ATTRIBUTE, id, name, 0, data));
+    }
+
+    synchronized void removeAttribute(String id, String name) throws IOException {
+        SessionRecord session = this.sessions.get(id);
+        if ((session != null) && session.attributes.containsKey(name)) {
+            this.append(new Record(REMOVE_ATTRIBUTE, id, name, 0, null));
+        }
+    }
+
+    synchronized void removeSession(String id) throws IOException {
+        if (this.sessions.containsKey(id)) {
+            this.append(new Record(REMOVE_SESSION, id, null, 0, null));
+        }
+    }
+
+    /**
+     * Moves the stored state of a session to a new session id.
+     */
+    synchronized void renameSession(String oldId, String newId) throws IOException {
+        SessionRecord session = this.sessions.get(oldId);
+        if (session != null) {
+            this.writeSession(newId, session.expiry);
+            for (Map.Entry<String, Location> entry : new ArrayList<>(session.attributes.entrySet())) {
+                this.writeAttribute(newId, entry.getKey(), read(entry.getValue()));
+            }
+            this.removeSession(oldId);
+        }
+    }
+
+    /**
+     * Forgets about the sessions that expired before the specified time. No removal is written, the records stay
+     * expired when the store is opened again.
+     */
+    synchronized void removeExpired(long time) {
+        for (Iterator<SessionRecord> records = this.sessions.values().iterator(); records.hasNext(); ) {
+            SessionRecord session = records.next();
+            if (session.expiry <= time) {
+                release(session);
+                records.remove();
+            }
+        }
+    }
+
+    private void append(Record record) throws IOException {
+        if (this.closed) {
+            throw new IOException(this.directory.getAbsolutePath());
+        }
+        Location location = this.write(record.encode());
+        this.apply(record, location);
+    }
+
+    private Location write(byte[] bytes) throws IOException {
+        Segment segment = this.active;
+        if ((segment == null) || (segment.buffer.capacity() - segment.position < bytes.length)) {
+            int id = this.segments.isEmpty() ? 0 : this.segments.lastKey() + 1;
+            File file = new File(this.directory, String.format("%08d%s", id, SEGMENT_SUFFIX));
+            segment = new Segment(id, file, map(file, Math.max(this.segmentSize, bytes.length)));
+            this.segments.put(id, segment);
+            this.active = segment;
+        }
+        int offset = segment.position;
+        ByteBuffer buffer = segment.buffer.duplicate();
+        buffer.position(offset + 1);
+        buffer.put(bytes, 1, bytes.length - 1);
+        // The type is written last, so that a partially written record terminates the log
+        segment.buffer.put(offset, bytes[0]);
+        segment.position += bytes.length;
+        segment.modified = true;
+        return new Location(segment, offset, bytes.length);
+    }
+
+    private static byte[] read(Location location) {
+        Record record = Record.read(location.segment.buffer, location.offset);
+        byte[] data = new byte[location.length - record.dataOffset];
+        ByteBuffer buffer = location.segment.buffer.duplicate();
+        buffer.position(location.offset + record.dataOffset);
+        buffer.get(data);
+        return data;
+    }
+
+    /**
+     * Moves the live records of segments that mostly contain superseded records to the end of the log, and deletes
+     * those segments.
+     */
+    synchronized void compact() throws IOException {
+        for (Segment segment : new ArrayList<>(this.segments.values())) {
+            if ((segment != this.active) && ((long) segment.live * COMPACTION_RATIO <= segment.position)) {
+                this.relocate(segment);
+            }
+        }
+    }
+
+    private void relocate(Segment segment) throws IOException {
+        // A removal only needs to be kept while older segments may still contain the records it removes
+        boolean oldest = this.segments.firstKey() == segment.id;
+        int offset = 0;
+        while (offset < segment.position) {
+            Record record = Record.read(segment.buffer, offset);
+            SessionRecord session = this.sessions.get(record.id);
+            switch (record.type) {
+                case SESSION: {
+                    if ((session != null) && isAt(session.header, segment, offset)) {
+                        session.header = this.copy(session.header);
+                    }
+                    break;
+                }
+                case ATTRIBUTE: {
+                    if ((session != null) && isAt(session.attributes.get(record.name), segment, offset)) {
+                        session.attributes.put(record.name, this.copy(session.attributes.get(record.name)));
+                    }
+                    break;
+                }
+                case REMOVE_ATTRIBUTE: {
+                    if ((session != null) && isAt(session.removedAttributes.get(record.name), segment, offset)) {
+                        if (oldest) {
+                            session.removedAttributes.remove(record.name);
+                        } else {
+                            session.removedAttributes.put(record.name, this.copy(session.removedAttributes.get(record.name)));
+                        }
+                    }
+                    break;
+                }
+                case REMOVE_SESSION: {
+                    if (isAt(this.removedSessions.get(record.id), segment, offset)) {
+                        if (oldest) {
+                            this.removedSessions.remove(record.id);
+                        } else {
+                            this.removedSessions.put(record.id, this.copy(this.removedSessions.get(record.id)));
+                        }
+                    }
+                    break;
+                }
+                default: {
+                    throw new IllegalStateException();
+                }
+            }
+            offset += record.length;
+        }
+        this.segments.remove(segment.id);
+        // Make sure the segment replays as empty should it survive the deletion
+        segment.buffer.put(0, (byte) 0);
+        segment.buffer.force();
+        segment.file.delete();
+    }
+
+    private static boolean isAt(Location location, Segment segment, int offset) {
+        return (location != null) && (location.segment == segment) && (location.offset == offset);
+    }
+
+    private Location copy(Location location) throws IOException {
+        byte[] bytes = new byte[location.length];
+        ByteBuffer buffer = location.segment.buffer.duplicate();
+        buffer.position(location.offset);
+        buffer.get(bytes);
+        Location copy = this.write(bytes);
+        if (bytes[0] == SESSION || bytes[0] == ATTRIBUTE) {
+            location.segment.live -= location.length;
+            copy.segment.live += copy.length;
+        }
+        return copy;
+    }
+
+    /**
+     * Writes modified segments to the storage device.
+     */
+    synchronized void force() {
+        for (Segment segment : this.segments.values()) {
+            if (segment.modified) {
+                segment.buffer.force();
+                segment.modified = false;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!this.closed) {
+            this.force();
+            this.closed = true;
+            this.segments.clear();
+            this.sessions.clear();
+            this.removedSessions.clear();
+            this.active = null;
+        }
+    }
+
+    synchronized int getSegmentCount() {
+        return this.segments.size();
+    }
+
+    private static MappedByteBuffer map(File file, long size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            if (raf.length() != size) {
+                raf.setLength(size);
+            }
+            // The mapping remains valid once the channel is closed
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private static final class Segment {
+        final int id;
+        final File file;
+        final MappedByteBuffer buffer;
+        int position;
+        /**
+         * The number of bytes taken by session and attribute records that have not been superseded.
+         */
+        int live;
+        boolean modified;
+
+        Segment(int id, File file, MappedByteBuffer buffer) {
+            this.id = id;
+            this.file = file;
+            this.buffer = buffer;
+        }
+    }
+
+    private static final class Location {
+        final Segment segment;
+        final int offset;
+        final int length;
+
+        Location(Segment segment, int offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private static final class SessionRecord {
+        long expiry;
+        Location header;
+        final Map<String, Location> attributes = new HashMap<>();
+        final Map<String, Location> removedAttributes = new HashMap<>();
+    }
+
+    /**
+     * A decoded record. Records consist of the type, the record length, the session id and, depending on the type, the
+     * expiration time or the attribute name followed by the serialized attribute value.
+     */
+    private static final class Record {
+        final byte type;
+        final String id;
+        final String name;
+        final long expiry;
+        final byte[] data;
+        int length;
+        int dataOffset;
+
+        Record(byte type, String id, String name, long expiry, byte[] data) {
+            this.type = type;
+            this.id = id;
+            this.name = name;
+            this.expiry = expiry;
+            this.data = data;
+        }
+
+        byte[] encode() {
+            byte[] id = this.id.getBytes(StandardCharsets.UTF_8);
+            byte[] name = (this.name != null) ? this.name.getBytes(StandardCharsets.UTF_8) : null;
+            int length = HEADER_SIZE + id.length;
+            if (this.type == SESSION) {
+                length += 8;
+            }
+            if (name != null) {
+                length += 4 + name.length;
+            }
+            if (this.data != null) {
+                length += this.data.length;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            buffer.put(this.type);
+            buffer.putInt(length);
+            buffer.putInt(id.length);
+            buffer.put(id);
+            if (this.type == SESSION) {
+                buffer.putLong(this.expiry);
+            }
+            if (name != null) {
+                buffer.putInt(name.length);
+                buffer.put(name);
+            }
+            if (this.data != null) {
+                buffer.put(this.data);
+            }
+            return buffer.array();
+        }
+
+        /**
+         * Decodes the record at the specified offset, without its attribute value, or returns null if there is no
+         * complete record at that offset.
+         */
+        static Record read(ByteBuffer segment, int offset) {
+            if (segment.capacity() - offset < HEADER_SIZE) {
+                return null;
+            }
+            byte type = segment.get(offset);
+            int length = segment.getInt(offset + 1);
+            if ((type < SESSION) || (type > REMOVE_SESSION) || (length < HEADER_SIZE) || (length > segment.capacity() - offset)) {
+                return null;
+            }
+            ByteBuffer buffer = segment.duplicate();
+            buffer.position(offset + 5);
+            buffer.limit(offset + length);
+            try {
+                String id = readString(buffer);
+                long expiry = (type == SESSION) ? buffer.getLong() : 0;
+                String name = ((type == ATTRIBUTE) || (type == REMOVE_ATTRIBUTE)) ? readString(buffer) : null;
+                Record record = new Record(type, id, name, expiry, null);
+                record.length = length;
+                record.dataOffset = buffer.position() - offset;
+                return record;
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        private static String readString(ByteBuffer buffer) {
+            int length = buffer.getInt();
+            if ((length < 0) || (length > buffer.remaining())) {
+                throw new BufferUnderflowException();
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.extension.undertow;
+
+import io.undertow.predicate.Predicate;
+import io.undertow.server.ExchangeCompletionListener;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+
+/**
+ * An access log handler that captures the raw attributes of completed exchanges, leaving their formatting and writing
+ * to an {@link AsyncAccessLogWriter}.
+ */
+class StructuredAccessLogHandler implements HttpHandler {
+
+    private final HttpHandler next;
+    private final AsyncAccessLogWriter writer;
+    private final Predicate predicate;
+    private final ExchangeCompletionListener listener = new ExchangeCompletionListener() {
+        @Override
+        public void exchangeEvent(HttpServerExchange exchange, NextListener nextListener) {
+            try {
+                if (StructuredAccessLogHandler.this.predicate.resolve(exchange)) {
+                    StructuredAccessLogHandler.this.writer.log(exchange);
+                }
+            } finally {
+                nextListener.proceed();
+            }
+        }
+    };
+
+    StructuredAccessLogHandler(HttpHandler next, AsyncAccessLogWriter writer, Predicate predicate) {
+        this.next = next;
+        this.writer = writer;
+        this.predicate = predicate;
+    }
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        exchange.addExchangeCompleteListener(this.listener);
+        this.next.handleRequest(exchange);
+    }
+}
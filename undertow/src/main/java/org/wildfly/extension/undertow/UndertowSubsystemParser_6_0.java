@@ -30,6 +30,7 @@ import org.jboss.as.controller.PersistentResourceDefinition;
 import org.jboss.as.controller.PersistentResourceXMLDescription;
 import org.jboss.as.controller.PersistentResourceXMLParser;
 import org.jboss.as.controller.operations.common.Util;
+import org.wildfly.extension.undertow.filters.AdaptiveRequestLimitFilter;
 import org.wildfly.extension.undertow.filters.CustomFilterDefinition;
 import org.wildfly.extension.undertow.filters.ErrorPageDefinition;
 import org.wildfly.extension.undertow.filters.ExpressionFilterDefinition;
@@ -132,7 +133,9 @@ public class UndertowSubsystemParser_6_0 extends PersistentResourceXMLParser {
                                                                 AccessLogDefinition.ROTATE,
                                                                 AccessLogDefinition.USE_SERVER_LOG,
                                                                 AccessLogDefinition.EXTENDED,
-                                                                AccessLogDefinition.PREDICATE)
+                                                                AccessLogDefinition.PREDICATE,
+                                                                AccessLogDefinition.FORMAT,
+                                                                AccessLogDefinition.QUEUE_SIZE)
                                         ).addChild(filterRefBuilder())
                                                 .addChild(
                                                     builder(UndertowExtension.PATH_SSO)
@@ -206,7 +209,8 @@ public class UndertowSubsystemParser_6_0 extends PersistentResourceXMLParser {
                                         builder(PersistentSessionsDefinition.INSTANCE.getPathElement())
                                                 .addAttributes(
                                                         PersistentSessionsDefinition.PATH,
-                                                        PersistentSessionsDefinition.RELATIVE_TO
+                                                        PersistentSessionsDefinition.RELATIVE_TO,
+                                                        PersistentSessionsDefinition.INCREMENTAL
                                                 )
                                 )
                                 .addChild(
@@ -242,7 +246,9 @@ public class UndertowSubsystemParser_6_0 extends PersistentResourceXMLParser {
                                                         FileHandler.DIRECTORY_LISTING,
                                                         FileHandler.FOLLOW_SYMLINK,
                                                         FileHandler.SAFE_SYMLINK_PATHS,
-                                                        FileHandler.CASE_SENSITIVE
+                                                        FileHandler.CASE_SENSITIVE,
+                                                        FileHandler.TRANSFER_MIN_SIZE,
+                                                        FileHandler.MAPPED_CACHE_SIZE
                                                 )
                                 )
                                 .addChild(
@@ -282,6 +288,7 @@ public class UndertowSubsystemParser_6_0 extends PersistentResourceXMLParser {
                                         .addAttributes(ResponseHeaderFilter.NAME, ResponseHeaderFilter.VALUE)
                         ).addChild(
                                 builder(GzipFilter.INSTANCE.getPathElement())
+                                        .addAttributes(GzipFilter.CACHE_SIZE, GzipFilter.PRECOMPRESSED)
                         ).addChild(
                                 builder(ErrorPageDefinition.INSTANCE.getPathElement())
                                         .addAttributes(ErrorPageDefinition.CODE, ErrorPageDefinition.PATH)
@@ -325,6 +332,9 @@ public class UndertowSubsystemParser_6_0 extends PersistentResourceXMLParser {
                         ).addChild(
                                 builder(RewriteFilterDefinition.INSTANCE.getPathElement())
                                         .addAttributes(RewriteFilterDefinition.TARGET, RewriteFilterDefinition.REDIRECT)
+                        ).addChild(
+                                builder(AdaptiveRequestLimitFilter.INSTANCE.getPathElement())
+                                        .addAttributes(AdaptiveRequestLimitFilter.INITIAL_LIMIT, AdaptiveRequestLimitFilter.MIN_LIMIT, AdaptiveRequestLimitFilter.MAX_LIMIT, AdaptiveRequestLimitFilter.QUEUE_SIZE)
                         )
 
                 )
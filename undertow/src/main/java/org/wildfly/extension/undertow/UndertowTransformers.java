@@ -40,7 +40,10 @@ import org.jboss.as.controller.transform.description.ResourceTransformationDescr
 import org.jboss.as.controller.transform.description.TransformationDescription;
 import org.jboss.as.controller.transform.description.TransformationDescriptionBuilder;
 import org.jboss.dmr.ModelNode;
+import org.wildfly.extension.undertow.filters.AdaptiveRequestLimitFilter;
+import org.wildfly.extension.undertow.filters.GzipFilter;
 import org.wildfly.extension.undertow.filters.ModClusterDefinition;
+import org.wildfly.extension.undertow.handlers.FileHandler;
 import org.wildfly.extension.undertow.handlers.ReverseProxyHandler;
 
 
@@ -66,8 +69,8 @@ public class UndertowTransformers implements ExtensionTransformerRegistration {
 
     private static void registerTransformers_EAP_7_1_0(SubsystemTransformerRegistration subsystemRegistration) {
         final ResourceTransformationDescriptionBuilder subsystemBuilder = TransformationDescriptionBuilder.Factory.createSubsystemInstance();
-        subsystemBuilder
-                .addChildResource(UndertowExtension.PATH_SERVLET_CONTAINER)
+        final ResourceTransformationDescriptionBuilder servletContainerBuilder = subsystemBuilder.addChildResource(UndertowExtension.PATH_SERVLET_CONTAINER);
+        servletContainerBuilder
                 .getAttributeBuilder()
                 .setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(10 * 1024 * 1024)), ServletContainerDefinition.FILE_CACHE_MAX_FILE_SIZE)
                 .addRejectCheck(RejectAttributeChecker.DEFINED, ServletContainerDefinition.FILE_CACHE_MAX_FILE_SIZE)
@@ -78,6 +81,7 @@ public class UndertowTransformers implements ExtensionTransformerRegistration {
                 .setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(0)), ServletContainerDefinition.DEFAULT_COOKIE_VERSION)
                 .addRejectCheck(RejectAttributeChecker.DEFINED, ServletContainerDefinition.DEFAULT_COOKIE_VERSION)
                 .end();
+        addPersistentSessionsRules(servletContainerBuilder);
         final ResourceTransformationDescriptionBuilder serverBuilder = subsystemBuilder.addChildResource(UndertowExtension.SERVER_PATH);
 
         final AttributeTransformationDescriptionBuilder http = serverBuilder.addChildResource(UndertowExtension.HTTP_LISTENER_PATH).getAttributeBuilder()
@@ -93,10 +97,52 @@ public class UndertowTransformers implements ExtensionTransformerRegistration {
         final AttributeTransformationDescriptionBuilder ajp = serverBuilder.addChildResource(UndertowExtension.AJP_LISTENER_PATH).getAttributeBuilder();
         addCommonListenerRules_EAP_7_1_0(ajp);
         ajp.end();
+        addAccessLogRules(serverBuilder.addChildResource(UndertowExtension.HOST_PATH));
+
+        addFileHandlerRules(subsystemBuilder.addChildResource(UndertowExtension.PATH_HANDLERS));
+        addFilterRules(subsystemBuilder.addChildResource(UndertowExtension.PATH_FILTERS));
 
         TransformationDescription.Tools.register(subsystemBuilder.build(), subsystemRegistration, MODEL_VERSION_EAP7_1_0);
     }
 
+    private static void addPersistentSessionsRules(ResourceTransformationDescriptionBuilder servletContainer) {
+        servletContainer.addChildResource(UndertowExtension.PATH_PERSISTENT_SESSIONS)
+                .getAttributeBuilder()
+                .setDiscard(FALSE_DISCARD_CHECKER, PersistentSessionsDefinition.INCREMENTAL)
+                .addRejectCheck(RejectAttributeChecker.DEFINED, PersistentSessionsDefinition.INCREMENTAL)
+                .end();
+    }
+
+    private static void addFileHandlerRules(ResourceTransformationDescriptionBuilder handlers) {
+        handlers.addChildResource(PathElement.pathElement(Constants.FILE))
+                .getAttributeBuilder()
+                .setDiscard(DiscardAttributeChecker.UNDEFINED, FileHandler.TRANSFER_MIN_SIZE)
+                .addRejectCheck(RejectAttributeChecker.DEFINED, FileHandler.TRANSFER_MIN_SIZE)
+                .setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(0L)), FileHandler.MAPPED_CACHE_SIZE)
+                .addRejectCheck(RejectAttributeChecker.DEFINED, FileHandler.MAPPED_CACHE_SIZE)
+                .end();
+    }
+
+    private static void addAccessLogRules(ResourceTransformationDescriptionBuilder host) {
+        host.addChildResource(UndertowExtension.PATH_ACCESS_LOG)
+                .getAttributeBuilder()
+                .setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(AccessLogFormat.TEXT.name())), AccessLogDefinition.FORMAT)
+                .addRejectCheck(RejectAttributeChecker.DEFINED, AccessLogDefinition.FORMAT)
+                .setDiscard(DiscardAttributeChecker.ALWAYS, AccessLogDefinition.QUEUE_SIZE)
+                .end();
+    }
+
+    private static void addFilterRules(ResourceTransformationDescriptionBuilder filters) {
+        filters.rejectChildResource(AdaptiveRequestLimitFilter.INSTANCE.getPathElement());
+        filters.addChildResource(GzipFilter.INSTANCE.getPathElement())
+                .getAttributeBuilder()
+                .setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(0L)), GzipFilter.CACHE_SIZE)
+                .addRejectCheck(RejectAttributeChecker.DEFINED, GzipFilter.CACHE_SIZE)
+                .setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(false)), GzipFilter.PRECOMPRESSED)
+                .addRejectCheck(RejectAttributeChecker.DEFINED, GzipFilter.PRECOMPRESSED)
+                .end();
+    }
+
     private static void addCommonListenerRules_EAP_7_1_0(AttributeTransformationDescriptionBuilder listener) {
         convertCommonListenerAttributes(listener);
         listener.addRejectCheck(RejectAttributeChecker.DEFINED, ALLOW_UNESCAPED_CHARACTERS_IN_URL)
@@ -144,8 +190,8 @@ public class UndertowTransformers implements ExtensionTransformerRegistration {
         .end();
 
 
-        subsystemBuilder
-                .addChildResource(UndertowExtension.PATH_SERVLET_CONTAINER)
+        final ResourceTransformationDescriptionBuilder servletContainerBuilder = subsystemBuilder.addChildResource(UndertowExtension.PATH_SERVLET_CONTAINER);
+        servletContainerBuilder
                 .getAttributeBuilder()
                     .setDiscard(FALSE_DISCARD_CHECKER, ServletContainerDefinition.DISABLE_FILE_WATCH_SERVICE)
                     .addRejectCheck(RejectAttributeChecker.DEFINED, ServletContainerDefinition.DISABLE_FILE_WATCH_SERVICE)
@@ -167,9 +213,11 @@ public class UndertowTransformers implements ExtensionTransformerRegistration {
                     .setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(0)), WebsocketsDefinition.DEFLATER_LEVEL)
 
                 .end();
+        addPersistentSessionsRules(servletContainerBuilder);
 
-        subsystemBuilder.addChildResource(UndertowExtension.PATH_HANDLERS)
-                .addChildResource(PathElement.pathElement(Constants.REVERSE_PROXY))
+        final ResourceTransformationDescriptionBuilder handlersBuilder = subsystemBuilder.addChildResource(UndertowExtension.PATH_HANDLERS);
+        addFileHandlerRules(handlersBuilder);
+        handlersBuilder.addChildResource(PathElement.pathElement(Constants.REVERSE_PROXY))
                 .getAttributeBuilder()
                 .setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(1L)), Constants.MAX_RETRIES)
                 .addRejectCheck(RejectAttributeChecker.DEFINED, Constants.MAX_RETRIES)
@@ -182,8 +230,9 @@ public class UndertowTransformers implements ExtensionTransformerRegistration {
                 .setDiscard(DiscardAttributeChecker.ALWAYS, Constants.ENABLE_HTTP2) //we just discard, as older versions will just continue to use HTTP/1.1, and enabling this does not guarentee a HTTP/2 connection anyway (if the backend does not support it)
                 .end();
 
-        subsystemBuilder.addChildResource(UndertowExtension.PATH_FILTERS)
-                .addChildResource(PathElement.pathElement(Constants.MOD_CLUSTER))
+        final ResourceTransformationDescriptionBuilder filtersBuilder = subsystemBuilder.addChildResource(UndertowExtension.PATH_FILTERS);
+        addFilterRules(filtersBuilder);
+        filtersBuilder.addChildResource(PathElement.pathElement(Constants.MOD_CLUSTER))
                 .getAttributeBuilder()
                 .setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(ModClusterDefinition.FAILOVER_STRATEGY.getDefaultValue()), ModClusterDefinition.FAILOVER_STRATEGY)
                 .setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(ModClusterDefinition.MAX_RETRIES.getDefaultValue()), ModClusterDefinition.MAX_RETRIES)
@@ -196,6 +245,7 @@ public class UndertowTransformers implements ExtensionTransformerRegistration {
                 .end();
 
         hostBuilder.rejectChildResource(UndertowExtension.PATH_HTTP_INVOKER);
+        addAccessLogRules(hostBuilder);
         subsystemBuilder.rejectChildResource(UndertowExtension.PATH_APPLICATION_SECURITY_DOMAIN);
 
         TransformationDescription.Tools.register(subsystemBuilder.build(), subsystemRegistration, MODEL_VERSION_EAP7_0_0);
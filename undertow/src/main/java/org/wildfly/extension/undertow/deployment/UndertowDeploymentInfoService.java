@@ -124,6 +124,7 @@ import org.jboss.security.config.SecurityConfiguration;
 import org.jboss.vfs.VirtualFile;
 import org.wildfly.extension.requestcontroller.ControlPoint;
 import org.wildfly.extension.undertow.Host;
+import org.wildfly.extension.undertow.IncrementalModularPersistentSessionManager;
 import org.wildfly.extension.undertow.JSPConfig;
 import org.wildfly.extension.undertow.ServletContainerService;
 import org.wildfly.extension.undertow.SessionCookieConfig;
@@ -628,6 +629,9 @@ public class UndertowDeploymentInfoService implements Service<DeploymentInfo> {
 
             if (servletContainer.getSessionPersistenceManager() != null) {
                 d.setSessionPersistenceManager(servletContainer.getSessionPersistenceManager());
+                if (servletContainer.getSessionPersistenceManager() instanceof IncrementalModularPersistentSessionManager) {
+                    d.addSessionListener(((IncrementalModularPersistentSessionManager) servletContainer.getSessionPersistenceManager()).createSessionListener(deploymentName));
+                }
             }
 
             //for 2.2 apps we do not require a leading / in path mappings
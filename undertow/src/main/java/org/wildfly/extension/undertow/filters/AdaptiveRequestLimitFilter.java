@@ -0,0 +1,174 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.extension.undertow.filters;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
+import org.jboss.as.controller.AttributeDefinition;
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
+import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
+import org.jboss.as.controller.operations.validation.IntRangeValidator;
+import org.jboss.as.controller.registry.AttributeAccess;
+import org.jboss.as.controller.registry.ManagementResourceRegistration;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.jboss.msc.service.ServiceController;
+import org.wildfly.extension.undertow.UndertowService;
+import org.wildfly.extension.undertow.logging.UndertowLogger;
+
+/**
+ * A request limit whose maximum number of concurrent requests adapts to the latency of the requests.
+ */
+public class AdaptiveRequestLimitFilter extends Filter {
+
+    public static final AdaptiveRequestLimitFilter INSTANCE = new AdaptiveRequestLimitFilter();
+
+    public static final AttributeDefinition INITIAL_LIMIT = new SimpleAttributeDefinitionBuilder("initial-limit", ModelType.INT)
+            .setValidator(new IntRangeValidator(1, true, true))
+            .setAllowExpression(true)
+            .setRequired(false)
+            .setDefaultValue(new ModelNode(20))
+            .setRestartAllServices()
+            .build();
+
+    public static final AttributeDefinition MIN_LIMIT = new SimpleAttributeDefinitionBuilder("min-limit", ModelType.INT)
+            .setValidator(new IntRangeValidator(1, true, true))
+            .setAllowExpression(true)
+            .setRequired(false)
+            .setDefaultValue(new ModelNode(1))
+            .setRestartAllServices()
+            .build();
+
+    public static final AttributeDefinition MAX_LIMIT = new SimpleAttributeDefinitionBuilder("max-limit", ModelType.INT)
+            .setValidator(new IntRangeValidator(1, true, true))
+            .setAllowExpression(true)
+            .setRequired(false)
+            .setDefaultValue(new ModelNode(1000))
+            .setRestartAllServices()
+            .build();
+
+    public static final AttributeDefinition QUEUE_SIZE = new SimpleAttributeDefinitionBuilder("queue-size", ModelType.INT)
+            .setValidator(new IntRangeValidator(0, true, true))
+            .setAllowExpression(true)
+            .setRequired(false)
+            .setDefaultValue(new ModelNode(0))
+            .setRestartAllServices()
+            .build();
+
+    static final AttributeDefinition CURRENT_LIMIT = new SimpleAttributeDefinitionBuilder("current-limit", ModelType.INT)
+            .setUndefinedMetricValue(new ModelNode(0))
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    static final AttributeDefinition IN_FLIGHT = new SimpleAttributeDefinitionBuilder("in-flight", ModelType.INT)
+            .setUndefinedMetricValue(new ModelNode(0))
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    static final AttributeDefinition QUEUED = new SimpleAttributeDefinitionBuilder("queued", ModelType.INT)
+            .setUndefinedMetricValue(new ModelNode(0))
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    static final AttributeDefinition REJECTED_REQUESTS = new SimpleAttributeDefinitionBuilder("rejected-requests", ModelType.LONG)
+            .setUndefinedMetricValue(new ModelNode(0L))
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    /*
+    <adaptive-request-limit name="limit" initial-limit="20" min-limit="1" max-limit="1000" queue-size="0"/>
+     */
+
+    private AdaptiveRequestLimitFilter() {
+        super("adaptive-request-limit");
+    }
+
+    @Override
+    public Collection<AttributeDefinition> getAttributes() {
+        return Arrays.asList(INITIAL_LIMIT, MIN_LIMIT, MAX_LIMIT, QUEUE_SIZE);
+    }
+
+    @Override
+    public void registerAttributes(ManagementResourceRegistration resourceRegistration) {
+        super.registerAttributes(resourceRegistration);
+        resourceRegistration.registerMetric(CURRENT_LIMIT, new LimiterMetricHandler() {
+            @Override
+            ModelNode getValue(AdaptiveRequestLimiter limiter) {
+                return new ModelNode(limiter.getLimit());
+            }
+        });
+        resourceRegistration.registerMetric(IN_FLIGHT, new LimiterMetricHandler() {
+            @Override
+            ModelNode getValue(AdaptiveRequestLimiter limiter) {
+                return new ModelNode(limiter.getInFlight());
+            }
+        });
+        resourceRegistration.registerMetric(QUEUED, new LimiterMetricHandler() {
+            @Override
+            ModelNode getValue(AdaptiveRequestLimiter limiter) {
+                return new ModelNode(limiter.getQueued());
+            }
+        });
+        resourceRegistration.registerMetric(REJECTED_REQUESTS, new LimiterMetricHandler() {
+            @Override
+            ModelNode getValue(AdaptiveRequestLimiter limiter) {
+                return new ModelNode(limiter.getRejected());
+            }
+        });
+    }
+
+    @Override
+    FilterService createFilterService(ModelNode model) throws OperationFailedException {
+        int minLimit = model.get(MIN_LIMIT.getName()).asInt();
+        int maxLimit = model.get(MAX_LIMIT.getName()).asInt();
+        if (minLimit > maxLimit) {
+            throw UndertowLogger.ROOT_LOGGER.minLimitExceedsMaxLimit(minLimit, maxLimit);
+        }
+        return new AdaptiveRequestLimitFilterService(this, model);
+    }
+
+    @Override
+    protected Class[] getConstructorSignature() {
+        throw new IllegalStateException(); //should not be used, as the handler is created by the filter service
+    }
+
+    /**
+     * Reads a statistic of the limiter of a running filter.
+     */
+    private abstract static class LimiterMetricHandler extends AbstractRuntimeOnlyHandler {
+
+        @Override
+        protected void executeRuntimeStep(OperationContext context, ModelNode operation) throws OperationFailedException {
+            ServiceController<?> controller = context.getServiceRegistry(false).getService(UndertowService.FILTER.append(context.getCurrentAddressValue()));
+            if ((controller != null) && (controller.getState() == ServiceController.State.UP) && (controller.getService() instanceof AdaptiveRequestLimitFilterService)) {
+                context.getResult().set(this.getValue(((AdaptiveRequestLimitFilterService) controller.getService()).getLimiter()));
+            } else {
+                context.getResult().set(new ModelNode(0));
+            }
+        }
+
+        abstract ModelNode getValue(AdaptiveRequestLimiter limiter);
+    }
+}
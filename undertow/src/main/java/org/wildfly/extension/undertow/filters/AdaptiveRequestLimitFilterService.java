@@ -0,0 +1,53 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.extension.undertow.filters;
+
+import io.undertow.Handlers;
+import io.undertow.predicate.Predicate;
+import io.undertow.server.HttpHandler;
+import org.jboss.dmr.ModelNode;
+
+/**
+ * Service of an adaptive request limit filter, whose limit is shared by every reference to the filter.
+ */
+class AdaptiveRequestLimitFilterService extends FilterService {
+
+    private final AdaptiveRequestLimiter limiter;
+
+    AdaptiveRequestLimitFilterService(AdaptiveRequestLimitFilter filter, ModelNode model) {
+        super(filter, model);
+        GradientLimit limit = new GradientLimit(model.get(AdaptiveRequestLimitFilter.INITIAL_LIMIT.getName()).asInt(),
+                model.get(AdaptiveRequestLimitFilter.MIN_LIMIT.getName()).asInt(),
+                model.get(AdaptiveRequestLimitFilter.MAX_LIMIT.getName()).asInt());
+        this.limiter = new AdaptiveRequestLimiter(limit, model.get(AdaptiveRequestLimitFilter.QUEUE_SIZE.getName()).asInt());
+    }
+
+    @Override
+    public HttpHandler createHttpHandler(Predicate predicate, HttpHandler next) {
+        HttpHandler handler = this.limiter.createHandler(next);
+        return (predicate != null) ? Handlers.predicate(predicate, handler, next) : handler;
+    }
+
+    AdaptiveRequestLimiter getLimiter() {
+        return this.limiter;
+    }
+}
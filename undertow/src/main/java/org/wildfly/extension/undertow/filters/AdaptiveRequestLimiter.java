@@ -0,0 +1,141 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.extension.undertow.filters;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.ResponseCodeHandler;
+import io.undertow.util.SameThreadExecutor;
+
+/**
+ * Limits the number of concurrent requests to a {@link GradientLimit}, queueing a bounded number of the requests
+ * exceeding it, and rejecting the others with a 503 response. Like Undertow's request limit, a queued request is
+ * suspended, and dispatched when a request in flight completes.
+ */
+class AdaptiveRequestLimiter {
+
+    private final GradientLimit limit;
+    private final int queueSize;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Queue<SuspendedRequest> queue = new ConcurrentLinkedQueue<>();
+    private final LongAdder rejected = new LongAdder();
+
+    AdaptiveRequestLimiter(GradientLimit limit, int queueSize) {
+        this.limit = limit;
+        this.queueSize = queueSize;
+    }
+
+    HttpHandler createHandler(HttpHandler next) {
+        return exchange -> this.handleRequest(exchange, next);
+    }
+
+    void handleRequest(HttpServerExchange exchange, HttpHandler next) throws Exception {
+        int inFlight = this.tryAcquire();
+        if (inFlight > 0) {
+            this.proceed(exchange, inFlight);
+            next.handleRequest(exchange);
+            return;
+        }
+        if (this.queued.incrementAndGet() > this.queueSize) {
+            this.queued.decrementAndGet();
+            this.rejected.increment();
+            ResponseCodeHandler.HANDLE_503.handleRequest(exchange);
+            return;
+        }
+        exchange.dispatch(SameThreadExecutor.INSTANCE, () -> {
+            this.queue.add(new SuspendedRequest(exchange, next));
+            // A request may have completed while this one was being queued
+            this.drain();
+        });
+    }
+
+    /**
+     * Admits a request, if the limit is not reached.
+     * @return the number of requests in flight including the admitted one, or 0 if the request was not admitted
+     */
+    private int tryAcquire() {
+        for (;;) {
+            int current = this.inFlight.get();
+            if (current >= this.limit.getLimit()) return 0;
+            if (this.inFlight.compareAndSet(current, current + 1)) return current + 1;
+        }
+    }
+
+    private void proceed(HttpServerExchange exchange, int inFlight) {
+        long start = System.nanoTime();
+        exchange.addExchangeCompleteListener((completedExchange, nextListener) -> {
+            try {
+                this.inFlight.decrementAndGet();
+                this.limit.sample(System.nanoTime() - start, inFlight);
+                this.drain();
+            } finally {
+                nextListener.proceed();
+            }
+        });
+    }
+
+    private void drain() {
+        int inFlight;
+        while (!this.queue.isEmpty() && ((inFlight = this.tryAcquire()) > 0)) {
+            SuspendedRequest request = this.queue.poll();
+            if (request == null) {
+                this.inFlight.decrementAndGet();
+            } else {
+                this.queued.decrementAndGet();
+                this.proceed(request.exchange, inFlight);
+                request.exchange.dispatch(request.next);
+            }
+        }
+    }
+
+    int getLimit() {
+        return this.limit.getLimit();
+    }
+
+    int getInFlight() {
+        return this.inFlight.get();
+    }
+
+    int getQueued() {
+        return this.queued.get();
+    }
+
+    long getRejected() {
+        return this.rejected.sum();
+    }
+
+    private static class SuspendedRequest {
+        final HttpServerExchange exchange;
+        final HttpHandler next;
+
+        SuspendedRequest(HttpServerExchange exchange, HttpHandler next) {
+            this.exchange = exchange;
+            this.next = next;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.extension.undertow.filters;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of compressed response bodies, keyed by request URI and validated by ETag, bounded by a number of bytes.
+ * Entries are evicted in least recently used order. Responses larger than an eighth of the cache are not cached,
+ * so that a single response cannot flush the whole cache.
+ */
+class CompressedResponseCache {
+
+    private final long capacity;
+    // Guarded by itself
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size = 0;
+
+    CompressedResponseCache(long capacity) {
+        this.capacity = capacity;
+    }
+
+    long getMaxEntrySize() {
+        return this.capacity / 8;
+    }
+
+    Entry get(String key) {
+        synchronized (this.entries) {
+            return this.entries.get(key);
+        }
+    }
+
+    void put(String key, Entry entry) {
+        if (entry.getContent().length > this.getMaxEntrySize()) return;
+        synchronized (this.entries) {
+            Entry old = this.entries.put(key, entry);
+            if (old != null) {
+                this.size -= old.getContent().length;
+            }
+            this.size += entry.getContent().length;
+            Iterator<Entry> eldest = this.entries.values().iterator();
+            while ((this.size > this.capacity) && eldest.hasNext()) {
+                this.size -= eldest.next().getContent().length;
+                eldest.remove();
+            }
+        }
+    }
+
+    void clear() {
+        synchronized (this.entries) {
+            this.entries.clear();
+            this.size = 0;
+        }
+    }
+
+    static class Entry {
+        private final String etag;
+        private final String contentType;
+        private final byte[] content;
+
+        Entry(String etag, String contentType, byte[] content) {
+            this.etag = etag;
+            this.contentType = contentType;
+            this.content = content;
+        }
+
+        String getETag() {
+            return this.etag;
+        }
+
+        String getContentType() {
+            return this.contentType;
+        }
+
+        byte[] getContent() {
+            return this.content;
+        }
+    }
+}
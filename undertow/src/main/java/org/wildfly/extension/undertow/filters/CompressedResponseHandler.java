@@ -0,0 +1,438 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.extension.undertow.filters;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import io.undertow.predicate.Predicate;
+import io.undertow.server.ConduitWrapper;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.resource.Resource;
+import io.undertow.server.handlers.resource.ResourceManager;
+import io.undertow.servlet.handlers.DefaultServlet;
+import io.undertow.servlet.handlers.ServletChain;
+import io.undertow.servlet.handlers.ServletRequestContext;
+import io.undertow.util.AttachmentKey;
+import io.undertow.util.ConduitFactory;
+import io.undertow.util.HeaderMap;
+import io.undertow.util.HeaderValues;
+import io.undertow.util.Headers;
+import io.undertow.util.Methods;
+import io.undertow.util.StatusCodes;
+import javax.servlet.http.HttpServletRequest;
+import org.wildfly.extension.undertow.logging.UndertowLogger;
+import org.xnio.channels.StreamSourceChannel;
+import org.xnio.conduits.AbstractStreamSinkConduit;
+import org.xnio.conduits.ConduitWritableByteChannel;
+import org.xnio.conduits.Conduits;
+import org.xnio.conduits.StreamSinkConduit;
+
+/**
+ * Serves gzip encoded responses from a {@link CompressedResponseCache}, or from the pre-compressed {@code .gz} sibling
+ * of a static resource, instead of compressing them on every request.
+ * <p/>
+ * The handler surrounds an encoding handler. Before it, a response wrapper is registered that runs inside the gzip
+ * encoding conduit, and captures the compressed bytes of cacheable responses. After it, the handler returned by
+ * {@link #createReplacementHandler(HttpHandler)} registers a response wrapper that runs outside the gzip encoding conduit,
+ * and replaces the body produced by the application with the cached or pre-compressed one. A cached entry is only
+ * served once the application confirmed, by its ETag, that the resource did not change: if the client did not make the
+ * request conditional, the handler makes it conditional on the ETag of the cached entry, so that the application can
+ * answer with a cheap 304, which is then turned back into a full response.
+ */
+class CompressedResponseHandler implements HttpHandler {
+
+    private static final String GZIP = "gzip";
+    private static final String PRECOMPRESSED_SUFFIX = ".gz";
+    /**
+     * Pre-compressed resources are read into memory, so larger ones are left to the encoding handler.
+     */
+    static final long MAX_PRECOMPRESSED_SIZE = 1024 * 1024;
+
+    private static final AttachmentKey<CompressedResponse> RESPONSE = AttachmentKey.create(CompressedResponse.class);
+
+    private final HttpHandler next;
+    private final Predicate predicate;
+    private final CompressedResponseCache cache;
+    private final boolean precompressed;
+    private final CompressionStatistics statistics;
+
+    /**
+     * @param next the encoding handler
+     * @param predicate the predicate of the filter, or null
+     * @param cache the cache of compressed responses, or null
+     * @param precompressed whether the pre-compressed siblings of static resources are served
+     * @param statistics the statistics of the filter
+     */
+    CompressedResponseHandler(HttpHandler next, Predicate predicate, CompressedResponseCache cache, boolean precompressed, CompressionStatistics statistics) {
+        this.next = next;
+        this.predicate = predicate;
+        this.cache = cache;
+        this.precompressed = precompressed;
+        this.statistics = statistics;
+    }
+
+    /**
+     * Creates the handler to be invoked by the encoding handler, in front of the handler it wraps.
+     */
+    HttpHandler createReplacementHandler(HttpHandler next) {
+        return exchange -> {
+            CompressedResponse response = exchange.getAttachment(RESPONSE);
+            if (response != null) {
+                exchange.addResponseWrapper(response.new ReplacementWrapper());
+            }
+            next.handleRequest(exchange);
+        };
+    }
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        if (Methods.GET.equals(exchange.getRequestMethod()) && !exchange.getRequestHeaders().contains(Headers.RANGE) && acceptsGzip(exchange) && ((this.predicate == null) || this.predicate.resolve(exchange))) {
+            String key = exchange.getQueryString().isEmpty() ? exchange.getRequestURI() : exchange.getRequestURI() + '?' + exchange.getQueryString();
+            CompressedResponseCache.Entry entry = (this.cache != null) ? this.cache.get(key) : null;
+            HeaderMap requestHeaders = exchange.getRequestHeaders();
+            boolean revalidating = (entry != null) && !requestHeaders.contains(Headers.IF_NONE_MATCH) && !requestHeaders.contains(Headers.IF_MODIFIED_SINCE);
+            if (revalidating) {
+                requestHeaders.put(Headers.IF_NONE_MATCH, entry.getETag());
+            }
+            CompressedResponse response = new CompressedResponse(key, entry, revalidating);
+            exchange.putAttachment(RESPONSE, response);
+            exchange.addResponseWrapper(response.new CaptureWrapper());
+        }
+        this.next.handleRequest(exchange);
+    }
+
+    private static boolean acceptsGzip(HttpServerExchange exchange) {
+        HeaderValues values = exchange.getRequestHeaders().get(Headers.ACCEPT_ENCODING);
+        if (values == null) return false;
+        for (String value : values) {
+            for (String encoding : value.split(",")) {
+                String[] parts = encoding.split(";");
+                String name = parts[0].trim();
+                if (name.equalsIgnoreCase(GZIP) || name.equals("*")) {
+                    boolean accepted = true;
+                    for (int i = 1; i < parts.length; ++i) {
+                        String parameter = parts[i].trim();
+                        if (parameter.startsWith("q=")) {
+                            try {
+                                accepted = Float.parseFloat(parameter.substring(2)) > 0;
+                            } catch (NumberFormatException e) {
+                                accepted = false;
+                            }
+                        }
+                    }
+                    return accepted;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the content of the pre-compressed sibling of the static resource served by the default servlet, if any.
+     */
+    private static byte[] readPrecompressed(HttpServerExchange exchange) {
+        ServletRequestContext context = exchange.getAttachment(ServletRequestContext.ATTACHMENT_KEY);
+        if (context == null) return null;
+        ServletChain servlet = context.getCurrentServlet();
+        if ((servlet == null) || !DefaultServlet.class.isAssignableFrom(servlet.getManagedServlet().getServletInfo().getServletClass())) return null;
+        HttpServletRequest request = (HttpServletRequest) context.getServletRequest();
+        String path = (request.getPathInfo() != null) ? request.getServletPath() + request.getPathInfo() : request.getServletPath();
+        ResourceManager manager = context.getDeployment().getDeploymentInfo().getResourceManager();
+        try {
+            Resource resource = manager.getResource(path + PRECOMPRESSED_SUFFIX);
+            if ((resource == null) || resource.isDirectory()) return null;
+            Long length = resource.getContentLength();
+            if ((length == null) || (length > MAX_PRECOMPRESSED_SIZE)) return null;
+            Path file = resource.getFilePath();
+            if (file != null) {
+                return Files.readAllBytes(file);
+            }
+            try (InputStream input = resource.getUrl().openStream()) {
+                ByteArrayOutputStream output = new ByteArrayOutputStream(length.intValue());
+                byte[] buffer = new byte[8192];
+                for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+                    output.write(buffer, 0, read);
+                }
+                return output.toByteArray();
+            }
+        } catch (IOException e) {
+            UndertowLogger.ROOT_LOGGER.debugf(e, "Failed to read %s", path + PRECOMPRESSED_SUFFIX);
+            return null;
+        }
+    }
+
+    /**
+     * The state of a response eligible for compression.
+     */
+    private class CompressedResponse {
+        private final String key;
+        private final CompressedResponseCache.Entry entry;
+        private final boolean revalidating;
+        private volatile boolean replaced = false;
+
+        CompressedResponse(String key, CompressedResponseCache.Entry entry, boolean revalidating) {
+            this.key = key;
+            this.entry = entry;
+            this.revalidating = revalidating;
+        }
+
+        /**
+         * Replaces the response with the cached or pre-compressed one, if any. Runs outside the gzip encoding conduit.
+         */
+        class ReplacementWrapper implements ConduitWrapper<StreamSinkConduit> {
+            @Override
+            public StreamSinkConduit wrap(ConduitFactory<StreamSinkConduit> factory, HttpServerExchange exchange) {
+                HeaderMap headers = exchange.getResponseHeaders();
+                int status = exchange.getStatusCode();
+                CompressedResponseCache.Entry entry = CompressedResponse.this.entry;
+                if ((entry != null) && ((CompressedResponse.this.revalidating && (status == StatusCodes.NOT_MODIFIED)) || ((status == StatusCodes.OK) && entry.getETag().equals(headers.getFirst(Headers.ETAG))))) {
+                    CompressedResponseHandler.this.statistics.cacheHit();
+                    return this.replace(factory, exchange, entry);
+                }
+                if (CompressedResponseHandler.this.cache != null) {
+                    CompressedResponseHandler.this.statistics.cacheMiss();
+                }
+                if (CompressedResponseHandler.this.precompressed && (status == StatusCodes.OK) && !headers.contains(Headers.CONTENT_ENCODING)) {
+                    byte[] content = readPrecompressed(exchange);
+                    if (content != null) {
+                        CompressedResponseHandler.this.statistics.precompressedResponse();
+                        String etag = headers.getFirst(Headers.ETAG);
+                        CompressedResponseCache.Entry precompressed = new CompressedResponseCache.Entry(etag, headers.getFirst(Headers.CONTENT_TYPE), content);
+                        if ((CompressedResponseHandler.this.cache != null) && (etag != null)) {
+                            CompressedResponseHandler.this.cache.put(CompressedResponse.this.key, precompressed);
+                        }
+                        return this.replace(factory, exchange, precompressed);
+                    }
+                }
+                return factory.create();
+            }
+
+            private StreamSinkConduit replace(ConduitFactory<StreamSinkConduit> factory, HttpServerExchange exchange, CompressedResponseCache.Entry entry) {
+                CompressedResponse.this.replaced = true;
+                exchange.setStatusCode(StatusCodes.OK);
+                HeaderMap headers = exchange.getResponseHeaders();
+                // A content encoding tells the encoding handler that the response is already encoded
+                headers.put(Headers.CONTENT_ENCODING, GZIP);
+                headers.put(Headers.CONTENT_LENGTH, entry.getContent().length);
+                headers.remove(Headers.TRANSFER_ENCODING);
+                if ((entry.getETag() != null) && !headers.contains(Headers.ETAG)) {
+                    headers.put(Headers.ETAG, entry.getETag());
+                }
+                if ((entry.getContentType() != null) && !headers.contains(Headers.CONTENT_TYPE)) {
+                    headers.put(Headers.CONTENT_TYPE, entry.getContentType());
+                }
+                if (!headers.contains(Headers.VARY)) {
+                    headers.put(Headers.VARY, Headers.ACCEPT_ENCODING_STRING);
+                }
+                return new ReplacingConduit(factory.create(), entry.getContent());
+            }
+        }
+
+        /**
+         * Captures the compressed body of a cacheable response. Runs inside the gzip encoding conduit.
+         */
+        class CaptureWrapper implements ConduitWrapper<StreamSinkConduit> {
+            @Override
+            public StreamSinkConduit wrap(ConduitFactory<StreamSinkConduit> factory, HttpServerExchange exchange) {
+                CompressedResponseCache cache = CompressedResponseHandler.this.cache;
+                HeaderMap headers = exchange.getResponseHeaders();
+                String etag = headers.getFirst(Headers.ETAG);
+                if ((cache != null) && !CompressedResponse.this.replaced && (exchange.getStatusCode() == StatusCodes.OK) && (etag != null) && GZIP.equals(headers.getFirst(Headers.CONTENT_ENCODING))) {
+                    return new CapturingConduit(factory.create(), cache, CompressedResponse.this.key, etag, headers.getFirst(Headers.CONTENT_TYPE));
+                }
+                return factory.create();
+            }
+        }
+    }
+
+    /**
+     * Discards the body written by the application, and writes the replacement body instead.
+     */
+    private static class ReplacingConduit extends AbstractStreamSinkConduit<StreamSinkConduit> {
+        private final ByteBuffer content;
+        private boolean terminated = false;
+        private boolean nextTerminated = false;
+
+        ReplacingConduit(StreamSinkConduit next, byte[] content) {
+            super(next);
+            this.content = ByteBuffer.wrap(content);
+        }
+
+        @Override
+        public long transferFrom(FileChannel src, long position, long count) throws IOException {
+            return src.transferTo(position, count, new ConduitWritableByteChannel(this));
+        }
+
+        @Override
+        public long transferFrom(StreamSourceChannel source, long count, ByteBuffer throughBuffer) throws IOException {
+            return Conduits.transfer(source, count, throughBuffer, this);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            int remaining = src.remaining();
+            src.position(src.limit());
+            return remaining;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offs, int len) throws IOException {
+            long written = 0;
+            for (int i = offs; i < offs + len; ++i) {
+                written += this.write(srcs[i]);
+            }
+            return written;
+        }
+
+        @Override
+        public int writeFinal(ByteBuffer src) throws IOException {
+            return Conduits.writeFinalBasic(this, src);
+        }
+
+        @Override
+        public long writeFinal(ByteBuffer[] srcs, int offs, int len) throws IOException {
+            return Conduits.writeFinalBasic(this, srcs, offs, len);
+        }
+
+        @Override
+        public void terminateWrites() throws IOException {
+            this.terminated = true;
+        }
+
+        @Override
+        public boolean isWriteShutdown() {
+            return this.terminated;
+        }
+
+        @Override
+        public boolean flush() throws IOException {
+            while (this.content.hasRemaining()) {
+                if (this.next.write(this.content) == 0) {
+                    return false;
+                }
+            }
+            if (this.terminated && !this.nextTerminated) {
+                this.next.terminateWrites();
+                this.nextTerminated = true;
+            }
+            return this.next.flush();
+        }
+    }
+
+    /**
+     * Copies the bytes written to the next conduit, and caches them once the response completes.
+     */
+    private static class CapturingConduit extends AbstractStreamSinkConduit<StreamSinkConduit> {
+        private final CompressedResponseCache cache;
+        private final String key;
+        private final String etag;
+        private final String contentType;
+        private ByteArrayOutputStream captured = new ByteArrayOutputStream();
+
+        CapturingConduit(StreamSinkConduit next, CompressedResponseCache cache, String key, String etag, String contentType) {
+            super(next);
+            this.cache = cache;
+            this.key = key;
+            this.etag = etag;
+            this.contentType = contentType;
+        }
+
+        private void capture(ByteBuffer src, int position) {
+            if (this.captured == null) return;
+            int length = src.position() - position;
+            if (this.captured.size() + length > this.cache.getMaxEntrySize()) {
+                // Too large to be cached
+                this.captured = null;
+                return;
+            }
+            ByteBuffer written = src.duplicate();
+            written.position(position).limit(position + length);
+            byte[] bytes = new byte[length];
+            written.get(bytes);
+            this.captured.write(bytes, 0, length);
+        }
+
+        @Override
+        public long transferFrom(FileChannel src, long position, long count) throws IOException {
+            return src.transferTo(position, count, new ConduitWritableByteChannel(this));
+        }
+
+        @Override
+        public long transferFrom(StreamSourceChannel source, long count, ByteBuffer throughBuffer) throws IOException {
+            return Conduits.transfer(source, count, throughBuffer, this);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            int position = src.position();
+            int written = this.next.write(src);
+            this.capture(src, position);
+            return written;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offs, int len) throws IOException {
+            int[] positions = new int[len];
+            for (int i = 0; i < len; ++i) {
+                positions[i] = srcs[offs + i].position();
+            }
+            long written = this.next.write(srcs, offs, len);
+            for (int i = 0; i < len; ++i) {
+                this.capture(srcs[offs + i], positions[i]);
+            }
+            return written;
+        }
+
+        @Override
+        public int writeFinal(ByteBuffer src) throws IOException {
+            return Conduits.writeFinalBasic(this, src);
+        }
+
+        @Override
+        public long writeFinal(ByteBuffer[] srcs, int offs, int len) throws IOException {
+            return Conduits.writeFinalBasic(this, srcs, offs, len);
+        }
+
+        @Override
+        public void terminateWrites() throws IOException {
+            this.next.terminateWrites();
+            if (this.captured != null) {
+                this.cache.put(this.key, new CompressedResponseCache.Entry(this.etag, this.contentType, this.captured.toByteArray()));
+                this.captured = null;
+            }
+        }
+
+        @Override
+        public void truncateWrites() throws IOException {
+            // The response is incomplete
+            this.captured = null;
+            this.next.truncateWrites();
+        }
+    }
+}
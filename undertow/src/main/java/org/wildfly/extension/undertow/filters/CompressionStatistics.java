@@ -0,0 +1,94 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.extension.undertow.filters;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of the responses compressed, or served from the compressed response cache, by a gzip filter.
+ */
+class CompressionStatistics {
+
+    private final LongAdder uncompressedBytes = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder compressionTime = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder precompressedResponses = new LongAdder();
+
+    void addUncompressedBytes(long bytes) {
+        this.uncompressedBytes.add(bytes);
+    }
+
+    void addCompressedBytes(long bytes) {
+        this.compressedBytes.add(bytes);
+    }
+
+    void addCompressionTime(long nanos) {
+        this.compressionTime.add(nanos);
+    }
+
+    void cacheHit() {
+        this.cacheHits.increment();
+    }
+
+    void cacheMiss() {
+        this.cacheMisses.increment();
+    }
+
+    void precompressedResponse() {
+        this.precompressedResponses.increment();
+    }
+
+    long getUncompressedBytes() {
+        return this.uncompressedBytes.sum();
+    }
+
+    long getCompressedBytes() {
+        return this.compressedBytes.sum();
+    }
+
+    /**
+     * Returns the ratio of compressed to uncompressed bytes of the responses compressed on the fly, or 0 if none were.
+     */
+    double getCompressionRatio() {
+        long uncompressed = this.uncompressedBytes.sum();
+        return (uncompressed > 0) ? (double) this.compressedBytes.sum() / uncompressed : 0d;
+    }
+
+    long getCompressionTime(TimeUnit unit) {
+        return unit.convert(this.compressionTime.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    long getCacheHits() {
+        return this.cacheHits.sum();
+    }
+
+    long getCacheMisses() {
+        return this.cacheMisses.sum();
+    }
+
+    long getPrecompressedResponses() {
+        return this.precompressedResponses.sum();
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.extension.undertow.filters;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A concurrency limit adjusted from the gradient between the long term and the short term average latency of requests.
+ * <p/>
+ * Latency samples are aggregated in windows of at least {@link #MIN_WINDOW_SAMPLES} samples spanning at least
+ * {@link #MIN_WINDOW_DURATION} nanoseconds. At the end of each window, the average latency of the window is compared
+ * to the exponential moving average of the previous windows: while it stays within {@link #TOLERANCE} of it, the
+ * target limit is the limit plus its square root, leaving room for some queueing. As latency increases beyond this
+ * tolerance, the target decreases proportionally, down to half the limit. Each window only moves the limit
+ * {@link #SMOOTHING} of the way towards its target, so the limit grows by a fifth of its square root, and shrinks by
+ * at most a tenth of its value, per window. Windows in which the limit was not approached carry no information about
+ * the capacity of the server, and do not grow the limit.
+ */
+class GradientLimit {
+
+    static final int MIN_WINDOW_SAMPLES = 10;
+    static final long MIN_WINDOW_DURATION = TimeUnit.MILLISECONDS.toNanos(100);
+    static final double TOLERANCE = 1.5;
+    static final double SMOOTHING = 0.2;
+    // The number of windows averaged by the long term latency
+    static final int LONG_TERM_WINDOWS = 100;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private volatile int limit;
+
+    // Guarded by this
+    private double estimatedLimit;
+    private double longTermLatency = 0;
+    private long windowStart = 0;
+    private long windowLatency = 0;
+    private int windowSamples = 0;
+    private int windowMaxInFlight = 0;
+
+    GradientLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) this.estimatedLimit;
+    }
+
+    int getLimit() {
+        return this.limit;
+    }
+
+    /**
+     * Records the latency of a request.
+     * @param latency the latency of the request, in nanoseconds
+     * @param inFlight the number of requests in flight when the request started, including it
+     */
+    void sample(long latency, int inFlight) {
+        this.sample(latency, inFlight, System.nanoTime());
+    }
+
+    synchronized void sample(long latency, int inFlight, long now) {
+        if (this.windowSamples == 0) {
+            this.windowStart = now;
+        }
+        this.windowLatency += latency;
+        this.windowSamples += 1;
+        this.windowMaxInFlight = Math.max(this.windowMaxInFlight, inFlight);
+        if ((this.windowSamples < MIN_WINDOW_SAMPLES) || (now - this.windowStart < MIN_WINDOW_DURATION)) return;
+
+        double shortTermLatency = (double) this.windowLatency / this.windowSamples;
+        boolean limited = this.windowMaxInFlight * 2 >= this.limit;
+        this.windowLatency = 0;
+        this.windowSamples = 0;
+        this.windowMaxInFlight = 0;
+
+        if (this.longTermLatency == 0) {
+            this.longTermLatency = shortTermLatency;
+        } else {
+            this.longTermLatency += (shortTermLatency - this.longTermLatency) / LONG_TERM_WINDOWS;
+            // Let the long term latency recover faster from a past overload
+            if (this.longTermLatency > shortTermLatency * 2) {
+                this.longTermLatency *= 0.95;
+            }
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * this.longTermLatency / shortTermLatency));
+        if (!limited && (gradient == 1.0)) return;
+
+        double newLimit = this.estimatedLimit * gradient + Math.sqrt(this.estimatedLimit);
+        newLimit = this.estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        this.estimatedLimit = Math.max(this.minLimit, Math.min(this.maxLimit, newLimit));
+        this.limit = (int) this.estimatedLimit;
+    }
+}
@@ -22,13 +22,29 @@
 
 package org.wildfly.extension.undertow.filters;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
 import io.undertow.predicate.Predicate;
 import io.undertow.predicate.Predicates;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.handlers.encoding.ContentEncodingRepository;
 import io.undertow.server.handlers.encoding.EncodingHandler;
 import io.undertow.server.handlers.encoding.GzipEncodingProvider;
+import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
+import org.jboss.as.controller.AttributeDefinition;
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
+import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
+import org.jboss.as.controller.client.helpers.MeasurementUnit;
+import org.jboss.as.controller.operations.validation.LongRangeValidator;
+import org.jboss.as.controller.registry.AttributeAccess;
+import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.jboss.msc.service.ServiceController;
+import org.wildfly.extension.undertow.UndertowService;
 
 /**
  * @author Tomaz Cerar (c) 2014 Red Hat Inc.
@@ -38,10 +54,121 @@ public class GzipFilter extends Filter {
 
     public static final GzipFilter INSTANCE = new GzipFilter();
 
+    public static final AttributeDefinition CACHE_SIZE = new SimpleAttributeDefinitionBuilder("cache-size", ModelType.LONG)
+            .setRequired(false)
+            .setAllowExpression(true)
+            .setDefaultValue(new ModelNode(0L))
+            .setMeasurementUnit(MeasurementUnit.BYTES)
+            .setValidator(new LongRangeValidator(0, true, true))
+            .setRestartAllServices()
+            .build();
+
+    public static final AttributeDefinition PRECOMPRESSED = new SimpleAttributeDefinitionBuilder("precompressed", ModelType.BOOLEAN)
+            .setRequired(false)
+            .setAllowExpression(true)
+            .setDefaultValue(new ModelNode(false))
+            .setRestartAllServices()
+            .build();
+
+    static final AttributeDefinition UNCOMPRESSED_BYTES = new SimpleAttributeDefinitionBuilder("uncompressed-bytes", ModelType.LONG)
+            .setUndefinedMetricValue(new ModelNode(0L))
+            .setMeasurementUnit(MeasurementUnit.BYTES)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    static final AttributeDefinition COMPRESSED_BYTES = new SimpleAttributeDefinitionBuilder("compressed-bytes", ModelType.LONG)
+            .setUndefinedMetricValue(new ModelNode(0L))
+            .setMeasurementUnit(MeasurementUnit.BYTES)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    static final AttributeDefinition COMPRESSION_RATIO = new SimpleAttributeDefinitionBuilder("compression-ratio", ModelType.DOUBLE)
+            .setUndefinedMetricValue(new ModelNode(0d))
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    static final AttributeDefinition COMPRESSION_TIME = new SimpleAttributeDefinitionBuilder("compression-time", ModelType.LONG)
+            .setUndefinedMetricValue(new ModelNode(0L))
+            .setMeasurementUnit(MeasurementUnit.MILLISECONDS)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    static final AttributeDefinition CACHE_HITS = new SimpleAttributeDefinitionBuilder("cache-hits", ModelType.LONG)
+            .setUndefinedMetricValue(new ModelNode(0L))
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    static final AttributeDefinition CACHE_MISSES = new SimpleAttributeDefinitionBuilder("cache-misses", ModelType.LONG)
+            .setUndefinedMetricValue(new ModelNode(0L))
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    static final AttributeDefinition PRECOMPRESSED_RESPONSES = new SimpleAttributeDefinitionBuilder("precompressed-responses", ModelType.LONG)
+            .setUndefinedMetricValue(new ModelNode(0L))
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
     private GzipFilter() {
         super("gzip");
     }
 
+    @Override
+    public Collection<AttributeDefinition> getAttributes() {
+        return Arrays.asList(CACHE_SIZE, PRECOMPRESSED);
+    }
+
+    @Override
+    public void registerAttributes(ManagementResourceRegistration resourceRegistration) {
+        super.registerAttributes(resourceRegistration);
+        resourceRegistration.registerMetric(UNCOMPRESSED_BYTES, new StatisticsMetricHandler() {
+            @Override
+            ModelNode getValue(CompressionStatistics statistics) {
+                return new ModelNode(statistics.getUncompressedBytes());
+            }
+        });
+        resourceRegistration.registerMetric(COMPRESSED_BYTES, new StatisticsMetricHandler() {
+            @Override
+            ModelNode getValue(CompressionStatistics statistics) {
+                return new ModelNode(statistics.getCompressedBytes());
+            }
+        });
+        resourceRegistration.registerMetric(COMPRESSION_RATIO, new StatisticsMetricHandler() {
+            @Override
+            ModelNode getValue(CompressionStatistics statistics) {
+                return new ModelNode(statistics.getCompressionRatio());
+            }
+        });
+        resourceRegistration.registerMetric(COMPRESSION_TIME, new StatisticsMetricHandler() {
+            @Override
+            ModelNode getValue(CompressionStatistics statistics) {
+                return new ModelNode(statistics.getCompressionTime(TimeUnit.MILLISECONDS));
+            }
+        });
+        resourceRegistration.registerMetric(CACHE_HITS, new StatisticsMetricHandler() {
+            @Override
+            ModelNode getValue(CompressionStatistics statistics) {
+                return new ModelNode(statistics.getCacheHits());
+            }
+        });
+        resourceRegistration.registerMetric(CACHE_MISSES, new StatisticsMetricHandler() {
+            @Override
+            ModelNode getValue(CompressionStatistics statistics) {
+                return new ModelNode(statistics.getCacheMisses());
+            }
+        });
+        resourceRegistration.registerMetric(PRECOMPRESSED_RESPONSES, new StatisticsMetricHandler() {
+            @Override
+            ModelNode getValue(CompressionStatistics statistics) {
+                return new ModelNode(statistics.getPrecompressedResponses());
+            }
+        });
+    }
+
+    @Override
+    FilterService createFilterService(ModelNode model) {
+        return new GzipFilterService(this, model);
+    }
+
     @Override
     public HttpHandler createHttpHandler(final Predicate predicate, ModelNode model, HttpHandler next) {
         EncodingHandler encodingHandler = new EncodingHandler(new ContentEncodingRepository()
@@ -54,4 +181,22 @@ public class GzipFilter extends Filter {
     protected Class[] getConstructorSignature() {
         throw new IllegalStateException(); //should not be used, as the handler is constructed above
     }
+
+    /**
+     * Reads a statistic of a running gzip filter.
+     */
+    private abstract static class StatisticsMetricHandler extends AbstractRuntimeOnlyHandler {
+
+        @Override
+        protected void executeRuntimeStep(OperationContext context, ModelNode operation) throws OperationFailedException {
+            ServiceController<?> controller = context.getServiceRegistry(false).getService(UndertowService.FILTER.append(context.getCurrentAddressValue()));
+            if ((controller != null) && (controller.getState() == ServiceController.State.UP) && (controller.getService() instanceof GzipFilterService)) {
+                context.getResult().set(this.getValue(((GzipFilterService) controller.getService()).getStatistics()));
+            } else {
+                context.getResult().set(this.getValue(new CompressionStatistics()));
+            }
+        }
+
+        abstract ModelNode getValue(CompressionStatistics statistics);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.extension.undertow.filters;
+
+import io.undertow.predicate.Predicate;
+import io.undertow.predicate.Predicates;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.handlers.encoding.ContentEncodingRepository;
+import io.undertow.server.handlers.encoding.EncodingHandler;
+import io.undertow.server.handlers.encoding.GzipEncodingProvider;
+import org.jboss.dmr.ModelNode;
+import org.jboss.msc.service.StopContext;
+
+/**
+ * Service of a gzip filter, which records the statistics of the responses it compresses, and optionally serves them
+ * from a cache of compressed responses, or from the pre-compressed siblings of static resources.
+ */
+class GzipFilterService extends FilterService {
+
+    private final CompressionStatistics statistics = new CompressionStatistics();
+    private final CompressedResponseCache cache;
+    private final boolean precompressed;
+
+    GzipFilterService(GzipFilter filter, ModelNode model) {
+        super(filter, model);
+        long cacheSize = model.get(GzipFilter.CACHE_SIZE.getName()).asLong();
+        this.cache = (cacheSize > 0) ? new CompressedResponseCache(cacheSize) : null;
+        this.precompressed = model.get(GzipFilter.PRECOMPRESSED.getName()).asBoolean();
+    }
+
+    @Override
+    public void stop(StopContext context) {
+        if (this.cache != null) {
+            this.cache.clear();
+        }
+    }
+
+    @Override
+    public HttpHandler createHttpHandler(Predicate predicate, HttpHandler next) {
+        EncodingHandler encodingHandler = new EncodingHandler(new ContentEncodingRepository()
+                .addEncodingHandler("gzip", new MeteredEncodingProvider(new GzipEncodingProvider(), this.statistics), 50, predicate != null ? predicate : Predicates.truePredicate()));
+        if ((this.cache == null) && !this.precompressed) {
+            encodingHandler.setNext(next);
+            return encodingHandler;
+        }
+        CompressedResponseHandler handler = new CompressedResponseHandler(encodingHandler, predicate, this.cache, this.precompressed, this.statistics);
+        encodingHandler.setNext(handler.createReplacementHandler(next));
+        return handler;
+    }
+
+    CompressionStatistics getStatistics() {
+        return this.statistics;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.extension.undertow.filters;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import io.undertow.server.ConduitWrapper;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.encoding.ContentEncodingProvider;
+import io.undertow.util.ConduitFactory;
+import org.xnio.channels.StreamSourceChannel;
+import org.xnio.conduits.AbstractStreamSinkConduit;
+import org.xnio.conduits.ConduitWritableByteChannel;
+import org.xnio.conduits.Conduits;
+import org.xnio.conduits.StreamSinkConduit;
+
+/**
+ * A {@link ContentEncodingProvider} that records the bytes written to and by the conduits of another provider,
+ * along with the time spent compressing them.
+ */
+class MeteredEncodingProvider implements ContentEncodingProvider {
+
+    private final ContentEncodingProvider provider;
+    private final CompressionStatistics statistics;
+
+    MeteredEncodingProvider(ContentEncodingProvider provider, CompressionStatistics statistics) {
+        this.provider = provider;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public ConduitWrapper<StreamSinkConduit> getResponseWrapper() {
+        ConduitWrapper<StreamSinkConduit> wrapper = this.provider.getResponseWrapper();
+        CompressionStatistics statistics = this.statistics;
+        return (ConduitFactory<StreamSinkConduit> factory, HttpServerExchange exchange) -> {
+            ConduitFactory<StreamSinkConduit> compressedFactory = () -> new CompressedConduit(factory.create(), statistics);
+            return new UncompressedConduit(wrapper.wrap(compressedFactory, exchange), statistics);
+        };
+    }
+
+    /**
+     * Counts the bytes written by the application, and the time spent by the encoding conduit processing them.
+     */
+    private static class UncompressedConduit extends AbstractStreamSinkConduit<StreamSinkConduit> {
+        private final CompressionStatistics statistics;
+
+        UncompressedConduit(StreamSinkConduit next, CompressionStatistics statistics) {
+            super(next);
+            this.statistics = statistics;
+        }
+
+        @Override
+        public long transferFrom(FileChannel src, long position, long count) throws IOException {
+            return src.transferTo(position, count, new ConduitWritableByteChannel(this));
+        }
+
+        @Override
+        public long transferFrom(StreamSourceChannel source, long count, ByteBuffer throughBuffer) throws IOException {
+            return Conduits.transfer(source, count, throughBuffer, this);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            long start = System.nanoTime();
+            try {
+                int written = this.next.write(src);
+                this.statistics.addUncompressedBytes(written);
+                return written;
+            } finally {
+                this.statistics.addCompressionTime(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offs, int len) throws IOException {
+            long start = System.nanoTime();
+            try {
+                long written = this.next.write(srcs, offs, len);
+                this.statistics.addUncompressedBytes(written);
+                return written;
+            } finally {
+                this.statistics.addCompressionTime(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public int writeFinal(ByteBuffer src) throws IOException {
+            return Conduits.writeFinalBasic(this, src);
+        }
+
+        @Override
+        public long writeFinal(ByteBuffer[] srcs, int offs, int len) throws IOException {
+            return Conduits.writeFinalBasic(this, srcs, offs, len);
+        }
+
+        @Override
+        public boolean flush() throws IOException {
+            long start = System.nanoTime();
+            try {
+                return this.next.flush();
+            } finally {
+                this.statistics.addCompressionTime(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Counts the bytes written by the encoding conduit.
+     */
+    private static class CompressedConduit extends AbstractStreamSinkConduit<StreamSinkConduit> {
+        private final CompressionStatistics statistics;
+
+        CompressedConduit(StreamSinkConduit next, CompressionStatistics statistics) {
+            super(next);
+            this.statistics = statistics;
+        }
+
+        @Override
+        public long transferFrom(FileChannel src, long position, long count) throws IOException {
+            return src.transferTo(position, count, new ConduitWritableByteChannel(this));
+        }
+
+        @Override
+        public long transferFrom(StreamSourceChannel source, long count, ByteBuffer throughBuffer) throws IOException {
+            return Conduits.transfer(source, count, throughBuffer, this);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            int written = this.next.write(src);
+            this.statistics.addCompressedBytes(written);
+            return written;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offs, int len) throws IOException {
+            long written = this.next.write(srcs, offs, len);
+            this.statistics.addCompressedBytes(written);
+            return written;
+        }
+
+        @Override
+        public int writeFinal(ByteBuffer src) throws IOException {
+            return Conduits.writeFinalBasic(this, src);
+        }
+
+        @Override
+        public long writeFinal(ByteBuffer[] srcs, int offs, int len) throws IOException {
+            return Conduits.writeFinalBasic(this, srcs, offs, len);
+        }
+    }
+}
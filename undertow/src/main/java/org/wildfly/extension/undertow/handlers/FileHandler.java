@@ -32,14 +32,20 @@ import java.util.List;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.handlers.resource.PathResourceManager;
 import io.undertow.server.handlers.resource.ResourceHandler;
+import io.undertow.server.handlers.resource.ResourceManager;
+import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
 import org.jboss.as.controller.AttributeDefinition;
 import org.jboss.as.controller.OperationContext;
 import org.jboss.as.controller.OperationFailedException;
 import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
 import org.jboss.as.controller.StringListAttributeDefinition;
+import org.jboss.as.controller.client.helpers.MeasurementUnit;
+import org.jboss.as.controller.operations.validation.LongRangeValidator;
 import org.jboss.as.controller.registry.AttributeAccess;
+import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.dmr.ModelNode;
 import org.jboss.dmr.ModelType;
+import org.jboss.msc.service.ServiceController;
 import org.wildfly.extension.undertow.Constants;
 import org.wildfly.extension.undertow.logging.UndertowLogger;
 
@@ -95,13 +101,69 @@ public class FileHandler extends Handler {
             .setFlags(AttributeAccess.Flag.RESTART_ALL_SERVICES)
             .build();
 
+    public static final AttributeDefinition TRANSFER_MIN_SIZE = new SimpleAttributeDefinitionBuilder("transfer-min-size", ModelType.LONG)
+            .setRequired(false)
+            .setAllowExpression(true)
+            .setMeasurementUnit(MeasurementUnit.BYTES)
+            .setValidator(new LongRangeValidator(0, true, true))
+            .setFlags(AttributeAccess.Flag.RESTART_ALL_SERVICES)
+            .build();
+
+    public static final AttributeDefinition MAPPED_CACHE_SIZE = new SimpleAttributeDefinitionBuilder("mapped-cache-size", ModelType.LONG)
+            .setRequired(false)
+            .setAllowExpression(true)
+            .setDefaultValue(new ModelNode(0L))
+            .setMeasurementUnit(MeasurementUnit.BYTES)
+            .setValidator(new LongRangeValidator(0, true, true))
+            .setFlags(AttributeAccess.Flag.RESTART_ALL_SERVICES)
+            .build();
+
+    static final AttributeDefinition MAPPED_CACHE_HITS = new SimpleAttributeDefinitionBuilder("mapped-cache-hits", ModelType.LONG)
+            .setUndefinedMetricValue(new ModelNode(0L))
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    static final AttributeDefinition MAPPED_CACHE_MISSES = new SimpleAttributeDefinitionBuilder("mapped-cache-misses", ModelType.LONG)
+            .setUndefinedMetricValue(new ModelNode(0L))
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    static final AttributeDefinition MAPPED_BYTES = new SimpleAttributeDefinitionBuilder("mapped-bytes", ModelType.LONG)
+            .setUndefinedMetricValue(new ModelNode(0L))
+            .setMeasurementUnit(MeasurementUnit.BYTES)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
     private FileHandler() {
         super(Constants.FILE);
     }
 
     @Override
     public Collection<AttributeDefinition> getAttributes() {
-        return Arrays.asList(PATH, CACHE_BUFFER_SIZE, CACHE_BUFFERS, DIRECTORY_LISTING, FOLLOW_SYMLINK, CASE_SENSITIVE, SAFE_SYMLINK_PATHS);
+        return Arrays.asList(PATH, CACHE_BUFFER_SIZE, CACHE_BUFFERS, DIRECTORY_LISTING, FOLLOW_SYMLINK, CASE_SENSITIVE, SAFE_SYMLINK_PATHS, TRANSFER_MIN_SIZE, MAPPED_CACHE_SIZE);
+    }
+
+    @Override
+    public void registerAttributes(ManagementResourceRegistration resourceRegistration) {
+        super.registerAttributes(resourceRegistration);
+        resourceRegistration.registerMetric(MAPPED_CACHE_HITS, new MappedCacheMetricHandler() {
+            @Override
+            long getValue(MappedResourceManager manager) {
+                return manager.getHitCount();
+            }
+        });
+        resourceRegistration.registerMetric(MAPPED_CACHE_MISSES, new MappedCacheMetricHandler() {
+            @Override
+            long getValue(MappedResourceManager manager) {
+                return manager.getMissCount();
+            }
+        });
+        resourceRegistration.registerMetric(MAPPED_BYTES, new MappedCacheMetricHandler() {
+            @Override
+            long getValue(MappedResourceManager manager) {
+                return manager.getMappedBytes();
+            }
+        });
     }
 
     @Override
@@ -112,6 +174,9 @@ public class FileHandler extends Handler {
         final boolean caseSensitive = CASE_SENSITIVE.resolveModelAttribute(context, model).asBoolean();
         final int cacheBufferSize = CACHE_BUFFER_SIZE.resolveModelAttribute(context, model).asInt();
         final int cacheBuffers = CACHE_BUFFERS.resolveModelAttribute(context, model).asInt();
+        final ModelNode transferMinSizeModel = TRANSFER_MIN_SIZE.resolveModelAttribute(context, model);
+        final long transferMinSize = transferMinSizeModel.isDefined() ? transferMinSizeModel.asLong() : (long) cacheBufferSize * cacheBuffers;
+        final long mappedCacheSize = MAPPED_CACHE_SIZE.resolveModelAttribute(context, model).asLong();
         final List<String> safePaths = SAFE_SYMLINK_PATHS.unwrap(context, model);
         final String[] paths = safePaths.toArray(new String[safePaths.size()]);
 
@@ -122,9 +187,36 @@ public class FileHandler extends Handler {
         } catch (IOException e) {
             throw new OperationFailedException(UndertowLogger.ROOT_LOGGER.unableAddHandlerForPath(path));
         }
-        PathResourceManager resourceManager = new PathResourceManager(base, cacheBufferSize * cacheBuffers, caseSensitive, followSymlink, paths);
+        ResourceManager resourceManager = new PathResourceManager(base, transferMinSize, caseSensitive, followSymlink, paths);
+        if (mappedCacheSize > 0) {
+            resourceManager = new MappedResourceManager(resourceManager, transferMinSize, mappedCacheSize);
+        }
         ResourceHandler handler = new ResourceHandler(resourceManager);
         handler.setDirectoryListingEnabled(directoryListing);
         return handler;
     }
+
+    /**
+     * Reads a statistic of the memory-mapped file cache of a running file handler.
+     */
+    private abstract static class MappedCacheMetricHandler extends AbstractRuntimeOnlyHandler {
+
+        @Override
+        protected void executeRuntimeStep(OperationContext context, ModelNode operation) throws OperationFailedException {
+            ServiceController<?> controller = context.getServiceRegistry(false).getService(Handler.CAPABILITY.fromBaseCapability(context.getCurrentAddress()).getCapabilityServiceName());
+            long value = 0L;
+            if ((controller != null) && (controller.getState() == ServiceController.State.UP)) {
+                HttpHandler handler = ((HandlerService) controller.getService()).getHttpHandler();
+                if (handler instanceof ResourceHandler) {
+                    ResourceManager manager = ((ResourceHandler) handler).getResourceManager();
+                    if (manager instanceof MappedResourceManager) {
+                        value = this.getValue((MappedResourceManager) manager);
+                    }
+                }
+            }
+            context.getResult().set(value);
+        }
+
+        abstract long getValue(MappedResourceManager manager);
+    }
 }
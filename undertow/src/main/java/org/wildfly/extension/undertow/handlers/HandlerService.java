@@ -74,6 +74,10 @@ public class HandlerService implements Service<HttpHandler> {
         return realHandler;
     }
 
+    HttpHandler getHttpHandler() {
+        return httpHandler;
+    }
+
     public InjectedValue<RequestController> getRequestControllerInjectedValue() {
         return requestControllerInjectedValue;
     }
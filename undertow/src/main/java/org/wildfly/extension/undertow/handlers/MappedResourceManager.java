@@ -0,0 +1,356 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.extension.undertow.handlers;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.undertow.io.IoCallback;
+import io.undertow.io.Sender;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.resource.RangeAwareResource;
+import io.undertow.server.handlers.resource.Resource;
+import io.undertow.server.handlers.resource.ResourceChangeListener;
+import io.undertow.server.handlers.resource.ResourceManager;
+import io.undertow.util.ETag;
+import io.undertow.util.MimeMappings;
+import org.wildfly.extension.undertow.logging.UndertowLogger;
+
+/**
+ * A {@link ResourceManager} that serves files smaller than the transfer threshold of the underlying resource manager
+ * from read-only memory-mapped regions, along with their precomputed length and ETag.
+ * <p/>
+ * Regions are kept in least recently used order, up to a total number of cached bytes. Each response holds a
+ * reference to the region it sends, so a region evicted while it is being sent stays mapped until the last such
+ * response completes, without counting towards the capacity of the cache. Larger files are left to the underlying resource manager, which sends them with
+ * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}.
+ */
+class MappedResourceManager implements ResourceManager {
+
+    private final ResourceManager delegate;
+    private final long transferMinSize;
+    private final long capacity;
+    // Regions in least recently used order, guarded by itself
+    private final Map<Path, Region> regions = new LinkedHashMap<>(16, 0.75f, true);
+    // Bytes mapped by cached regions, guarded by regions
+    private long cachedBytes = 0;
+    // Bytes mapped by regions that are either cached or still being sent
+    private final AtomicLong mappedBytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    MappedResourceManager(ResourceManager delegate, long transferMinSize, long capacity) {
+        this.delegate = delegate;
+        this.transferMinSize = transferMinSize;
+        this.capacity = capacity;
+    }
+
+    long getHitCount() {
+        return this.hits.sum();
+    }
+
+    long getMissCount() {
+        return this.misses.sum();
+    }
+
+    long getMappedBytes() {
+        return this.mappedBytes.get();
+    }
+
+    long getCachedBytes() {
+        synchronized (this.regions) {
+            return this.cachedBytes;
+        }
+    }
+
+    @Override
+    public Resource getResource(String path) throws IOException {
+        Resource resource = this.delegate.getResource(path);
+        if ((resource == null) || resource.isDirectory()) {
+            return resource;
+        }
+        Path file = resource.getFilePath();
+        Long length = resource.getContentLength();
+        Date lastModified = resource.getLastModified();
+        if ((file == null) || (length == null) || (lastModified == null) || (length >= this.transferMinSize) || (length > this.capacity) || (length > Integer.MAX_VALUE)) {
+            return resource;
+        }
+        Region region = this.getRegion(file, length, lastModified.getTime());
+        return (region != null) ? new MappedResource(resource, region) : resource;
+    }
+
+    private Region getRegion(Path file, long length, long lastModified) {
+        synchronized (this.regions) {
+            Region region = this.regions.get(file);
+            if (region != null) {
+                if ((region.length == length) && (region.lastModified == lastModified)) {
+                    this.hits.increment();
+                    return region;
+                }
+                // File was modified since it was mapped
+                this.regions.remove(file);
+                this.cachedBytes -= region.length;
+                region.release();
+            }
+        }
+        this.misses.increment();
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        } catch (IOException | RuntimeException e) {
+            UndertowLogger.ROOT_LOGGER.debugf(e, "Failed to map %s", file);
+            return null;
+        }
+        Region region = new Region(buffer, length, lastModified);
+        this.mappedBytes.addAndGet(length);
+        synchronized (this.regions) {
+            Region existing = this.regions.put(file, region);
+            this.cachedBytes += length;
+            if (existing != null) {
+                this.cachedBytes -= existing.length;
+                existing.release();
+            }
+            Iterator<Region> eldest = this.regions.values().iterator();
+            while ((this.cachedBytes > this.capacity) && eldest.hasNext()) {
+                Region evicted = eldest.next();
+                if (evicted != region) {
+                    eldest.remove();
+                    this.cachedBytes -= evicted.length;
+                    evicted.release();
+                }
+            }
+        }
+        return region;
+    }
+
+    @Override
+    public boolean isResourceChangeListenerSupported() {
+        return this.delegate.isResourceChangeListenerSupported();
+    }
+
+    @Override
+    public void registerResourceChangeListener(ResourceChangeListener listener) {
+        this.delegate.registerResourceChangeListener(listener);
+    }
+
+    @Override
+    public void removeResourceChangeListener(ResourceChangeListener listener) {
+        this.delegate.removeResourceChangeListener(listener);
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this.regions) {
+            for (Region region : this.regions.values()) {
+                region.release();
+            }
+            this.regions.clear();
+            this.cachedBytes = 0;
+        }
+        this.delegate.close();
+    }
+
+    /**
+     * A mapped file, referenced by the cache and by each response sending it.
+     */
+    private class Region {
+        private final long length;
+        private final long lastModified;
+        private final ETag etag;
+        private final AtomicInteger references = new AtomicInteger(1);
+        private volatile ByteBuffer buffer;
+
+        Region(ByteBuffer buffer, long length, long lastModified) {
+            this.buffer = buffer;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.etag = new ETag(false, Long.toHexString(lastModified) + '-' + Long.toHexString(length));
+        }
+
+        /**
+         * Returns a view of the mapped file, holding a reference that must be released, or null if this region was already released.
+         */
+        ByteBuffer retain() {
+            int count = this.references.get();
+            while (count > 0) {
+                if (this.references.compareAndSet(count, count + 1)) {
+                    return this.buffer.duplicate();
+                }
+                count = this.references.get();
+            }
+            return null;
+        }
+
+        void release() {
+            if (this.references.decrementAndGet() == 0) {
+                // There is no supported way of unmapping a buffer, so let the garbage collector do so
+                this.buffer = null;
+                MappedResourceManager.this.mappedBytes.addAndGet(-this.length);
+            }
+        }
+    }
+
+    private static class MappedResource implements RangeAwareResource {
+        private final Resource resource;
+        private final Region region;
+
+        MappedResource(Resource resource, Region region) {
+            this.resource = resource;
+            this.region = region;
+        }
+
+        @Override
+        public void serve(Sender sender, HttpServerExchange exchange, IoCallback callback) {
+            ByteBuffer buffer = this.region.retain();
+            if (buffer != null) {
+                this.send(sender, buffer, callback);
+            } else {
+                // Region was evicted and released in the meantime
+                this.resource.serve(sender, exchange, callback);
+            }
+        }
+
+        @Override
+        public void serveRange(Sender sender, HttpServerExchange exchange, long start, long end, IoCallback callback) {
+            ByteBuffer buffer = this.region.retain();
+            if (buffer != null) {
+                buffer.limit((int) end + 1).position((int) start);
+                this.send(sender, buffer, callback);
+            } else if (this.resource instanceof RangeAwareResource) {
+                ((RangeAwareResource) this.resource).serveRange(sender, exchange, start, end, callback);
+            } else {
+                this.resource.serve(sender, exchange, callback);
+            }
+        }
+
+        private void send(Sender sender, ByteBuffer buffer, IoCallback callback) {
+            Region region = this.region;
+            sender.send(buffer, new IoCallback() {
+                @Override
+                public void onComplete(HttpServerExchange exchange, Sender sender) {
+                    region.release();
+                    callback.onComplete(exchange, sender);
+                }
+
+                @Override
+                public void onException(HttpServerExchange exchange, Sender sender, IOException exception) {
+                    region.release();
+                    callback.onException(exchange, sender, exception);
+                }
+            });
+        }
+
+        @Override
+        public boolean isRangeSupported() {
+            return true;
+        }
+
+        @Override
+        public Long getContentLength() {
+            return this.region.length;
+        }
+
+        @Override
+        public ETag getETag() {
+            return this.region.etag;
+        }
+
+        @Override
+        public String getPath() {
+            return this.resource.getPath();
+        }
+
+        @Override
+        public Date getLastModified() {
+            return new Date(this.region.lastModified);
+        }
+
+        @Override
+        public String getLastModifiedString() {
+            return this.resource.getLastModifiedString();
+        }
+
+        @Override
+        public String getName() {
+            return this.resource.getName();
+        }
+
+        @Override
+        public boolean isDirectory() {
+            return false;
+        }
+
+        @Override
+        public List<Resource> list() {
+            return this.resource.list();
+        }
+
+        @Override
+        public String getContentType(MimeMappings mimeMappings) {
+            return this.resource.getContentType(mimeMappings);
+        }
+
+        @Override
+        public String getCacheKey() {
+            return this.resource.getCacheKey();
+        }
+
+        @Override
+        public File getFile() {
+            return this.resource.getFile();
+        }
+
+        @Override
+        public Path getFilePath() {
+            return this.resource.getFilePath();
+        }
+
+        @Override
+        public File getResourceManagerRoot() {
+            return this.resource.getResourceManagerRoot();
+        }
+
+        @Override
+        public Path getResourceManagerRootPath() {
+            return this.resource.getResourceManagerRootPath();
+        }
+
+        @Override
+        public URL getUrl() {
+            return this.resource.getUrl();
+        }
+    }
+}
@@ -407,4 +407,11 @@ public interface UndertowLogger extends BasicLogger {
 
     @Message(id = 100, value = "Session %s not found")
     OperationFailedException sessionNotFound(String sessionId);
+
+    @LogMessage(level = ERROR)
+    @Message(id = 101, value = "Failed to write access log")
+    void errorWritingAccessLog(@Cause IOException cause);
+
+    @Message(id = 102, value = "The min-limit %d exceeds the max-limit %d")
+    OperationFailedException minLimitExceedsMaxLimit(int minLimit, int maxLimit);
 }
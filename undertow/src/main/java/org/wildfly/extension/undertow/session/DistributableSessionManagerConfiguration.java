@@ -25,10 +25,21 @@ import org.jboss.metadata.web.jboss.ReplicationGranularity;
 import org.jboss.modules.Module;
 
 public interface DistributableSessionManagerConfiguration {
+    /**
+     * Name of the servlet context parameter that enables {@link #isAttributeFingerprinting()}.
+     */
+    String ATTRIBUTE_FINGERPRINTING_PARAMETER = "org.wildfly.clustering.web.session.attribute-fingerprinting";
+
     int getMaxActiveSessions();
 
     ReplicationGranularity getGranularity();
 
+    /**
+     * Indicates whether sessions using {@link ReplicationGranularity#SESSION} granularity skip replication
+     * if the serialized form of their attributes did not change.
+     */
+    boolean isAttributeFingerprinting();
+
     String getServerName();
 
     String getDeploymentName();
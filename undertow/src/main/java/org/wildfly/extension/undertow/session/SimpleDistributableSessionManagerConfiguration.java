@@ -21,6 +21,9 @@
  */
 package org.wildfly.extension.undertow.session;
 
+import java.util.List;
+
+import org.jboss.metadata.javaee.spec.ParamValueMetaData;
 import org.jboss.metadata.web.jboss.JBossWebMetaData;
 import org.jboss.metadata.web.jboss.ReplicationConfig;
 import org.jboss.metadata.web.jboss.ReplicationGranularity;
@@ -37,9 +40,10 @@ public class SimpleDistributableSessionManagerConfiguration implements Distribut
     private final String serverName;
     private final String deploymentName;
     private final Module module;
+    private final boolean attributeFingerprinting;
 
     public SimpleDistributableSessionManagerConfiguration(JBossWebMetaData metaData, String serverName, String deploymentName, Module module) {
-        this(metaData.getMaxActiveSessions(), metaData.getReplicationConfig(), serverName, deploymentName, module);
+        this(metaData.getMaxActiveSessions(), metaData.getReplicationConfig(), isAttributeFingerprinting(metaData), serverName, deploymentName, module);
     }
 
     public SimpleDistributableSessionManagerConfiguration(SharedSessionManagerConfig config, String serverName, String deploymentName, Module module) {
@@ -47,13 +51,35 @@ public class SimpleDistributableSessionManagerConfiguration implements Distribut
     }
 
     public SimpleDistributableSessionManagerConfiguration(Integer maxActiveSessions, ReplicationConfig replicationConfig, String serverName, String deploymentName, Module module) {
+        this(maxActiveSessions, replicationConfig, false, serverName, deploymentName, module);
+    }
+
+    public SimpleDistributableSessionManagerConfiguration(Integer maxActiveSessions, ReplicationConfig replicationConfig, boolean attributeFingerprinting, String serverName, String deploymentName, Module module) {
         this.maxActiveSessions = maxActiveSessions;
         this.replicationConfig = replicationConfig;
+        this.attributeFingerprinting = attributeFingerprinting;
         this.serverName = serverName;
         this.deploymentName = deploymentName;
         this.module = module;
     }
 
+    /**
+     * Indicates whether the {@value #ATTRIBUTE_FINGERPRINTING_PARAMETER} context parameter of the specified web application is enabled.
+     * @param metaData the meta data of a web application
+     * @return true, if attribute fingerprinting is enabled, false otherwise
+     */
+    public static boolean isAttributeFingerprinting(JBossWebMetaData metaData) {
+        List<ParamValueMetaData> params = metaData.getContextParams();
+        if (params != null) {
+            for (ParamValueMetaData param : params) {
+                if (ATTRIBUTE_FINGERPRINTING_PARAMETER.equals(param.getParamName())) {
+                    return Boolean.parseBoolean(param.getParamValue());
+                }
+            }
+        }
+        return false;
+    }
+
     @Override
     public int getMaxActiveSessions() {
         return (this.maxActiveSessions != null) ? this.maxActiveSessions.intValue() : -1;
@@ -64,6 +90,11 @@ public class SimpleDistributableSessionManagerConfiguration implements Distribut
         return ((this.replicationConfig != null) && (this.replicationConfig.getReplicationGranularity() != null)) ? this.replicationConfig.getReplicationGranularity() : ReplicationGranularity.SESSION;
     }
 
+    @Override
+    public boolean isAttributeFingerprinting() {
+        return this.attributeFingerprinting;
+    }
+
     @Override
     public String getServerName() {
         return this.serverName;
@@ -0,0 +1,128 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.extension.undertow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.InetSocketAddress;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Methods;
+import io.undertow.util.Protocols;
+import org.junit.Test;
+
+public class AccessLogRingBufferTestCase {
+
+    static HttpServerExchange exchange(String uri) {
+        HttpServerExchange exchange = new HttpServerExchange(null);
+        exchange.setRequestMethod(Methods.GET);
+        exchange.setProtocol(Protocols.HTTP_1_1);
+        exchange.setRequestURI(uri);
+        exchange.setSourceAddress(new InetSocketAddress("127.0.0.1", 12345));
+        exchange.setStatusCode(200);
+        return exchange;
+    }
+
+    @Test
+    public void testCapacity() {
+        assertEquals(1, new AccessLogRingBuffer(0).getCapacity());
+        assertEquals(4, new AccessLogRingBuffer(3).getCapacity());
+        assertEquals(4, new AccessLogRingBuffer(4).getCapacity());
+        assertEquals(8, new AccessLogRingBuffer(5).getCapacity());
+    }
+
+    @Test
+    public void testWrapAround() {
+        AccessLogRingBuffer ring = new AccessLogRingBuffer(4);
+        assertNull(ring.peek());
+        assertTrue(ring.offer(exchange("/0")));
+        int offered = 1;
+        int polled = 0;
+        // Each round fills the ring and leaves one record in it, so that the positions of the records cycle through the ring
+        for (int round = 0; round < 10; ++round) {
+            for (int i = 0; i < 3; ++i) {
+                assertTrue(ring.offer(exchange("/" + offered++)));
+            }
+            assertEquals(4, ring.size());
+            for (int i = 0; i < 3; ++i) {
+                AccessLogRingBuffer.Record record = ring.peek();
+                assertEquals("/" + polled++, record.requestURI);
+                ring.release(record);
+                assertNull(record.requestURI);
+            }
+            assertEquals(1, ring.size());
+        }
+        AccessLogRingBuffer.Record record = ring.peek();
+        assertEquals("/" + polled, record.requestURI);
+        ring.release(record);
+        assertNull(ring.peek());
+        assertEquals(0, ring.size());
+        assertEquals(0L, ring.getDroppedCount());
+    }
+
+    @Test
+    public void testDropWhenFull() {
+        AccessLogRingBuffer ring = new AccessLogRingBuffer(2);
+        assertTrue(ring.offer(exchange("/0")));
+        assertTrue(ring.offer(exchange("/1")));
+        assertFalse(ring.offer(exchange("/2")));
+        assertFalse(ring.offer(exchange("/3")));
+        assertEquals(2, ring.size());
+        assertEquals(2L, ring.getDroppedCount());
+
+        // Releasing a record makes room for exactly one more
+        ring.release(ring.peek());
+        assertTrue(ring.offer(exchange("/4")));
+        assertFalse(ring.offer(exchange("/5")));
+        assertEquals(3L, ring.getDroppedCount());
+
+        AccessLogRingBuffer.Record record = ring.peek();
+        assertEquals("/1", record.requestURI);
+        ring.release(record);
+        record = ring.peek();
+        assertEquals("/4", record.requestURI);
+        ring.release(record);
+        assertNull(ring.peek());
+    }
+
+    @Test
+    public void testCapture() {
+        HttpServerExchange exchange = exchange("/path");
+        exchange.setQueryString("a=b");
+        AccessLogRingBuffer ring = new AccessLogRingBuffer(1);
+        assertTrue(ring.offer(exchange));
+        AccessLogRingBuffer.Record record = ring.peek();
+        assertEquals("127.0.0.1", record.getRemoteAddress());
+        assertEquals(Methods.GET, record.method);
+        assertEquals(Protocols.HTTP_1_1, record.protocol);
+        assertEquals("/path", record.requestURI);
+        assertEquals("a=b", record.queryString);
+        assertEquals(200, record.status);
+        assertEquals(-1L, record.responseTime);
+        assertNull(record.remoteUser);
+        assertNull(record.referer);
+        assertNull(record.userAgent);
+    }
+}
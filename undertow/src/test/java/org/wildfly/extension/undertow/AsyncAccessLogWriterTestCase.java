@@ -0,0 +1,260 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.extension.undertow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.Methods;
+import io.undertow.util.Protocols;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AsyncAccessLogWriterTestCase {
+
+    private static final String PREFIX = "access.";
+    private static final String SUFFIX = "log";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static String archiveName(LocalDate date) {
+        return PREFIX + DateTimeFormatter.ISO_LOCAL_DATE.format(date) + "." + SUFFIX;
+    }
+
+    private static List<String> lines(Path file) throws IOException {
+        return Files.readAllLines(file, StandardCharsets.UTF_8);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void assertBinaryHeader(DataInputStream input) throws IOException {
+        assertEquals(AsyncAccessLogWriter.BINARY_MAGIC, input.readInt());
+        assertEquals(AsyncAccessLogWriter.BINARY_VERSION, input.readShort());
+    }
+
+    /**
+     * Reads a binary record, returning its request URI.
+     */
+    private static String readBinaryRecord(DataInputStream input, long before, long after) throws IOException {
+        long timestamp = input.readLong();
+        assertTrue(timestamp >= before && timestamp <= after);
+        assertEquals(200, input.readInt());
+        assertEquals(0L, input.readLong());
+        assertEquals(-1L, input.readLong());
+        assertEquals("127.0.0.1", readString(input));
+        assertNull(readString(input));
+        assertEquals("GET", readString(input));
+        assertEquals("HTTP/1.1", readString(input));
+        return readString(input);
+    }
+
+    @Test
+    public void testJsonEscaping() {
+        AsyncAccessLogWriter writer = new AsyncAccessLogWriter(1, Runnable::run);
+        AccessLogRingBuffer.Record record = new AccessLogRingBuffer.Record(0);
+        record.timestamp = 0L;
+        record.responseTime = -1L;
+        record.status = 200;
+        record.method = Methods.GET;
+        record.protocol = Protocols.HTTP_1_1;
+        record.requestURI = "/a\"b\\c";
+        record.queryString = "";
+        record.userAgent = "x\ny\tz\r\u0001\u001f\u007f";
+        String expected = "{\"time\":\"1970-01-01T00:00:00Z\",\"method\":\"GET\",\"uri\":\"/a\\\"b\\\\c\",\"protocol\":\"HTTP/1.1\",\"status\":200,\"bytes-sent\":0,\"user-agent\":\"x\\ny\\tz\\r\\u0001\\u001f\u007f\"}";
+        assertEquals(expected, writer.formatJson(record).toString());
+
+        // The builder is reused for the next record
+        record.requestURI = "/";
+        record.userAgent = null;
+        record.responseTime = 5L;
+        assertEquals("{\"time\":\"1970-01-01T00:00:00Z\",\"method\":\"GET\",\"uri\":\"/\",\"protocol\":\"HTTP/1.1\",\"status\":200,\"bytes-sent\":0,\"response-time\":5}", writer.formatJson(record).toString());
+    }
+
+    @Test
+    public void testDroppedRecords() {
+        List<Runnable> tasks = new ArrayList<>();
+        AsyncAccessLogWriter writer = new AsyncAccessLogWriter(4, tasks::add);
+        for (int i = 0; i < 6; ++i) {
+            writer.log(AccessLogRingBufferTestCase.exchange("/" + i));
+        }
+        // A single task drains the ring
+        assertEquals(1, tasks.size());
+        assertEquals(4, writer.getQueueDepth());
+        assertEquals(2L, writer.getDroppedRecords());
+
+        tasks.remove(0).run();
+        assertEquals(0, writer.getQueueDepth());
+        assertEquals(2L, writer.getDroppedRecords());
+
+        writer.log(AccessLogRingBufferTestCase.exchange("/6"));
+        assertEquals(1, tasks.size());
+        assertEquals(1, writer.getQueueDepth());
+        assertEquals(2L, writer.getDroppedRecords());
+    }
+
+    @Test
+    public void testBinaryLayout() throws IOException {
+        Path directory = this.folder.newFolder().toPath();
+        long before = System.currentTimeMillis();
+        try (AsyncAccessLogWriter writer = new AsyncAccessLogWriter(AccessLogFormat.BINARY, 4, Runnable::run, directory, PREFIX, SUFFIX, false)) {
+            writer.open();
+            HttpServerExchange exchange = AccessLogRingBufferTestCase.exchange("/path");
+            exchange.setQueryString("a=b");
+            exchange.getRequestHeaders().put(Headers.USER_AGENT, "agenté");
+            writer.log(exchange);
+        }
+        long after = System.currentTimeMillis();
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(directory.resolve(PREFIX + SUFFIX)))) {
+            assertBinaryHeader(input);
+            assertEquals("/path", readBinaryRecord(input, before, after));
+            assertEquals("a=b", readString(input));
+            assertNull(readString(input));
+            assertEquals("agenté", readString(input));
+            assertEquals(-1, input.read());
+        }
+
+        // A binary file left by a previous run is appended without a second header
+        try (AsyncAccessLogWriter writer = new AsyncAccessLogWriter(AccessLogFormat.BINARY, 4, Runnable::run, directory, PREFIX, SUFFIX, false)) {
+            writer.open();
+            writer.log(AccessLogRingBufferTestCase.exchange("/next"));
+        }
+        after = System.currentTimeMillis();
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(directory.resolve(PREFIX + SUFFIX)))) {
+            assertBinaryHeader(input);
+            assertEquals("/path", readBinaryRecord(input, before, after));
+            assertEquals("a=b", readString(input));
+            assertNull(readString(input));
+            assertEquals("agenté", readString(input));
+            assertEquals("/next", readBinaryRecord(input, before, after));
+            assertEquals("", readString(input));
+            assertNull(readString(input));
+            assertNull(readString(input));
+            assertEquals(-1, input.read());
+        }
+    }
+
+    @Test
+    public void testRotation() throws IOException {
+        Path directory = this.folder.newFolder().toPath();
+        Path file = directory.resolve(PREFIX + SUFFIX);
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        Files.write(file, Collections.singletonList("old"), StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(file, FileTime.from(yesterday.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+        // An archive of the same date is not overwritten
+        Files.write(directory.resolve(archiveName(yesterday)), Collections.singletonList("older"), StandardCharsets.UTF_8);
+
+        try (AsyncAccessLogWriter writer = new AsyncAccessLogWriter(AccessLogFormat.JSON, 4, Runnable::run, directory, PREFIX, SUFFIX, true)) {
+            writer.open();
+            // The file of the previous run is only rotated when a record of a later date is written
+            assertEquals(Collections.singletonList("old"), lines(file));
+            writer.log(AccessLogRingBufferTestCase.exchange("/path"));
+        }
+
+        assertEquals(Collections.singletonList("older"), lines(directory.resolve(archiveName(yesterday))));
+        assertEquals(Collections.singletonList("old"), lines(directory.resolve(PREFIX + DateTimeFormatter.ISO_LOCAL_DATE.format(yesterday) + "-1." + SUFFIX)));
+        List<String> lines = lines(file);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0), lines.get(0).startsWith("{\"time\":\""));
+        assertTrue(lines.get(0), lines.get(0).contains(",\"uri\":\"/path\","));
+    }
+
+    @Test
+    public void testNoRotation() throws IOException {
+        Path directory = this.folder.newFolder().toPath();
+        Path file = directory.resolve(PREFIX + SUFFIX);
+        Files.write(file, Collections.singletonList("old"), StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(file, FileTime.from(LocalDate.now().minusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant()));
+
+        try (AsyncAccessLogWriter writer = new AsyncAccessLogWriter(AccessLogFormat.JSON, 4, Runnable::run, directory, PREFIX, SUFFIX, false)) {
+            writer.open();
+            writer.log(AccessLogRingBufferTestCase.exchange("/path"));
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1L, files.count());
+        }
+        List<String> lines = lines(file);
+        assertEquals(2, lines.size());
+        assertEquals("old", lines.get(0));
+        assertTrue(lines.get(1), lines.get(1).contains(",\"uri\":\"/path\","));
+    }
+
+    @Test
+    public void testBinaryAfterText() throws IOException {
+        Path directory = this.folder.newFolder().toPath();
+        Path file = directory.resolve(PREFIX + SUFFIX);
+        Files.write(file, Collections.singletonList("text"), StandardCharsets.UTF_8);
+
+        long before = System.currentTimeMillis();
+        try (AsyncAccessLogWriter writer = new AsyncAccessLogWriter(AccessLogFormat.BINARY, 4, Runnable::run, directory, PREFIX, SUFFIX, false)) {
+            writer.open();
+            writer.log(AccessLogRingBufferTestCase.exchange("/path"));
+        }
+        long after = System.currentTimeMillis();
+
+        // The text file is archived, rather than appended with binary records
+        assertEquals(Collections.singletonList("text"), lines(directory.resolve(archiveName(LocalDate.now()))));
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(file))) {
+            assertBinaryHeader(input);
+            assertEquals("/path", readBinaryRecord(input, before, after));
+        }
+
+        // Likewise, the binary file is archived, rather than appended with JSON lines
+        try (AsyncAccessLogWriter writer = new AsyncAccessLogWriter(AccessLogFormat.JSON, 4, Runnable::run, directory, PREFIX, SUFFIX, false)) {
+            writer.open();
+            writer.log(AccessLogRingBufferTestCase.exchange("/next"));
+        }
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(directory.resolve(PREFIX + DateTimeFormatter.ISO_LOCAL_DATE.format(LocalDate.now()) + "-1." + SUFFIX)))) {
+            assertBinaryHeader(input);
+            assertEquals("/path", readBinaryRecord(input, before, after));
+        }
+        List<String> lines = lines(file);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0), lines.get(0).contains(",\"uri\":\"/next\","));
+        assertTrue(lines.get(0), lines.get(0).startsWith("{\"time\":\""));
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.extension.undertow;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.undertow.server.session.Session;
+import io.undertow.server.session.SessionListener;
+import io.undertow.servlet.api.SessionPersistenceManager.PersistentSession;
+import org.jboss.as.controller.services.path.PathManager;
+import org.jboss.modules.Module;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StartException;
+import org.jboss.msc.service.StopContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IncrementalModularPersistentSessionManagerTestCase {
+
+    private static final String DEPLOYMENT = "test.war";
+    private static final int MAX_INACTIVE_INTERVAL = 3600;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final long expiry = System.currentTimeMillis() + MAX_INACTIVE_INTERVAL * 1000L;
+    private String path;
+    private IncrementalModularPersistentSessionManager manager;
+
+    @Before
+    public void init() throws Exception {
+        this.path = this.folder.newFolder().getAbsolutePath();
+    }
+
+    @After
+    public void destroy() {
+        if (this.manager != null) {
+            this.manager.stop(mock(StopContext.class));
+        }
+    }
+
+    private Map<String, PersistentSession> restart(boolean rewriteAccessed) throws StartException {
+        this.destroy();
+        PathManager pathManager = mock(PathManager.class);
+        when(pathManager.resolveRelativePathEntry(this.path, null)).thenReturn(this.path);
+        this.manager = new IncrementalModularPersistentSessionManager(this.path, null, rewriteAccessed);
+        this.manager.getPathManager().inject(pathManager);
+        this.manager.getModuleLoaderInjectedValue().inject(Module.getBootModuleLoader());
+        this.manager.start(mock(StartContext.class));
+        return this.manager.loadSessionAttributes(DEPLOYMENT, null);
+    }
+
+    private Map<String, PersistentSession> restart() throws StartException {
+        return this.restart(false);
+    }
+
+    private static Session session(AtomicReference<String> id) {
+        Session session = mock(Session.class);
+        when(session.getId()).thenAnswer(invocation -> id.get());
+        when(session.getLastAccessedTime()).thenReturn(System.currentTimeMillis());
+        when(session.getMaxInactiveInterval()).thenReturn(MAX_INACTIVE_INTERVAL);
+        return session;
+    }
+
+    /**
+     * Creates a session with the specified attributes, and persists it, leaving other stored sessions as they are.
+     */
+    private void create(String id, Map<String, Object> attributes) throws StartException {
+        this.restart();
+        SessionListener listener = this.manager.createSessionListener(DEPLOYMENT);
+        Session session = session(new AtomicReference<>(id));
+        listener.sessionCreated(session, null);
+        for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+            listener.attributeAdded(session, attribute.getKey(), attribute.getValue());
+        }
+        this.manager.persistSessions(DEPLOYMENT, Collections.singletonMap(id, new PersistentSession(new Date(this.expiry), attributes)));
+    }
+
+    /**
+     * Restores the specified session as the session manager would, adding its attributes to a new session.
+     */
+    private Map<String, Object> restore(Map<String, PersistentSession> sessions, Session session) {
+        SessionListener listener = this.manager.createSessionListener(DEPLOYMENT);
+        Map<String, Object> attributes = new HashMap<>(sessions.get(session.getId()).getSessionData());
+        listener.sessionCreated(session, null);
+        for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+            listener.attributeAdded(session, attribute.getKey(), attribute.getValue());
+        }
+        return attributes;
+    }
+
+    private static List<String> list(String... values) {
+        return new ArrayList<>(Arrays.asList(values));
+    }
+
+    @Test
+    public void testLazyRestore() throws StartException {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("x", "1");
+        attributes.put("y", list("one"));
+        this.create("a", attributes);
+
+        Map<String, PersistentSession> sessions = this.restart();
+        assertEquals(Collections.singleton("a"), sessions.keySet());
+        assertEquals(this.expiry, sessions.get("a").getExpiration().getTime());
+        // The attributes are read when the session is first requested
+        assertEquals(attributes, new HashMap<>(sessions.get("a").getSessionData()));
+    }
+
+    @Test
+    public void testPendingSessions() throws StartException {
+        this.create("a", Collections.singletonMap("x", "1"));
+        this.create("b", Collections.singletonMap("x", "2"));
+
+        // Sessions that were not requested are left as stored
+        Map<String, PersistentSession> sessions = this.restart();
+        assertEquals(2, sessions.size());
+        this.manager.persistSessions(DEPLOYMENT, Collections.emptyMap());
+
+        // A session that was requested, but is not persisted, no longer exists
+        sessions = this.restart();
+        assertEquals(2, sessions.size());
+        assertEquals("1", sessions.get("a").getSessionData().get("x"));
+        this.manager.persistSessions(DEPLOYMENT, Collections.emptyMap());
+
+        sessions = this.restart();
+        assertEquals(Collections.singleton("b"), sessions.keySet());
+        assertEquals("2", sessions.get("b").getSessionData().get("x"));
+    }
+
+    @Test
+    public void testRename() throws StartException {
+        this.create("a", Collections.singletonMap("x", "1"));
+
+        Map<String, PersistentSession> sessions = this.restart();
+        AtomicReference<String> id = new AtomicReference<>("a");
+        Session session = session(id);
+        Map<String, Object> attributes = this.restore(sessions, session);
+        id.set("b");
+        this.manager.createSessionListener(DEPLOYMENT).sessionIdChanged(session, "a");
+        this.manager.persistSessions(DEPLOYMENT, Collections.singletonMap("b", new PersistentSession(new Date(this.expiry), attributes)));
+
+        sessions = this.restart();
+        assertEquals(Collections.singleton("b"), sessions.keySet());
+        assertEquals(Collections.singletonMap("x", "1"), new HashMap<>(sessions.get("b").getSessionData()));
+    }
+
+    @Test
+    public void testChangedAttributes() throws StartException {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("x", "1");
+        attributes.put("y", "2");
+        this.create("a", attributes);
+
+        Map<String, PersistentSession> sessions = this.restart();
+        Session session = session(new AtomicReference<>("a"));
+        attributes = this.restore(sessions, session);
+        SessionListener listener = this.manager.createSessionListener(DEPLOYMENT);
+        attributes.put("x", "3");
+        listener.attributeUpdated(session, "x", "3", "1");
+        attributes.remove("y");
+        listener.attributeRemoved(session, "y", "2");
+        attributes.put("z", "4");
+        listener.attributeAdded(session, "z", "4");
+        this.manager.persistSessions(DEPLOYMENT, Collections.singletonMap("a", new PersistentSession(new Date(this.expiry), attributes)));
+
+        sessions = this.restart();
+        assertEquals(attributes, new HashMap<>(sessions.get("a").getSessionData()));
+    }
+
+    @Test
+    public void testExpiryOnly() throws StartException {
+        this.create("a", Collections.singletonMap("x", list("one")));
+
+        Map<String, PersistentSession> sessions = this.restart();
+        Map<String, Object> attributes = this.restore(sessions, session(new AtomicReference<>("a")));
+        // A change to the state of an attribute value is not persisted unless the attribute is set again
+        @SuppressWarnings("unchecked")
+        List<String> value = (List<String>) attributes.get("x");
+        value.add("two");
+        this.manager.persistSessions(DEPLOYMENT, Collections.singletonMap("a", new PersistentSession(new Date(this.expiry + 1000L), attributes)));
+
+        sessions = this.restart();
+        assertEquals(this.expiry + 1000L, sessions.get("a").getExpiration().getTime());
+        assertEquals(list("one"), sessions.get("a").getSessionData().get("x"));
+    }
+
+    @Test
+    public void testRewriteAccessed() throws StartException {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("x", list("one"));
+        attributes.put("y", "1");
+        this.create("a", attributes);
+
+        Map<String, PersistentSession> sessions = this.restart(true);
+        attributes = this.restore(sessions, session(new AtomicReference<>("a")));
+        @SuppressWarnings("unchecked")
+        List<String> value = (List<String>) attributes.get("x");
+        value.add("two");
+        // Without a removal event, as if the attribute was removed before the listener was registered
+        attributes.remove("y");
+        this.manager.persistSessions(DEPLOYMENT, Collections.singletonMap("a", new PersistentSession(new Date(this.expiry + 1000L), attributes)));
+
+        sessions = this.restart();
+        assertEquals(this.expiry + 1000L, sessions.get("a").getExpiration().getTime());
+        assertEquals(Collections.singletonMap("x", list("one", "two")), new HashMap<>(sessions.get("a").getSessionData()));
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.extension.undertow;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SegmentedSessionStoreTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testReopen() throws IOException {
+        File directory = folder.newFolder();
+        try (SegmentedSessionStore store = SegmentedSessionStore.open(directory, 1024)) {
+            store.writeSession("a", 100);
+            store.writeAttribute("a", "x", bytes("1"));
+            store.writeAttribute("a", "y", bytes("2"));
+            store.writeSession("b", 200);
+            store.writeAttribute("b", "x", bytes("3"));
+            store.writeAttribute("a", "x", bytes("4"));
+            store.removeAttribute("a", "y");
+            store.writeSession("a", 300);
+            store.removeSession("b");
+        }
+        try (SegmentedSessionStore store = SegmentedSessionStore.open(directory, 1024)) {
+            assertEquals(Collections.singletonMap("a", 300L), store.getSessions());
+            Map<String, byte[]> attributes = store.getAttributes("a");
+            assertEquals(Collections.singleton("x"), attributes.keySet());
+            assertArrayEquals(bytes("4"), attributes.get("x"));
+            assertNull(store.getAttributes("b"));
+        }
+    }
+
+    @Test
+    public void testRename() throws IOException {
+        File directory = folder.newFolder();
+        try (SegmentedSessionStore store = SegmentedSessionStore.open(directory, 1024)) {
+            store.writeSession("a", 100);
+            store.writeAttribute("a", "x", bytes("1"));
+            store.renameSession("a", "b");
+            assertFalse(store.contains("a"));
+            assertEquals(100L, store.getExpiry("b"));
+            assertArrayEquals(bytes("1"), store.getAttributes("b").get("x"));
+        }
+        try (SegmentedSessionStore store = SegmentedSessionStore.open(directory, 1024)) {
+            assertEquals(Collections.singletonMap("b", 100L), store.getSessions());
+        }
+    }
+
+    @Test
+    public void testAttributeNames() throws IOException {
+        try (SegmentedSessionStore store = SegmentedSessionStore.open(folder.newFolder(), 1024)) {
+            assertTrue(store.getAttributeNames("a").isEmpty());
+            store.writeSession("a", 100);
+            store.writeAttribute("a", "x", bytes("1"));
+            store.writeAttribute("a", "y", bytes("2"));
+            store.removeAttribute("a", "y");
+            Set<String> names = store.getAttributeNames("a");
+            assertEquals(Collections.singleton("x"), names);
+            // The returned names are a copy
+            store.writeAttribute("a", "z", bytes("3"));
+            assertEquals(Collections.singleton("x"), names);
+        }
+    }
+
+    @Test
+    public void testRemoveExpired() throws IOException {
+        try (SegmentedSessionStore store = SegmentedSessionStore.open(folder.newFolder(), 1024)) {
+            store.writeSession("a", 100);
+            store.writeSession("b", 200);
+            store.removeExpired(100);
+            assertEquals(Collections.singletonMap("b", 200L), store.getSessions());
+            assertEquals(-1L, store.getExpiry("a"));
+        }
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        File directory = folder.newFolder();
+        try (SegmentedSessionStore store = SegmentedSessionStore.open(directory, 256)) {
+            store.writeSession("removed", 100);
+            store.writeAttribute("removed", "x", bytes("0"));
+            store.writeSession("kept", 100);
+            store.writeAttribute("kept", "y", bytes("0"));
+            store.writeAttribute("kept", "z", bytes("0"));
+            store.removeAttribute("kept", "z");
+            store.removeSession("removed");
+            for (int i = 0; i < 1000; ++i) {
+                store.writeAttribute("kept", "x", bytes(Integer.toString(i)));
+            }
+            int segments = store.getSegmentCount();
+            store.compact();
+            assertTrue(store.getSegmentCount() < segments);
+            assertTrue(store.getSegmentCount() <= 2);
+            assertArrayEquals(bytes("999"), store.getAttributes("kept").get("x"));
+        }
+        try (SegmentedSessionStore store = SegmentedSessionStore.open(directory, 256)) {
+            assertEquals(Collections.singletonMap("kept", 100L), store.getSessions());
+            Map<String, byte[]> attributes = store.getAttributes("kept");
+            assertEquals(2, attributes.size());
+            assertArrayEquals(bytes("999"), attributes.get("x"));
+            assertArrayEquals(bytes("0"), attributes.get("y"));
+        }
+    }
+
+    @Test
+    public void testLargeAttribute() throws IOException {
+        File directory = folder.newFolder();
+        byte[] value = new byte[1000];
+        value[999] = 1;
+        try (SegmentedSessionStore store = SegmentedSessionStore.open(directory, 256)) {
+            store.writeSession("a", 100);
+            store.writeAttribute("a", "x", value);
+        }
+        try (SegmentedSessionStore store = SegmentedSessionStore.open(directory, 256)) {
+            assertArrayEquals(value, store.getAttributes("a").get("x"));
+        }
+    }
+}
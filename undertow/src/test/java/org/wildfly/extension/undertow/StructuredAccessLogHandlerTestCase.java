@@ -0,0 +1,114 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.extension.undertow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.undertow.Undertow;
+import io.undertow.predicate.Predicates;
+import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for {@link StructuredAccessLogHandler}, which sends requests to an embedded server logging to a JSON file.
+ */
+public class StructuredAccessLogHandlerTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Undertow server;
+    private AsyncAccessLogWriter writer;
+
+    @After
+    public void destroy() throws IOException {
+        if (this.server != null) {
+            this.server.stop();
+        }
+        if (this.writer != null) {
+            this.writer.close();
+        }
+    }
+
+    private void request(String path, String userAgent) throws IOException {
+        int port = ((InetSocketAddress) this.server.getListenerInfo().get(0).getAddress()).getPort();
+        HttpURLConnection connection = (HttpURLConnection) new URL("http", "127.0.0.1", port, path).openConnection();
+        connection.setRequestProperty(Headers.USER_AGENT_STRING, userAgent);
+        assertEquals(StatusCodes.OK, connection.getResponseCode());
+        try (InputStream input = connection.getInputStream()) {
+            while (input.read() >= 0) {
+                // Consume the response
+            }
+        }
+    }
+
+    private static List<String> awaitLines(Path file, int count) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            if (lines.size() >= count) {
+                return lines;
+            }
+            Thread.sleep(10);
+        }
+        fail("Timed out waiting for " + count + " access log lines");
+        return null;
+    }
+
+    @Test
+    public void testLog() throws Exception {
+        Path directory = this.folder.newFolder().toPath();
+        this.writer = new AsyncAccessLogWriter(AccessLogFormat.JSON, 16, Runnable::run, directory, "access.", "log", false);
+        this.writer.open();
+        StructuredAccessLogHandler handler = new StructuredAccessLogHandler(exchange -> exchange.getResponseSender().send("content"), this.writer, Predicates.not(Predicates.suffixes(".css")));
+        this.server = Undertow.builder().addHttpListener(0, "127.0.0.1").setHandler(handler).build();
+        this.server.start();
+
+        request("/style.css?a=b", "agent");
+        request("/page?a=b", "quoted \"agent\"");
+
+        List<String> lines = awaitLines(directory.resolve("access.log"), 1);
+        assertEquals(1, lines.size());
+        String line = lines.get(0);
+        assertTrue(line, line.startsWith("{\"time\":\""));
+        assertTrue(line, line.contains(",\"remote-address\":\"127.0.0.1\",\"method\":\"GET\",\"uri\":\"/page\",\"query\":\"a=b\",\"protocol\":\"HTTP/1.1\",\"status\":200,\"bytes-sent\":7,"));
+        assertTrue(line, line.endsWith(",\"user-agent\":\"quoted \\\"agent\\\"\"}"));
+        assertEquals(0L, this.writer.getDroppedRecords());
+    }
+}
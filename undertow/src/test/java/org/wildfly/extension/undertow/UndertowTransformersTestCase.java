@@ -42,7 +42,10 @@ import org.jboss.as.subsystem.test.KernelServicesBuilder;
 import org.jboss.dmr.ModelNode;
 import org.junit.Assert;
 import org.junit.Test;
+import org.wildfly.extension.undertow.filters.AdaptiveRequestLimitFilter;
+import org.wildfly.extension.undertow.filters.GzipFilter;
 import org.wildfly.extension.undertow.filters.ModClusterDefinition;
+import org.wildfly.extension.undertow.handlers.FileHandler;
 import org.wildfly.extension.undertow.handlers.ReverseProxyHandler;
 
 /**
@@ -105,6 +108,10 @@ public class UndertowTransformersTestCase extends AbstractSubsystemBaseTest {
         PathAddress reverseProxy = subsystemAddress.append(UndertowExtension.PATH_HANDLERS).append(Constants.REVERSE_PROXY);
         PathAddress reverseProxyServerAddress = reverseProxy.append(Constants.HOST);
         PathAddress modClusterPath = subsystemAddress.append(UndertowExtension.PATH_FILTERS).append(Constants.MOD_CLUSTER);
+        PathAddress fileHandlerAddress = subsystemAddress.append(UndertowExtension.PATH_HANDLERS).append(Constants.FILE);
+        PathAddress gzipAddress = subsystemAddress.append(UndertowExtension.PATH_FILTERS).append(GzipFilter.INSTANCE.getPathElement());
+        PathAddress adaptiveRequestLimitAddress = subsystemAddress.append(UndertowExtension.PATH_FILTERS).append(AdaptiveRequestLimitFilter.INSTANCE.getPathElement());
+        PathAddress persistentSessionsAddress = subsystemAddress.append(UndertowExtension.PATH_SERVLET_CONTAINER).append(UndertowExtension.PATH_PERSISTENT_SESSIONS);
 
         ModelTestUtils.checkFailedTransformedBootOperations(mainServices, targetVersion, ops, new FailedOperationTransformationConfig()
                 .addFailedAttribute(httpAddress,
@@ -133,6 +140,12 @@ public class UndertowTransformersTestCase extends AbstractSubsystemBaseTest {
                         .build())
                 .addFailedAttribute(subsystemAddress.append(UndertowExtension.PATH_APPLICATION_SECURITY_DOMAIN).append(UndertowExtension.PATH_SSO), FailedOperationTransformationConfig.REJECTED_RESOURCE)
                 .addFailedAttribute(subsystemAddress.append(UndertowExtension.PATH_APPLICATION_SECURITY_DOMAIN), FailedOperationTransformationConfig.REJECTED_RESOURCE)
+                .addFailedAttribute(fileHandlerAddress, new FailedOperationTransformationConfig.NewAttributesConfig(FileHandler.TRANSFER_MIN_SIZE, FileHandler.MAPPED_CACHE_SIZE))
+                .addFailedAttribute(gzipAddress, new FailedOperationTransformationConfig.NewAttributesConfig(GzipFilter.CACHE_SIZE, GzipFilter.PRECOMPRESSED))
+                .addFailedAttribute(adaptiveRequestLimitAddress, FailedOperationTransformationConfig.REJECTED_RESOURCE)
+                // The queue size of an access log is discarded, as it only applies to the asynchronous formats
+                .addFailedAttribute(hostAddress.append(UndertowExtension.PATH_ACCESS_LOG), new FailedOperationTransformationConfig.NewAttributesConfig(AccessLogDefinition.FORMAT))
+                .addFailedAttribute(persistentSessionsAddress, new FailedOperationTransformationConfig.NewAttributesConfig(PersistentSessionsDefinition.INCREMENTAL))
 
         );
     }
@@ -0,0 +1,153 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.extension.undertow.filters;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import io.undertow.Undertow;
+import io.undertow.server.handlers.BlockingHandler;
+import io.undertow.util.StatusCodes;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link AdaptiveRequestLimiter}, which sends requests to an embedded server whose requests block until
+ * released.
+ */
+public class AdaptiveRequestLimiterTestCase {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService clients = Executors.newCachedThreadPool();
+    private AdaptiveRequestLimiter limiter;
+    private Undertow server;
+
+    @After
+    public void destroy() {
+        this.release.countDown();
+        this.clients.shutdownNow();
+        if (this.server != null) {
+            this.server.stop();
+        }
+    }
+
+    /**
+     * Starts a server limited to a fixed number of concurrent requests.
+     */
+    private void start(int limit, int queueSize) {
+        this.limiter = new AdaptiveRequestLimiter(new GradientLimit(limit, limit, limit), queueSize);
+        this.server = Undertow.builder().addHttpListener(0, "127.0.0.1").setHandler(this.limiter.createHandler(new BlockingHandler(exchange -> this.release.await()))).build();
+        this.server.start();
+    }
+
+    /**
+     * Sends a request from another thread.
+     * @return the future status code of the response
+     */
+    private Future<Integer> request() {
+        return this.clients.submit(() -> {
+            int port = ((InetSocketAddress) this.server.getListenerInfo().get(0).getAddress()).getPort();
+            HttpURLConnection connection = (HttpURLConnection) new URL("http", "127.0.0.1", port, "/").openConnection();
+            try {
+                return connection.getResponseCode();
+            } catch (IOException e) {
+                return 0;
+            } finally {
+                connection.disconnect();
+            }
+        });
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean() && (System.nanoTime() < deadline)) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    @Test
+    public void queue() throws Exception {
+        this.start(1, 1);
+
+        Future<Integer> first = this.request();
+        await(() -> this.limiter.getInFlight() == 1);
+        // Exceeds the limit, so waits for the first request to complete
+        Future<Integer> second = this.request();
+        await(() -> this.limiter.getQueued() == 1);
+        assertFalse(second.isDone());
+        assertEquals(1, this.limiter.getInFlight());
+
+        this.release.countDown();
+        assertEquals(StatusCodes.OK, first.get(10, TimeUnit.SECONDS).intValue());
+        assertEquals(StatusCodes.OK, second.get(10, TimeUnit.SECONDS).intValue());
+        await(() -> this.limiter.getInFlight() == 0);
+        assertEquals(0, this.limiter.getQueued());
+        assertEquals(0, this.limiter.getRejected());
+    }
+
+    @Test
+    public void rejectWhenQueueIsFull() throws Exception {
+        this.start(1, 1);
+
+        Future<Integer> first = this.request();
+        await(() -> this.limiter.getInFlight() == 1);
+        Future<Integer> second = this.request();
+        await(() -> this.limiter.getQueued() == 1);
+
+        // Rejected at once, while the other requests are still pending
+        assertEquals(StatusCodes.SERVICE_UNAVAILABLE, this.request().get(10, TimeUnit.SECONDS).intValue());
+        assertEquals(1, this.limiter.getRejected());
+        assertFalse(first.isDone());
+        assertFalse(second.isDone());
+
+        this.release.countDown();
+        assertEquals(StatusCodes.OK, first.get(10, TimeUnit.SECONDS).intValue());
+        assertEquals(StatusCodes.OK, second.get(10, TimeUnit.SECONDS).intValue());
+        assertEquals(1, this.limiter.getRejected());
+    }
+
+    @Test
+    public void rejectWithoutQueue() throws Exception {
+        this.start(1, 0);
+
+        Future<Integer> first = this.request();
+        await(() -> this.limiter.getInFlight() == 1);
+        assertEquals(StatusCodes.SERVICE_UNAVAILABLE, this.request().get(10, TimeUnit.SECONDS).intValue());
+        assertEquals(0, this.limiter.getQueued());
+        assertEquals(1, this.limiter.getRejected());
+
+        this.release.countDown();
+        assertEquals(StatusCodes.OK, first.get(10, TimeUnit.SECONDS).intValue());
+        await(() -> this.limiter.getInFlight() == 0);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.extension.undertow.filters;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link CompressedResponseCache}.
+ */
+public class CompressedResponseCacheTestCase {
+
+    private static CompressedResponseCache.Entry entry(String etag, int length) {
+        return new CompressedResponseCache.Entry(etag, "text/plain", new byte[length]);
+    }
+
+    @Test
+    public void getAndPut() {
+        CompressedResponseCache cache = new CompressedResponseCache(800);
+        assertNull(cache.get("/a"));
+
+        CompressedResponseCache.Entry entry = entry("\"1\"", 10);
+        cache.put("/a", entry);
+        assertSame(entry, cache.get("/a"));
+        assertEquals("\"1\"", cache.get("/a").getETag());
+        assertEquals("text/plain", cache.get("/a").getContentType());
+
+        // A modified response replaces the cached one
+        CompressedResponseCache.Entry modified = entry("\"2\"", 20);
+        cache.put("/a", modified);
+        assertSame(modified, cache.get("/a"));
+
+        cache.clear();
+        assertNull(cache.get("/a"));
+    }
+
+    @Test
+    public void maxEntrySize() {
+        CompressedResponseCache cache = new CompressedResponseCache(800);
+        assertEquals(100, cache.getMaxEntrySize());
+
+        cache.put("/large", entry("\"1\"", 101));
+        assertNull(cache.get("/large"));
+
+        cache.put("/max", entry("\"1\"", 100));
+        assertNotNull(cache.get("/max"));
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() {
+        CompressedResponseCache cache = new CompressedResponseCache(800);
+        for (int i = 0; i < 8; ++i) {
+            cache.put("/" + i, entry("\"1\"", 100));
+        }
+        // Makes /1 the least recently used
+        assertNotNull(cache.get("/0"));
+
+        // Evicts /1
+        cache.put("/8", entry("\"1\"", 100));
+        assertNull(cache.get("/1"));
+        assertNotNull(cache.get("/0"));
+        for (int i = 2; i <= 8; ++i) {
+            assertNotNull(cache.get("/" + i));
+        }
+
+        // Replacing an entry with a smaller one frees the difference
+        cache.put("/0", entry("\"2\"", 50));
+        cache.put("/9", entry("\"1\"", 50));
+        for (int i = 2; i <= 9; ++i) {
+            assertNotNull(cache.get("/" + i));
+        }
+        assertNotNull(cache.get("/0"));
+
+        // Evicts /2
+        cache.put("/10", entry("\"1\"", 100));
+        assertNull(cache.get("/2"));
+        assertNotNull(cache.get("/3"));
+        assertNotNull(cache.get("/10"));
+    }
+
+    @Test
+    public void evictSeveral() {
+        CompressedResponseCache cache = new CompressedResponseCache(160);
+        for (int i = 0; i < 16; ++i) {
+            cache.put("/" + i, entry("\"1\"", 10));
+        }
+
+        // Evicts as many of the least recently used entries as needed
+        cache.put("/large", entry("\"1\"", 20));
+        assertNull(cache.get("/0"));
+        assertNull(cache.get("/1"));
+        for (int i = 2; i < 16; ++i) {
+            assertNotNull(cache.get("/" + i));
+        }
+        assertNotNull(cache.get("/large"));
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.extension.undertow.filters;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import io.undertow.Undertow;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.handlers.encoding.ContentEncodingRepository;
+import io.undertow.server.handlers.encoding.EncodingHandler;
+import io.undertow.server.handlers.encoding.GzipEncodingProvider;
+import io.undertow.server.handlers.resource.PathResourceManager;
+import io.undertow.servlet.Servlets;
+import io.undertow.servlet.api.DeploymentInfo;
+import io.undertow.servlet.api.DeploymentManager;
+import io.undertow.servlet.handlers.DefaultServlet;
+import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for {@link CompressedResponseHandler}, which sends requests through the handler chain of a gzip filter
+ * to an embedded server.
+ */
+public class CompressedResponseHandlerTestCase {
+
+    private static final String PATH = "/resource";
+    private static final String GZIP = "gzip";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final CompressionStatistics statistics = new CompressionStatistics();
+    private final CompressedResponseCache cache = new CompressedResponseCache(1024 * 1024);
+    private final AtomicReference<String> etag = new AtomicReference<>("\"1\"");
+    private final AtomicReference<String> content = new AtomicReference<>(createContent("first"));
+    private final AtomicInteger notModified = new AtomicInteger();
+    private Undertow server;
+    private DeploymentManager deployment;
+
+    private static String createContent(String word) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 1000; ++i) {
+            builder.append(word).append(' ').append(i).append('\n');
+        }
+        return builder.toString();
+    }
+
+    @After
+    public void destroy() throws Exception {
+        if (this.server != null) {
+            this.server.stop();
+        }
+        if (this.deployment != null) {
+            this.deployment.stop();
+            this.deployment.undeploy();
+        }
+    }
+
+    /**
+     * Starts a server whose handler chain is the one created by {@link GzipFilterService}.
+     */
+    private void start(HttpHandler next, CompressedResponseCache cache, boolean precompressed) {
+        EncodingHandler encodingHandler = new EncodingHandler(new ContentEncodingRepository()
+                .addEncodingHandler(GZIP, new MeteredEncodingProvider(new GzipEncodingProvider(), this.statistics), 50));
+        CompressedResponseHandler handler = new CompressedResponseHandler(encodingHandler, null, cache, precompressed, this.statistics);
+        encodingHandler.setNext(handler.createReplacementHandler(next));
+        this.server = Undertow.builder().addHttpListener(0, "127.0.0.1").setHandler(handler).build();
+        this.server.start();
+    }
+
+    /**
+     * Responds with the current content and ETag, or with 304 if the request matches the current ETag.
+     */
+    private HttpHandler createApplication() {
+        return exchange -> {
+            String etag = this.etag.get();
+            exchange.getResponseHeaders().put(Headers.ETAG, etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst(Headers.IF_NONE_MATCH))) {
+                this.notModified.incrementAndGet();
+                exchange.setStatusCode(StatusCodes.NOT_MODIFIED);
+            } else {
+                exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain");
+                exchange.getResponseSender().send(this.content.get());
+            }
+        };
+    }
+
+    private HttpURLConnection request(String path, boolean gzip) throws IOException {
+        int port = ((InetSocketAddress) this.server.getListenerInfo().get(0).getAddress()).getPort();
+        HttpURLConnection connection = (HttpURLConnection) new URL("http", "127.0.0.1", port, path).openConnection();
+        if (gzip) {
+            connection.setRequestProperty(Headers.ACCEPT_ENCODING_STRING, GZIP);
+        }
+        return connection;
+    }
+
+    private static String read(HttpURLConnection connection) throws IOException {
+        assertEquals(StatusCodes.OK, connection.getResponseCode());
+        try (InputStream input = GZIP.equals(connection.getContentEncoding()) ? new GZIPInputStream(connection.getInputStream()) : connection.getInputStream()) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+                output.write(buffer, 0, read);
+            }
+            return new String(output.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * The compressed body of a response is cached once the response completes.
+     */
+    private CompressedResponseCache.Entry awaitCached(String etag) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        CompressedResponseCache.Entry entry = this.cache.get(PATH);
+        while (((entry == null) || !etag.equals(entry.getETag())) && (System.nanoTime() < deadline)) {
+            Thread.sleep(10);
+            entry = this.cache.get(PATH);
+        }
+        assertNotNull(entry);
+        assertEquals(etag, entry.getETag());
+        return entry;
+    }
+
+    @Test
+    public void cacheHit() throws Exception {
+        this.start(this.createApplication(), this.cache, false);
+
+        HttpURLConnection connection = this.request(PATH, true);
+        assertEquals(this.content.get(), read(connection));
+        assertEquals(GZIP, connection.getContentEncoding());
+        assertEquals(0, this.statistics.getCacheHits());
+        assertEquals(1, this.statistics.getCacheMisses());
+        assertEquals("text/plain", this.awaitCached("\"1\"").getContentType());
+
+        // The request is made conditional on the cached ETag, and the 304 of the application is replaced by the cached body
+        connection = this.request(PATH, true);
+        assertEquals(this.content.get(), read(connection));
+        assertEquals(GZIP, connection.getContentEncoding());
+        assertEquals("\"1\"", connection.getHeaderField(Headers.ETAG_STRING));
+        assertEquals("text/plain", connection.getContentType());
+        assertEquals(Headers.ACCEPT_ENCODING_STRING, connection.getHeaderField(Headers.VARY_STRING));
+        assertEquals(1, this.notModified.get());
+        assertEquals(1, this.statistics.getCacheHits());
+        assertEquals(1, this.statistics.getCacheMisses());
+    }
+
+    @Test
+    public void modified() throws Exception {
+        this.start(this.createApplication(), this.cache, false);
+
+        assertEquals(this.content.get(), read(this.request(PATH, true)));
+        this.awaitCached("\"1\"");
+
+        // The application does not confirm the cached ETag, so the new response is compressed and cached instead
+        this.etag.set("\"2\"");
+        this.content.set(createContent("second"));
+
+        HttpURLConnection connection = this.request(PATH, true);
+        assertEquals(this.content.get(), read(connection));
+        assertEquals("\"2\"", connection.getHeaderField(Headers.ETAG_STRING));
+        assertEquals(0, this.notModified.get());
+        assertEquals(0, this.statistics.getCacheHits());
+        assertEquals(2, this.statistics.getCacheMisses());
+        this.awaitCached("\"2\"");
+
+        assertEquals(this.content.get(), read(this.request(PATH, true)));
+        assertEquals(1, this.statistics.getCacheHits());
+    }
+
+    @Test
+    public void conditionalRequest() throws Exception {
+        this.start(this.createApplication(), this.cache, false);
+
+        assertEquals(this.content.get(), read(this.request(PATH, true)));
+        this.awaitCached("\"1\"");
+
+        // A request made conditional by the client is answered by the application
+        HttpURLConnection connection = this.request(PATH, true);
+        connection.setRequestProperty(Headers.IF_NONE_MATCH_STRING, "\"1\"");
+        assertEquals(StatusCodes.NOT_MODIFIED, connection.getResponseCode());
+        assertEquals(1, this.notModified.get());
+        assertEquals(0, this.statistics.getCacheHits());
+    }
+
+    @Test
+    public void identity() throws Exception {
+        this.start(this.createApplication(), this.cache, false);
+
+        HttpURLConnection connection = this.request(PATH, false);
+        assertEquals(this.content.get(), read(connection));
+        assertNull(connection.getContentEncoding());
+        assertNull(this.cache.get(PATH));
+        assertEquals(0, this.statistics.getCacheHits());
+        assertEquals(0, this.statistics.getCacheMisses());
+    }
+
+    @Test
+    public void precompressed() throws Exception {
+        Path root = this.folder.getRoot().toPath();
+        String content = "body { color: black; }";
+        String precompressed = "/* precompressed */ body { color: black; }";
+        Files.write(root.resolve("style.css"), content.getBytes(StandardCharsets.UTF_8));
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(root.resolve("style.css.gz")))) {
+            output.write(precompressed.getBytes(StandardCharsets.UTF_8));
+        }
+        DeploymentInfo info = Servlets.deployment()
+                .setClassLoader(this.getClass().getClassLoader())
+                .setContextPath("/")
+                .setDeploymentName("test.war")
+                .setResourceManager(new PathResourceManager(root, 1024 * 1024))
+                .addServlet(Servlets.servlet("default", DefaultServlet.class).addMapping("/"));
+        this.deployment = Servlets.defaultContainer().addDeployment(info);
+        this.deployment.deploy();
+        this.start(this.deployment.start(), null, true);
+
+        HttpURLConnection connection = this.request("/style.css", true);
+        assertEquals(precompressed, read(connection));
+        assertEquals(GZIP, connection.getContentEncoding());
+        assertEquals(Headers.ACCEPT_ENCODING_STRING, connection.getHeaderField(Headers.VARY_STRING));
+        assertEquals(1, this.statistics.getPrecompressedResponses());
+
+        // Clients that do not accept gzip get the resource itself
+        connection = this.request("/style.css", false);
+        assertEquals(content, read(connection));
+        assertNull(connection.getContentEncoding());
+        assertEquals(1, this.statistics.getPrecompressedResponses());
+    }
+}
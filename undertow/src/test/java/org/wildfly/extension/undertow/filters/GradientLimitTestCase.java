@@ -0,0 +1,118 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.extension.undertow.filters;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link GradientLimit}
+ */
+public class GradientLimitTestCase {
+
+    private static final long LATENCY = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * Records a window of samples of the specified latency, and returns the time at the end of the window.
+     */
+    private static long window(GradientLimit limit, long now, long latency, int inFlight) {
+        long end = now + GradientLimit.MIN_WINDOW_DURATION;
+        limit.sample(latency, inFlight, now);
+        for (int i = 1; i < GradientLimit.MIN_WINDOW_SAMPLES; ++i) {
+            limit.sample(latency, inFlight, end);
+        }
+        return end + 1;
+    }
+
+    @Test
+    public void growsWhileLatencyIsStable() {
+        GradientLimit limit = new GradientLimit(20, 1, 1000);
+        long now = 0;
+        for (int i = 0; i < 20; ++i) {
+            now = window(limit, now, LATENCY, limit.getLimit());
+        }
+        assertTrue(limit.getLimit() > 20);
+    }
+
+    @Test
+    public void doesNotGrowWhenNotLimited() {
+        GradientLimit limit = new GradientLimit(20, 1, 1000);
+        long now = 0;
+        for (int i = 0; i < 20; ++i) {
+            now = window(limit, now, LATENCY, 2);
+        }
+        assertEquals(20, limit.getLimit());
+    }
+
+    @Test
+    public void inFlightIncludesTheSampledRequest() {
+        GradientLimit limit = new GradientLimit(20, 1, 1000);
+        long now = 0;
+        // Below half the limit, including the sampled request
+        for (int i = 0; i < 20; ++i) {
+            now = window(limit, now, LATENCY, 9);
+        }
+        assertEquals(20, limit.getLimit());
+        for (int i = 0; i < 2; ++i) {
+            now = window(limit, now, LATENCY, 10);
+        }
+        assertTrue(limit.getLimit() > 20);
+    }
+
+    @Test
+    public void shrinksByAtMostATenthPerWindow() {
+        GradientLimit limit = new GradientLimit(1000, 1, 1000);
+        long now = window(limit, 0, LATENCY, 1000);
+        int stable = limit.getLimit();
+        window(limit, now, LATENCY * 100, stable);
+        assertTrue(limit.getLimit() < stable);
+        assertTrue(limit.getLimit() >= stable * 0.9);
+    }
+
+    @Test
+    public void shrinksWhenLatencyIncreases() {
+        GradientLimit limit = new GradientLimit(100, 1, 1000);
+        long now = window(limit, 0, LATENCY, 100);
+        int stable = limit.getLimit();
+        for (int i = 0; i < 10; ++i) {
+            now = window(limit, now, LATENCY * 10, limit.getLimit());
+        }
+        assertTrue(limit.getLimit() < stable / 2);
+    }
+
+    @Test
+    public void staysWithinBounds() {
+        GradientLimit limit = new GradientLimit(20, 10, 30);
+        long now = 0;
+        for (int i = 0; i < 100; ++i) {
+            now = window(limit, now, LATENCY, limit.getLimit());
+        }
+        assertEquals(30, limit.getLimit());
+        for (int i = 0; i < 20; ++i) {
+            now = window(limit, now, LATENCY * 100, limit.getLimit());
+        }
+        assertEquals(10, limit.getLimit());
+    }
+}
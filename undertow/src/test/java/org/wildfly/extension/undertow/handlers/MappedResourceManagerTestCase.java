@@ -0,0 +1,207 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.extension.undertow.handlers;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import io.undertow.io.IoCallback;
+import io.undertow.io.Sender;
+import io.undertow.server.handlers.resource.PathResourceManager;
+import io.undertow.server.handlers.resource.Resource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+
+/**
+ * Unit test for {@link MappedResourceManager}.
+ */
+public class MappedResourceManagerTestCase {
+
+    private static final long TRANSFER_MIN_SIZE = 1024;
+    private static final long CAPACITY = 100;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MappedResourceManager manager;
+
+    @Before
+    public void init() {
+        this.manager = new MappedResourceManager(new PathResourceManager(this.folder.getRoot().toPath(), TRANSFER_MIN_SIZE), TRANSFER_MIN_SIZE, CAPACITY);
+    }
+
+    @After
+    public void destroy() throws IOException {
+        this.manager.close();
+    }
+
+    private byte[] createFile(String name, int length) throws IOException {
+        byte[] content = new byte[length];
+        Arrays.fill(content, (byte) name.charAt(0));
+        Files.write(this.folder.getRoot().toPath().resolve(name), content);
+        return content;
+    }
+
+    @Test
+    public void hitAndMiss() throws IOException {
+        this.createFile("a", 10);
+
+        Resource resource = this.manager.getResource("a");
+        assertNotNull(resource);
+        assertEquals(Long.valueOf(10), resource.getContentLength());
+        assertNotNull(resource.getETag());
+        assertEquals(0, this.manager.getHitCount());
+        assertEquals(1, this.manager.getMissCount());
+
+        Resource cached = this.manager.getResource("a");
+        assertEquals(resource.getETag(), cached.getETag());
+        assertEquals(1, this.manager.getHitCount());
+        assertEquals(1, this.manager.getMissCount());
+        assertEquals(10, this.manager.getCachedBytes());
+        assertEquals(10, this.manager.getMappedBytes());
+
+        assertNull(this.manager.getResource("missing"));
+        assertEquals(1, this.manager.getMissCount());
+    }
+
+    @Test
+    public void modified() throws IOException {
+        Path file = this.folder.getRoot().toPath().resolve("a");
+        this.createFile("a", 10);
+        this.manager.getResource("a");
+
+        Files.write(file, new byte[20]);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 2000));
+
+        Resource resource = this.manager.getResource("a");
+        assertEquals(Long.valueOf(20), resource.getContentLength());
+        assertEquals(0, this.manager.getHitCount());
+        assertEquals(2, this.manager.getMissCount());
+        assertEquals(20, this.manager.getCachedBytes());
+        assertEquals(20, this.manager.getMappedBytes());
+    }
+
+    @Test
+    public void sizeThresholds() throws IOException {
+        // Files sent via transferTo(...) are not mapped
+        this.createFile("large", (int) TRANSFER_MIN_SIZE);
+        // Files that could never fit are not mapped
+        this.createFile("medium", (int) CAPACITY + 1);
+        this.folder.newFolder("directory");
+
+        assertNotNull(this.manager.getResource("large"));
+        assertNotNull(this.manager.getResource("medium"));
+        assertTrue(this.manager.getResource("directory").isDirectory());
+
+        assertEquals(0, this.manager.getHitCount());
+        assertEquals(0, this.manager.getMissCount());
+        assertEquals(0, this.manager.getCachedBytes());
+
+        this.createFile("small", (int) CAPACITY);
+        this.manager.getResource("small");
+
+        assertEquals(1, this.manager.getMissCount());
+        assertEquals(CAPACITY, this.manager.getCachedBytes());
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() throws IOException {
+        this.createFile("a", 40);
+        this.createFile("b", 40);
+        this.createFile("c", 40);
+
+        this.manager.getResource("a");
+        this.manager.getResource("b");
+        // Makes b the least recently used
+        this.manager.getResource("a");
+        // Evicts b
+        this.manager.getResource("c");
+
+        assertEquals(1, this.manager.getHitCount());
+        assertEquals(3, this.manager.getMissCount());
+        assertEquals(80, this.manager.getCachedBytes());
+        assertEquals(80, this.manager.getMappedBytes());
+
+        // Evicts a
+        this.manager.getResource("b");
+        this.manager.getResource("c");
+
+        assertEquals(2, this.manager.getHitCount());
+        assertEquals(4, this.manager.getMissCount());
+
+        this.manager.getResource("a");
+
+        assertEquals(2, this.manager.getHitCount());
+        assertEquals(5, this.manager.getMissCount());
+        assertEquals(80, this.manager.getCachedBytes());
+    }
+
+    @Test
+    public void evictWhileSending() throws IOException {
+        byte[] content = this.createFile("a", 60);
+        this.createFile("b", 60);
+        this.createFile("c", 30);
+
+        Sender sender = mock(Sender.class);
+        IoCallback callback = mock(IoCallback.class);
+        this.manager.getResource("a").serve(sender, null, callback);
+
+        ArgumentCaptor<ByteBuffer> buffer = ArgumentCaptor.forClass(ByteBuffer.class);
+        ArgumentCaptor<IoCallback> completion = ArgumentCaptor.forClass(IoCallback.class);
+        verify(sender).send(buffer.capture(), completion.capture());
+        byte[] sent = new byte[buffer.getValue().remaining()];
+        buffer.getValue().get(sent);
+        assertArrayEquals(content, sent);
+
+        // Evicts a, which stays mapped until it is sent
+        this.manager.getResource("b");
+
+        assertEquals(60, this.manager.getCachedBytes());
+        assertEquals(120, this.manager.getMappedBytes());
+
+        // Regions still being sent do not count towards the capacity of the cache
+        this.manager.getResource("c");
+        this.manager.getResource("b");
+
+        assertEquals(1, this.manager.getHitCount());
+        assertEquals(90, this.manager.getCachedBytes());
+        assertEquals(150, this.manager.getMappedBytes());
+
+        completion.getValue().onComplete(null, sender);
+
+        verify(callback).onComplete(null, sender);
+        assertEquals(90, this.manager.getCachedBytes());
+        assertEquals(90, this.manager.getMappedBytes());
+    }
+}